@@ -0,0 +1,103 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.benchmarks;
+
+import ai.rideos.android.common.authentication.User;
+import ai.rideos.android.common.reactive.SchedulerProviders.TrampolineSchedulerProvider;
+import ai.rideos.android.interactors.DefaultDriverPlanInteractor;
+import ai.rideos.android.model.VehiclePlan;
+import ai.rideos.api.ride_hail_driver.v1.RideHailDriver.GetVehicleStateRequest;
+import ai.rideos.api.ride_hail_driver.v1.RideHailDriver.GetVehicleStateResponse;
+import ai.rideos.api.ride_hail_driver.v1.RideHailDriverServiceGrpc.RideHailDriverServiceImplBase;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.reactivex.Single;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks turning a vehicle state response into the driver's VehiclePlan. The in-process server hands the response
+ * object to the client without serializing it, so parseResponse measures decoding the same response from bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DriverPlanBenchmark {
+    private byte[] responseBytes;
+    private Server server;
+    private ManagedChannel channel;
+    private DefaultDriverPlanInteractor interactor;
+
+    @Setup
+    public void setUp() throws IOException {
+        final GetVehicleStateResponse response = Fixtures.getVehicleStateResponse();
+        responseBytes = response.toByteArray();
+
+        final String serverName = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(serverName)
+            .directExecutor()
+            .addService(new RideHailDriverServiceImplBase() {
+                @Override
+                public void getVehicleState(final GetVehicleStateRequest request,
+                                            final StreamObserver<GetVehicleStateResponse> responseObserver) {
+                    responseObserver.onNext(response);
+                    responseObserver.onCompleted();
+                }
+            })
+            .build()
+            .start();
+        channel = InProcessChannelBuilder.forName(serverName).directExecutor().build();
+
+        final User user = Mockito.mock(User.class);
+        Mockito.when(user.fetchUserToken()).thenReturn(Single.just(Fixtures.API_TOKEN));
+        interactor = new DefaultDriverPlanInteractor(() -> channel, user, new TrampolineSchedulerProvider());
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Benchmark
+    public GetVehicleStateResponse parseResponse() throws InvalidProtocolBufferException {
+        return GetVehicleStateResponse.parseFrom(responseBytes);
+    }
+
+    @Benchmark
+    public VehiclePlan getPlanForVehicle() {
+        return interactor.getPlanForVehicle(Fixtures.VEHICLE_ID).blockingFirst();
+    }
+}
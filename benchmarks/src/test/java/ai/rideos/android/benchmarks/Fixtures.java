@@ -0,0 +1,207 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.benchmarks;
+
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.PackedPath;
+import ai.rideos.android.common.utils.Locations;
+import ai.rideos.android.common.utils.PolylineCodec;
+import ai.rideos.api.commons.ride_hail_commons.RideHailCommons.AssignedVehicle;
+import ai.rideos.api.commons.ride_hail_commons.RideHailCommons.ContactInfo;
+import ai.rideos.api.commons.ride_hail_commons.RideHailCommons.DriverInfo;
+import ai.rideos.api.commons.ride_hail_commons.RideHailCommons.PickupDropoff;
+import ai.rideos.api.commons.ride_hail_commons.RideHailCommons.RiderInfo;
+import ai.rideos.api.commons.ride_hail_commons.RideHailCommons.Stop;
+import ai.rideos.api.commons.ride_hail_commons.RideHailCommons.TripDefinition;
+import ai.rideos.api.commons.ride_hail_commons.RideHailCommons.TripState;
+import ai.rideos.api.commons.ride_hail_commons.RideHailCommons.TripState.DrivingToPickup;
+import ai.rideos.api.commons.ride_hail_commons.RideHailCommons.VehicleInfo;
+import ai.rideos.api.commons.ride_hail_commons.RideHailCommons.VehicleState;
+import ai.rideos.api.commons.ride_hail_commons.RideHailCommons.VehicleState.Plan;
+import ai.rideos.api.commons.ride_hail_commons.RideHailCommons.VehicleState.Step;
+import ai.rideos.api.commons.ride_hail_commons.RideHailCommons.VehicleState.Step.DriveToLocation;
+import ai.rideos.api.commons.ride_hail_commons.RideHailCommons.VehicleState.Step.DropoffRider;
+import ai.rideos.api.commons.ride_hail_commons.RideHailCommons.VehicleState.Step.PickupRider;
+import ai.rideos.api.commons.ride_hail_commons.RideHailCommons.VehicleState.Step.RouteLeg;
+import ai.rideos.api.ride_hail_driver.v1.RideHailDriver.GetVehicleStateResponse;
+import ai.rideos.api.ride_hail_rider.v1.RideHailRider.GetTripDefinitionResponse;
+import ai.rideos.api.ride_hail_rider.v1.RideHailRider.GetTripStateResponseRC;
+import com.google.protobuf.FloatValue;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Fixtures provides the inputs shared by the benchmarks. Server responses are read from recorded protobuf messages
+ * in the fixtures/ test resources when present (e.g. fixtures/vehicle_state.pb), and are otherwise generated
+ * deterministically with the shape of a busy pooled vehicle: several trips, each with a few hundred vertices of route.
+ */
+public final class Fixtures {
+    public static final String VEHICLE_ID = "vehicle-0";
+    public static final String TRIP_ID = "trip-0";
+    public static final String FLEET_ID = "fleet-0";
+    public static final String API_TOKEN = "token";
+
+    private static final LatLng ORIGIN = new LatLng(37.7749, -122.4194);
+    private static final double STEP_DEGREES = 0.0002;
+    private static final int VERTICES_PER_LEG = 300;
+    private static final int TRIPS_PER_PLAN = 6;
+    private static final long SEED = 42;
+
+    private interface Parser<T> {
+        T parseFrom(final InputStream input) throws IOException;
+    }
+
+    private Fixtures() {
+    }
+
+    /**
+     * Returns a random walk with roughly 20 m between vertices, the density of a decoded route polyline.
+     */
+    public static PackedPath getRoute(final int vertexCount, final long seed) {
+        final Random random = new Random(seed);
+        final PackedPath.Builder builder = PackedPath.builder(vertexCount);
+        double latitude = ORIGIN.getLatitude();
+        double longitude = ORIGIN.getLongitude();
+        for (int i = 0; i < vertexCount; i++) {
+            builder.add(latitude, longitude);
+            latitude += (random.nextDouble() - 0.3) * STEP_DEGREES;
+            longitude += (random.nextDouble() - 0.3) * STEP_DEGREES;
+        }
+        return builder.build();
+    }
+
+    public static String getPolyline(final int vertexCount, final long seed) {
+        return new PolylineCodec(PolylineCodec.PRECISION_5).encode(getRoute(vertexCount, seed));
+    }
+
+    public static GetVehicleStateResponse getVehicleStateResponse() {
+        return load("vehicle_state.pb", GetVehicleStateResponse::parseFrom, Fixtures::generateVehicleStateResponse);
+    }
+
+    public static GetTripStateResponseRC getTripStateResponse() {
+        return load("trip_state.pb", GetTripStateResponseRC::parseFrom, Fixtures::generateTripStateResponse);
+    }
+
+    public static GetTripDefinitionResponse getTripDefinitionResponse() {
+        return load(
+            "trip_definition.pb",
+            GetTripDefinitionResponse::parseFrom,
+            Fixtures::generateTripDefinitionResponse
+        );
+    }
+
+    private static <T> T load(final String name, final Parser<T> parser, final Supplier<T> generator) {
+        try (final InputStream input = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            return input == null ? generator.get() : parser.parseFrom(input);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Could not read fixture " + name, e);
+        }
+    }
+
+    private static GetVehicleStateResponse generateVehicleStateResponse() {
+        final Plan.Builder plan = Plan.newBuilder();
+        for (int i = 0; i < TRIPS_PER_PLAN; i++) {
+            addTripSteps(plan, "trip-" + i, 2L * i);
+        }
+        return GetVehicleStateResponse.newBuilder()
+            .setState(VehicleState.newBuilder().setPlan(plan))
+            .build();
+    }
+
+    private static GetTripStateResponseRC generateTripStateResponse() {
+        // The vehicle finishes another rider's trip before picking up this one
+        final Plan.Builder plan = Plan.newBuilder();
+        addTripSteps(plan, "trip-1", 2);
+        addTripSteps(plan, TRIP_ID, 0);
+        return GetTripStateResponseRC.newBuilder()
+            .setState(TripState.newBuilder().setDrivingToPickup(DrivingToPickup.newBuilder()
+                .setAssignedVehicle(AssignedVehicle.newBuilder()
+                    .setId(VEHICLE_ID)
+                    .setHeading(FloatValue.newBuilder().setValue(90.0f))
+                    .setPosition(Locations.toRideOsPosition(ORIGIN))
+                    .setInfo(VehicleInfo.newBuilder()
+                        .setLicensePlate("7ABC123")
+                        .setDriverInfo(DriverInfo.newBuilder().setContactInfo(getContactInfo("Driver")))
+                    )
+                    .setPlanThroughTripEnd(plan)
+                )
+            ))
+            .build();
+    }
+
+    private static GetTripDefinitionResponse generateTripDefinitionResponse() {
+        final PackedPath toPickup = getRoute(VERTICES_PER_LEG, SEED);
+        final PackedPath toDropOff = getRoute(VERTICES_PER_LEG, SEED + 1);
+        return GetTripDefinitionResponse.newBuilder()
+            .setDefinition(TripDefinition.newBuilder()
+                .setPickupDropoff(PickupDropoff.newBuilder()
+                    .setPickup(Stop.newBuilder().setPosition(Locations.toRideOsPosition(toPickup.getLast())))
+                    .setDropoff(Stop.newBuilder().setPosition(Locations.toRideOsPosition(toDropOff.getLast())))
+                )
+            )
+            .build();
+    }
+
+    private static void addTripSteps(final Plan.Builder plan, final String tripId, final long seed) {
+        final PackedPath toPickup = getRoute(VERTICES_PER_LEG, SEED + seed);
+        final PackedPath toDropOff = getRoute(VERTICES_PER_LEG, SEED + seed + 1);
+        final RiderInfo riderInfo = RiderInfo.newBuilder().setContactInfo(getContactInfo("Rider " + tripId)).build();
+        plan
+            .addStep(Step.newBuilder()
+                .setId(tripId + "-step-0")
+                .setTripId(tripId)
+                .setPosition(Locations.toRideOsPosition(toPickup.getLast()))
+                .setDriveToLocation(DriveToLocation.newBuilder().setRoute(getRouteLeg(toPickup)))
+            )
+            .addStep(Step.newBuilder()
+                .setId(tripId + "-step-1")
+                .setTripId(tripId)
+                .setPosition(Locations.toRideOsPosition(toPickup.getLast()))
+                .setPickupRider(PickupRider.newBuilder().setRiderCount(1).setRiderInfo(riderInfo))
+            )
+            .addStep(Step.newBuilder()
+                .setId(tripId + "-step-2")
+                .setTripId(tripId)
+                .setPosition(Locations.toRideOsPosition(toDropOff.getLast()))
+                .setDriveToLocation(DriveToLocation.newBuilder().setRoute(getRouteLeg(toDropOff)))
+            )
+            .addStep(Step.newBuilder()
+                .setId(tripId + "-step-3")
+                .setTripId(tripId)
+                .setPosition(Locations.toRideOsPosition(toDropOff.getLast()))
+                .setDropoffRider(DropoffRider.newBuilder().setRiderCount(1).setRiderInfo(riderInfo))
+            );
+    }
+
+    private static RouteLeg getRouteLeg(final PackedPath route) {
+        return RouteLeg.newBuilder()
+            .setPolyline(new PolylineCodec(PolylineCodec.PRECISION_5).encode(route))
+            .setDistanceInMeters(route.size() * 20)
+            .setTravelTimeInSeconds(route.size() * 2)
+            .build();
+    }
+
+    private static ContactInfo getContactInfo(final String name) {
+        return ContactInfo.newBuilder()
+            .setName(name)
+            .setPhoneNumber("123-456-7890")
+            .setContactUrl("https://rideos.ai")
+            .build();
+    }
+}
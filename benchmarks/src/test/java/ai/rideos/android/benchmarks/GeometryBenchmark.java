@@ -0,0 +1,223 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.benchmarks;
+
+import ai.rideos.android.common.location.CellIds;
+import ai.rideos.android.common.location.DistanceCalculator;
+import ai.rideos.android.common.location.Geodesy;
+import ai.rideos.android.common.location.HaversineDistanceCalculator;
+import ai.rideos.android.common.location.NearestNeighborIndex;
+import ai.rideos.android.common.location.PathPyramid;
+import ai.rideos.android.common.location.PathSimplifier;
+import ai.rideos.android.common.location.PathSimplifier.SimplifiedPath;
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.PackedPath;
+import ai.rideos.android.common.model.map.LatLngBounds;
+import ai.rideos.android.common.utils.Locations;
+import ai.rideos.android.common.utils.Paths;
+import ai.rideos.android.common.utils.SetOperations;
+import ai.rideos.android.common.utils.SetOperations.DiffResult;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the geometry that runs on every map update: path bounds for camera updates, bounds around a location,
+ * distances between locations, and diffing the sets of markers and paths on the map. Also benchmarks simplifying
+ * navigation routes to a vertex budget, building the per-zoom levels of detail of a path, and the cell IDs used to
+ * bucket locations, and the nearest neighbor index used to match vehicles to locations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryBenchmark {
+    private static final int DISTANCE_PAIRS = 1000;
+    private static final int SET_SIZE = 500;
+    private static final int SIMPLIFIED_MAX_VERTICES = 500;
+    private static final int CELL_LEVEL = 16;
+    private static final int COVERING_MAX_CELLS = 64;
+    private static final int NEAREST_QUERIES = 100;
+    private static final int NEAREST_COUNT = 5;
+
+    @Param({"100", "2000", "10000"})
+    public int vertexCount;
+
+    private final DistanceCalculator distanceCalculator = new HaversineDistanceCalculator();
+    private final PathSimplifier pathSimplifier =
+        new PathSimplifier(PathSimplifier.Settings.defaults(SIMPLIFIED_MAX_VERTICES));
+    private final long[] covering = new long[COVERING_MAX_CELLS];
+    private PackedPath path;
+    private List<LatLng> pathList;
+    private LatLng center;
+    private NearestNeighborIndex<LatLng> nearestNeighborIndex;
+    private List<LatLng> nearestQueries;
+    private Set<String> previousIds;
+    private Set<String> currentIds;
+
+    @Setup
+    public void setUp() {
+        path = Fixtures.getRoute(vertexCount, 0);
+        pathList = path.asList();
+        center = path.getFirst();
+        nearestNeighborIndex = new NearestNeighborIndex<>(pathList, Optional::of);
+        nearestQueries = Fixtures.getRoute(NEAREST_QUERIES, 1).asList();
+
+        // Consecutive map updates mostly show the same items, with a few added and a few removed
+        previousIds = new HashSet<>();
+        currentIds = new HashSet<>();
+        for (int i = 0; i < SET_SIZE; i++) {
+            previousIds.add("item-" + i);
+            currentIds.add("item-" + (i + SET_SIZE / 10));
+        }
+    }
+
+    @Benchmark
+    public LatLngBounds boundsForPathList() {
+        return Paths.getBoundsForPath(pathList);
+    }
+
+    @Benchmark
+    public LatLngBounds boundsForPackedPath() {
+        return LatLngBounds.builder().include(path).build();
+    }
+
+    @Benchmark
+    public LatLngBounds boundsForPackedPathWithAdditionalPoint() {
+        return Paths.getBoundsForPath(path, center);
+    }
+
+    @Benchmark
+    public LatLngBounds boundsFromCenterAndRadius() {
+        return Locations.getBoundsFromCenterAndRadius(center, 1000);
+    }
+
+    @Benchmark
+    public double haversineDistances() {
+        final int pairs = Math.min(DISTANCE_PAIRS, path.size() - 1);
+        double total = 0;
+        for (int i = 0; i < pairs; i++) {
+            total += distanceCalculator.getDistanceInMeters(path.get(i), path.get(i + 1));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double geodesyHaversineDistances() {
+        final int pairs = Math.min(DISTANCE_PAIRS, path.size() - 1);
+        double total = 0;
+        for (int i = 0; i < pairs; i++) {
+            total += Geodesy.getHaversineMeters(
+                path.getLatitude(i),
+                path.getLongitude(i),
+                path.getLatitude(i + 1),
+                path.getLongitude(i + 1)
+            );
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double geodesyEquirectangularDistances() {
+        final int pairs = Math.min(DISTANCE_PAIRS, path.size() - 1);
+        double total = 0;
+        for (int i = 0; i < pairs; i++) {
+            total += Geodesy.getEquirectangularMeters(
+                path.getLatitude(i),
+                path.getLongitude(i),
+                path.getLatitude(i + 1),
+                path.getLongitude(i + 1)
+            );
+        }
+        return total;
+    }
+
+    // Encodes each vertex as a cell and steps to its parent and eastern neighbor
+    @Benchmark
+    public long cellIdsForPath() {
+        long checksum = 0;
+        for (int i = 0; i < path.size(); i++) {
+            final long cellId = CellIds.fromLatLng(path.getLatitude(i), path.getLongitude(i), CELL_LEVEL);
+            checksum ^= CellIds.getParent(cellId) + CellIds.getNeighbor(cellId, CellIds.EAST);
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public int cellCoveringAroundCenter() {
+        return CellIds.getCircleCovering(
+            center.getLatitude(),
+            center.getLongitude(),
+            2000,
+            CELL_LEVEL,
+            COVERING_MAX_CELLS,
+            covering
+        );
+    }
+
+    @Benchmark
+    public NearestNeighborIndex<LatLng> buildNearestNeighborIndex() {
+        return new NearestNeighborIndex<>(pathList, Optional::of);
+    }
+
+    @Benchmark
+    public int findNearest() {
+        int found = 0;
+        for (final LatLng query : nearestQueries) {
+            found += nearestNeighborIndex.findNearest(query).isPresent() ? 1 : 0;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int findNearestFew() {
+        int found = 0;
+        for (final LatLng query : nearestQueries) {
+            found += nearestNeighborIndex.findNearest(query, NEAREST_COUNT).size();
+        }
+        return found;
+    }
+
+    @Benchmark
+    public DiffResult<String> setDifferences() {
+        return SetOperations.getDifferences(previousIds, currentIds);
+    }
+
+    @Benchmark
+    public SimplifiedPath simplifyPath() {
+        return pathSimplifier.simplify(path);
+    }
+
+    @Benchmark
+    public PathPyramid buildPathPyramid() {
+        return new PathPyramid(path);
+    }
+}
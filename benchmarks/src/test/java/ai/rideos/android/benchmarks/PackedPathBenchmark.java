@@ -0,0 +1,80 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.benchmarks;
+
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.PackedPath;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks building a route as a PackedPath against building it as a List of LatLng. Run with -PjmhProfiler=gc to
+ * compare how much each allocates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PackedPathBenchmark {
+    @Param({"100", "2000"})
+    public int vertexCount;
+
+    private double[] latitudes;
+    private double[] longitudes;
+
+    @Setup
+    public void setUp() {
+        final PackedPath route = Fixtures.getRoute(vertexCount, 0);
+        latitudes = new double[vertexCount];
+        longitudes = new double[vertexCount];
+        for (int i = 0; i < vertexCount; i++) {
+            latitudes[i] = route.getLatitude(i);
+            longitudes[i] = route.getLongitude(i);
+        }
+    }
+
+    @Benchmark
+    public PackedPath buildPackedPath() {
+        final PackedPath.Builder builder = PackedPath.builder(vertexCount);
+        for (int i = 0; i < vertexCount; i++) {
+            builder.add(latitudes[i], longitudes[i]);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public List<LatLng> buildLatLngList() {
+        final List<LatLng> latLngs = new ArrayList<>(vertexCount);
+        for (int i = 0; i < vertexCount; i++) {
+            latLngs.add(new LatLng(latitudes[i], longitudes[i]));
+        }
+        return latLngs;
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.benchmarks;
+
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.PackedPath;
+import ai.rideos.android.common.utils.Locations;
+import ai.rideos.android.common.utils.PolylineCodec;
+import com.google.maps.android.PolyUtil;
+import com.mapbox.core.constants.Constants;
+import com.mapbox.geojson.LineString;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks decoding route polylines from server responses and encoding paths back to polylines, against the Google
+ * Maps and Mapbox conversions that PolylineCodec replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolylineBenchmark {
+    @Param({"100", "2000"})
+    public int vertexCount;
+
+    private final PolylineCodec codec = new PolylineCodec(PolylineCodec.PRECISION_5);
+    private final PolylineCodec precision6Codec = new PolylineCodec(PolylineCodec.PRECISION_6);
+    private PackedPath path;
+    private List<LatLng> latLngs;
+    private String polyline;
+    private String precision6Polyline;
+
+    @Setup
+    public void setUp() {
+        path = Fixtures.getRoute(vertexCount, 0);
+        latLngs = path.asList();
+        polyline = codec.encode(path);
+        precision6Polyline = precision6Codec.encode(path);
+    }
+
+    @Benchmark
+    public PackedPath decode() {
+        return codec.decode(polyline);
+    }
+
+    @Benchmark
+    public List<LatLng> decodeWithPolyUtil() {
+        return PolyUtil.decode(polyline).stream()
+            .map(Locations::fromGoogleLatLng)
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public PackedPath decodePrecision6() {
+        return precision6Codec.decode(precision6Polyline);
+    }
+
+    @Benchmark
+    public List<LatLng> decodePrecision6WithMapbox() {
+        return LineString.fromPolyline(precision6Polyline, Constants.PRECISION_6).coordinates().stream()
+            .map(point -> new LatLng(point.latitude(), point.longitude()))
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public String encode() {
+        return codec.encode(path);
+    }
+
+    @Benchmark
+    public String encodeWithPolyUtil() {
+        return PolyUtil.encode(latLngs.stream().map(Locations::toGoogleLatLng).collect(Collectors.toList()));
+    }
+}
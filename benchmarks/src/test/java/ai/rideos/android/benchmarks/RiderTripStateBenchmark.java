@@ -0,0 +1,120 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.benchmarks;
+
+import ai.rideos.android.common.authentication.User;
+import ai.rideos.android.common.reactive.SchedulerProviders.TrampolineSchedulerProvider;
+import ai.rideos.android.common.utils.PolylineCodec;
+import ai.rideos.android.interactors.DefaultRiderTripStateInteractor;
+import ai.rideos.android.model.TripStateModel;
+import ai.rideos.api.ride_hail_rider.v1.RideHailRider.GetTripDefinitionRequest;
+import ai.rideos.api.ride_hail_rider.v1.RideHailRider.GetTripDefinitionResponse;
+import ai.rideos.api.ride_hail_rider.v1.RideHailRider.GetTripStateRequestRC;
+import ai.rideos.api.ride_hail_rider.v1.RideHailRider.GetTripStateResponseRC;
+import ai.rideos.api.ride_hail_rider.v1.RideHailRiderServiceGrpc.RideHailRiderServiceImplBase;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.reactivex.Single;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks turning trip state and definition responses into the rider's TripStateModel, including decoding the
+ * route polylines. The in-process server hands the responses to the client without serializing them, so
+ * parseResponse measures decoding the trip state from bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RiderTripStateBenchmark {
+    private byte[] stateResponseBytes;
+    private Server server;
+    private ManagedChannel channel;
+    private DefaultRiderTripStateInteractor interactor;
+
+    @Setup
+    public void setUp() throws IOException {
+        final GetTripStateResponseRC stateResponse = Fixtures.getTripStateResponse();
+        final GetTripDefinitionResponse definitionResponse = Fixtures.getTripDefinitionResponse();
+        stateResponseBytes = stateResponse.toByteArray();
+
+        final String serverName = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(serverName)
+            .directExecutor()
+            .addService(new RideHailRiderServiceImplBase() {
+                @Override
+                public void getTripStateRC(final GetTripStateRequestRC request,
+                                           final StreamObserver<GetTripStateResponseRC> responseObserver) {
+                    responseObserver.onNext(stateResponse);
+                    responseObserver.onCompleted();
+                }
+
+                @Override
+                public void getTripDefinition(final GetTripDefinitionRequest request,
+                                              final StreamObserver<GetTripDefinitionResponse> responseObserver) {
+                    responseObserver.onNext(definitionResponse);
+                    responseObserver.onCompleted();
+                }
+            })
+            .build()
+            .start();
+        channel = InProcessChannelBuilder.forName(serverName).directExecutor().build();
+
+        final User user = Mockito.mock(User.class);
+        Mockito.when(user.fetchUserToken()).thenReturn(Single.just(Fixtures.API_TOKEN));
+        interactor = new DefaultRiderTripStateInteractor(
+            () -> channel,
+            user,
+            new PolylineCodec(PolylineCodec.PRECISION_5),
+            new TrampolineSchedulerProvider()
+        );
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Benchmark
+    public GetTripStateResponseRC parseResponse() throws InvalidProtocolBufferException {
+        return GetTripStateResponseRC.parseFrom(stateResponseBytes);
+    }
+
+    @Benchmark
+    public TripStateModel getTripState() {
+        return interactor.getTripState(Fixtures.TRIP_ID, Fixtures.FLEET_ID).blockingGet();
+    }
+}
@@ -0,0 +1,188 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.benchmarks;
+
+import ai.rideos.android.common.location.Geodesy;
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.RouteInfoModel;
+import ai.rideos.android.common.routing.RoadGraph;
+import ai.rideos.android.common.routing.RoadGraphRouter;
+import ai.rideos.android.common.routing.RoadGraphRouter.NoRouteException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks opening a city-sized road graph file and routing between random nodes of it. The graph is a grid of
+ * two-way roads with a random speed per road. Run with -PjmhProfiler=gc to see how little opening the memory-mapped
+ * file allocates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoadGraphBenchmark {
+    private static final int GRID_SIZE = 300;
+    private static final double GRID_SPACING_DEGREES = 0.001;
+    private static final LatLng GRID_ORIGIN = new LatLng(37.7, -122.5);
+    private static final int QUERY_COUNT = 256;
+    // The header layout and format version documented in RoadGraph
+    private static final int MAGIC = 0x52474452;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+
+    private File graphFile;
+    private RoadGraphRouter router;
+    private LatLng[][] queries;
+    private int nextQuery = 0;
+
+    @Setup
+    public void setUp() throws IOException {
+        graphFile = File.createTempFile("road_graph_benchmark", ".bin");
+        writeGrid(graphFile, new Random(11));
+        router = new RoadGraphRouter(RoadGraph.open(graphFile));
+
+        final Random random = new Random(5);
+        queries = new LatLng[QUERY_COUNT][];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            queries[i] = new LatLng[]{getNodeLatLng(random.nextInt(GRID_SIZE * GRID_SIZE)),
+                getNodeLatLng(random.nextInt(GRID_SIZE * GRID_SIZE))};
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphFile.delete();
+    }
+
+    @Benchmark
+    public RoadGraphRouter openGraphAndCreateRouter() throws IOException {
+        return new RoadGraphRouter(RoadGraph.open(graphFile));
+    }
+
+    @Benchmark
+    public RouteInfoModel route() throws NoRouteException {
+        final LatLng[] query = queries[nextQuery];
+        nextQuery = (nextQuery + 1) % QUERY_COUNT;
+        return router.route(query[0], query[1]);
+    }
+
+    private static LatLng getNodeLatLng(final int node) {
+        return new LatLng(
+            GRID_ORIGIN.getLatitude() + (node / GRID_SIZE) * GRID_SPACING_DEGREES,
+            GRID_ORIGIN.getLongitude() + (node % GRID_SIZE) * GRID_SPACING_DEGREES
+        );
+    }
+
+    // Returns the nodes with a road to the given node, in the order their edges are written
+    private static int[] getNeighbors(final int node) {
+        final int row = node / GRID_SIZE;
+        final int column = node % GRID_SIZE;
+        final int[] candidates = {
+            row > 0 ? node - GRID_SIZE : -1,
+            column > 0 ? node - 1 : -1,
+            column + 1 < GRID_SIZE ? node + 1 : -1,
+            row + 1 < GRID_SIZE ? node + GRID_SIZE : -1
+        };
+        int count = 0;
+        for (final int candidate : candidates) {
+            if (candidate >= 0) {
+                candidates[count++] = candidate;
+            }
+        }
+        final int[] neighbors = new int[count];
+        System.arraycopy(candidates, 0, neighbors, 0, count);
+        return neighbors;
+    }
+
+    private static void writeGrid(final File file, final Random random) throws IOException {
+        final int nodeCount = GRID_SIZE * GRID_SIZE;
+        // Each road gets one speed, shared by both of its directions
+        final float[] horizontalSpeeds = new float[nodeCount];
+        final float[] verticalSpeeds = new float[nodeCount];
+        int edgeCount = 0;
+        float maxSpeed = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            horizontalSpeeds[node] = 5 + random.nextFloat() * 25;
+            verticalSpeeds[node] = 5 + random.nextFloat() * 25;
+            maxSpeed = Math.max(maxSpeed, Math.max(horizontalSpeeds[node], verticalSpeeds[node]));
+            edgeCount += getNeighbors(node).length;
+        }
+
+        final ByteBuffer buffer = ByteBuffer
+            .allocate(HEADER_BYTES + 4 * (3 * nodeCount + 1 + 3 * edgeCount))
+            .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(nodeCount).putInt(edgeCount).putFloat(maxSpeed * (1 + 1e-6f));
+        buffer.position(HEADER_BYTES);
+        for (int node = 0; node < nodeCount; node++) {
+            buffer.putInt((int) Math.round(getNodeLatLng(node).getLatitude() * 1e7));
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            buffer.putInt((int) Math.round(getNodeLatLng(node).getLongitude() * 1e7));
+        }
+        int offset = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            buffer.putInt(offset);
+            offset += getNeighbors(node).length;
+        }
+        buffer.putInt(offset);
+
+        final int targetsPosition = buffer.position();
+        final int lengthsPosition = targetsPosition + 4 * edgeCount;
+        final int secondsPosition = lengthsPosition + 4 * edgeCount;
+        int edge = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            final LatLng source = getNodeLatLng(node);
+            for (final int neighbor : getNeighbors(node)) {
+                final LatLng target = getNodeLatLng(neighbor);
+                final float speed = Math.abs(neighbor - node) == 1
+                    ? horizontalSpeeds[Math.min(node, neighbor)]
+                    : verticalSpeeds[Math.min(node, neighbor)];
+                final double lengthMeters = Geodesy.getHaversineMeters(
+                    source.getLatitude(),
+                    source.getLongitude(),
+                    target.getLatitude(),
+                    target.getLongitude()
+                );
+                buffer.putInt(targetsPosition + 4 * edge, neighbor);
+                buffer.putFloat(lengthsPosition + 4 * edge, (float) lengthMeters);
+                buffer.putFloat(secondsPosition + 4 * edge, (float) (lengthMeters / speed));
+                edge++;
+            }
+        }
+        buffer.position(0);
+        try (final FileOutputStream output = new FileOutputStream(file)) {
+            output.getChannel().write(buffer);
+        }
+    }
+}
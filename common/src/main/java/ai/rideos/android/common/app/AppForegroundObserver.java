@@ -0,0 +1,70 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.app;
+
+import ai.rideos.android.common.grpc.ChannelLifecycleManager;
+import android.app.Activity;
+import android.app.Application.ActivityLifecycleCallbacks;
+import android.os.Bundle;
+
+/**
+ * AppForegroundObserver counts started activities to tell when the app as a whole enters or leaves the foreground,
+ * and forwards those transitions to the ChannelLifecycleManager.
+ */
+public class AppForegroundObserver implements ActivityLifecycleCallbacks {
+    private final ChannelLifecycleManager channelLifecycleManager;
+    private int startedActivityCount = 0;
+
+    public AppForegroundObserver(final ChannelLifecycleManager channelLifecycleManager) {
+        this.channelLifecycleManager = channelLifecycleManager;
+    }
+
+    @Override
+    public void onActivityStarted(final Activity activity) {
+        startedActivityCount++;
+        if (startedActivityCount == 1) {
+            channelLifecycleManager.onForeground();
+        }
+    }
+
+    @Override
+    public void onActivityStopped(final Activity activity) {
+        startedActivityCount--;
+        if (startedActivityCount == 0) {
+            channelLifecycleManager.onBackground();
+        }
+    }
+
+    @Override
+    public void onActivityCreated(final Activity activity, final Bundle savedInstanceState) {
+    }
+
+    @Override
+    public void onActivityResumed(final Activity activity) {
+    }
+
+    @Override
+    public void onActivityPaused(final Activity activity) {
+    }
+
+    @Override
+    public void onActivitySaveInstanceState(final Activity activity, final Bundle outState) {
+    }
+
+    @Override
+    public void onActivityDestroyed(final Activity activity) {
+    }
+}
@@ -16,15 +16,21 @@
 package ai.rideos.android.common.app;
 
 import ai.rideos.android.common.BuildConfig;
+import ai.rideos.android.common.authentication.User;
+import ai.rideos.android.common.grpc.ChannelLifecycleManager;
+import ai.rideos.android.common.grpc.ChannelLifecycleManager.Settings;
+import ai.rideos.android.common.grpc.ChannelProvider;
 import ai.rideos.android.common.reactive.ErrorHandlers;
 import android.app.Application;
+import io.reactivex.Completable;
 import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.Schedulers;
 import timber.log.Timber;
 import timber.log.Timber.DebugTree;
 
 /**
- * Default application that sets up logging and Rx error handling. This can be used as the base to the rider or driver
- * applications.
+ * Default application that sets up logging, Rx error handling and the API channel lifecycle. This can be used as the
+ * base to the rider or driver applications.
  */
 public abstract class BaseApplication extends Application {
     @Override
@@ -39,7 +45,27 @@ public abstract class BaseApplication extends Application {
         }
 
         registerDependencies();
+        registerActivityLifecycleCallbacks(new AppForegroundObserver(createChannelLifecycleManager()));
     }
 
     protected abstract void registerDependencies();
+
+    /**
+     * Override to change when the API channel is warmed up and closed, for example to disable warmup when measuring
+     * the cold time to first RPC.
+     */
+    protected ChannelLifecycleManager createChannelLifecycleManager() {
+        return new ChannelLifecycleManager(
+            () -> ChannelProvider.getChannelSupplierForContext(this).get(),
+            () -> Completable.defer(() -> {
+                final User user = User.get(this);
+                return user.isLoggedIn() ? user.fetchUserToken().ignoreElement() : Completable.complete();
+            })
+                .subscribeOn(Schedulers.io()),
+            ChannelProvider.getChannelPool(),
+            ChannelProvider.getRpcMetrics(),
+            Schedulers.computation(),
+            Settings.defaults()
+        );
+    }
 }
@@ -20,4 +20,5 @@ public class CommonMetadataKeys {
     public static final String MAPBOX_TOKEN_KEY = "mapbox_token";
     public static final String ENABLE_DEVELOPER_OPTIONS_KEY = "enable_developer_options";
     public static final String ENABLE_PUSH_NOTIFICATIONS = "enable_push_notifications";
+    public static final String OFFLINE_ROAD_GRAPH_FILE_KEY = "offline_road_graph_file";
 }
@@ -15,16 +15,32 @@
  */
 package ai.rideos.android.common.app.dependency;
 
+import ai.rideos.android.common.app.CommonMetadataKeys;
+import ai.rideos.android.common.app.MetadataReader;
 import ai.rideos.android.common.authentication.User;
 import ai.rideos.android.common.grpc.ChannelProvider;
 import ai.rideos.android.common.interactors.DefaultDeviceRegistryInteractor;
 import ai.rideos.android.common.interactors.DefaultFleetInteractor;
 import ai.rideos.android.common.interactors.DeviceRegistryInteractor;
+import ai.rideos.android.common.interactors.FallbackRouteInteractor;
 import ai.rideos.android.common.interactors.FleetInteractor;
+import ai.rideos.android.common.interactors.OfflineRouteInteractor;
 import ai.rideos.android.common.interactors.RideOsRouteInteractor;
+import ai.rideos.android.common.interactors.RouteInteractor;
+import ai.rideos.android.common.routing.RoadGraph;
+import ai.rideos.android.common.routing.RoadGraphRouter;
 import android.content.Context;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import timber.log.Timber;
 
 public abstract class DefaultCommonDependencyFactory implements CommonDependencyFactory {
+    private static final long OFFLINE_ROUTE_FALLBACK_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(8);
+
+    // Shared by every offline route interactor, so the road graph is mapped and its search arrays allocated once
+    private static RoadGraphRouter offlineRouter;
+
     public FleetInteractor getFleetInteractor(final Context context) {
         return new DefaultFleetInteractor(ChannelProvider.getChannelSupplierForContext(context), User.get(context));
     }
@@ -36,4 +52,40 @@ public abstract class DefaultCommonDependencyFactory implements CommonDependency
             User.get(context)
         );
     }
+
+    /**
+     * Add an on-device fallback to a route interactor if the app is configured with an offline road graph, so that
+     * routes are still available when the network is slow or unavailable.
+     */
+    protected RouteInteractor withOfflineRouteFallback(final Context context, final RouteInteractor routeInteractor) {
+        final RoadGraphRouter router = getOfflineRouter(context);
+        if (router == null) {
+            return routeInteractor;
+        }
+        return new FallbackRouteInteractor(
+            routeInteractor,
+            new OfflineRouteInteractor(router),
+            OFFLINE_ROUTE_FALLBACK_TIMEOUT_MILLIS
+        );
+    }
+
+    private static synchronized RoadGraphRouter getOfflineRouter(final Context context) {
+        if (offlineRouter == null) {
+            final String roadGraphFileName = new MetadataReader(context)
+                .getStringMetadata(CommonMetadataKeys.OFFLINE_ROAD_GRAPH_FILE_KEY)
+                .getOrDefault(null);
+            if (roadGraphFileName == null) {
+                return null;
+            }
+            // Assets are compressed and cannot be memory-mapped, so the graph is read from the app's files
+            final File roadGraphFile = new File(context.getApplicationContext().getFilesDir(), roadGraphFileName);
+            try {
+                offlineRouter = new RoadGraphRouter(RoadGraph.open(roadGraphFile));
+            } catch (final IOException e) {
+                Timber.e(e, "Could not open offline road graph %s", roadGraphFile);
+                return null;
+            }
+        }
+        return offlineRouter;
+    }
 }
@@ -19,6 +19,7 @@ import ai.rideos.android.common.model.map.CameraUpdate;
 import ai.rideos.android.common.model.map.CenterPin;
 import ai.rideos.android.common.model.map.DrawableMarker;
 import ai.rideos.android.common.model.map.DrawablePath;
+import ai.rideos.android.common.model.map.DrawablePathPyramid;
 import ai.rideos.android.common.model.map.MapSettings;
 import ai.rideos.android.common.reactive.SchedulerProvider;
 import ai.rideos.android.common.reactive.SchedulerProviders.DefaultSchedulerProvider;
@@ -26,13 +27,17 @@ import ai.rideos.android.common.view.ViewMargins;
 import ai.rideos.android.common.viewmodel.map.MapStateProvider;
 import androidx.annotation.VisibleForTesting;
 import androidx.core.util.Pair;
+import io.reactivex.Maybe;
 import io.reactivex.Observable;
 import io.reactivex.disposables.CompositeDisposable;
 import io.reactivex.disposables.Disposable;
 import io.reactivex.disposables.Disposables;
 import io.reactivex.subjects.BehaviorSubject;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import timber.log.Timber;
 
 /**
  * The MapRelay relays state from a MapStateProvider to a MapFragment by implementing both the MapViewModel and the
@@ -47,6 +52,7 @@ public class MapRelay implements MapViewModel, MapStateReceiver {
     private final BehaviorSubject<MapSettings> mapSettingsSubject = BehaviorSubject.create();
     private final BehaviorSubject<Map<String, DrawableMarker>> markerSubject = BehaviorSubject.create();
     private final BehaviorSubject<List<DrawablePath>> pathSubject = BehaviorSubject.create();
+    private final BehaviorSubject<List<DrawablePathPyramid>> pathPyramidSubject = BehaviorSubject.create();
     private final BehaviorSubject<ViewMargins> mapMarginSubject = BehaviorSubject.create();
     private final BehaviorSubject<MapCenterListener> mapCenterListenerSubject = BehaviorSubject.create();
 
@@ -59,6 +65,18 @@ public class MapRelay implements MapViewModel, MapStateReceiver {
     @VisibleForTesting
     MapRelay(final SchedulerProvider schedulerProvider) {
         this.schedulerProvider = schedulerProvider;
+        // Build level of detail pyramids as soon as paths are published, so the map only has to pick a level. The
+        // relay lives as long as the app, so this subscription is never disposed. If the pyramids for some paths
+        // can't be built, the map keeps showing the last ones, and later paths are still handled.
+        pathSubject.observeOn(schedulerProvider.computation())
+            .flatMapMaybe(paths -> Maybe.fromCallable(() -> buildPyramids(paths))
+                .doOnError(e -> Timber.e(e, "Could not build path pyramids, keeping the last ones"))
+                .onErrorComplete()
+            )
+            .subscribe(
+                pathPyramidSubject::onNext,
+                e -> Timber.e(e, "Stopped building path pyramids")
+            );
     }
 
     public static MapRelay get() {
@@ -160,8 +178,8 @@ public class MapRelay implements MapViewModel, MapStateReceiver {
     }
 
     @Override
-    public Observable<List<DrawablePath>> getPaths() {
-        return pathSubject;
+    public Observable<List<DrawablePathPyramid>> getPaths() {
+        return pathPyramidSubject;
     }
 
     @Override
@@ -208,4 +226,22 @@ public class MapRelay implements MapViewModel, MapStateReceiver {
     public void setMapMargins(final ViewMargins mapMargins) {
         mapMarginSubject.onNext(mapMargins);
     }
+
+    // Providers often publish the same paths again, for example on every location update, so reuse the pyramids of
+    // paths that have not changed
+    private List<DrawablePathPyramid> buildPyramids(final List<DrawablePath> paths) {
+        final List<DrawablePathPyramid> previousPyramids = pathPyramidSubject.hasValue()
+            ? pathPyramidSubject.getValue()
+            : Collections.emptyList();
+        final List<DrawablePathPyramid> pyramids = new ArrayList<>(paths.size());
+        for (final DrawablePath path : paths) {
+            pyramids.add(
+                previousPyramids.stream()
+                    .filter(previousPyramid -> previousPyramid.getDrawablePath().equals(path))
+                    .findFirst()
+                    .orElseGet(() -> new DrawablePathPyramid(path))
+            );
+        }
+        return pyramids;
+    }
 }
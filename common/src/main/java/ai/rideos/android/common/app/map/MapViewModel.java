@@ -18,7 +18,7 @@ package ai.rideos.android.common.app.map;
 import ai.rideos.android.common.app.map.MapStateReceiver.MapCenterListener;
 import ai.rideos.android.common.model.map.CameraUpdate;
 import ai.rideos.android.common.model.map.DrawableMarker;
-import ai.rideos.android.common.model.map.DrawablePath;
+import ai.rideos.android.common.model.map.DrawablePathPyramid;
 import ai.rideos.android.common.model.map.MapSettings;
 import ai.rideos.android.common.view.ViewMargins;
 import io.reactivex.Observable;
@@ -50,7 +50,10 @@ public interface MapViewModel {
 
     Observable<Map<String, DrawableMarker>> getMarkers();
 
-    Observable<List<DrawablePath>> getPaths();
+    /**
+     * Observe the paths to draw, each with a level of detail pyramid that has already been built off the main thread.
+     */
+    Observable<List<DrawablePathPyramid>> getPaths();
 
     Observable<ViewMargins> getMapMargins();
 
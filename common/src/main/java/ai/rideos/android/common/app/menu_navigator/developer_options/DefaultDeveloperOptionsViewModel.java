@@ -19,6 +19,7 @@ import ai.rideos.android.common.R;
 import ai.rideos.android.common.authentication.User;
 import ai.rideos.android.common.fleets.FleetResolver;
 import ai.rideos.android.common.fleets.ResolvedFleet;
+import ai.rideos.android.common.grpc.RpcMetrics;
 import ai.rideos.android.common.interactors.FleetInteractor;
 import ai.rideos.android.common.model.FleetInfo;
 import ai.rideos.android.common.model.SingleSelectOptions;
@@ -31,8 +32,12 @@ import ai.rideos.android.common.user_storage.UserStorageReader;
 import ai.rideos.android.common.user_storage.UserStorageWriter;
 import ai.rideos.android.common.view.resources.ResourceProvider;
 import io.reactivex.Observable;
+import io.reactivex.Single;
 import io.reactivex.disposables.CompositeDisposable;
 import io.reactivex.subjects.BehaviorSubject;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -49,6 +54,7 @@ import timber.log.Timber;
  */
 public class DefaultDeveloperOptionsViewModel implements DeveloperOptionsViewModel {
     private static final int FLEET_RETRY_COUNT = 3;
+    private static final String RPC_METRICS_FILE_PREFIX = "rpc-metrics-";
 
     private final CompositeDisposable compositeDisposable = new CompositeDisposable();
     private final BehaviorSubject<ApiEnvironment> currentEnv;
@@ -60,13 +66,17 @@ public class DefaultDeveloperOptionsViewModel implements DeveloperOptionsViewMod
     private final UserStorageWriter userStorageWriter;
     private final User user;
     private final ResolvedFleet resolvedFleet;
+    private final RpcMetrics rpcMetrics;
+    private final File metricsReportDirectory;
 
     public DefaultDeveloperOptionsViewModel(final FleetInteractor fleetInteractor,
                                             final UserStorageReader userStorageReader,
                                             final UserStorageWriter userStorageWriter,
                                             final ResourceProvider resourceProvider,
                                             final User user,
-                                            final ResolvedFleet resolvedFleet) {
+                                            final ResolvedFleet resolvedFleet,
+                                            final RpcMetrics rpcMetrics,
+                                            final File metricsReportDirectory) {
         this(
             fleetInteractor,
             userStorageReader,
@@ -74,6 +84,8 @@ public class DefaultDeveloperOptionsViewModel implements DeveloperOptionsViewMod
             resourceProvider,
             user,
             resolvedFleet,
+            rpcMetrics,
+            metricsReportDirectory,
             new DefaultSchedulerProvider()
         );
     }
@@ -84,6 +96,8 @@ public class DefaultDeveloperOptionsViewModel implements DeveloperOptionsViewMod
                                             final ResourceProvider resourceProvider,
                                             final User user,
                                             final ResolvedFleet resolvedFleet,
+                                            final RpcMetrics rpcMetrics,
+                                            final File metricsReportDirectory,
                                             final SchedulerProvider schedulerProvider) {
         this.userStorageReader = userStorageReader;
         this.userStorageWriter = userStorageWriter;
@@ -92,6 +106,8 @@ public class DefaultDeveloperOptionsViewModel implements DeveloperOptionsViewMod
         this.user = user;
         this.resolvedFleet = resolvedFleet;
         this.fleetInteractor = fleetInteractor;
+        this.rpcMetrics = rpcMetrics;
+        this.metricsReportDirectory = metricsReportDirectory;
         currentEnv = BehaviorSubject.createDefault(getPreferredEnvironment());
     }
 
@@ -150,6 +166,22 @@ public class DefaultDeveloperOptionsViewModel implements DeveloperOptionsViewMod
         return Observable.just(SingleSelectOptions.withSelection(getEnvOptions(allowedEnvs), envIndex));
     }
 
+    @Override
+    public Single<String> exportRpcMetrics() {
+        return Single.fromCallable(() -> {
+            final File reportFile = new File(
+                metricsReportDirectory,
+                RPC_METRICS_FILE_PREFIX + System.currentTimeMillis() + ".txt"
+            );
+            try (final Writer writer = new FileWriter(reportFile)) {
+                rpcMetrics.writeReport(writer);
+            }
+            return reportFile.getAbsolutePath();
+        })
+            .subscribeOn(schedulerProvider.io())
+            .doOnError(e -> Timber.e(e, "Failed to export RPC metrics"));
+    }
+
     private static List<FleetInfo> addAutomaticFleetOption(final List<FleetInfo> availableFleetIds) {
         // Default fleet id is an empty string. Add it if it doesn't exist
         final List<FleetInfo> fleetListCopy = new ArrayList<>(availableFleetIds);
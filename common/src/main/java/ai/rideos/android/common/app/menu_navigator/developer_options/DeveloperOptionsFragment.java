@@ -20,6 +20,7 @@ import ai.rideos.android.common.app.dependency.CommonDependencyRegistry;
 import ai.rideos.android.common.app.menu_navigator.OpenMenuListener;
 import ai.rideos.android.common.authentication.User;
 import ai.rideos.android.common.fleets.ResolvedFleet;
+import ai.rideos.android.common.grpc.ChannelProvider;
 import ai.rideos.android.common.model.SingleSelectOptions;
 import ai.rideos.android.common.model.SingleSelectOptions.Option;
 import ai.rideos.android.common.user_storage.SharedPreferencesUserStorageReader;
@@ -37,11 +38,14 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.AdapterView;
 import android.widget.AdapterView.OnItemSelectedListener;
+import android.widget.Button;
 import android.widget.Spinner;
 import android.widget.TextView;
+import android.widget.Toast;
 import android.widget.Toolbar;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.CompositeDisposable;
+import java.io.File;
 import java.util.function.Consumer;
 import timber.log.Timber;
 
@@ -60,7 +64,9 @@ public class DeveloperOptionsFragment extends Fragment {
             SharedPreferencesUserStorageReader.forContext(getContext()), SharedPreferencesUserStorageWriter.forContext(getContext()),
             AndroidResourceProvider.forContext(getContext()),
             user,
-            ResolvedFleet.get()
+            ResolvedFleet.get(),
+            ChannelProvider.getRpcMetrics(),
+            getMetricsReportDirectory()
         );
         openMenuListener = (OpenMenuListener) getActivity();
     }
@@ -85,6 +91,24 @@ public class DeveloperOptionsFragment extends Fragment {
         final TextView dispatchIdField = optionsView.findViewById(R.id.dispatch_id_field);
         final Spinner fleetSpinner = optionsView.findViewById(R.id.fleet_id_spinner);
         final Spinner envSpinner = optionsView.findViewById(R.id.rideos_env_spinner);
+        final Button exportMetricsButton = optionsView.findViewById(R.id.export_rpc_metrics_button);
+
+        exportMetricsButton.setOnClickListener(click -> compositeDisposable.add(
+            viewModel.exportRpcMetrics()
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(
+                    path -> Toast.makeText(
+                        getContext(),
+                        getString(R.string.developer_option_rpc_metrics_exported, path),
+                        Toast.LENGTH_LONG
+                    ).show(),
+                    e -> Toast.makeText(
+                        getContext(),
+                        R.string.developer_option_rpc_metrics_export_failed,
+                        Toast.LENGTH_SHORT
+                    ).show()
+                )
+        ));
 
         compositeDisposable.addAll(
             viewModel.getFleetOptions()
@@ -141,6 +165,12 @@ public class DeveloperOptionsFragment extends Fragment {
         }
     }
 
+    private File getMetricsReportDirectory() {
+        // Prefer external app storage so reports can be pulled off the device without root
+        final File externalFilesDir = getContext().getExternalFilesDir(null);
+        return externalFilesDir != null ? externalFilesDir : getContext().getFilesDir();
+    }
+
     @Override
     public void onStop() {
         super.onStop();
@@ -20,6 +20,7 @@ import ai.rideos.android.common.model.SingleSelectOptions.Option;
 import ai.rideos.android.common.user_storage.ApiEnvironment;
 import ai.rideos.android.common.viewmodel.ViewModel;
 import io.reactivex.Observable;
+import io.reactivex.Single;
 
 public interface DeveloperOptionsViewModel extends ViewModel {
     void selectFleetId(final Option<String> fleetIdOption);
@@ -33,4 +34,9 @@ public interface DeveloperOptionsViewModel extends ViewModel {
     Observable<SingleSelectOptions<String>> getFleetOptions();
 
     Observable<SingleSelectOptions<ApiEnvironment>> getEnvironmentOptions();
+
+    /**
+     * Write the collected RPC metrics to a file and return its path, so it can be attached to bug reports.
+     */
+    Single<String> exportRpcMetrics();
 }
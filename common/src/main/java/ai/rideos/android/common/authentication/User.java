@@ -23,14 +23,17 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import com.auth0.android.Auth0;
 import com.auth0.android.authentication.AuthenticationAPIClient;
+import com.auth0.android.authentication.AuthenticationException;
 import com.auth0.android.authentication.storage.CredentialsManager;
 import com.auth0.android.authentication.storage.CredentialsManagerException;
 import com.auth0.android.authentication.storage.SharedPreferencesStorage;
 import com.auth0.android.callback.BaseCallback;
+import com.auth0.android.jwt.DecodeException;
 import com.auth0.android.jwt.JWT;
 import com.auth0.android.result.Credentials;
 import com.auth0.android.result.UserProfile;
 import io.reactivex.Single;
+import java.util.Date;
 
 /**
  * User defines the app's current user. Currently the user can only be authenticated through Auth0 so this class
@@ -40,10 +43,14 @@ public class User {
     // Passenger ID is updated with JWT. It shouldn't be updated manually
     private static final String USER_ID_KEY = "user_id";
 
+    // The user is application-scoped, so every caller shares the same credentials and in-memory token
+    private static User currentUser;
+
     private final AuthenticationAPIClient apiClient;
     private final CredentialsManager credentialsManager;
     private final SharedPreferences sharedPreferences;
     private final SchedulerProvider schedulerProvider;
+    private final UserTokenCache tokenCache;
 
     private User(final Context context, final SchedulerProvider schedulerProvider) {
         this.schedulerProvider = schedulerProvider;
@@ -53,13 +60,30 @@ public class User {
         // Shared preferences are used here to store login information (the user id)
         sharedPreferences = context.getSharedPreferences(USER_AUTH_FILE, Context.MODE_PRIVATE);
         credentialsManager = new CredentialsManager(apiClient, new SharedPreferencesStorage(context, USER_AUTH_FILE));
+        tokenCache = new UserTokenCache(
+            this::fetchTokenFromCredentialsManager,
+            User::getTokenExpiryMillis,
+            schedulerProvider.io()
+        );
+    }
+
+    private static long getTokenExpiryMillis(final String token) {
+        try {
+            final Date expiresAt = new JWT(token).getExpiresAt();
+            return expiresAt == null ? 0 : expiresAt.getTime();
+        } catch (final DecodeException e) {
+            return 0;
+        }
     }
 
     /**
-     * Retrieve the current user for this context.
+     * Retrieve the current user. The user is created once per process from the application context.
      */
-    public static User get(final Context context) {
-        return new User(context, new DefaultSchedulerProvider());
+    public static synchronized User get(final Context context) {
+        if (currentUser == null) {
+            currentUser = new User(context.getApplicationContext(), new DefaultSchedulerProvider());
+        }
+        return currentUser;
     }
 
     /**
@@ -68,6 +92,7 @@ public class User {
     public void updateCredentials(final Credentials credentials) {
         final JWT jwt = new JWT(credentials.getAccessToken());
         credentialsManager.saveCredentials(credentials);
+        tokenCache.invalidate();
         // Store passenger for immediate lookup
         sharedPreferences.edit().putString(USER_ID_KEY, jwt.getSubject()).apply();
     }
@@ -87,14 +112,18 @@ public class User {
     }
 
     /**
-     * Fetch the user's token. This will refresh the current token if the old one has expired.
+     * Fetch the user's token. The token is kept in memory and renewed in the background shortly before it expires.
      */
     public Single<String> fetchUserToken() {
-        return Single.<String>create(emitter ->
+        return tokenCache.getToken();
+    }
+
+    private Single<String> fetchTokenFromCredentialsManager(final boolean forceRenewal) {
+        return Single.<Credentials>create(emitter ->
             credentialsManager.getCredentials(new BaseCallback<Credentials, CredentialsManagerException>() {
                 @Override
                 public void onSuccess(final Credentials payload) {
-                    emitter.onSuccess(payload.getAccessToken());
+                    emitter.onSuccess(payload);
                 }
 
                 @Override
@@ -103,9 +132,46 @@ public class User {
                 }
             })
         )
+            .flatMap(credentials -> {
+                // The credentials manager only renews credentials once they have expired, so renewing ahead of
+                // expiry has to go through the refresh token directly
+                if (!forceRenewal || credentials.getRefreshToken() == null) {
+                    return Single.just(credentials.getAccessToken());
+                }
+                return renewCredentials(credentials.getRefreshToken()).map(Credentials::getAccessToken);
+            })
             .subscribeOn(schedulerProvider.io());
     }
 
+    private Single<Credentials> renewCredentials(final String refreshToken) {
+        return Single.<Credentials>create(emitter ->
+            apiClient.renewAuth(refreshToken).start(new BaseCallback<Credentials, AuthenticationException>() {
+                @Override
+                public void onSuccess(final Credentials payload) {
+                    emitter.onSuccess(payload);
+                }
+
+                @Override
+                public void onFailure(final AuthenticationException error) {
+                    emitter.onError(error);
+                }
+            })
+        )
+            .map(renewed -> {
+                // Renewals don't always return a new refresh token, so keep the old one for the next renewal
+                final Credentials credentials = new Credentials(
+                    renewed.getIdToken(),
+                    renewed.getAccessToken(),
+                    renewed.getType(),
+                    renewed.getRefreshToken() == null ? refreshToken : renewed.getRefreshToken(),
+                    renewed.getExpiresAt(),
+                    renewed.getScope()
+                );
+                credentialsManager.saveCredentials(credentials);
+                return credentials;
+            });
+    }
+
     /**
      * Fetch the user's profile. This will refresh the current token if the old one has expired.
      */
@@ -127,6 +193,7 @@ public class User {
      */
     public void clearCredentials() {
         credentialsManager.clearCredentials();
+        tokenCache.invalidate();
         sharedPreferences.edit().clear().apply();
     }
 }
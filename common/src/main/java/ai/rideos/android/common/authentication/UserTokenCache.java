@@ -0,0 +1,157 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.authentication;
+
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import java.util.concurrent.TimeUnit;
+import timber.log.Timber;
+
+/**
+ * UserTokenCache keeps the user's access token in memory until shortly before it expires, so that RPCs do not have to
+ * go through the credentials store each time. When the token gets close to expiring, it is renewed in the background
+ * while the current token is still handed out. If renewing early does not give a token that expires later, the
+ * current token is kept until it actually expires. Concurrent callers that need a refresh all share the same request.
+ */
+public class UserTokenCache {
+    private static final Settings DEFAULT_SETTINGS = new Settings(
+        TimeUnit.MINUTES.toMillis(5),
+        TimeUnit.SECONDS.toMillis(30),
+        TimeUnit.MINUTES.toMillis(1)
+    );
+
+    public interface TokenFetcher {
+        // Returns the stored token, or a renewed one if forceRenewal is set or the stored token has expired
+        Single<String> fetchToken(final boolean forceRenewal);
+    }
+
+    public interface ExpiryReader {
+        // Returns the expiry time of the token in epoch millis, or 0 if it is unknown
+        long getExpiryMillis(final String token);
+    }
+
+    public static class Settings {
+        private final long refreshAheadMillis;
+        private final long expiryMarginMillis;
+        private final long unknownExpiryTtlMillis;
+
+        /**
+         * @param refreshAheadMillis - Start a background renewal when the token expires within this window
+         * @param expiryMarginMillis - Stop handing out the token when it expires within this window
+         * @param unknownExpiryTtlMillis - How long to keep a token whose expiry can't be read
+         */
+        public Settings(final long refreshAheadMillis,
+                        final long expiryMarginMillis,
+                        final long unknownExpiryTtlMillis) {
+            this.refreshAheadMillis = refreshAheadMillis;
+            this.expiryMarginMillis = expiryMarginMillis;
+            this.unknownExpiryTtlMillis = unknownExpiryTtlMillis;
+        }
+    }
+
+    private final TokenFetcher tokenFetcher;
+    private final ExpiryReader expiryReader;
+    private final Scheduler clockScheduler;
+    private final Settings settings;
+
+    private String cachedToken;
+    private long cachedTokenExpiryMillis;
+    private boolean canRenewEarly;
+    private Single<String> inFlightRefresh;
+    // Incremented for every refresh and invalidation so stale refreshes can't overwrite newer state
+    private long refreshGeneration = 0;
+
+    public UserTokenCache(final TokenFetcher tokenFetcher,
+                          final ExpiryReader expiryReader,
+                          final Scheduler clockScheduler) {
+        this(tokenFetcher, expiryReader, clockScheduler, DEFAULT_SETTINGS);
+    }
+
+    public UserTokenCache(final TokenFetcher tokenFetcher,
+                          final ExpiryReader expiryReader,
+                          final Scheduler clockScheduler,
+                          final Settings settings) {
+        this.tokenFetcher = tokenFetcher;
+        this.expiryReader = expiryReader;
+        this.clockScheduler = clockScheduler;
+        this.settings = settings;
+    }
+
+    public Single<String> getToken() {
+        return Single.defer(this::getCachedTokenOrRefresh);
+    }
+
+    /**
+     * Drop the cached token, for example when the user logs out or logs in with new credentials.
+     */
+    public synchronized void invalidate() {
+        cachedToken = null;
+        cachedTokenExpiryMillis = 0;
+        canRenewEarly = false;
+        inFlightRefresh = null;
+        refreshGeneration++;
+    }
+
+    private synchronized Single<String> getCachedTokenOrRefresh() {
+        final long now = clockScheduler.now(TimeUnit.MILLISECONDS);
+        if (cachedToken == null || now >= cachedTokenExpiryMillis) {
+            return refresh(false);
+        }
+        if (!canRenewEarly) {
+            return Single.just(cachedToken);
+        }
+        if (now >= cachedTokenExpiryMillis - settings.expiryMarginMillis) {
+            return refresh(true);
+        }
+        if (now >= cachedTokenExpiryMillis - settings.refreshAheadMillis && inFlightRefresh == null) {
+            refresh(true).subscribe(
+                token -> { },
+                e -> Timber.w(e, "Failed to renew user token ahead of expiry")
+            );
+        }
+        return Single.just(cachedToken);
+    }
+
+    private synchronized Single<String> refresh(final boolean forceRenewal) {
+        if (inFlightRefresh == null) {
+            final long generation = ++refreshGeneration;
+            inFlightRefresh = tokenFetcher.fetchToken(forceRenewal)
+                .doOnSuccess(token -> storeToken(token, generation))
+                .doFinally(() -> clearInFlightRefresh(generation))
+                .cache();
+        }
+        return inFlightRefresh;
+    }
+
+    private synchronized void storeToken(final String token, final long generation) {
+        if (generation != refreshGeneration) {
+            return;
+        }
+        final long expiryMillis = expiryReader.getExpiryMillis(token);
+        // A token that expires no later than the cached one could not be renewed early, so it is kept until it expires
+        canRenewEarly = expiryMillis > 0 && expiryMillis > cachedTokenExpiryMillis;
+        cachedToken = token;
+        cachedTokenExpiryMillis = expiryMillis > 0
+            ? expiryMillis
+            : clockScheduler.now(TimeUnit.MILLISECONDS) + settings.unknownExpiryTtlMillis;
+    }
+
+    private synchronized void clearInFlightRefresh(final long generation) {
+        if (generation == refreshGeneration) {
+            inFlightRefresh = null;
+        }
+    }
+}
@@ -17,31 +17,39 @@ package ai.rideos.android.common.fleets;
 
 import ai.rideos.android.common.device.DeviceLocator;
 import ai.rideos.android.common.interactors.FleetInteractor;
-import ai.rideos.android.common.location.DistanceCalculator;
-import ai.rideos.android.common.location.HaversineDistanceCalculator;
+import ai.rideos.android.common.location.NearestNeighborIndex;
 import ai.rideos.android.common.model.FleetInfo;
 import ai.rideos.android.common.model.LatLng;
 import ai.rideos.android.common.reactive.SchedulerProvider;
 import ai.rideos.android.common.reactive.SchedulerProviders.DefaultSchedulerProvider;
-import androidx.core.util.Pair;
 import io.reactivex.Observable;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import timber.log.Timber;
 
+/**
+ * DefaultFleetResolver resolves a stored fleet ID to a fleet, falling back to the fleet closest to the device. The
+ * fleet list is fetched at most once per refresh interval, and fleets with centers are kept in nearest neighbor
+ * indexes that are only rebuilt when the list changes. Failed fetches fall back to the default fleet and are not
+ * kept, so the next resolution tries again.
+ */
 public class DefaultFleetResolver implements FleetResolver {
     private static final int RETRY_COUNT = 3;
+    private static final long DEFAULT_REFRESH_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(5);
 
     private final FleetInteractor fleetInteractor;
     private final DeviceLocator deviceLocator;
     private final FleetInfo defaultFleetInfo;
-    private final DistanceCalculator distanceCalculator;
     private final SchedulerProvider schedulerProvider;
+    private final long refreshIntervalMillis;
+
+    // The last fleets fetched successfully, replaced as a whole so readers on other threads see a consistent index
+    private volatile FleetIndex fleetIndex = null;
 
     public DefaultFleetResolver(final FleetInteractor fleetInteractor,
                                 final DeviceLocator deviceLocator,
@@ -50,42 +58,44 @@ public class DefaultFleetResolver implements FleetResolver {
             fleetInteractor,
             deviceLocator,
             defaultFleetId,
-            new HaversineDistanceCalculator(),
-            new DefaultSchedulerProvider()
+            new DefaultSchedulerProvider(),
+            DEFAULT_REFRESH_INTERVAL_MILLIS
         );
     }
 
+    /**
+     * @param refreshIntervalMillis - How long a fetched fleet list is used before it is fetched again
+     */
     public DefaultFleetResolver(final FleetInteractor fleetInteractor,
                                 final DeviceLocator deviceLocator,
                                 final String defaultFleetId,
-                                final DistanceCalculator distanceCalculator,
-                                final SchedulerProvider schedulerProvider) {
+                                final SchedulerProvider schedulerProvider,
+                                final long refreshIntervalMillis) {
         this.fleetInteractor = fleetInteractor;
         this.deviceLocator = deviceLocator;
         this.defaultFleetInfo = new FleetInfo(defaultFleetId);
-        this.distanceCalculator = distanceCalculator;
         this.schedulerProvider = schedulerProvider;
+        this.refreshIntervalMillis = refreshIntervalMillis;
     }
 
     @Override
     public Observable<FleetInfo> resolveFleet(final Observable<String> storedFleetId) {
         return storedFleetId.observeOn(schedulerProvider.computation())
-            .flatMap(fleetId -> {
-                if (fleetId.equals(AUTOMATIC_FLEET_ID)) {
-                    return resolveAutomatic();
-                } else {
-                    return getAvailableFleets()
-                        .flatMap(fleets -> {
-                            final OptionalInt fleetIndex = IntStream.range(0, fleets.size())
-                                .filter(i -> fleets.get(i).getId().equals(fleetId))
-                                .findFirst();
-                            if (fleetIndex.isPresent()) {
-                                return Observable.just(fleets.get(fleetIndex.getAsInt()));
-                            }
-                            return resolveAutomatic();
-                        });
-                }
-            });
+            .flatMap(fleetId -> getFleetIndex()
+                .flatMap(index -> {
+                    if (fleetId.equals(AUTOMATIC_FLEET_ID)) {
+                        return resolveAutomatic(index);
+                    }
+                    final List<FleetInfo> fleets = index.fleets;
+                    final OptionalInt fleetPosition = IntStream.range(0, fleets.size())
+                        .filter(i -> fleets.get(i).getId().equals(fleetId))
+                        .findFirst();
+                    if (fleetPosition.isPresent()) {
+                        return Observable.just(fleets.get(fleetPosition.getAsInt()));
+                    }
+                    return resolveAutomatic(index);
+                })
+            );
     }
 
     @Override
@@ -93,56 +103,63 @@ public class DefaultFleetResolver implements FleetResolver {
         fleetInteractor.destroy();
     }
 
-    private Observable<List<FleetInfo>> getAvailableFleets() {
+    private Observable<FleetIndex> getFleetIndex() {
+        final FleetIndex cachedIndex = fleetIndex;
+        final long now = schedulerProvider.computation().now(TimeUnit.MILLISECONDS);
+        if (cachedIndex != null && now - cachedIndex.fetchTimeMillis < refreshIntervalMillis) {
+            return Observable.just(cachedIndex);
+        }
         return fleetInteractor.getFleets()
             .observeOn(schedulerProvider.computation())
             .retry(RETRY_COUNT)
+            .map(fleets -> {
+                // Keep the existing indexes when the fleets have not changed
+                final FleetIndex newIndex = cachedIndex != null && cachedIndex.fleets.equals(fleets)
+                    ? new FleetIndex(cachedIndex, now)
+                    : new FleetIndex(fleets, now);
+                fleetIndex = newIndex;
+                return newIndex;
+            })
             .doOnError(e -> Timber.e(e, "Failed to resolve fleets"))
-            .onErrorReturnItem(Collections.singletonList(defaultFleetInfo));
+            .onErrorReturn(e -> new FleetIndex(Collections.singletonList(defaultFleetInfo), now));
     }
 
-    private Observable<FleetInfo> resolveAutomatic() {
-        return Observable.combineLatest(
-            getAvailableFleets(),
-            deviceLocator.getLastKnownLocation().toObservable(),
-            Pair::create
-        )
-            .map(fleetsAndLocation -> {
-                final List<FleetInfo> fleets = fleetsAndLocation.first;
-                final LatLng location = fleetsAndLocation.second.getLatLng();
-                return findClosestFleet(fleets, location).orElse(defaultFleetInfo);
-            });
+    private Observable<FleetInfo> resolveAutomatic(final FleetIndex index) {
+        return deviceLocator.getLastKnownLocation().toObservable()
+            .map(location -> index.findClosestFleet(location.getLatLng()).orElse(defaultFleetInfo));
     }
 
-    private Optional<FleetInfo> findClosestFleet(final List<FleetInfo> fleets, final LatLng currentLocation) {
-        final List<FleetInfo> locatableFleets = fleets.stream()
-            .filter(fleetInfo -> fleetInfo.getCenter().isPresent())
-            .collect(Collectors.toList());
+    private static class FleetIndex {
+        private final List<FleetInfo> fleets;
+        private final NearestNeighborIndex<FleetInfo> nonPhantomFleets;
+        private final NearestNeighborIndex<FleetInfo> phantomFleets;
+        private final long fetchTimeMillis;
 
-        final Comparator<FleetInfo> comparator = (fleet0, fleet1) -> Double.compare(
-            distanceCalculator.getDistanceInMeters(currentLocation, fleet0.getCenter().get()),
-            distanceCalculator.getDistanceInMeters(currentLocation, fleet1.getCenter().get())
-        );
-
-        // Try to find closest non-phantom fleets first
-        final List<FleetInfo> nonPhantomFleets = locatableFleets.stream()
-            .filter(fleet -> !fleet.isPhantom())
-            .sorted(comparator)
-            .collect(Collectors.toList());
-
-        if (nonPhantomFleets.size() > 0) {
-            return Optional.of(nonPhantomFleets.get(0));
+        FleetIndex(final List<FleetInfo> fleets, final long fetchTimeMillis) {
+            this.fleets = fleets;
+            this.nonPhantomFleets = new NearestNeighborIndex<>(
+                fleets.stream().filter(fleet -> !fleet.isPhantom()).collect(Collectors.toList()),
+                FleetInfo::getCenter
+            );
+            this.phantomFleets = new NearestNeighborIndex<>(
+                fleets.stream().filter(FleetInfo::isPhantom).collect(Collectors.toList()),
+                FleetInfo::getCenter
+            );
+            this.fetchTimeMillis = fetchTimeMillis;
         }
 
-        // If all fleets are phantom fleets, return the closest one.
-        final List<FleetInfo> phantomFleets = locatableFleets.stream()
-            .filter(FleetInfo::isPhantom)
-            .sorted(comparator)
-            .collect(Collectors.toList());
+        FleetIndex(final FleetIndex index, final long fetchTimeMillis) {
+            this.fleets = index.fleets;
+            this.nonPhantomFleets = index.nonPhantomFleets;
+            this.phantomFleets = index.phantomFleets;
+            this.fetchTimeMillis = fetchTimeMillis;
+        }
 
-        if (phantomFleets.size() > 0) {
-            return Optional.of(phantomFleets.get(0));
+        Optional<FleetInfo> findClosestFleet(final LatLng currentLocation) {
+            // Try to find the closest non-phantom fleet first. If all fleets are phantom fleets, return the closest
+            // one.
+            final Optional<FleetInfo> nonPhantomFleet = nonPhantomFleets.findNearest(currentLocation);
+            return nonPhantomFleet.isPresent() ? nonPhantomFleet : phantomFleets.findNearest(currentLocation);
         }
-        return Optional.empty();
     }
 }
@@ -0,0 +1,149 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.grpc;
+
+import io.grpc.ManagedChannel;
+import io.reactivex.Completable;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import timber.log.Timber;
+
+/**
+ * ChannelLifecycleManager ties the API channel to the app's foreground state. When the app comes to the foreground,
+ * it starts connecting the channel and fetching the user's token, so the first screen's RPC does not pay for DNS, TLS
+ * and the token refresh itself. The channel is leased for as long as the app is in the foreground.
+ *
+ * Once the app has been in the background for a while, the lease is released and pooled connections are closed. The
+ * channels reconnect on their next call.
+ */
+public class ChannelLifecycleManager {
+    public interface TokenPrefetcher {
+        Completable prefetchToken();
+    }
+
+    public static class Settings {
+        private final boolean warmupEnabled;
+        private final long idleShutdownMillis;
+
+        /**
+         * @param warmupEnabled - Whether to connect and fetch the token before the first call. When disabled, only
+         *                      idle shutdown and the time-to-first-RPC measurement are active.
+         * @param idleShutdownMillis - How long the app must stay in the background before connections are closed
+         */
+        public Settings(final boolean warmupEnabled, final long idleShutdownMillis) {
+            this.warmupEnabled = warmupEnabled;
+            this.idleShutdownMillis = idleShutdownMillis;
+        }
+
+        public static Settings defaults() {
+            return new Settings(true, TimeUnit.MINUTES.toMillis(1));
+        }
+    }
+
+    private final Supplier<ManagedChannel> channelSupplier;
+    private final TokenPrefetcher tokenPrefetcher;
+    private final ChannelPool channelPool;
+    private final RpcMetrics rpcMetrics;
+    private final Scheduler scheduler;
+    private final Settings settings;
+
+    private boolean isForeground = false;
+    // Whether connections are closed, which is also the case before the app first comes to the foreground
+    private boolean isIdle = true;
+    private ManagedChannel warmChannel;
+    private Disposable pendingIdleShutdown;
+    private Disposable tokenPrefetch;
+
+    public ChannelLifecycleManager(final Supplier<ManagedChannel> channelSupplier,
+                                   final TokenPrefetcher tokenPrefetcher,
+                                   final ChannelPool channelPool,
+                                   final RpcMetrics rpcMetrics,
+                                   final Scheduler scheduler,
+                                   final Settings settings) {
+        this.channelSupplier = channelSupplier;
+        this.tokenPrefetcher = tokenPrefetcher;
+        this.channelPool = channelPool;
+        this.rpcMetrics = rpcMetrics;
+        this.scheduler = scheduler;
+        this.settings = settings;
+    }
+
+    public synchronized void onForeground() {
+        cancelPendingIdleShutdown();
+        if (isForeground) {
+            return;
+        }
+        isForeground = true;
+        if (isIdle) {
+            rpcMetrics.startTimeToFirstRpcClock(settings.warmupEnabled);
+            isIdle = false;
+        }
+        if (settings.warmupEnabled) {
+            warmUp();
+        }
+    }
+
+    public synchronized void onBackground() {
+        if (!isForeground) {
+            return;
+        }
+        isForeground = false;
+        rpcMetrics.cancelTimeToFirstRpcClock();
+        cancelPendingIdleShutdown();
+        pendingIdleShutdown = scheduler.scheduleDirect(
+            this::shutDownIdleChannels,
+            settings.idleShutdownMillis,
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    private void warmUp() {
+        if (warmChannel == null) {
+            warmChannel = channelSupplier.get();
+            // Requesting a connection starts name resolution and the handshake without making a call
+            warmChannel.getState(true);
+        }
+        if (tokenPrefetch == null || tokenPrefetch.isDisposed()) {
+            tokenPrefetch = tokenPrefetcher.prefetchToken().subscribe(
+                () -> Timber.d("Prefetched user token"),
+                e -> Timber.w(e, "Could not prefetch user token")
+            );
+        }
+    }
+
+    private synchronized void shutDownIdleChannels() {
+        pendingIdleShutdown = null;
+        if (isForeground) {
+            return;
+        }
+        if (warmChannel != null) {
+            warmChannel.shutdown();
+            warmChannel = null;
+        }
+        channelPool.enterIdleAll();
+        isIdle = true;
+        Timber.d("Closed idle gRPC connections after %d ms in background", settings.idleShutdownMillis);
+    }
+
+    private void cancelPendingIdleShutdown() {
+        if (pendingIdleShutdown != null) {
+            pendingIdleShutdown.dispose();
+            pendingIdleShutdown = null;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.grpc;
+
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import timber.log.Timber;
+
+/**
+ * ChannelPool shares a single ManagedChannel per endpoint between all interactors. gRPC channels multiplex calls over
+ * one HTTP/2 connection, so there is no need for each interactor to pay for its own TCP and TLS handshake.
+ *
+ * Channels are leased and reference counted. Shutting down a leased channel only releases the lease. When the last
+ * lease on a channel is released, the channel lingers for a short period before it is shut down, so that a screen
+ * transition (which shuts down one view model's interactors and creates the next) reuses the open connection.
+ */
+public class ChannelPool {
+    private static final long DEFAULT_LINGER_MILLIS = 30000;
+
+    public interface ChannelFactory {
+        ManagedChannel createChannel(final String endpoint);
+    }
+
+    public static class Stats {
+        private final long leaseCount;
+        private final long channelCount;
+        private final long connectionAttemptCount;
+        private final int activeLeaseCount;
+        private final int openChannelCount;
+
+        Stats(final long leaseCount,
+              final long channelCount,
+              final long connectionAttemptCount,
+              final int activeLeaseCount,
+              final int openChannelCount) {
+            this.leaseCount = leaseCount;
+            this.channelCount = channelCount;
+            this.connectionAttemptCount = connectionAttemptCount;
+            this.activeLeaseCount = activeLeaseCount;
+            this.openChannelCount = openChannelCount;
+        }
+
+        // Total number of leases handed out
+        public long getLeaseCount() {
+            return leaseCount;
+        }
+
+        // Total number of channels built. Each new channel requires a new handshake.
+        public long getChannelCount() {
+            return channelCount;
+        }
+
+        // Total number of times any pooled channel started connecting, including reconnects after failures.
+        public long getConnectionAttemptCount() {
+            return connectionAttemptCount;
+        }
+
+        public int getActiveLeaseCount() {
+            return activeLeaseCount;
+        }
+
+        public int getOpenChannelCount() {
+            return openChannelCount;
+        }
+
+        @Override
+        public String toString() {
+            return "leases=" + leaseCount
+                + " channels=" + channelCount
+                + " connectionAttempts=" + connectionAttemptCount
+                + " activeLeases=" + activeLeaseCount
+                + " openChannels=" + openChannelCount;
+        }
+    }
+
+    private final ChannelFactory channelFactory;
+    private final Scheduler lingerScheduler;
+    private final long lingerMillis;
+    private final Map<String, PooledChannel> channelsByEndpoint = new HashMap<>();
+
+    private long leaseCount = 0;
+    private long channelCount = 0;
+    private long connectionAttemptCount = 0;
+
+    public ChannelPool(final ChannelFactory channelFactory) {
+        this(channelFactory, Schedulers.computation(), DEFAULT_LINGER_MILLIS);
+    }
+
+    public ChannelPool(final ChannelFactory channelFactory,
+                       final Scheduler lingerScheduler,
+                       final long lingerMillis) {
+        this.channelFactory = channelFactory;
+        this.lingerScheduler = lingerScheduler;
+        this.lingerMillis = lingerMillis;
+    }
+
+    /**
+     * Lease the shared channel for an endpoint, opening one if necessary. Calling shutdown() or shutdownNow() on the
+     * returned channel releases the lease without affecting other users of the channel.
+     */
+    public synchronized ManagedChannel lease(final String endpoint) {
+        PooledChannel pooledChannel = channelsByEndpoint.get(endpoint);
+        if (pooledChannel == null || pooledChannel.channel.isShutdown()) {
+            pooledChannel = new PooledChannel(channelFactory.createChannel(endpoint));
+            channelsByEndpoint.put(endpoint, pooledChannel);
+            channelCount++;
+            watchConnectivity(pooledChannel, ConnectivityState.IDLE);
+            Timber.d("Opened gRPC channel to %s", endpoint);
+        }
+        pooledChannel.cancelPendingShutdown();
+        pooledChannel.referenceCount++;
+        leaseCount++;
+        return new LeasedChannel(endpoint, pooledChannel);
+    }
+
+    /**
+     * Close the connections of all pooled channels without shutting them down. The channels stay usable and reconnect
+     * on their next call, so this is safe to call while channels are leased.
+     */
+    public synchronized void enterIdleAll() {
+        for (final PooledChannel pooledChannel : channelsByEndpoint.values()) {
+            try {
+                pooledChannel.channel.enterIdle();
+            } catch (final UnsupportedOperationException e) {
+                // The channel implementation can't drop its connection early, so leave it open
+            }
+        }
+    }
+
+    public synchronized Stats getStats() {
+        int activeLeaseCount = 0;
+        for (final PooledChannel pooledChannel : channelsByEndpoint.values()) {
+            activeLeaseCount += pooledChannel.referenceCount;
+        }
+        return new Stats(leaseCount, channelCount, connectionAttemptCount, activeLeaseCount, channelsByEndpoint.size());
+    }
+
+    private synchronized void release(final String endpoint, final PooledChannel pooledChannel) {
+        pooledChannel.referenceCount--;
+        if (pooledChannel.referenceCount > 0) {
+            return;
+        }
+        pooledChannel.cancelPendingShutdown();
+        pooledChannel.pendingShutdown = lingerScheduler.scheduleDirect(
+            () -> shutDownIfUnused(endpoint, pooledChannel),
+            lingerMillis,
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    private synchronized void shutDownIfUnused(final String endpoint, final PooledChannel pooledChannel) {
+        if (pooledChannel.referenceCount > 0) {
+            return;
+        }
+        if (channelsByEndpoint.get(endpoint) == pooledChannel) {
+            channelsByEndpoint.remove(endpoint);
+        }
+        pooledChannel.pendingShutdown = null;
+        pooledChannel.channel.shutdown();
+        Timber.d("Closed idle gRPC channel to %s", endpoint);
+    }
+
+    private synchronized void recordConnectionAttempt() {
+        connectionAttemptCount++;
+    }
+
+    private void watchConnectivity(final PooledChannel pooledChannel, final ConnectivityState lastState) {
+        try {
+            pooledChannel.channel.notifyWhenStateChanged(lastState, () -> {
+                final ConnectivityState newState = pooledChannel.channel.getState(false);
+                if (newState == ConnectivityState.CONNECTING) {
+                    recordConnectionAttempt();
+                }
+                if (newState != ConnectivityState.SHUTDOWN) {
+                    watchConnectivity(pooledChannel, newState);
+                }
+            });
+        } catch (final UnsupportedOperationException e) {
+            // Not all channel implementations report connectivity. The channel count is still tracked.
+        }
+    }
+
+    private static class PooledChannel {
+        private final ManagedChannel channel;
+        private int referenceCount = 0;
+        private Disposable pendingShutdown;
+
+        private PooledChannel(final ManagedChannel channel) {
+            this.channel = channel;
+        }
+
+        private void cancelPendingShutdown() {
+            if (pendingShutdown != null) {
+                pendingShutdown.dispose();
+                pendingShutdown = null;
+            }
+        }
+    }
+
+    /**
+     * A lease on a pooled channel. Calls are forwarded to the shared channel, while shutting down only gives up the
+     * lease. Each lease is released at most once.
+     */
+    private class LeasedChannel extends ManagedChannel {
+        private final String endpoint;
+        private final PooledChannel pooledChannel;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private LeasedChannel(final String endpoint, final PooledChannel pooledChannel) {
+            this.endpoint = endpoint;
+            this.pooledChannel = pooledChannel;
+        }
+
+        @Override
+        public ManagedChannel shutdown() {
+            if (released.compareAndSet(false, true)) {
+                release(endpoint, pooledChannel);
+            }
+            return this;
+        }
+
+        @Override
+        public ManagedChannel shutdownNow() {
+            return shutdown();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return released.get();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return released.get();
+        }
+
+        @Override
+        public boolean awaitTermination(final long timeout, final TimeUnit unit) {
+            return released.get();
+        }
+
+        @Override
+        public ConnectivityState getState(final boolean requestConnection) {
+            return pooledChannel.channel.getState(requestConnection);
+        }
+
+        @Override
+        public void notifyWhenStateChanged(final ConnectivityState source, final Runnable callback) {
+            pooledChannel.channel.notifyWhenStateChanged(source, callback);
+        }
+
+        @Override
+        public void resetConnectBackoff() {
+            pooledChannel.channel.resetConnectBackoff();
+        }
+
+        @Override
+        public void enterIdle() {
+            pooledChannel.channel.enterIdle();
+        }
+
+        @Override
+        public <RequestT, ResponseT> ClientCall<RequestT, ResponseT> newCall(
+            final MethodDescriptor<RequestT, ResponseT> methodDescriptor,
+            final CallOptions callOptions
+        ) {
+            return pooledChannel.channel.newCall(methodDescriptor, callOptions);
+        }
+
+        @Override
+        public String authority() {
+            return pooledChannel.channel.authority();
+        }
+    }
+}
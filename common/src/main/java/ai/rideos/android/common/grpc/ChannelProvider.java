@@ -25,6 +25,14 @@ import io.grpc.ManagedChannelBuilder;
 import java.util.function.Supplier;
 
 public class ChannelProvider {
+    // Metrics for every call made through channels built here
+    private static final RpcMetrics RPC_METRICS = new RpcMetrics();
+    // All interactors share channels from this pool, so each endpoint only needs one connection per process
+    private static final ChannelPool CHANNEL_POOL = new ChannelPool(ChannelProvider::buildChannel);
+    // Identical in-flight reads are shared across all interactors, not just within one
+    private static final RequestCoalescer REQUEST_COALESCER = new RequestCoalescer(RPC_METRICS);
+    private static final RpcPolicyTable RPC_POLICY_TABLE = RpcPolicyTable.forRideOsApis(RPC_METRICS);
+
     public static Supplier<ManagedChannel> getChannelSupplierForContext(final Context context) {
         final UserStorageReader userStorage = SharedPreferencesUserStorageReader.forContext(context);
         return getChannelSupplierForUser(userStorage);
@@ -34,9 +42,30 @@ public class ChannelProvider {
         final ApiEnvironment environment = ApiEnvironment.fromStoredNameOrThrow(
             userStorage.getStringPreference(StorageKeys.RIDEOS_API_ENV)
         );
-        return () -> ManagedChannelBuilder
-            .forTarget(environment.getEndpoint())
+        return () -> CHANNEL_POOL.lease(environment.getEndpoint());
+    }
+
+    public static ChannelPool getChannelPool() {
+        return CHANNEL_POOL;
+    }
+
+    public static RpcMetrics getRpcMetrics() {
+        return RPC_METRICS;
+    }
+
+    public static RequestCoalescer getRequestCoalescer() {
+        return REQUEST_COALESCER;
+    }
+
+    public static RpcPolicyTable getRpcPolicyTable() {
+        return RPC_POLICY_TABLE;
+    }
+
+    private static ManagedChannel buildChannel(final String endpoint) {
+        return ManagedChannelBuilder
+            .forTarget(endpoint)
             .useTransportSecurity()
+            .intercept(new RpcMetricsInterceptor(RPC_METRICS))
             .build();
     }
 }
@@ -0,0 +1,113 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.grpc;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.MessageLite;
+import io.reactivex.Observable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * RequestCoalescer shares one network call between concurrent identical read requests. Two requests are identical
+ * when they are for the same gRPC method and their requests serialize to the same bytes. While a call is in flight,
+ * later identical requests subscribe to it instead of starting their own, and every subscriber receives the same
+ * response or error. Once the call finishes, the next request starts a new call, so responses are never served stale.
+ *
+ * Only idempotent reads should be coalesced. Hit rates are recorded per method in RpcMetrics.
+ */
+public class RequestCoalescer {
+    private final RpcMetrics rpcMetrics;
+    private final Map<RequestKey, InFlightCall<?>> inFlightCalls = new HashMap<>();
+
+    public RequestCoalescer(final RpcMetrics rpcMetrics) {
+        this.rpcMetrics = rpcMetrics;
+    }
+
+    /**
+     * Return an observable that joins an identical in-flight call if there is one, or otherwise starts a new call
+     * using callSupplier when subscribed to. If every subscriber disposes before the call finishes, the call is
+     * disposed as well.
+     */
+    public <R> Observable<R> coalesce(final String fullMethodName,
+                                      final MessageLite request,
+                                      final Supplier<Observable<R>> callSupplier) {
+        return Observable.defer(() -> getOrStartCall(
+            new RequestKey(fullMethodName, request.toByteString()),
+            callSupplier
+        ));
+    }
+
+    public synchronized int getInFlightCallCount() {
+        return inFlightCalls.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <R> Observable<R> getOrStartCall(final RequestKey key,
+                                                          final Supplier<Observable<R>> callSupplier) {
+        final InFlightCall<R> existingCall = (InFlightCall<R>) inFlightCalls.get(key);
+        if (existingCall != null) {
+            rpcMetrics.recordCoalescableRequest(key.fullMethodName, true);
+            return existingCall.sharedResponse;
+        }
+        rpcMetrics.recordCoalescableRequest(key.fullMethodName, false);
+        final InFlightCall<R> newCall = new InFlightCall<>();
+        newCall.sharedResponse = callSupplier.get()
+            .doFinally(() -> removeInFlightCall(key, newCall))
+            .share();
+        inFlightCalls.put(key, newCall);
+        return newCall.sharedResponse;
+    }
+
+    private synchronized void removeInFlightCall(final RequestKey key, final InFlightCall<?> call) {
+        // Only remove the entry if it still belongs to this call, not to a newer call for the same request
+        if (inFlightCalls.get(key) == call) {
+            inFlightCalls.remove(key);
+        }
+    }
+
+    private static class InFlightCall<R> {
+        private Observable<R> sharedResponse;
+    }
+
+    private static class RequestKey {
+        private final String fullMethodName;
+        private final ByteString requestBytes;
+
+        private RequestKey(final String fullMethodName, final ByteString requestBytes) {
+            this.fullMethodName = fullMethodName;
+            this.requestBytes = requestBytes;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof RequestKey)) {
+                return false;
+            }
+            final RequestKey otherKey = (RequestKey) other;
+            return fullMethodName.equals(otherKey.fullMethodName) && requestBytes.equals(otherKey.requestBytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * fullMethodName.hashCode() + requestBytes.hashCode();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.grpc;
+
+import ai.rideos.android.common.metrics.FixedBucketHistogram;
+import io.grpc.Status;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RpcMetrics collects per-method call counts, status codes, latencies and message sizes for gRPC calls. It is filled
+ * in by RpcMetricsInterceptor and can be queried in-process or written out as a plain text report. It also tracks how
+ * long the app waits for its first call after coming to the foreground.
+ */
+public class RpcMetrics {
+    private static final long[] LATENCY_BUCKETS_MILLIS = {
+        5, 10, 25, 50, 75, 100, 150, 200, 300, 500, 750, 1000, 1500, 2000, 3000, 5000, 10000, 30000
+    };
+    private static final long[] SIZE_BUCKETS_BYTES = {
+        64, 256, 1024, 4096, 16384, 65536, 262144, 1048576
+    };
+    private static final Status.Code[] STATUS_CODES = Status.Code.values();
+
+    public static class MethodMetrics {
+        private final FixedBucketHistogram latencyMillis = new FixedBucketHistogram(LATENCY_BUCKETS_MILLIS);
+        // Only first attempts that succeeded. Cancelled calls end early, calls that hit their deadline end late, and
+        // hedged attempts start late, so none of them show how long a response normally takes.
+        private final FixedBucketHistogram okLatencyMillis = new FixedBucketHistogram(LATENCY_BUCKETS_MILLIS);
+        private final FixedBucketHistogram requestBytes = new FixedBucketHistogram(SIZE_BUCKETS_BYTES);
+        private final FixedBucketHistogram responseBytes = new FixedBucketHistogram(SIZE_BUCKETS_BYTES);
+        // Indexed by Status.Code.value()
+        private final long[] statusCounts = new long[STATUS_CODES.length];
+        private final AtomicLong coalescableRequestCount = new AtomicLong();
+        private final AtomicLong coalescedRequestCount = new AtomicLong();
+
+        private void record(final Status.Code statusCode,
+                            final long latencyMillis,
+                            final long requestBytes,
+                            final long responseBytes,
+                            final boolean hedgedAttempt) {
+            this.latencyMillis.record(latencyMillis);
+            if (statusCode == Status.Code.OK && !hedgedAttempt) {
+                okLatencyMillis.record(latencyMillis);
+            }
+            this.requestBytes.record(requestBytes);
+            this.responseBytes.record(responseBytes);
+            synchronized (statusCounts) {
+                statusCounts[statusCode.value()]++;
+            }
+        }
+
+        public long getCallCount() {
+            return latencyMillis.getCount();
+        }
+
+        public long getStatusCount(final Status.Code statusCode) {
+            synchronized (statusCounts) {
+                return statusCounts[statusCode.value()];
+            }
+        }
+
+        // Number of requests that went through RequestCoalescer, whether or not they joined an in-flight call
+        public long getCoalescableRequestCount() {
+            return coalescableRequestCount.get();
+        }
+
+        // Number of requests that were answered by an identical in-flight call instead of making their own
+        public long getCoalescedRequestCount() {
+            return coalescedRequestCount.get();
+        }
+
+        public double getCoalescingHitRate() {
+            final long coalescable = coalescableRequestCount.get();
+            return coalescable == 0 ? 0 : (double) coalescedRequestCount.get() / coalescable;
+        }
+
+        public FixedBucketHistogram getLatencyMillis() {
+            return latencyMillis;
+        }
+
+        public FixedBucketHistogram getOkLatencyMillis() {
+            return okLatencyMillis;
+        }
+
+        public FixedBucketHistogram getRequestBytes() {
+            return requestBytes;
+        }
+
+        public FixedBucketHistogram getResponseBytes() {
+            return responseBytes;
+        }
+
+        private void reset() {
+            latencyMillis.reset();
+            okLatencyMillis.reset();
+            requestBytes.reset();
+            responseBytes.reset();
+            coalescableRequestCount.set(0);
+            coalescedRequestCount.set(0);
+            synchronized (statusCounts) {
+                for (int i = 0; i < statusCounts.length; i++) {
+                    statusCounts[i] = 0;
+                }
+            }
+        }
+    }
+
+    private final ConcurrentMap<String, MethodMetrics> metricsByMethod = new ConcurrentHashMap<>();
+    // Time from the app coming to the foreground with idle channels until its first call completes
+    private final FixedBucketHistogram warmTimeToFirstRpcMillis = new FixedBucketHistogram(LATENCY_BUCKETS_MILLIS);
+    private final FixedBucketHistogram coldTimeToFirstRpcMillis = new FixedBucketHistogram(LATENCY_BUCKETS_MILLIS);
+    // Start of the running time-to-first-RPC clock, or 0 if it is not running
+    private final AtomicLong firstRpcClockStartNanos = new AtomicLong(0);
+    private volatile boolean firstRpcClockWarmedUp = false;
+
+    public void recordCall(final String fullMethodName,
+                           final Status.Code statusCode,
+                           final long latencyMillis,
+                           final long requestBytes,
+                           final long responseBytes) {
+        recordCall(fullMethodName, statusCode, latencyMillis, requestBytes, responseBytes, false);
+    }
+
+    /**
+     * Record a completed call.
+     * @param hedgedAttempt - Whether the call was the second attempt of a hedged call
+     */
+    public void recordCall(final String fullMethodName,
+                           final Status.Code statusCode,
+                           final long latencyMillis,
+                           final long requestBytes,
+                           final long responseBytes,
+                           final boolean hedgedAttempt) {
+        getOrCreateMethodMetrics(fullMethodName)
+            .record(statusCode, latencyMillis, requestBytes, responseBytes, hedgedAttempt);
+        stopTimeToFirstRpcClock();
+    }
+
+    /**
+     * Start measuring the time until the next call completes.
+     * @param warmedUp - Whether the channel and token are being prepared ahead of the first call. Warm and cold
+     *                   measurements are kept apart so the two can be compared.
+     */
+    public void startTimeToFirstRpcClock(final boolean warmedUp) {
+        firstRpcClockWarmedUp = warmedUp;
+        firstRpcClockStartNanos.set(System.nanoTime());
+    }
+
+    public void cancelTimeToFirstRpcClock() {
+        firstRpcClockStartNanos.set(0);
+    }
+
+    public FixedBucketHistogram getTimeToFirstRpcMillis(final boolean warmedUp) {
+        return warmedUp ? warmTimeToFirstRpcMillis : coldTimeToFirstRpcMillis;
+    }
+
+    private void stopTimeToFirstRpcClock() {
+        final long startNanos = firstRpcClockStartNanos.getAndSet(0);
+        if (startNanos != 0) {
+            getTimeToFirstRpcMillis(firstRpcClockWarmedUp)
+                .record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+    }
+
+    /**
+     * Record a request that went through RequestCoalescer.
+     * @param coalesced - Whether the request joined an identical in-flight call
+     */
+    public void recordCoalescableRequest(final String fullMethodName, final boolean coalesced) {
+        final MethodMetrics methodMetrics = getOrCreateMethodMetrics(fullMethodName);
+        methodMetrics.coalescableRequestCount.incrementAndGet();
+        if (coalesced) {
+            methodMetrics.coalescedRequestCount.incrementAndGet();
+        }
+    }
+
+    public Optional<MethodMetrics> getMethodMetrics(final String fullMethodName) {
+        return Optional.ofNullable(metricsByMethod.get(fullMethodName));
+    }
+
+    private MethodMetrics getOrCreateMethodMetrics(final String fullMethodName) {
+        final MethodMetrics methodMetrics = metricsByMethod.get(fullMethodName);
+        if (methodMetrics != null) {
+            return methodMetrics;
+        }
+        metricsByMethod.putIfAbsent(fullMethodName, new MethodMetrics());
+        return metricsByMethod.get(fullMethodName);
+    }
+
+    public List<String> getMethodNames() {
+        final List<String> methodNames = new ArrayList<>(metricsByMethod.keySet());
+        Collections.sort(methodNames);
+        return methodNames;
+    }
+
+    public void reset() {
+        for (final MethodMetrics methodMetrics : metricsByMethod.values()) {
+            methodMetrics.reset();
+        }
+        warmTimeToFirstRpcMillis.reset();
+        coldTimeToFirstRpcMillis.reset();
+    }
+
+    /**
+     * Write a human readable report with one line per method, sorted by method name.
+     */
+    public void writeReport(final Writer writer) throws IOException {
+        for (final boolean warmedUp : new boolean[]{true, false}) {
+            final FixedBucketHistogram timeToFirstRpc = getTimeToFirstRpcMillis(warmedUp);
+            writer.write(String.format(
+                "timeToFirstRpc(%s) count=%d ms[p50=%d p95=%d max=%d]\n",
+                warmedUp ? "warm" : "cold",
+                timeToFirstRpc.getCount(),
+                timeToFirstRpc.getPercentile(50),
+                timeToFirstRpc.getPercentile(95),
+                timeToFirstRpc.getMax()
+            ));
+        }
+        for (final String methodName : getMethodNames()) {
+            final MethodMetrics metrics = metricsByMethod.get(methodName);
+            writer.write(String.format(
+                "%s calls=%d latencyMs[p50=%d p95=%d p99=%d max=%d] requestBytes[mean=%.0f max=%d] "
+                    + "responseBytes[mean=%.0f max=%d] coalesced[%d/%d] statuses[%s]\n",
+                methodName,
+                metrics.getCallCount(),
+                metrics.getLatencyMillis().getPercentile(50),
+                metrics.getLatencyMillis().getPercentile(95),
+                metrics.getLatencyMillis().getPercentile(99),
+                metrics.getLatencyMillis().getMax(),
+                metrics.getRequestBytes().getMean(),
+                metrics.getRequestBytes().getMax(),
+                metrics.getResponseBytes().getMean(),
+                metrics.getResponseBytes().getMax(),
+                metrics.getCoalescedRequestCount(),
+                metrics.getCoalescableRequestCount(),
+                getStatusSummary(metrics)
+            ));
+        }
+        writer.flush();
+    }
+
+    private static String getStatusSummary(final MethodMetrics metrics) {
+        final StringBuilder summary = new StringBuilder();
+        for (final Status.Code statusCode : STATUS_CODES) {
+            final long statusCount = metrics.getStatusCount(statusCode);
+            if (statusCount > 0) {
+                if (summary.length() > 0) {
+                    summary.append(' ');
+                }
+                summary.append(statusCode.name()).append('=').append(statusCount);
+            }
+        }
+        return summary.toString();
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.grpc;
+
+import com.google.protobuf.MessageLite;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall.SimpleForwardingClientCall;
+import io.grpc.ForwardingClientCallListener.SimpleForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RpcMetricsInterceptor records the latency, status and serialized message sizes of every call made through a
+ * channel into RpcMetrics.
+ */
+public class RpcMetricsInterceptor implements ClientInterceptor {
+    // Set on the second attempt of a hedged call, which starts late and so can't be compared to other calls
+    public static final CallOptions.Key<Boolean> HEDGED_ATTEMPT =
+        CallOptions.Key.createWithDefault("hedgedAttempt", false);
+
+    private final RpcMetrics rpcMetrics;
+
+    public RpcMetricsInterceptor(final RpcMetrics rpcMetrics) {
+        this.rpcMetrics = rpcMetrics;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(final MethodDescriptor<ReqT, RespT> method,
+                                                               final CallOptions callOptions,
+                                                               final Channel next) {
+        return new MetricsClientCall<>(
+            method.getFullMethodName(),
+            callOptions.getOption(HEDGED_ATTEMPT),
+            next.newCall(method, callOptions)
+        );
+    }
+
+    private static long getSerializedSize(final Object message) {
+        return message instanceof MessageLite ? ((MessageLite) message).getSerializedSize() : 0;
+    }
+
+    private class MetricsClientCall<ReqT, RespT> extends SimpleForwardingClientCall<ReqT, RespT> {
+        private final String fullMethodName;
+        private final boolean hedgedAttempt;
+        // Written on the calling thread and read on the listener thread
+        private volatile long startNanos;
+        private volatile long requestBytes = 0;
+        private long responseBytes = 0;
+
+        private MetricsClientCall(final String fullMethodName,
+                                  final boolean hedgedAttempt,
+                                  final ClientCall<ReqT, RespT> delegate) {
+            super(delegate);
+            this.fullMethodName = fullMethodName;
+            this.hedgedAttempt = hedgedAttempt;
+        }
+
+        @Override
+        public void start(final Listener<RespT> responseListener, final Metadata headers) {
+            startNanos = System.nanoTime();
+            super.start(
+                new SimpleForwardingClientCallListener<RespT>(responseListener) {
+                    @Override
+                    public void onMessage(final RespT message) {
+                        responseBytes += getSerializedSize(message);
+                        super.onMessage(message);
+                    }
+
+                    @Override
+                    public void onClose(final Status status, final Metadata trailers) {
+                        rpcMetrics.recordCall(
+                            fullMethodName,
+                            status.getCode(),
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                            requestBytes,
+                            responseBytes,
+                            hedgedAttempt
+                        );
+                        super.onClose(status, trailers);
+                    }
+                },
+                headers
+            );
+        }
+
+        @Override
+        public void sendMessage(final ReqT message) {
+            requestBytes += getSerializedSize(message);
+            super.sendMessage(message);
+        }
+    }
+}
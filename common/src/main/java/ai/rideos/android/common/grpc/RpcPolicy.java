@@ -0,0 +1,71 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.grpc;
+
+/**
+ * RpcPolicy describes how calls to a single gRPC method should be made.
+ */
+public class RpcPolicy {
+    private static final long NO_HEDGE = 0;
+
+    private final long deadlineMillis;
+    private final boolean retryable;
+    private final long hedgeDelayMillis;
+
+    /**
+     * Create a policy for a method that is never hedged.
+     * @param deadlineMillis - How long a call may take before it fails with DEADLINE_EXCEEDED
+     * @param retryable - Whether the method is idempotent, so that sending it more than once is safe
+     */
+    public static RpcPolicy withoutHedging(final long deadlineMillis, final boolean retryable) {
+        return new RpcPolicy(deadlineMillis, retryable, NO_HEDGE);
+    }
+
+    /**
+     * Create a policy for an idempotent read that may send a second, hedged attempt when the first is slow.
+     * @param deadlineMillis - How long a call may take before it fails with DEADLINE_EXCEEDED
+     * @param hedgeDelayMillis - How long to wait for the first attempt before hedging, until enough latencies have
+     *                         been observed to use the method's p95 instead
+     */
+    public static RpcPolicy hedgedRead(final long deadlineMillis, final long hedgeDelayMillis) {
+        return new RpcPolicy(deadlineMillis, true, hedgeDelayMillis);
+    }
+
+    private RpcPolicy(final long deadlineMillis, final boolean retryable, final long hedgeDelayMillis) {
+        if (hedgeDelayMillis != NO_HEDGE && !retryable) {
+            throw new IllegalArgumentException("Only retryable methods can be hedged");
+        }
+        this.deadlineMillis = deadlineMillis;
+        this.retryable = retryable;
+        this.hedgeDelayMillis = hedgeDelayMillis;
+    }
+
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+
+    public boolean isHedged() {
+        return hedgeDelayMillis != NO_HEDGE;
+    }
+
+    public long getHedgeDelayMillis() {
+        return hedgeDelayMillis;
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.grpc;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.MethodDescriptor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RpcPolicyInterceptor applies the deadline from an RpcPolicyTable to every call that does not already have one, so
+ * that a stalled call fails instead of holding up later polls.
+ */
+public class RpcPolicyInterceptor implements ClientInterceptor {
+    private final RpcPolicyTable rpcPolicyTable;
+
+    public RpcPolicyInterceptor(final RpcPolicyTable rpcPolicyTable) {
+        this.rpcPolicyTable = rpcPolicyTable;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(final MethodDescriptor<ReqT, RespT> method,
+                                                               final CallOptions callOptions,
+                                                               final Channel next) {
+        if (callOptions.getDeadline() != null) {
+            return next.newCall(method, callOptions);
+        }
+        final RpcPolicy policy = rpcPolicyTable.getPolicy(method.getFullMethodName());
+        return next.newCall(
+            method,
+            callOptions.withDeadlineAfter(policy.getDeadlineMillis(), TimeUnit.MILLISECONDS)
+        );
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.grpc;
+
+import ai.rideos.api.path.v2.PathServiceGrpc;
+import ai.rideos.api.ride_hail_driver.v1.RideHailDriverServiceGrpc;
+import ai.rideos.api.ride_hail_operations.v1.RideHailOperationsServiceGrpc;
+import ai.rideos.api.ride_hail_rider.v1.RideHailRiderServiceGrpc;
+import io.grpc.MethodDescriptor;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * RpcPolicyTable maps gRPC methods to the policy used to call them. Methods that are not in the table use the default
+ * policy, which sets a deadline but never retries or hedges.
+ *
+ * Hedge delays are adaptive: once enough successful calls to a method have been observed, their p95 latency is used as
+ * the hedge delay, so roughly one in twenty calls sends a second attempt. Cancelled calls, calls that hit their
+ * deadline and hedged attempts are left out, so they can't drag the delay away from the normal response time.
+ */
+public class RpcPolicyTable {
+    private static final long READ_DEADLINE_MILLIS = 5000;
+    private static final long ROUTE_DEADLINE_MILLIS = 10000;
+    private static final long MUTATION_DEADLINE_MILLIS = 15000;
+    private static final long DEFAULT_HEDGE_DELAY_MILLIS = 750;
+    private static final int MIN_SAMPLES_FOR_OBSERVED_HEDGE_DELAY = 20;
+    private static final int HEDGE_PERCENTILE = 95;
+
+    private final RpcPolicy defaultPolicy;
+    private final Map<String, RpcPolicy> policiesByMethod;
+    private final RpcMetrics rpcMetrics;
+
+    public RpcPolicyTable(final RpcPolicy defaultPolicy,
+                          final Map<MethodDescriptor<?, ?>, RpcPolicy> policiesByMethod,
+                          final RpcMetrics rpcMetrics) {
+        this.defaultPolicy = defaultPolicy;
+        this.policiesByMethod = new HashMap<>();
+        for (final Map.Entry<MethodDescriptor<?, ?>, RpcPolicy> entry : policiesByMethod.entrySet()) {
+            this.policiesByMethod.put(entry.getKey().getFullMethodName(), entry.getValue());
+        }
+        this.rpcMetrics = rpcMetrics;
+    }
+
+    /**
+     * The policy table for the rideOS APIs used by the rider and driver apps. Polled reads are hedged; mutations like
+     * requesting a trip or completing a step are never sent twice.
+     */
+    public static RpcPolicyTable forRideOsApis(final RpcMetrics rpcMetrics) {
+        final RpcPolicy hedgedRead = RpcPolicy.hedgedRead(READ_DEADLINE_MILLIS, DEFAULT_HEDGE_DELAY_MILLIS);
+        final RpcPolicy read = RpcPolicy.withoutHedging(READ_DEADLINE_MILLIS, true);
+        final RpcPolicy mutation = RpcPolicy.withoutHedging(MUTATION_DEADLINE_MILLIS, false);
+
+        final Map<MethodDescriptor<?, ?>, RpcPolicy> policies = new HashMap<>();
+
+        policies.put(RideHailRiderServiceGrpc.getGetTripStateRCMethod(), hedgedRead);
+        policies.put(RideHailRiderServiceGrpc.getGetTripDefinitionMethod(), hedgedRead);
+        policies.put(RideHailRiderServiceGrpc.getFindPredefinedStopMethod(), hedgedRead);
+        policies.put(RideHailRiderServiceGrpc.getGetActiveTripIdMethod(), read);
+        policies.put(RideHailRiderServiceGrpc.getGetVehiclesInVicinityMethod(), read);
+        policies.put(RideHailRiderServiceGrpc.getRequestTripMethod(), mutation);
+        policies.put(RideHailRiderServiceGrpc.getCancelTripMethod(), mutation);
+        policies.put(RideHailRiderServiceGrpc.getChangeTripDefinitionMethod(), mutation);
+
+        policies.put(RideHailDriverServiceGrpc.getGetVehicleStateMethod(), hedgedRead);
+        policies.put(RideHailDriverServiceGrpc.getGetVehicleInfoMethod(), read);
+        policies.put(RideHailDriverServiceGrpc.getCreateVehicleMethod(), mutation);
+        policies.put(RideHailDriverServiceGrpc.getUpdateVehicleStateMethod(), mutation);
+        policies.put(RideHailDriverServiceGrpc.getUpdateVehicleMethod(), mutation);
+        policies.put(RideHailDriverServiceGrpc.getCompleteStepMethod(), mutation);
+        policies.put(RideHailDriverServiceGrpc.getRejectTripMethod(), mutation);
+        policies.put(RideHailDriverServiceGrpc.getCancelTripMethod(), mutation);
+
+        policies.put(RideHailOperationsServiceGrpc.getGetFleetsMethod(), hedgedRead);
+        policies.put(RideHailOperationsServiceGrpc.getGetVehiclesMethod(), read);
+
+        policies.put(PathServiceGrpc.getGetPathMethod(), RpcPolicy.withoutHedging(ROUTE_DEADLINE_MILLIS, true));
+
+        return new RpcPolicyTable(mutation, policies, rpcMetrics);
+    }
+
+    public RpcPolicy getPolicy(final String fullMethodName) {
+        final RpcPolicy policy = policiesByMethod.get(fullMethodName);
+        return policy != null ? policy : defaultPolicy;
+    }
+
+    /**
+     * Get how long to wait for the first attempt of a hedged method before sending a second attempt. This is the
+     * observed p95 latency of successful first attempts when there are enough of them, and the policy's hedge delay
+     * otherwise.
+     * It is never longer than the method's deadline.
+     */
+    public long getHedgeDelayMillis(final String fullMethodName) {
+        final RpcPolicy policy = getPolicy(fullMethodName);
+        final long observedDelay = rpcMetrics.getMethodMetrics(fullMethodName)
+            .map(RpcMetrics.MethodMetrics::getOkLatencyMillis)
+            .filter(okLatencyMillis -> okLatencyMillis.getCount() >= MIN_SAMPLES_FOR_OBSERVED_HEDGE_DELAY)
+            .map(okLatencyMillis -> okLatencyMillis.getPercentile(HEDGE_PERCENTILE))
+            .orElse(policy.getHedgeDelayMillis());
+        return Math.min(observedDelay, policy.getDeadlineMillis());
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.interactors;
+
+import ai.rideos.android.common.location.DistanceCalculator;
+import ai.rideos.android.common.location.HaversineDistanceCalculator;
+import ai.rideos.android.common.model.LatLng;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CachingEtaInteractor keeps the last travel time estimated for each origin ID, and reuses it until the origin or
+ * the destination moves more than a threshold, or the estimate gets too old. Only origins without a usable estimate
+ * are sent to the wrapped interactor, so polling parked or slow-moving vehicles does not cost a request each time.
+ */
+public class CachingEtaInteractor implements EtaInteractor {
+    public static class Settings {
+        private final double maxMovedMeters;
+        private final long maxAgeMillis;
+
+        /**
+         * @param maxMovedMeters - Estimates are reused while the origin and destination are within this of where they
+         *                       were when estimated
+         * @param maxAgeMillis - Estimates older than this are never reused, so traffic changes are picked up
+         */
+        public Settings(final double maxMovedMeters, final long maxAgeMillis) {
+            this.maxMovedMeters = maxMovedMeters;
+            this.maxAgeMillis = maxAgeMillis;
+        }
+
+        public static Settings defaults() {
+            return new Settings(100, TimeUnit.MINUTES.toMillis(1));
+        }
+    }
+
+    private static class CachedEta {
+        private final LatLng origin;
+        private final LatLng destination;
+        private final long travelTimeMillis;
+        private final long estimatedAtMillis;
+
+        private CachedEta(final LatLng origin,
+                          final LatLng destination,
+                          final long travelTimeMillis,
+                          final long estimatedAtMillis) {
+            this.origin = origin;
+            this.destination = destination;
+            this.travelTimeMillis = travelTimeMillis;
+            this.estimatedAtMillis = estimatedAtMillis;
+        }
+    }
+
+    private final EtaInteractor etaInteractor;
+    private final DistanceCalculator distanceCalculator;
+    private final Settings settings;
+    private final Scheduler clockScheduler;
+    private final Map<String, CachedEta> cachedEtas = new HashMap<>();
+
+    public CachingEtaInteractor(final EtaInteractor etaInteractor) {
+        this(etaInteractor, new HaversineDistanceCalculator(), Settings.defaults(), Schedulers.computation());
+    }
+
+    /**
+     * @param clockScheduler - Scheduler whose clock decides how old estimates are
+     */
+    public CachingEtaInteractor(final EtaInteractor etaInteractor,
+                                final DistanceCalculator distanceCalculator,
+                                final Settings settings,
+                                final Scheduler clockScheduler) {
+        this.etaInteractor = etaInteractor;
+        this.distanceCalculator = distanceCalculator;
+        this.settings = settings;
+        this.clockScheduler = clockScheduler;
+    }
+
+    @Override
+    public Observable<Map<String, Long>> getTravelTimesMillis(final Map<String, LatLng> origins,
+                                                               final LatLng destination) {
+        final Map<String, Long> travelTimes = new HashMap<>();
+        final Map<String, LatLng> originsToEstimate = new HashMap<>();
+        synchronized (cachedEtas) {
+            final long nowMillis = now();
+            // Drop estimates for origins that are no longer requested, so the cache only holds current origins
+            cachedEtas.keySet().retainAll(origins.keySet());
+            for (final Map.Entry<String, LatLng> origin : origins.entrySet()) {
+                final CachedEta cachedEta = cachedEtas.get(origin.getKey());
+                if (cachedEta != null && isUsable(cachedEta, origin.getValue(), destination, nowMillis)) {
+                    travelTimes.put(origin.getKey(), cachedEta.travelTimeMillis);
+                } else {
+                    originsToEstimate.put(origin.getKey(), origin.getValue());
+                }
+            }
+        }
+        if (originsToEstimate.isEmpty()) {
+            return Observable.just(travelTimes);
+        }
+
+        return etaInteractor.getTravelTimesMillis(originsToEstimate, destination)
+            .map(estimatedTravelTimes -> {
+                synchronized (cachedEtas) {
+                    final long nowMillis = now();
+                    for (final Map.Entry<String, Long> travelTime : estimatedTravelTimes.entrySet()) {
+                        cachedEtas.put(travelTime.getKey(), new CachedEta(
+                            originsToEstimate.get(travelTime.getKey()),
+                            destination,
+                            travelTime.getValue(),
+                            nowMillis
+                        ));
+                    }
+                }
+                final Map<String, Long> allTravelTimes = new HashMap<>(travelTimes);
+                allTravelTimes.putAll(estimatedTravelTimes);
+                return allTravelTimes;
+            });
+    }
+
+    @Override
+    public void shutDown() {
+        etaInteractor.shutDown();
+    }
+
+    private boolean isUsable(final CachedEta cachedEta,
+                             final LatLng origin,
+                             final LatLng destination,
+                             final long nowMillis) {
+        return nowMillis - cachedEta.estimatedAtMillis <= settings.maxAgeMillis
+            && distanceCalculator.getDistanceInMeters(cachedEta.origin, origin) <= settings.maxMovedMeters
+            && distanceCalculator.getDistanceInMeters(cachedEta.destination, destination) <= settings.maxMovedMeters;
+    }
+
+    private long now() {
+        return clockScheduler.now(TimeUnit.MILLISECONDS);
+    }
+}
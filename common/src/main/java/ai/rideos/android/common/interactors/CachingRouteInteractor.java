@@ -0,0 +1,100 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.interactors;
+
+import ai.rideos.android.common.location.CellIds;
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.LocationAndHeading;
+import ai.rideos.android.common.model.RouteInfoModel;
+import io.reactivex.Observable;
+import java.util.List;
+
+/**
+ * CachingRouteInteractor serves repeated route requests from a RouteCache. Requests are keyed by the cells containing
+ * their origin, destination and waypoints, and by heading snapped to buckets, so requests for nearly the same
+ * endpoints a few seconds apart share one route. It does not depend on the wrapped interactor, so it works the same in
+ * front of any route provider.
+ */
+public class CachingRouteInteractor implements RouteInteractor {
+    // Cells about 10 meters tall and 15 meters wide at mid latitudes
+    private static final int DEFAULT_CELL_LEVEL = 21;
+    private static final float DEFAULT_HEADING_BUCKET_DEGREES = 30;
+
+    private final RouteInteractor routeInteractor;
+    private final RouteCache routeCache;
+    private final int cellLevel;
+    private final float headingBucketDegrees;
+
+    public CachingRouteInteractor(final RouteInteractor routeInteractor, final RouteCache routeCache) {
+        this(routeInteractor, routeCache, DEFAULT_CELL_LEVEL, DEFAULT_HEADING_BUCKET_DEGREES);
+    }
+
+    /**
+     * @param cellLevel - Coordinates in the same cell at this level share a cache key
+     * @param headingBucketDegrees - Headings that round to the same multiple of this share a cache key
+     */
+    public CachingRouteInteractor(final RouteInteractor routeInteractor,
+                                  final RouteCache routeCache,
+                                  final int cellLevel,
+                                  final float headingBucketDegrees) {
+        this.routeInteractor = routeInteractor;
+        this.routeCache = routeCache;
+        this.cellLevel = cellLevel;
+        this.headingBucketDegrees = headingBucketDegrees;
+    }
+
+    @Override
+    public Observable<RouteInfoModel> getRoute(final LatLng origin, final LatLng destination) {
+        final StringBuilder key = new StringBuilder("route");
+        appendLatLng(key, origin);
+        appendLatLng(key, destination);
+        return routeCache.get(key.toString(), () -> routeInteractor.getRoute(origin, destination));
+    }
+
+    @Override
+    public Observable<RouteInfoModel> getRoute(final LocationAndHeading origin, final LocationAndHeading destination) {
+        final StringBuilder key = new StringBuilder("headingRoute");
+        appendLocationAndHeading(key, origin);
+        appendLocationAndHeading(key, destination);
+        return routeCache.get(key.toString(), () -> routeInteractor.getRoute(origin, destination));
+    }
+
+    @Override
+    public Observable<List<RouteInfoModel>> getRouteForWaypoints(final List<LatLng> waypoints) {
+        final StringBuilder key = new StringBuilder("waypoints");
+        for (final LatLng waypoint : waypoints) {
+            appendLatLng(key, waypoint);
+        }
+        return routeCache.get(key.toString(), () -> routeInteractor.getRouteForWaypoints(waypoints));
+    }
+
+    @Override
+    public void shutDown() {
+        routeInteractor.shutDown();
+    }
+
+    private void appendLatLng(final StringBuilder key, final LatLng latLng) {
+        key.append('|').append(CellIds.fromLatLng(latLng, cellLevel));
+    }
+
+    private void appendLocationAndHeading(final StringBuilder key, final LocationAndHeading locationAndHeading) {
+        appendLatLng(key, locationAndHeading.getLatLng());
+        final int bucketCount = Math.round(360 / headingBucketDegrees);
+        final int headingBucket = Math.round(locationAndHeading.getHeading() / headingBucketDegrees);
+        // Wrap around so that headings just below 360 share a bucket with those just above 0
+        key.append('@').append(Math.floorMod(headingBucket, bucketCount));
+    }
+}
@@ -38,7 +38,12 @@ public class DefaultFleetInteractor
 
     @Override
     public Observable<List<FleetInfo>> getFleets() {
-        return fetchAuthorizedStubAndExecute(stub -> stub.getFleets(GetFleetsRequest.getDefaultInstance()))
+        final GetFleetsRequest request = GetFleetsRequest.getDefaultInstance();
+        return fetchAuthorizedStubAndExecuteCoalesced(
+            RideHailOperationsServiceGrpc.getGetFleetsMethod(),
+            request,
+            stub -> stub.getFleets(request)
+        )
             .map(GetFleetsResponse::getFleetList)
             .map(fleetList -> fleetList.stream()
                 .map(fleet -> new FleetInfo(fleet.getId()))
@@ -0,0 +1,41 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.interactors;
+
+import ai.rideos.android.common.model.LatLng;
+import io.reactivex.Observable;
+import java.util.Map;
+
+/**
+ * EtaInteractor estimates travel times from many origins, like nearby vehicles, to one destination. Implementations
+ * that request routes should cover every origin with a single request where they can, rather than one route request
+ * per origin.
+ */
+public interface EtaInteractor {
+    /**
+     * @param origins - Origins keyed by an ID, like a vehicle ID
+     * @param destination - Destination shared by all origins
+     * @return travel times in milliseconds, keyed by the IDs of the origins. Origins that could not be estimated are
+     * left out.
+     */
+    Observable<Map<String, Long>> getTravelTimesMillis(final Map<String, LatLng> origins, final LatLng destination);
+
+    /**
+     * Used to clean up any channels or resources used when connecting to backend services. After this is called,
+     * the interactor cannot operate
+     */
+    void shutDown();
+}
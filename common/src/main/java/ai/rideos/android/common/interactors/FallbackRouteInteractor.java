@@ -0,0 +1,95 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.interactors;
+
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.LocationAndHeading;
+import ai.rideos.android.common.model.RouteInfoModel;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import timber.log.Timber;
+
+/**
+ * FallbackRouteInteractor answers from a primary route interactor, and asks a fallback interactor instead when the
+ * primary fails or does not answer in time. For example, an on-device router can stand in for a network route provider
+ * when coverage is poor.
+ */
+public class FallbackRouteInteractor implements RouteInteractor {
+    private final RouteInteractor primaryInteractor;
+    private final RouteInteractor fallbackInteractor;
+    private final long primaryTimeoutMillis;
+    private final Scheduler scheduler;
+
+    public FallbackRouteInteractor(final RouteInteractor primaryInteractor,
+                                   final RouteInteractor fallbackInteractor,
+                                   final long primaryTimeoutMillis) {
+        this(primaryInteractor, fallbackInteractor, primaryTimeoutMillis, Schedulers.computation());
+    }
+
+    public FallbackRouteInteractor(final RouteInteractor primaryInteractor,
+                                   final RouteInteractor fallbackInteractor,
+                                   final long primaryTimeoutMillis,
+                                   final Scheduler scheduler) {
+        this.primaryInteractor = primaryInteractor;
+        this.fallbackInteractor = fallbackInteractor;
+        this.primaryTimeoutMillis = primaryTimeoutMillis;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Observable<RouteInfoModel> getRoute(final LatLng origin, final LatLng destination) {
+        return withFallback(
+            primaryInteractor.getRoute(origin, destination),
+            () -> fallbackInteractor.getRoute(origin, destination)
+        );
+    }
+
+    @Override
+    public Observable<RouteInfoModel> getRoute(final LocationAndHeading origin, final LocationAndHeading destination) {
+        return withFallback(
+            primaryInteractor.getRoute(origin, destination),
+            () -> fallbackInteractor.getRoute(origin, destination)
+        );
+    }
+
+    @Override
+    public Observable<List<RouteInfoModel>> getRouteForWaypoints(final List<LatLng> waypoints) {
+        return withFallback(
+            primaryInteractor.getRouteForWaypoints(waypoints),
+            () -> fallbackInteractor.getRouteForWaypoints(waypoints)
+        );
+    }
+
+    @Override
+    public void shutDown() {
+        primaryInteractor.shutDown();
+        fallbackInteractor.shutDown();
+    }
+
+    private <T> Observable<T> withFallback(final Observable<T> primaryRoute,
+                                           final Supplier<Observable<T>> fallbackRoute) {
+        return primaryRoute
+            .timeout(primaryTimeoutMillis, TimeUnit.MILLISECONDS, scheduler)
+            .onErrorResumeNext(e -> {
+                Timber.w(e, "Primary route provider failed, using fallback");
+                return fallbackRoute.get();
+            });
+    }
+}
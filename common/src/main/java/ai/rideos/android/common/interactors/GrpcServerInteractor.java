@@ -16,13 +16,31 @@
 package ai.rideos.android.common.interactors;
 
 import ai.rideos.android.common.authentication.User;
+import ai.rideos.android.common.grpc.ChannelProvider;
+import ai.rideos.android.common.grpc.RequestCoalescer;
+import ai.rideos.android.common.grpc.RpcMetricsInterceptor;
+import ai.rideos.android.common.grpc.RpcPolicy;
+import ai.rideos.android.common.grpc.RpcPolicyInterceptor;
+import ai.rideos.android.common.grpc.RpcPolicyTable;
 import ai.rideos.android.common.grpc.Stubs;
 import ai.rideos.android.common.reactive.SchedulerProvider;
+import androidx.core.util.Pair;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.protobuf.MessageLite;
 import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import io.grpc.stub.AbstractStub;
 import io.reactivex.Observable;
 import io.reactivex.Single;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
 /**
@@ -41,21 +59,73 @@ public abstract class GrpcServerInteractor<T extends AbstractStub<T>> {
         Future<R> call(final T stub);
     }
 
+    /**
+     * Determines how responses from future stubs are turned into observables.
+     * BLOCKING waits for each future on an io thread, so every in-flight RPC holds a thread.
+     * ASYNC completes from the future's listener callback, so no thread waits while an RPC is in flight. Results are
+     * still delivered on the io scheduler, like in BLOCKING mode. Disposing the observable also cancels the RPC.
+     */
+    public enum ExecutionMode {
+        BLOCKING,
+        ASYNC
+    }
+
     private final StubSupplier<T> stubSupplier;
     private final ManagedChannel channel;
     private final User user;
     private final SchedulerProvider schedulerProvider;
+    private final ExecutionMode executionMode;
+    private final RequestCoalescer requestCoalescer;
+    private final RpcPolicyTable rpcPolicyTable;
+    private final RpcPolicyInterceptor rpcPolicyInterceptor;
+    // The last authorized stub and the token it was authorized with. Stubs are immutable, so they can be reused
+    // until the token changes.
+    private final AtomicReference<Pair<String, T>> authorizedStub = new AtomicReference<>();
 
     protected GrpcServerInteractor(final StubSupplier<T> stubSupplier,
                                    final Supplier<ManagedChannel> channelSupplier,
                                    final User user,
                                    final SchedulerProvider schedulerProvider) {
+        this(stubSupplier, channelSupplier, user, schedulerProvider, ExecutionMode.BLOCKING);
+    }
+
+    protected GrpcServerInteractor(final StubSupplier<T> stubSupplier,
+                                   final Supplier<ManagedChannel> channelSupplier,
+                                   final User user,
+                                   final SchedulerProvider schedulerProvider,
+                                   final ExecutionMode executionMode) {
+        this(
+            stubSupplier,
+            channelSupplier,
+            user,
+            schedulerProvider,
+            executionMode,
+            ChannelProvider.getRequestCoalescer(),
+            ChannelProvider.getRpcPolicyTable()
+        );
+    }
+
+    protected GrpcServerInteractor(final StubSupplier<T> stubSupplier,
+                                   final Supplier<ManagedChannel> channelSupplier,
+                                   final User user,
+                                   final SchedulerProvider schedulerProvider,
+                                   final ExecutionMode executionMode,
+                                   final RequestCoalescer requestCoalescer,
+                                   final RpcPolicyTable rpcPolicyTable) {
         this.stubSupplier = stubSupplier;
         this.channel = channelSupplier.get();
         this.user = user;
         this.schedulerProvider = schedulerProvider;
+        this.executionMode = executionMode;
+        this.requestCoalescer = requestCoalescer;
+        this.rpcPolicyTable = rpcPolicyTable;
+        this.rpcPolicyInterceptor = new RpcPolicyInterceptor(rpcPolicyTable);
     }
 
+    /**
+     * Release the interactor's channel. Channels from ChannelProvider are pooled, so this only gives up this
+     * interactor's lease on the shared connection.
+     */
     public void shutDown() {
         channel.shutdownNow();
     }
@@ -66,17 +136,112 @@ public abstract class GrpcServerInteractor<T extends AbstractStub<T>> {
 
     protected Single<T> fetchAuthorizedStub() {
         return user.fetchUserToken()
-            .map(userToken -> Stubs.withAuthorization(
-                stubSupplier.getStub(channel),
-                userToken
-            ))
+            .map(this::getStubForToken)
             // Stub will be fetched on io thread
             .subscribeOn(schedulerProvider.io());
     }
 
+    private T getStubForToken(final String userToken) {
+        final Pair<String, T> cachedStub = authorizedStub.get();
+        if (cachedStub != null && cachedStub.first.equals(userToken)) {
+            return cachedStub.second;
+        }
+        // Every call made through the stub gets the deadline from its method's policy
+        final T stub = Stubs.withAuthorization(stubSupplier.getStub(channel), userToken)
+            .withInterceptors(rpcPolicyInterceptor);
+        authorizedStub.set(Pair.create(userToken, stub));
+        return stub;
+    }
+
     protected <R> Observable<R> fetchAuthorizedStubAndExecute(final FutureStubMethod<T, R> grpcMethod) {
         return fetchAuthorizedStub()
-            // grpc method will be run on io thread because it is blocking
-            .flatMapObservable(stub -> Observable.fromFuture(grpcMethod.call(stub), schedulerProvider.io()));
+            .flatMapObservable(stub -> observeFuture(grpcMethod.call(stub)));
+    }
+
+    /**
+     * Like fetchAuthorizedStubAndExecute, but concurrent calls to the same method with the same request share a
+     * single RPC. This should only be used for idempotent reads. If the method's policy allows hedging, a second
+     * attempt is sent when the first has not answered within the hedge delay, and whichever answers first is used.
+     * Retryable methods are retried once if the server is unavailable.
+     * @param method - The gRPC method called by grpcMethod, used with the request to identify identical calls
+     * @param request - The request passed to grpcMethod
+     */
+    protected <R> Observable<R> fetchAuthorizedStubAndExecuteCoalesced(final MethodDescriptor<?, R> method,
+                                                                       final MessageLite request,
+                                                                       final FutureStubMethod<T, R> grpcMethod) {
+        return requestCoalescer.coalesce(
+            method.getFullMethodName(),
+            request,
+            () -> executeWithPolicy(method.getFullMethodName(), grpcMethod)
+        );
+    }
+
+    private <R> Observable<R> executeWithPolicy(final String fullMethodName,
+                                                final FutureStubMethod<T, R> grpcMethod) {
+        final RpcPolicy policy = rpcPolicyTable.getPolicy(fullMethodName);
+        if (!policy.isRetryable()) {
+            return fetchAuthorizedStubAndExecute(grpcMethod);
+        }
+        final Observable<R> attempt = fetchAuthorizedStubAndExecute(grpcMethod)
+            .retry(1, GrpcServerInteractor::isUnavailable);
+        if (!policy.isHedged()) {
+            return attempt;
+        }
+        // The hedged attempt is marked so that its late start doesn't skew the latencies hedge delays come from
+        final Observable<R> hedgedAttempt = fetchAuthorizedStubAndExecute(
+            stub -> grpcMethod.call(stub.withOption(RpcMetricsInterceptor.HEDGED_ATTEMPT, true))
+        )
+            .retry(1, GrpcServerInteractor::isUnavailable);
+        // amb subscribes to the hedged attempt only if the first has not emitted by then, and disposes the loser
+        return Observable.ambArray(
+            attempt,
+            hedgedAttempt.delaySubscription(
+                rpcPolicyTable.getHedgeDelayMillis(fullMethodName),
+                TimeUnit.MILLISECONDS,
+                schedulerProvider.computation()
+            )
+        );
+    }
+
+    private static boolean isUnavailable(final Throwable throwable) {
+        final Throwable cause = throwable instanceof ExecutionException ? throwable.getCause() : throwable;
+        return cause instanceof StatusRuntimeException
+            && ((StatusRuntimeException) cause).getStatus().getCode() == Status.Code.UNAVAILABLE;
+    }
+
+    /**
+     * Observe the result of a future returned by a stub, according to the interactor's execution mode. As with
+     * Observable.fromFuture, errors are wrapped in an ExecutionException.
+     */
+    protected <R> Observable<R> observeFuture(final Future<R> future) {
+        if (executionMode == ExecutionMode.ASYNC && future instanceof ListenableFuture) {
+            return observeListenableFuture((ListenableFuture<R>) future);
+        }
+        // grpc method will be run on io thread because it is blocking
+        return Observable.fromFuture(future, schedulerProvider.io());
+    }
+
+    private <R> Observable<R> observeListenableFuture(final ListenableFuture<R> future) {
+        return Single.<R>create(emitter -> {
+            emitter.setCancellable(() -> future.cancel(true));
+            Futures.addCallback(
+                future,
+                new FutureCallback<R>() {
+                    @Override
+                    public void onSuccess(final R result) {
+                        emitter.onSuccess(result);
+                    }
+
+                    @Override
+                    public void onFailure(final Throwable throwable) {
+                        emitter.tryOnError(new ExecutionException(throwable));
+                    }
+                },
+                MoreExecutors.directExecutor()
+            );
+        })
+            // The callback runs on a gRPC transport thread, so hand the result off before running downstream operators
+            .observeOn(schedulerProvider.io())
+            .toObservable();
     }
 }
@@ -0,0 +1,66 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.interactors;
+
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.LocationAndHeading;
+import ai.rideos.android.common.model.RouteInfoModel;
+import ai.rideos.android.common.reactive.SchedulerProvider;
+import ai.rideos.android.common.reactive.SchedulerProviders.DefaultSchedulerProvider;
+import ai.rideos.android.common.routing.RoadGraphRouter;
+import io.reactivex.Observable;
+import java.util.List;
+
+/**
+ * OfflineRouteInteractor computes routes on the device from a RoadGraph, so it works without a network connection.
+ * Routes do not account for traffic, so it is best used as a fallback behind a network route provider.
+ */
+public class OfflineRouteInteractor implements RouteInteractor {
+    private final RoadGraphRouter router;
+    private final SchedulerProvider schedulerProvider;
+
+    public OfflineRouteInteractor(final RoadGraphRouter router) {
+        this(router, new DefaultSchedulerProvider());
+    }
+
+    public OfflineRouteInteractor(final RoadGraphRouter router, final SchedulerProvider schedulerProvider) {
+        this.router = router;
+        this.schedulerProvider = schedulerProvider;
+    }
+
+    @Override
+    public Observable<RouteInfoModel> getRoute(final LatLng origin, final LatLng destination) {
+        return Observable.fromCallable(() -> router.route(origin, destination))
+            .subscribeOn(schedulerProvider.computation());
+    }
+
+    @Override
+    public Observable<RouteInfoModel> getRoute(final LocationAndHeading origin, final LocationAndHeading destination) {
+        // The road graph has no notion of which side of the road a vehicle is on, so headings are ignored
+        return getRoute(origin.getLatLng(), destination.getLatLng());
+    }
+
+    @Override
+    public Observable<List<RouteInfoModel>> getRouteForWaypoints(final List<LatLng> waypoints) {
+        return Observable.fromCallable(() -> router.route(waypoints))
+            .subscribeOn(schedulerProvider.computation());
+    }
+
+    @Override
+    public void shutDown() {
+        // The road graph is shared and released when it is no longer referenced
+    }
+}
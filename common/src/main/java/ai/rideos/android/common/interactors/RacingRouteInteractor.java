@@ -0,0 +1,290 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.interactors;
+
+import ai.rideos.android.common.interactors.RouteProviderStats.Snapshot;
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.LocationAndHeading;
+import ai.rideos.android.common.model.RouteInfoModel;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import timber.log.Timber;
+
+/**
+ * RacingRouteInteractor sends route requests to several route providers, such as rideOS and Mapbox, and answers with
+ * the first valid route. A route is valid when it has a non-empty path.
+ *
+ * With Strategy.RACE, every request goes to every provider at once. The first valid route wins and the requests to the
+ * other providers are cancelled. With Strategy.PRIMARY_WITH_FALLBACK, each request goes to a single primary provider
+ * and only moves on to the next provider when the primary fails, times out or returns an invalid route. Providers are
+ * ranked using the rolling latency and error rate in RouteProviderStats:
+ * - Providers with fewer than minSamples recent requests come first, in the given order, so that every provider is
+ *   measured before it is judged.
+ * - Providers whose error rate is at most maxErrorRate come next, fastest p95 latency first.
+ * - Providers with a higher error rate come last. They are measured again once their failures leave the window.
+ */
+public class RacingRouteInteractor implements RouteInteractor {
+    public enum Strategy {
+        RACE,
+        PRIMARY_WITH_FALLBACK
+    }
+
+    public static class Settings {
+        private final Strategy strategy;
+        private final int minSamples;
+        private final double maxErrorRate;
+        private final long requestTimeoutMillis;
+
+        /**
+         * @param strategy - Whether to race all providers or use a ranked primary with fallbacks
+         * @param minSamples - Number of recent requests needed before a provider is ranked by its stats
+         * @param maxErrorRate - Providers failing more often than this, in [0, 1], are only used as a last resort
+         * @param requestTimeoutMillis - Requests to a single provider taking longer than this count as failures
+         */
+        public Settings(final Strategy strategy,
+                        final int minSamples,
+                        final double maxErrorRate,
+                        final long requestTimeoutMillis) {
+            this.strategy = strategy;
+            this.minSamples = minSamples;
+            this.maxErrorRate = maxErrorRate;
+            this.requestTimeoutMillis = requestTimeoutMillis;
+        }
+
+        public static Settings defaults() {
+            return new Settings(Strategy.RACE, 5, 0.25, TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    public static class InvalidRouteException extends Exception {
+        public InvalidRouteException(final String message) {
+            super(message);
+        }
+    }
+
+    private final Map<String, RouteInteractor> providers;
+    private final RouteProviderStats providerStats;
+    private final Scheduler scheduler;
+    private final Settings settings;
+    private String lastPrimaryName;
+
+    /**
+     * @param providers - Route interactors by provider name, in order of preference
+     */
+    public RacingRouteInteractor(final Map<String, RouteInteractor> providers,
+                                 final RouteProviderStats providerStats,
+                                 final Settings settings) {
+        this(providers, providerStats, Schedulers.computation(), settings);
+    }
+
+    public RacingRouteInteractor(final Map<String, RouteInteractor> providers,
+                                 final RouteProviderStats providerStats,
+                                 final Scheduler scheduler,
+                                 final Settings settings) {
+        if (providers.isEmpty()) {
+            throw new IllegalArgumentException("At least one route provider is required");
+        }
+        this.providers = new LinkedHashMap<>(providers);
+        this.providerStats = providerStats;
+        this.scheduler = scheduler;
+        this.settings = settings;
+    }
+
+    @Override
+    public Observable<RouteInfoModel> getRoute(final LatLng origin, final LatLng destination) {
+        return request(provider -> provider.getRoute(origin, destination), RacingRouteInteractor::isValidRoute);
+    }
+
+    @Override
+    public Observable<RouteInfoModel> getRoute(final LocationAndHeading origin, final LocationAndHeading destination) {
+        return request(provider -> provider.getRoute(origin, destination), RacingRouteInteractor::isValidRoute);
+    }
+
+    @Override
+    public Observable<List<RouteInfoModel>> getRouteForWaypoints(final List<LatLng> waypoints) {
+        return request(
+            provider -> provider.getRouteForWaypoints(waypoints),
+            routes -> !routes.isEmpty() && routes.stream().allMatch(RacingRouteInteractor::isValidRoute)
+        );
+    }
+
+    @Override
+    public void shutDown() {
+        for (final RouteInteractor provider : providers.values()) {
+            provider.shutDown();
+        }
+    }
+
+    /**
+     * Return the provider names in the order PRIMARY_WITH_FALLBACK would try them for the next request.
+     */
+    public List<String> getRankedProviderNames() {
+        final Map<String, Snapshot> snapshots = new HashMap<>();
+        final List<String> unmeasured = new ArrayList<>();
+        final List<String> healthy = new ArrayList<>();
+        final List<String> unhealthy = new ArrayList<>();
+        for (final String providerName : providers.keySet()) {
+            final Snapshot snapshot = providerStats.getSnapshot(providerName);
+            snapshots.put(providerName, snapshot);
+            if (snapshot.getSampleCount() < settings.minSamples) {
+                unmeasured.add(providerName);
+            } else if (snapshot.getErrorRate() <= settings.maxErrorRate) {
+                healthy.add(providerName);
+            } else {
+                unhealthy.add(providerName);
+            }
+        }
+        healthy.sort(
+            Comparator.comparingLong((String name) -> snapshots.get(name).getP95LatencyMillis())
+                .thenComparingLong(name -> snapshots.get(name).getP50LatencyMillis())
+        );
+        unhealthy.sort(Comparator.comparingDouble(name -> snapshots.get(name).getErrorRate()));
+
+        final List<String> ranked = new ArrayList<>(providers.size());
+        ranked.addAll(unmeasured);
+        ranked.addAll(healthy);
+        ranked.addAll(unhealthy);
+        return ranked;
+    }
+
+    private <T> Observable<T> request(final Function<RouteInteractor, Observable<T>> request,
+                                      final Predicate<T> isValid) {
+        return Observable.defer(() -> {
+            if (settings.strategy == Strategy.RACE) {
+                return race(request, isValid);
+            }
+            final List<String> rankedNames = getRankedProviderNames();
+            logPrimaryChange(rankedNames.get(0));
+            return fallBack(rankedNames, 0, request, isValid).toObservable();
+        });
+    }
+
+    private <T> Observable<T> race(final Function<RouteInteractor, Observable<T>> request,
+                                   final Predicate<T> isValid) {
+        final List<Observable<Outcome<T>>> attempts = new ArrayList<>(providers.size());
+        for (final String providerName : providers.keySet()) {
+            attempts.add(
+                attempt(providerName, request, isValid)
+                    .map(value -> Outcome.success(providerName, value))
+                    .onErrorReturn(Outcome::failure)
+                    .toObservable()
+            );
+        }
+        return Observable.merge(attempts)
+            // Stopping at the first success cancels the requests still running
+            .takeUntil(outcome -> outcome.error == null)
+            .lastOrError()
+            .flatMapObservable(outcome -> {
+                if (outcome.error != null) {
+                    // Every provider failed, so report the last failure
+                    return Observable.error(outcome.error);
+                }
+                providerStats.recordWin(outcome.providerName);
+                return Observable.just(outcome.value);
+            });
+    }
+
+    private <T> Single<T> fallBack(final List<String> rankedNames,
+                                   final int index,
+                                   final Function<RouteInteractor, Observable<T>> request,
+                                   final Predicate<T> isValid) {
+        final String providerName = rankedNames.get(index);
+        final Single<T> attempt = attempt(providerName, request, isValid)
+            .doOnSuccess(value -> providerStats.recordWin(providerName));
+        if (index == rankedNames.size() - 1) {
+            return attempt;
+        }
+        return attempt.onErrorResumeNext(e -> {
+            Timber.w(e, "Route provider %s failed, falling back to %s", providerName, rankedNames.get(index + 1));
+            return fallBack(rankedNames, index + 1, request, isValid);
+        });
+    }
+
+    private <T> Single<T> attempt(final String providerName,
+                                  final Function<RouteInteractor, Observable<T>> request,
+                                  final Predicate<T> isValid) {
+        return Single.defer(() -> {
+            final long startMillis = scheduler.now(TimeUnit.MILLISECONDS);
+            final AtomicBoolean isFinished = new AtomicBoolean(false);
+            return request.apply(providers.get(providerName))
+                .firstOrError()
+                .timeout(settings.requestTimeoutMillis, TimeUnit.MILLISECONDS, scheduler)
+                .map(value -> {
+                    if (!isValid.test(value)) {
+                        throw new InvalidRouteException(providerName + " returned an empty route");
+                    }
+                    return value;
+                })
+                .doOnSuccess(value -> {
+                    isFinished.set(true);
+                    providerStats.recordSuccess(providerName, scheduler.now(TimeUnit.MILLISECONDS) - startMillis);
+                })
+                .doOnError(e -> {
+                    isFinished.set(true);
+                    providerStats.recordFailure(providerName, scheduler.now(TimeUnit.MILLISECONDS) - startMillis);
+                })
+                .doOnDispose(() -> {
+                    // Disposal also reaches requests that already finished, which should not count as cancelled
+                    if (!isFinished.get()) {
+                        providerStats.recordCancelled(providerName);
+                    }
+                });
+        });
+    }
+
+    private synchronized void logPrimaryChange(final String primaryName) {
+        if (!primaryName.equals(lastPrimaryName)) {
+            lastPrimaryName = primaryName;
+            Timber.d("Primary route provider is now %s: %s", primaryName, providerStats.getSnapshot(primaryName));
+        }
+    }
+
+    private static boolean isValidRoute(final RouteInfoModel route) {
+        return !route.getPath().isEmpty();
+    }
+
+    private static class Outcome<T> {
+        private final String providerName;
+        private final T value;
+        private final Throwable error;
+
+        private Outcome(final String providerName, final T value, final Throwable error) {
+            this.providerName = providerName;
+            this.value = value;
+            this.error = error;
+        }
+
+        private static <T> Outcome<T> success(final String providerName, final T value) {
+            return new Outcome<>(providerName, value, null);
+        }
+
+        private static <T> Outcome<T> failure(final Throwable error) {
+            return new Outcome<>(null, null, error);
+        }
+    }
+}
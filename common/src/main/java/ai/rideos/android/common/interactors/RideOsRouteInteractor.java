@@ -21,7 +21,7 @@ import ai.rideos.android.common.model.LocationAndHeading;
 import ai.rideos.android.common.model.RouteInfoModel;
 import ai.rideos.android.common.reactive.SchedulerProviders.DefaultSchedulerProvider;
 import ai.rideos.android.common.utils.Locations;
-import ai.rideos.android.common.utils.Polylines.GMSPolylineDecoder;
+import ai.rideos.android.common.utils.PolylineCodec;
 import ai.rideos.android.common.utils.Polylines.PolylineDecoder;
 import ai.rideos.api.path.v2.PathProto.Leg;
 import ai.rideos.api.path.v2.PathProto.PathRequest;
@@ -49,7 +49,7 @@ public class RideOsRouteInteractor extends GrpcServerInteractor<PathServiceFutur
     }
 
     public RideOsRouteInteractor(final Supplier<ManagedChannel> channelSupplier, final User user) {
-        this(channelSupplier, user, new GMSPolylineDecoder());
+        this(channelSupplier, user, new PolylineCodec(PolylineCodec.PRECISION_5));
     }
 
     public RideOsRouteInteractor(final Supplier<ManagedChannel> channelSupplier,
@@ -0,0 +1,220 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.interactors;
+
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * RouteCache holds recently fetched routes for CachingRouteInteractor. Entries expire after a fixed time and the least
+ * recently used entries are evicted once the cache is full. While a route is being fetched, other requests for the
+ * same key join the pending fetch instead of starting their own. Failed fetches are not cached.
+ *
+ * A single cache can be shared by several CachingRouteInteractors, as long as they wrap the same kind of route
+ * provider.
+ */
+public class RouteCache {
+    public static class Settings {
+        private final int maxEntries;
+        private final long ttlMillis;
+
+        /**
+         * @param maxEntries - Least recently used entries are evicted beyond this size
+         * @param ttlMillis - How long a route stays valid after it is fetched
+         */
+        public Settings(final int maxEntries, final long ttlMillis) {
+            this.maxEntries = maxEntries;
+            this.ttlMillis = ttlMillis;
+        }
+
+        public static Settings defaults() {
+            return new Settings(64, TimeUnit.SECONDS.toMillis(60));
+        }
+    }
+
+    public static class Stats {
+        private final long hitCount;
+        private final long missCount;
+        private final long inFlightJoinCount;
+        private final long evictionCount;
+        private final long expirationCount;
+        private final int size;
+
+        Stats(final long hitCount,
+              final long missCount,
+              final long inFlightJoinCount,
+              final long evictionCount,
+              final long expirationCount,
+              final int size) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.inFlightJoinCount = inFlightJoinCount;
+            this.evictionCount = evictionCount;
+            this.expirationCount = expirationCount;
+            this.size = size;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        // Number of requests that had to fetch a route
+        public long getMissCount() {
+            return missCount;
+        }
+
+        // Number of requests that joined a fetch already in flight for the same key
+        public long getInFlightJoinCount() {
+            return inFlightJoinCount;
+        }
+
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        public long getExpirationCount() {
+            return expirationCount;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public double getHitRate() {
+            final long requestCount = hitCount + missCount + inFlightJoinCount;
+            return requestCount == 0 ? 0 : (double) (hitCount + inFlightJoinCount) / requestCount;
+        }
+
+        @Override
+        public String toString() {
+            return "hits=" + hitCount
+                + " misses=" + missCount
+                + " inFlightJoins=" + inFlightJoinCount
+                + " evictions=" + evictionCount
+                + " expirations=" + expirationCount
+                + " size=" + size;
+        }
+    }
+
+    private final Settings settings;
+    private final Scheduler clockScheduler;
+    // Access ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, CachedRoute> cachedRoutes = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, PendingFetch<?>> pendingFetches = new HashMap<>();
+
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long inFlightJoinCount = 0;
+    private long evictionCount = 0;
+    private long expirationCount = 0;
+
+    public RouteCache() {
+        this(Settings.defaults(), Schedulers.computation());
+    }
+
+    public RouteCache(final Settings settings, final Scheduler clockScheduler) {
+        this.settings = settings;
+        this.clockScheduler = clockScheduler;
+    }
+
+    /**
+     * Return the cached route for a key if it has not expired, or otherwise fetch it using routeSupplier when
+     * subscribed to.
+     */
+    public <T> Observable<T> get(final String key, final Supplier<Observable<T>> routeSupplier) {
+        return Observable.defer(() -> getOrFetch(key, routeSupplier));
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hitCount, missCount, inFlightJoinCount, evictionCount, expirationCount, cachedRoutes.size());
+    }
+
+    public synchronized void clear() {
+        cachedRoutes.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <T> Observable<T> getOrFetch(final String key, final Supplier<Observable<T>> routeSupplier) {
+        final CachedRoute cachedRoute = cachedRoutes.get(key);
+        if (cachedRoute != null) {
+            if (cachedRoute.expiresAtMillis > now()) {
+                hitCount++;
+                return Observable.just((T) cachedRoute.route);
+            }
+            cachedRoutes.remove(key);
+            expirationCount++;
+        }
+
+        final PendingFetch<T> existingFetch = (PendingFetch<T>) pendingFetches.get(key);
+        if (existingFetch != null) {
+            inFlightJoinCount++;
+            return existingFetch.sharedRoute;
+        }
+
+        missCount++;
+        final PendingFetch<T> newFetch = new PendingFetch<>();
+        newFetch.sharedRoute = routeSupplier.get()
+            .doOnNext(route -> put(key, route))
+            .doFinally(() -> removePendingFetch(key, newFetch))
+            // Replay the route so that a request joining just after it arrives still receives it
+            .replay(1)
+            .refCount();
+        pendingFetches.put(key, newFetch);
+        return newFetch.sharedRoute;
+    }
+
+    private synchronized void put(final String key, final Object route) {
+        cachedRoutes.put(key, new CachedRoute(route, now() + settings.ttlMillis));
+        final Iterator<CachedRoute> leastRecentlyUsed = cachedRoutes.values().iterator();
+        while (cachedRoutes.size() > settings.maxEntries && leastRecentlyUsed.hasNext()) {
+            leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+            evictionCount++;
+        }
+    }
+
+    private synchronized void removePendingFetch(final String key, final PendingFetch<?> fetch) {
+        // Only remove the entry if it still belongs to this fetch, not to a newer fetch for the same key
+        if (pendingFetches.get(key) == fetch) {
+            pendingFetches.remove(key);
+        }
+    }
+
+    private long now() {
+        return clockScheduler.now(TimeUnit.MILLISECONDS);
+    }
+
+    private static class CachedRoute {
+        private final Object route;
+        private final long expiresAtMillis;
+
+        private CachedRoute(final Object route, final long expiresAtMillis) {
+            this.route = route;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private static class PendingFetch<T> {
+        private Observable<T> sharedRoute;
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.interactors;
+
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.RouteInfoModel;
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import timber.log.Timber;
+
+/**
+ * RouteEtaInteractor estimates travel times from many origins to one destination with a single multi-waypoint route
+ * request. The waypoints alternate between each origin and the destination, so every other leg of the route goes
+ * from an origin to the destination. The legs back from the destination to the next origin are ignored, which costs
+ * the route provider some extra work but saves a request per origin.
+ *
+ * If the request fails, for example because one of the origins cannot be routed, each origin is routed separately
+ * instead. Origins that still cannot be routed get estimates from a fallback interactor, like a
+ * StraightLineEtaInteractor. Callers should keep the number of origins small, since route providers limit how many
+ * waypoints a route may have.
+ */
+public class RouteEtaInteractor implements EtaInteractor {
+    private final RouteInteractor routeInteractor;
+    private final EtaInteractor fallbackEtaInteractor;
+
+    public RouteEtaInteractor(final RouteInteractor routeInteractor, final EtaInteractor fallbackEtaInteractor) {
+        this.routeInteractor = routeInteractor;
+        this.fallbackEtaInteractor = fallbackEtaInteractor;
+    }
+
+    @Override
+    public Observable<Map<String, Long>> getTravelTimesMillis(final Map<String, LatLng> origins,
+                                                               final LatLng destination) {
+        if (origins.isEmpty()) {
+            return Observable.just(new HashMap<>());
+        }
+        final List<String> originIds = new ArrayList<>(origins.keySet());
+        final List<LatLng> waypoints = new ArrayList<>(originIds.size() * 2);
+        for (final String originId : originIds) {
+            waypoints.add(origins.get(originId));
+            waypoints.add(destination);
+        }
+        return routeInteractor.getRouteForWaypoints(waypoints)
+            .map(legs -> {
+                final Map<String, Long> travelTimes = new HashMap<>();
+                for (int i = 0; i < originIds.size(); i++) {
+                    final RouteInfoModel leg = legs.get(i * 2);
+                    travelTimes.put(originIds.get(i), leg.getTravelTimeMillis());
+                }
+                return travelTimes;
+            })
+            .onErrorResumeNext(e -> {
+                if (origins.size() == 1) {
+                    Timber.w(e, "Failed to estimate travel time from a route, using fallback estimate");
+                    return fallbackEtaInteractor.getTravelTimesMillis(origins, destination);
+                }
+                Timber.w(e, "Failed to estimate travel times from one route, routing each origin separately");
+                return getTravelTimesFromSeparateRoutes(origins, destination);
+            });
+    }
+
+    private Observable<Map<String, Long>> getTravelTimesFromSeparateRoutes(final Map<String, LatLng> origins,
+                                                                          final LatLng destination) {
+        return Observable.fromIterable(origins.entrySet())
+            .flatMapSingle(origin -> getTravelTimeForOrigin(origin.getKey(), origin.getValue(), destination))
+            .<Map<String, Long>>collect(HashMap::new, Map::putAll)
+            .toObservable();
+    }
+
+    private Single<Map<String, Long>> getTravelTimeForOrigin(final String originId,
+                                                             final LatLng origin,
+                                                             final LatLng destination) {
+        return routeInteractor.getRoute(origin, destination)
+            .firstOrError()
+            .map(route -> Collections.singletonMap(originId, route.getTravelTimeMillis()))
+            .onErrorResumeNext(e -> {
+                Timber.w(e, "Failed to estimate travel time for %s from a route, using fallback estimate", originId);
+                return fallbackEtaInteractor
+                    .getTravelTimesMillis(Collections.singletonMap(originId, origin), destination)
+                    .firstOrError();
+            });
+    }
+
+    @Override
+    public void shutDown() {
+        routeInteractor.shutDown();
+        fallbackEtaInteractor.shutDown();
+    }
+}
@@ -0,0 +1,260 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.interactors;
+
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RouteProviderStats keeps a rolling window of request outcomes for each route provider used by
+ * RacingRouteInteractor. The window holds the most recent requests that are younger than a maximum age, so a provider
+ * that failed for a while is judged again once its old failures age out.
+ *
+ * Latency percentiles only include successful requests. Failures and timeouts are reflected in the error rate instead.
+ * Requests that were cancelled because another provider won a race are not part of the window, since their latency is
+ * unknown.
+ */
+public class RouteProviderStats {
+    public static class Settings {
+        private final int windowSize;
+        private final long windowMillis;
+
+        /**
+         * @param windowSize - Maximum number of recent requests kept per provider
+         * @param windowMillis - Requests older than this are dropped from the window
+         */
+        public Settings(final int windowSize, final long windowMillis) {
+            this.windowSize = windowSize;
+            this.windowMillis = windowMillis;
+        }
+
+        public static Settings defaults() {
+            return new Settings(50, TimeUnit.MINUTES.toMillis(10));
+        }
+    }
+
+    public static class Snapshot {
+        private final String providerName;
+        private final int sampleCount;
+        private final int failureCount;
+        private final long p50LatencyMillis;
+        private final long p95LatencyMillis;
+        private final long winCount;
+        private final long cancelledCount;
+
+        Snapshot(final String providerName,
+                 final int sampleCount,
+                 final int failureCount,
+                 final long p50LatencyMillis,
+                 final long p95LatencyMillis,
+                 final long winCount,
+                 final long cancelledCount) {
+            this.providerName = providerName;
+            this.sampleCount = sampleCount;
+            this.failureCount = failureCount;
+            this.p50LatencyMillis = p50LatencyMillis;
+            this.p95LatencyMillis = p95LatencyMillis;
+            this.winCount = winCount;
+            this.cancelledCount = cancelledCount;
+        }
+
+        public String getProviderName() {
+            return providerName;
+        }
+
+        // Number of finished requests in the window
+        public int getSampleCount() {
+            return sampleCount;
+        }
+
+        public int getFailureCount() {
+            return failureCount;
+        }
+
+        public double getErrorRate() {
+            return sampleCount == 0 ? 0 : (double) failureCount / sampleCount;
+        }
+
+        // Latency of successful requests in the window, or 0 if there are none
+        public long getP50LatencyMillis() {
+            return p50LatencyMillis;
+        }
+
+        public long getP95LatencyMillis() {
+            return p95LatencyMillis;
+        }
+
+        // Number of requests answered by this provider since the stats were created
+        public long getWinCount() {
+            return winCount;
+        }
+
+        // Number of requests to this provider cancelled because another provider answered first
+        public long getCancelledCount() {
+            return cancelledCount;
+        }
+
+        @Override
+        public String toString() {
+            return providerName
+                + " samples=" + sampleCount
+                + " errorRate=" + String.format("%.2f", getErrorRate())
+                + " latencyMs[p50=" + p50LatencyMillis + " p95=" + p95LatencyMillis + "]"
+                + " wins=" + winCount
+                + " cancelled=" + cancelledCount;
+        }
+    }
+
+    private final Settings settings;
+    private final Scheduler clockScheduler;
+    // Insertion ordered, so reports list providers in the order they were first used
+    private final Map<String, ProviderWindow> windows = new LinkedHashMap<>();
+
+    public RouteProviderStats() {
+        this(Settings.defaults(), Schedulers.computation());
+    }
+
+    public RouteProviderStats(final Settings settings, final Scheduler clockScheduler) {
+        this.settings = settings;
+        this.clockScheduler = clockScheduler;
+    }
+
+    public synchronized void recordSuccess(final String providerName, final long latencyMillis) {
+        getOrCreateWindow(providerName).add(now(), latencyMillis, true);
+    }
+
+    public synchronized void recordFailure(final String providerName, final long latencyMillis) {
+        getOrCreateWindow(providerName).add(now(), latencyMillis, false);
+    }
+
+    public synchronized void recordWin(final String providerName) {
+        getOrCreateWindow(providerName).winCount++;
+    }
+
+    public synchronized void recordCancelled(final String providerName) {
+        getOrCreateWindow(providerName).cancelledCount++;
+    }
+
+    public synchronized Snapshot getSnapshot(final String providerName) {
+        return getOrCreateWindow(providerName).toSnapshot(providerName, now() - settings.windowMillis);
+    }
+
+    public synchronized List<Snapshot> getSnapshots() {
+        final List<Snapshot> snapshots = new ArrayList<>(windows.size());
+        for (final Map.Entry<String, ProviderWindow> entry : windows.entrySet()) {
+            snapshots.add(entry.getValue().toSnapshot(entry.getKey(), now() - settings.windowMillis));
+        }
+        return snapshots;
+    }
+
+    public synchronized void reset() {
+        windows.clear();
+    }
+
+    /**
+     * Write a human readable report with one line per provider.
+     */
+    public void writeReport(final Writer writer) throws IOException {
+        for (final Snapshot snapshot : getSnapshots()) {
+            writer.write(snapshot.toString());
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private ProviderWindow getOrCreateWindow(final String providerName) {
+        ProviderWindow window = windows.get(providerName);
+        if (window == null) {
+            window = new ProviderWindow(settings.windowSize);
+            windows.put(providerName, window);
+        }
+        return window;
+    }
+
+    private long now() {
+        return clockScheduler.now(TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Ring buffer of the most recent requests to one provider.
+     */
+    private static class ProviderWindow {
+        private final long[] timestampsMillis;
+        private final long[] latenciesMillis;
+        private final boolean[] successes;
+        // Index the next sample is written to
+        private int next = 0;
+        private int size = 0;
+        private long winCount = 0;
+        private long cancelledCount = 0;
+
+        private ProviderWindow(final int capacity) {
+            timestampsMillis = new long[capacity];
+            latenciesMillis = new long[capacity];
+            successes = new boolean[capacity];
+        }
+
+        private void add(final long timestampMillis, final long latencyMillis, final boolean success) {
+            timestampsMillis[next] = timestampMillis;
+            latenciesMillis[next] = latencyMillis;
+            successes[next] = success;
+            next = (next + 1) % timestampsMillis.length;
+            size = Math.min(size + 1, timestampsMillis.length);
+        }
+
+        private Snapshot toSnapshot(final String providerName, final long oldestTimestampMillis) {
+            final long[] successLatencies = new long[size];
+            int successCount = 0;
+            int sampleCount = 0;
+            for (int i = 0; i < size; i++) {
+                if (timestampsMillis[i] < oldestTimestampMillis) {
+                    continue;
+                }
+                sampleCount++;
+                if (successes[i]) {
+                    successLatencies[successCount++] = latenciesMillis[i];
+                }
+            }
+            Arrays.sort(successLatencies, 0, successCount);
+            return new Snapshot(
+                providerName,
+                sampleCount,
+                sampleCount - successCount,
+                getPercentile(successLatencies, successCount, 50),
+                getPercentile(successLatencies, successCount, 95),
+                winCount,
+                cancelledCount
+            );
+        }
+
+        // Nearest-rank percentile of the first count values, which must be sorted
+        private static long getPercentile(final long[] sortedValues, final int count, final double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            final int rank = Math.max(1, (int) Math.ceil(percentile / 100.0 * count));
+            return sortedValues[rank - 1];
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.interactors;
+
+import ai.rideos.android.common.location.DistanceCalculator;
+import ai.rideos.android.common.location.HaversineDistanceCalculator;
+import ai.rideos.android.common.model.LatLng;
+import io.reactivex.Observable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * StraightLineEtaInteractor estimates travel times on the device from the straight-line distance, stretched by a
+ * detour factor to account for the road network, at a typical city speed. It never fails, so it can back up an
+ * interactor that depends on the network.
+ */
+public class StraightLineEtaInteractor implements EtaInteractor {
+    public static class Settings {
+        private final double speedMetersPerSecond;
+        private final double detourFactor;
+
+        /**
+         * @param speedMetersPerSecond - Average speed to assume, including stops
+         * @param detourFactor - How much longer road distances are than straight-line distances
+         */
+        public Settings(final double speedMetersPerSecond, final double detourFactor) {
+            this.speedMetersPerSecond = speedMetersPerSecond;
+            this.detourFactor = detourFactor;
+        }
+
+        // About 30 km/h, with roads 40% longer than the straight line
+        public static Settings defaults() {
+            return new Settings(8.3, 1.4);
+        }
+    }
+
+    private final DistanceCalculator distanceCalculator;
+    private final Settings settings;
+
+    public StraightLineEtaInteractor() {
+        this(new HaversineDistanceCalculator(), Settings.defaults());
+    }
+
+    public StraightLineEtaInteractor(final DistanceCalculator distanceCalculator, final Settings settings) {
+        this.distanceCalculator = distanceCalculator;
+        this.settings = settings;
+    }
+
+    @Override
+    public Observable<Map<String, Long>> getTravelTimesMillis(final Map<String, LatLng> origins,
+                                                               final LatLng destination) {
+        return Observable.fromCallable(() -> {
+            final Map<String, Long> travelTimes = new HashMap<>();
+            for (final Map.Entry<String, LatLng> origin : origins.entrySet()) {
+                travelTimes.put(origin.getKey(), getTravelTimeMillis(origin.getValue(), destination));
+            }
+            return travelTimes;
+        });
+    }
+
+    private long getTravelTimeMillis(final LatLng origin, final LatLng destination) {
+        final double roadMeters = distanceCalculator.getDistanceInMeters(origin, destination) * settings.detourFactor;
+        return Math.round(roadMeters / settings.speedMetersPerSecond * 1000);
+    }
+
+    @Override
+    public void shutDown() {
+    }
+}
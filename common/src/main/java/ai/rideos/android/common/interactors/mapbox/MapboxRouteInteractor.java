@@ -15,21 +15,20 @@
  */
 package ai.rideos.android.common.interactors.mapbox;
 
-import static com.mapbox.core.constants.Constants.PRECISION_6;
-
 import ai.rideos.android.common.interactors.RideOsRouteInteractor.RouteException;
 import ai.rideos.android.common.interactors.RouteInteractor;
 import ai.rideos.android.common.model.LatLng;
 import ai.rideos.android.common.model.LocationAndHeading;
+import ai.rideos.android.common.model.PackedPath;
 import ai.rideos.android.common.model.RouteInfoModel;
 import ai.rideos.android.common.reactive.SchedulerProvider;
 import ai.rideos.android.common.reactive.SchedulerProviders.DefaultSchedulerProvider;
+import ai.rideos.android.common.utils.PolylineCodec;
 import ai.rideos.android.common.utils.Polylines.PolylineDecoder;
 import android.content.Context;
 import com.mapbox.api.directions.v5.models.DirectionsRoute;
 import com.mapbox.api.directions.v5.models.LegStep;
 import com.mapbox.api.directions.v5.models.RouteLeg;
-import com.mapbox.geojson.LineString;
 import com.mapbox.geojson.Point;
 import io.reactivex.Observable;
 import java.util.List;
@@ -41,7 +40,11 @@ public class MapboxRouteInteractor implements RouteInteractor {
     private final PolylineDecoder polyLineDecoder;
 
     public MapboxRouteInteractor(final Context context) {
-        this(new MapboxApiInteractor(context), new MapboxPolylineDecoder(), new DefaultSchedulerProvider());
+        this(
+            new MapboxApiInteractor(context),
+            new PolylineCodec(PolylineCodec.PRECISION_6),
+            new DefaultSchedulerProvider()
+        );
     }
 
     public MapboxRouteInteractor(final MapboxApiInteractor apiInteractor,
@@ -95,12 +98,13 @@ public class MapboxRouteInteractor implements RouteInteractor {
                 return directionsRoute.legs().stream()
                     .map(leg -> {
                         // Individual route legs don't have geometry, but the steps do. So, get the geometry from each
-                        // step, decode to waypoints, and flatten into a list.
-                        final List<LatLng> legRoute = leg.steps().stream()
-                            .map(LegStep::geometry)
-                            .map(polyLineDecoder::decode)
-                            .flatMap(List::stream)
-                            .collect(Collectors.toList());
+                        // step, decode to waypoints, and join them. Joining copies no vertices.
+                        final PackedPath legRoute = PackedPath.concat(
+                            leg.steps().stream()
+                                .map(LegStep::geometry)
+                                .map(polyLineDecoder::decode)
+                                .collect(Collectors.toList())
+                        );
                         return new RouteInfoModel(
                             legRoute,
                             (long) (leg.duration() * 1000),
@@ -137,17 +141,4 @@ public class MapboxRouteInteractor implements RouteInteractor {
     public void shutDown() {
 
     }
-
-    /**
-     * Mapbox orders its coordinates lng,lat so use their decoder for polylines.
-     */
-    private static class MapboxPolylineDecoder implements PolylineDecoder {
-        @Override
-        public List<LatLng> decode(final String polyline) {
-            // Mapbox returns the geometry in lng,lat order so we have to use their polyline decoder
-            return LineString.fromPolyline(polyline, PRECISION_6).coordinates().stream()
-                .map(point -> new LatLng(point.latitude(), point.longitude()))
-                .collect(Collectors.toList());
-        }
-    }
 }
@@ -0,0 +1,313 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.location;
+
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.map.LatLngBounds;
+
+/**
+ * CellIds divides the earth into a quadtree of latitude/longitude cells and names each cell with a 64-bit ID, so
+ * spatial caches and buckets can be keyed by a primitive long. Level 0 is the whole world, and each level splits every
+ * cell into four, down to MAX_LEVEL. A cell at level L is 180 / 2^L degrees tall and 360 / 2^L degrees wide, which is
+ * about 300m tall at level 16 and 2cm at level 30.
+ *
+ * IDs follow the layout of S2 cell IDs on a single face: the cell's quadtree path is stored in Z-order from the most
+ * significant bits, followed by a single set bit that marks the level. This keeps every descendant of a cell in a
+ * contiguous range of IDs, so containment is a range check and sorted IDs keep nearby cells close together. Unlike
+ * S2, cells are not projected onto a cube, so they get narrower towards the poles.
+ */
+public final class CellIds {
+    public static final int MAX_LEVEL = 30;
+    // Returned for cells that do not exist, such as the neighbor north of the top row. Valid IDs are never 0.
+    public static final long NONE = 0;
+
+    public static final int NORTH = 0;
+    public static final int EAST = 1;
+    public static final int SOUTH = 2;
+    public static final int WEST = 3;
+
+    private static final int POSITION_BITS = 2 * MAX_LEVEL + 1;
+
+    private CellIds() {
+    }
+
+    /**
+     * The cell at a level containing a point. Latitudes beyond the poles are clamped and longitudes are wrapped.
+     */
+    public static long fromLatLng(final double latitude, final double longitude, final int level) {
+        return getParent(fromPosition(getX(Geodesy.normalizeLongitude(longitude)), getY(latitude), MAX_LEVEL), level);
+    }
+
+    public static long fromLatLng(final LatLng latLng, final int level) {
+        return fromLatLng(latLng.getLatitude(), latLng.getLongitude(), level);
+    }
+
+    public static boolean isValid(final long cellId) {
+        // The level bit must be in an even position at or below the top level
+        return cellId > 0
+            && cellId >>> POSITION_BITS == 0
+            && (Long.numberOfTrailingZeros(cellId) & 1) == 0;
+    }
+
+    public static int getLevel(final long cellId) {
+        return MAX_LEVEL - Long.numberOfTrailingZeros(cellId) / 2;
+    }
+
+    public static long getParent(final long cellId) {
+        return getParent(cellId, getLevel(cellId) - 1);
+    }
+
+    /**
+     * The ancestor of a cell at a coarser level. A cell is its own parent at its own level.
+     */
+    public static long getParent(final long cellId, final int level) {
+        final long levelBit = getLevelBit(level);
+        return (cellId & -levelBit) | levelBit;
+    }
+
+    /**
+     * One of the four children of a cell, numbered 0 to 3 in Z-order: south-west, south-east, north-west, north-east.
+     */
+    public static long getChild(final long cellId, final int position) {
+        final long childLevelBit = getLevelBit(cellId) >>> 2;
+        return cellId - getLevelBit(cellId) + (2 * position + 1) * childLevelBit;
+    }
+
+    /**
+     * Whether a cell is the other cell or one of its descendants.
+     */
+    public static boolean contains(final long cellId, final long otherCellId) {
+        final long levelBit = getLevelBit(cellId);
+        return otherCellId >= cellId - (levelBit - 1) && otherCellId <= cellId + (levelBit - 1);
+    }
+
+    /**
+     * The adjacent cell at the same level in one of the directions NORTH, EAST, SOUTH or WEST. Neighbors wrap around
+     * the antimeridian. There is no neighbor beyond a pole, so NONE is returned.
+     */
+    public static long getNeighbor(final long cellId, final int direction) {
+        final int level = getLevel(cellId);
+        final long position = cellId >>> (2 * (MAX_LEVEL - level) + 1);
+        final int size = 1 << level;
+        int x = compact(position);
+        int y = compact(position >>> 1);
+        switch (direction) {
+            case NORTH:
+                y++;
+                break;
+            case EAST:
+                x = (x + 1) & (size - 1);
+                break;
+            case SOUTH:
+                y--;
+                break;
+            case WEST:
+                x = (x - 1) & (size - 1);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown direction " + direction);
+        }
+        return y < 0 || y >= size ? NONE : fromPosition(x, y, level);
+    }
+
+    /**
+     * Writes the cell's edges in degrees at Geodesy.SOUTH, WEST, NORTH and EAST.
+     */
+    public static void getBounds(final long cellId, final double[] result) {
+        final int level = getLevel(cellId);
+        final long position = cellId >>> (2 * (MAX_LEVEL - level) + 1);
+        final double width = 360.0 / (1 << level);
+        final double height = 180.0 / (1 << level);
+        final int x = compact(position);
+        final int y = compact(position >>> 1);
+        result[Geodesy.SOUTH] = y * height - 90;
+        result[Geodesy.WEST] = x * width - 180;
+        result[Geodesy.NORTH] = (y + 1) * height - 90;
+        result[Geodesy.EAST] = (x + 1) * width - 180;
+    }
+
+    /**
+     * Covers a box with cells at the finest level, no finer than maxLevel, that needs at most maxCells of them. The
+     * box is given as in Geodesy.getBoundsAroundCircle, so it crosses the antimeridian when west is greater than
+     * east. Returns the number of cells written to the result, which must hold at least maxCells IDs.
+     */
+    public static int getCovering(final double south,
+                                  final double west,
+                                  final double north,
+                                  final double east,
+                                  final int maxLevel,
+                                  final int maxCells,
+                                  final long[] result) {
+        return getCovering(south, west, north, east, Double.NaN, Double.NaN, 0, maxLevel, maxCells, result);
+    }
+
+    public static int getCovering(final LatLngBounds bounds,
+                                  final int maxLevel,
+                                  final int maxCells,
+                                  final long[] result) {
+        return getCovering(
+            bounds.getSouthwestCorner().getLatitude(),
+            bounds.getSouthwestCorner().getLongitude(),
+            bounds.getNortheastCorner().getLatitude(),
+            bounds.getNortheastCorner().getLongitude(),
+            maxLevel,
+            maxCells,
+            result
+        );
+    }
+
+    /**
+     * Covers every point within a distance of the center, as getCovering does for the circle's bounding box, and then
+     * drops the cells in the box's corners that the circle does not reach.
+     */
+    public static int getCircleCovering(final double latitude,
+                                        final double longitude,
+                                        final double radiusMeters,
+                                        final int maxLevel,
+                                        final int maxCells,
+                                        final long[] result) {
+        final double[] bounds = new double[4];
+        Geodesy.getBoundsAroundCircle(latitude, longitude, radiusMeters, bounds);
+        return getCovering(
+            bounds[Geodesy.SOUTH],
+            bounds[Geodesy.WEST],
+            bounds[Geodesy.NORTH],
+            bounds[Geodesy.EAST],
+            latitude,
+            longitude,
+            radiusMeters,
+            maxLevel,
+            maxCells,
+            result
+        );
+    }
+
+    // Covers the box, skipping cells further than radiusMeters from the center when a center is given
+    private static int getCovering(final double south,
+                                   final double west,
+                                   final double north,
+                                   final double east,
+                                   final double centerLatitude,
+                                   final double centerLongitude,
+                                   final double radiusMeters,
+                                   final int maxLevel,
+                                   final int maxCells,
+                                   final long[] result) {
+        final int minX = getX(west);
+        final int minY = getY(south);
+        final int maxX = getX(east);
+        final int maxY = getY(north);
+
+        // Coarsen until the box spans few enough cells. Each step halves the cell count in each direction.
+        int level = Math.min(maxLevel, MAX_LEVEL);
+        while (level > 0 && getCellCount(minX, minY, maxX, maxY, level) > maxCells) {
+            level--;
+        }
+
+        final int shift = MAX_LEVEL - level;
+        final int size = 1 << level;
+        final int startX = minX >>> shift;
+        final int columnCount = Math.floorMod((maxX >>> shift) - startX, size) + 1;
+        final double[] cellBounds = new double[4];
+        int count = 0;
+        for (int y = minY >>> shift; y <= maxY >>> shift; y++) {
+            for (int column = 0; column < columnCount && count < maxCells; column++) {
+                final long cellId = fromPosition((startX + column) & (size - 1), y, level);
+                if (Double.isNaN(centerLatitude)
+                    || isWithinDistance(cellId, centerLatitude, centerLongitude, radiusMeters, cellBounds)) {
+                    result[count++] = cellId;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static long getCellCount(final int minX, final int minY, final int maxX, final int maxY, final int level) {
+        final int shift = MAX_LEVEL - level;
+        final long columnCount = Math.floorMod((maxX >>> shift) - (minX >>> shift), 1 << level) + 1;
+        final long rowCount = (maxY >>> shift) - (minY >>> shift) + 1;
+        return columnCount * rowCount;
+    }
+
+    // Whether the closest point of the cell to the center, found by clamping in degrees, is within the distance
+    private static boolean isWithinDistance(final long cellId,
+                                            final double latitude,
+                                            final double longitude,
+                                            final double distanceMeters,
+                                            final double[] cellBounds) {
+        getBounds(cellId, cellBounds);
+        final double west = cellBounds[Geodesy.WEST];
+        final double east = cellBounds[Geodesy.EAST];
+        // How far east of the cell's west edge the center is, going around the globe if needed
+        final double eastOfWest = ((longitude - west) % 360 + 360) % 360;
+        final double closestLongitude;
+        if (eastOfWest <= east - west) {
+            closestLongitude = longitude;
+        } else {
+            closestLongitude = 360 - eastOfWest < eastOfWest - (east - west) ? west : east;
+        }
+        final double closestLatitude = Math.max(
+            cellBounds[Geodesy.SOUTH],
+            Math.min(cellBounds[Geodesy.NORTH], latitude)
+        );
+        return Geodesy.getHaversineMeters(latitude, longitude, closestLatitude, closestLongitude) <= distanceMeters;
+    }
+
+    private static long fromPosition(final int x, final int y, final int level) {
+        final long position = spread(x) | spread(y) << 1;
+        return (position << 1 | 1) << (2 * (MAX_LEVEL - level));
+    }
+
+    private static long getLevelBit(final long cellId) {
+        return cellId & -cellId;
+    }
+
+    private static long getLevelBit(final int level) {
+        return 1L << (2 * (MAX_LEVEL - level));
+    }
+
+    // The column of a longitude at MAX_LEVEL. A longitude of 180 is in the last column, so boxes can end there.
+    private static int getX(final double longitude) {
+        final double column = Math.floor((longitude + 180) / 360 * (1 << MAX_LEVEL));
+        return (int) Math.max(0, Math.min((1 << MAX_LEVEL) - 1, column));
+    }
+
+    // The row of a latitude at MAX_LEVEL, clamped to the poles
+    private static int getY(final double latitude) {
+        final double row = Math.floor((latitude + 90) / 180 * (1 << MAX_LEVEL));
+        return (int) Math.max(0, Math.min((1 << MAX_LEVEL) - 1, row));
+    }
+
+    // Moves the low 32 bits of a value to the even bits of a long
+    private static long spread(final int value) {
+        long bits = value & 0xFFFFFFFFL;
+        bits = (bits | bits << 16) & 0x0000FFFF0000FFFFL;
+        bits = (bits | bits << 8) & 0x00FF00FF00FF00FFL;
+        bits = (bits | bits << 4) & 0x0F0F0F0F0F0F0F0FL;
+        bits = (bits | bits << 2) & 0x3333333333333333L;
+        return (bits | bits << 1) & 0x5555555555555555L;
+    }
+
+    // Gathers the even bits of a long into an int, undoing spread
+    private static int compact(final long value) {
+        long bits = value & 0x5555555555555555L;
+        bits = (bits | bits >>> 1) & 0x3333333333333333L;
+        bits = (bits | bits >>> 2) & 0x0F0F0F0F0F0F0F0FL;
+        bits = (bits | bits >>> 4) & 0x00FF00FF00FF00FFL;
+        bits = (bits | bits >>> 8) & 0x0000FFFF0000FFFFL;
+        return (int) (bits | bits >>> 16);
+    }
+}
@@ -16,7 +16,6 @@
 package ai.rideos.android.common.location;
 
 import ai.rideos.android.common.model.LatLng;
-import android.location.Location;
 
 public class Distance {
     private static double MILES_IN_METER = 0.000621371192;
@@ -30,16 +29,11 @@ public class Distance {
     }
 
     public static double haversineDistanceMeters(final LatLng latLng0, final LatLng latLng1) {
-        // We can use Android Location to easily calculate distances
-        Location location0 = new Location("");
-        Location location1 = new Location("");
-
-        location0.setLatitude(latLng0.getLatitude());
-        location0.setLongitude(latLng0.getLongitude());
-
-        location1.setLatitude(latLng1.getLatitude());
-        location1.setLongitude(latLng1.getLongitude());
-
-        return location0.distanceTo(location1);
+        return Geodesy.getHaversineMeters(
+            latLng0.getLatitude(),
+            latLng0.getLongitude(),
+            latLng1.getLatitude(),
+            latLng1.getLongitude()
+        );
     }
 }
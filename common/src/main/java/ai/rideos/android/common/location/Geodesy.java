@@ -0,0 +1,158 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.location;
+
+/**
+ * Geodesy contains distance, bearing and offset functions on a spherical earth. They work on primitive degrees and
+ * meters, so they allocate nothing and run in plain JVM tests without Android's Location.
+ *
+ * The haversine distance is within about half a percent of the ellipsoidal distance Android's Location reports. The
+ * equirectangular approximation is several times cheaper and accurate to well under a meter for distances of a few
+ * kilometers, which makes it the better choice for ranking nearby points.
+ */
+public final class Geodesy {
+    public static final double EARTH_RADIUS_METERS = 6371008.8;
+    public static final double METERS_PER_DEGREE = EARTH_RADIUS_METERS * Math.PI / 180;
+
+    // Indexes of results written by getDestination
+    public static final int LATITUDE = 0;
+    public static final int LONGITUDE = 1;
+
+    // Indexes of results written by getBoundsAroundCircle
+    public static final int SOUTH = 0;
+    public static final int WEST = 1;
+    public static final int NORTH = 2;
+    public static final int EAST = 3;
+
+    private Geodesy() {
+    }
+
+    /**
+     * The great circle distance between two points.
+     */
+    public static double getHaversineMeters(final double latitude0,
+                                            final double longitude0,
+                                            final double latitude1,
+                                            final double longitude1) {
+        final double phi0 = Math.toRadians(latitude0);
+        final double phi1 = Math.toRadians(latitude1);
+        final double sinHalfDeltaPhi = Math.sin((phi1 - phi0) / 2);
+        final double sinHalfDeltaLambda = Math.sin(Math.toRadians(longitude1 - longitude0) / 2);
+        final double a = sinHalfDeltaPhi * sinHalfDeltaPhi
+            + Math.cos(phi0) * Math.cos(phi1) * sinHalfDeltaLambda * sinHalfDeltaLambda;
+        // Rounding can push a slightly above 1 for antipodal points
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.sqrt(Math.min(a, 1)));
+    }
+
+    /**
+     * The distance between two points on a flat projection around their mean latitude. It needs a single cosine and
+     * square root, and is accurate to well under a meter for points a few kilometers apart away from the poles.
+     */
+    public static double getEquirectangularMeters(final double latitude0,
+                                                  final double longitude0,
+                                                  final double latitude1,
+                                                  final double longitude1) {
+        final double north = latitude1 - latitude0;
+        final double east = normalizeLongitude(longitude1 - longitude0)
+            * Math.cos(Math.toRadians((latitude0 + latitude1) / 2));
+        return Math.sqrt(north * north + east * east) * METERS_PER_DEGREE;
+    }
+
+    /**
+     * The initial bearing of the great circle from the first point to the second, in degrees clockwise from north in
+     * the range [0, 360). The bearing between identical points is 0.
+     */
+    public static double getBearingDegrees(final double latitude0,
+                                           final double longitude0,
+                                           final double latitude1,
+                                           final double longitude1) {
+        final double phi0 = Math.toRadians(latitude0);
+        final double phi1 = Math.toRadians(latitude1);
+        final double deltaLambda = Math.toRadians(longitude1 - longitude0);
+        final double cosPhi1 = Math.cos(phi1);
+        final double y = Math.sin(deltaLambda) * cosPhi1;
+        final double x = Math.cos(phi0) * Math.sin(phi1) - Math.sin(phi0) * cosPhi1 * Math.cos(deltaLambda);
+        final double bearing = Math.toDegrees(Math.atan2(y, x));
+        return bearing < 0 ? bearing + 360 : bearing;
+    }
+
+    /**
+     * Writes the point reached by travelling a distance along a great circle with the given initial bearing. The
+     * latitude is written at LATITUDE and the longitude, in the range [-180, 180), at LONGITUDE.
+     */
+    public static void getDestination(final double latitude,
+                                      final double longitude,
+                                      final double bearingDegrees,
+                                      final double distanceMeters,
+                                      final double[] result) {
+        final double phi = Math.toRadians(latitude);
+        final double theta = Math.toRadians(bearingDegrees);
+        final double delta = distanceMeters / EARTH_RADIUS_METERS;
+        final double sinPhi = Math.sin(phi);
+        final double cosPhi = Math.cos(phi);
+        final double sinDelta = Math.sin(delta);
+        final double cosDelta = Math.cos(delta);
+        final double sinDestinationPhi = sinPhi * cosDelta + cosPhi * sinDelta * Math.cos(theta);
+        final double deltaLambda = Math.atan2(
+            Math.sin(theta) * sinDelta * cosPhi,
+            cosDelta - sinPhi * sinDestinationPhi
+        );
+        result[LATITUDE] = Math.toDegrees(Math.asin(sinDestinationPhi));
+        result[LONGITUDE] = normalizeLongitude(longitude + Math.toDegrees(deltaLambda));
+    }
+
+    /**
+     * Writes the smallest latitude/longitude box containing every point within a distance of the center, as SOUTH,
+     * WEST, NORTH and EAST in degrees. When the box crosses the antimeridian, WEST is greater than EAST. When the
+     * circle contains a pole, the box spans every longitude.
+     */
+    public static void getBoundsAroundCircle(final double latitude,
+                                             final double longitude,
+                                             final double radiusMeters,
+                                             final double[] result) {
+        final double delta = radiusMeters / EARTH_RADIUS_METERS;
+        final double deltaDegrees = Math.toDegrees(delta);
+        final double south = latitude - deltaDegrees;
+        final double north = latitude + deltaDegrees;
+        if (south <= -90 || north >= 90) {
+            result[SOUTH] = Math.max(south, -90);
+            result[WEST] = -180;
+            result[NORTH] = Math.min(north, 90);
+            result[EAST] = 180;
+            return;
+        }
+        // The meridians tangent to the circle, which touch it north of the center's latitude in the northern
+        // hemisphere and south of it in the southern
+        final double deltaLongitudeDegrees = Math.toDegrees(
+            Math.asin(Math.sin(delta) / Math.cos(Math.toRadians(latitude)))
+        );
+        result[SOUTH] = south;
+        result[WEST] = normalizeLongitude(longitude - deltaLongitudeDegrees);
+        result[NORTH] = north;
+        result[EAST] = normalizeLongitude(longitude + deltaLongitudeDegrees);
+    }
+
+    /**
+     * Wraps a longitude, or a difference between longitudes, into the range [-180, 180).
+     */
+    public static double normalizeLongitude(final double longitude) {
+        if (longitude >= -180 && longitude < 180) {
+            return longitude;
+        }
+        final double wrapped = (longitude + 180) % 360;
+        return wrapped < 0 ? wrapped + 180 : wrapped - 180;
+    }
+}
@@ -16,21 +16,16 @@
 package ai.rideos.android.common.location;
 
 import ai.rideos.android.common.model.LatLng;
-import android.location.Location;
 
 public class HaversineDistanceCalculator implements DistanceCalculator {
 
     @Override
     public double getDistanceInMeters(final LatLng origin, final LatLng destination) {
-        Location originLocation = new Location("");
-        Location destinationLocation = new Location("");
-
-        originLocation.setLatitude(origin.getLatitude());
-        originLocation.setLongitude(origin.getLongitude());
-
-        destinationLocation.setLatitude(destination.getLatitude());
-        destinationLocation.setLongitude(destination.getLongitude());
-
-        return originLocation.distanceTo(destinationLocation);
+        return Geodesy.getHaversineMeters(
+            origin.getLatitude(),
+            origin.getLongitude(),
+            destination.getLatitude(),
+            destination.getLongitude()
+        );
     }
 }
@@ -0,0 +1,287 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.location;
+
+import ai.rideos.android.common.model.LatLng;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * NearestNeighborIndex finds the items closest to a point out of a fixed set of located items. The items are stored in
+ * a k-d tree over their positions on the unit sphere, so a query visits a handful of items on average instead of all
+ * of them. Straight-line distance through the sphere increases with great circle distance, so results are ordered
+ * exactly by haversine distance, including across the antimeridian and near the poles.
+ *
+ * The index is immutable once built. Rebuild it when the set of items changes.
+ */
+public class NearestNeighborIndex<T> {
+    private final List<T> items;
+    // Unit vectors of the item positions, in tree order
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    // The axis each node splits its subtree on: 0 for x, 1 for y and 2 for z
+    private final byte[] splitAxes;
+
+    /**
+     * Builds an index of the items that have a location. Items whose location is empty are left out.
+     */
+    public NearestNeighborIndex(final List<T> items, final Function<T, Optional<LatLng>> getLocation) {
+        final List<T> locatedItems = new ArrayList<>(items.size());
+        final List<LatLng> locations = new ArrayList<>(items.size());
+        for (final T item : items) {
+            final Optional<LatLng> location = getLocation.apply(item);
+            if (location.isPresent()) {
+                locatedItems.add(item);
+                locations.add(location.get());
+            }
+        }
+
+        final int size = locatedItems.size();
+        final double[][] unitVectors = new double[3][size];
+        for (int i = 0; i < size; i++) {
+            setUnitVector(locations.get(i), unitVectors, i);
+        }
+        final int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        splitAxes = new byte[size];
+        buildTree(unitVectors, order, 0, size);
+
+        final List<T> orderedItems = new ArrayList<>(size);
+        x = new double[size];
+        y = new double[size];
+        z = new double[size];
+        for (int i = 0; i < size; i++) {
+            orderedItems.add(locatedItems.get(order[i]));
+            x[i] = unitVectors[0][order[i]];
+            y[i] = unitVectors[1][order[i]];
+            z[i] = unitVectors[2][order[i]];
+        }
+        this.items = Collections.unmodifiableList(orderedItems);
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public Optional<T> findNearest(final LatLng location) {
+        final List<T> nearest = findNearest(location, 1);
+        return nearest.isEmpty() ? Optional.empty() : Optional.of(nearest.get(0));
+    }
+
+    /**
+     * The count items closest to the location, nearest first. Fewer are returned if the index is smaller.
+     */
+    public List<T> findNearest(final LatLng location, final int count) {
+        final int resultSize = Math.min(count, items.size());
+        if (resultSize <= 0) {
+            return Collections.emptyList();
+        }
+        final double[][] query = new double[3][1];
+        setUnitVector(location, query, 0);
+        final Candidates candidates = new Candidates(resultSize);
+        search(query[0][0], query[1][0], query[2][0], 0, items.size(), candidates);
+
+        final List<T> nearest = new ArrayList<>(resultSize);
+        for (final int index : candidates.removeAllFurthestFirst()) {
+            nearest.add(items.get(index));
+        }
+        Collections.reverse(nearest);
+        return nearest;
+    }
+
+    // Each subtree is stored with its root at the middle of its range, split on the axis with the widest spread
+    private void buildTree(final double[][] unitVectors, final int[] order, final int start, final int end) {
+        if (end - start <= 1) {
+            return;
+        }
+        byte axis = 0;
+        double widestSpread = -1;
+        for (byte candidateAxis = 0; candidateAxis < 3; candidateAxis++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = start; i < end; i++) {
+                final double value = unitVectors[candidateAxis][order[i]];
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            if (max - min > widestSpread) {
+                widestSpread = max - min;
+                axis = candidateAxis;
+            }
+        }
+        final int middle = (start + end) >>> 1;
+        select(unitVectors[axis], order, start, end - 1, middle);
+        splitAxes[middle] = axis;
+        buildTree(unitVectors, order, start, middle);
+        buildTree(unitVectors, order, middle + 1, end);
+    }
+
+    private void search(final double queryX,
+                        final double queryY,
+                        final double queryZ,
+                        final int start,
+                        final int end,
+                        final Candidates candidates) {
+        if (start >= end) {
+            return;
+        }
+        final int middle = (start + end) >>> 1;
+        final double deltaX = queryX - x[middle];
+        final double deltaY = queryY - y[middle];
+        final double deltaZ = queryZ - z[middle];
+        candidates.offer(middle, deltaX * deltaX + deltaY * deltaY + deltaZ * deltaZ);
+
+        final double splitDelta;
+        switch (splitAxes[middle]) {
+            case 0:
+                splitDelta = deltaX;
+                break;
+            case 1:
+                splitDelta = deltaY;
+                break;
+            default:
+                splitDelta = deltaZ;
+        }
+        // Search the side of the split containing the query first, then the other side if it could be closer
+        if (splitDelta < 0) {
+            search(queryX, queryY, queryZ, start, middle, candidates);
+            if (splitDelta * splitDelta < candidates.getFurthestDistance()) {
+                search(queryX, queryY, queryZ, middle + 1, end, candidates);
+            }
+        } else {
+            search(queryX, queryY, queryZ, middle + 1, end, candidates);
+            if (splitDelta * splitDelta < candidates.getFurthestDistance()) {
+                search(queryX, queryY, queryZ, start, middle, candidates);
+            }
+        }
+    }
+
+    // Quickselect that moves the k-th smallest value on an axis to position k of order[left..right]
+    private static void select(final double[] values, final int[] order, int left, int right, final int k) {
+        while (left < right) {
+            final double pivot = values[order[(left + right) >>> 1]];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (values[order[i]] < pivot) {
+                    i++;
+                }
+                while (values[order[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    final int swap = order[i];
+                    order[i] = order[j];
+                    order[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static void setUnitVector(final LatLng location, final double[][] unitVectors, final int index) {
+        final double phi = Math.toRadians(location.getLatitude());
+        final double lambda = Math.toRadians(location.getLongitude());
+        final double cosPhi = Math.cos(phi);
+        unitVectors[0][index] = cosPhi * Math.cos(lambda);
+        unitVectors[1][index] = cosPhi * Math.sin(lambda);
+        unitVectors[2][index] = Math.sin(phi);
+    }
+
+    /**
+     * The closest items found so far, kept in a max-heap by squared distance so the furthest can be replaced.
+     */
+    private static class Candidates {
+        private final int[] indexes;
+        private final double[] distances;
+        private int size = 0;
+
+        Candidates(final int capacity) {
+            indexes = new int[capacity];
+            distances = new double[capacity];
+        }
+
+        // Anything is closer than the furthest candidate until the heap is full
+        double getFurthestDistance() {
+            return size < indexes.length ? Double.POSITIVE_INFINITY : distances[0];
+        }
+
+        void offer(final int index, final double distance) {
+            if (size < indexes.length) {
+                int child = size++;
+                while (child > 0) {
+                    final int parent = (child - 1) / 2;
+                    if (distances[parent] >= distance) {
+                        break;
+                    }
+                    indexes[child] = indexes[parent];
+                    distances[child] = distances[parent];
+                    child = parent;
+                }
+                indexes[child] = index;
+                distances[child] = distance;
+            } else if (distance < distances[0]) {
+                siftDown(index, distance);
+            }
+        }
+
+        List<Integer> removeAllFurthestFirst() {
+            final List<Integer> furthestFirst = new ArrayList<>(size);
+            while (size > 0) {
+                furthestFirst.add(indexes[0]);
+                size--;
+                siftDown(indexes[size], distances[size]);
+            }
+            return furthestFirst;
+        }
+
+        // Places an entry at the root and moves it down until both children are closer
+        private void siftDown(final int index, final double distance) {
+            int parent = 0;
+            while (true) {
+                int child = 2 * parent + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && distances[child + 1] > distances[child]) {
+                    child++;
+                }
+                if (distances[child] <= distance) {
+                    break;
+                }
+                indexes[parent] = indexes[child];
+                distances[parent] = distances[child];
+                parent = child;
+            }
+            indexes[parent] = index;
+            distances[parent] = distance;
+        }
+    }
+}
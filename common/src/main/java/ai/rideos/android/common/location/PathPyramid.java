@@ -0,0 +1,149 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.location;
+
+import ai.rideos.android.common.model.PackedPath;
+
+/**
+ * PathPyramid holds a path simplified for each zoom level of a web mercator map, so a map only needs to draw the
+ * vertices that can be told apart at its current zoom. Each level drops the vertices that would move the drawn line
+ * by less than half a dp.
+ *
+ * The pyramid is built with one Douglas-Peucker pass over the full path. The pass records the largest tolerance at
+ * which each vertex would still be kept, and every level keeps the vertices whose tolerance exceeds its own. Levels
+ * with the same vertices share one path, so a short path costs little more than the path itself.
+ */
+public class PathPyramid {
+    public static final int MIN_ZOOM = 2;
+    public static final int MAX_ZOOM = 21;
+
+    // Map tiles are 256dp wide, so at zoom 0 the equator spans 256dp
+    private static final double EQUATOR_METERS_PER_DP_AT_ZOOM_0 = 2 * Math.PI * 6378137 / 256;
+    private static final double TOLERANCE_DP = 0.5;
+
+    private final PackedPath path;
+    // The path at each zoom level from MIN_ZOOM to MAX_ZOOM
+    private final PackedPath[] levels = new PackedPath[MAX_ZOOM - MIN_ZOOM + 1];
+
+    public PathPyramid(final PackedPath path) {
+        this.path = path;
+        if (path.size() <= 2) {
+            for (int i = 0; i < levels.length; i++) {
+                levels[i] = path;
+            }
+            return;
+        }
+
+        final double[] x = new double[path.size()];
+        final double[] y = new double[path.size()];
+        final double middleLatitude = PathSimplifier.project(path, x, y);
+        final double[] vertexTolerances = getVertexTolerances(x, y);
+        final double metersPerDpAtZoom0 = EQUATOR_METERS_PER_DP_AT_ZOOM_0 * Math.cos(Math.toRadians(middleLatitude));
+
+        PackedPath moreDetailedLevel = path;
+        for (int zoom = MAX_ZOOM; zoom >= MIN_ZOOM; zoom--) {
+            final double toleranceMeters = metersPerDpAtZoom0 / (1L << zoom) * TOLERANCE_DP;
+            final int vertexCount = countVerticesAbove(vertexTolerances, toleranceMeters);
+            levels[zoom - MIN_ZOOM] = vertexCount == moreDetailedLevel.size()
+                ? moreDetailedLevel
+                : getVerticesAbove(path, vertexTolerances, toleranceMeters, vertexCount);
+            moreDetailedLevel = levels[zoom - MIN_ZOOM];
+        }
+    }
+
+    public PackedPath getPath() {
+        return path;
+    }
+
+    /**
+     * Get the path to draw at a zoom level. Fractional zoom levels round up, so a path is never drawn with less
+     * detail than its zoom needs.
+     */
+    public PackedPath getLevel(final float zoom) {
+        final int level = (int) Math.ceil(zoom);
+        if (level > MAX_ZOOM) {
+            return path;
+        }
+        return levels[Math.max(level, MIN_ZOOM) - MIN_ZOOM];
+    }
+
+    /**
+     * Run Douglas-Peucker with no tolerance and return, for each vertex, the largest tolerance at which it is kept.
+     * A vertex is only reached if the vertices that split off its section are kept, so its tolerance is capped by
+     * theirs. That makes every level a subset of the levels above it.
+     */
+    private static double[] getVertexTolerances(final double[] x, final double[] y) {
+        final int size = x.length;
+        final double[] tolerances = new double[size];
+        tolerances[0] = Double.POSITIVE_INFINITY;
+        tolerances[size - 1] = Double.POSITIVE_INFINITY;
+
+        // Sections are pushed as pairs of start and end vertices. Each split adds one section, so there are at most
+        // as many sections as vertices.
+        final int[] sections = new int[size * 2];
+        int sectionCount = 0;
+        sections[sectionCount++] = 0;
+        sections[sectionCount++] = size - 1;
+        while (sectionCount > 0) {
+            final int end = sections[--sectionCount];
+            final int start = sections[--sectionCount];
+            if (end - start < 2) {
+                continue;
+            }
+            int furthest = start + 1;
+            double maxSquaredDeviation = -1;
+            for (int i = start + 1; i < end; i++) {
+                final double squaredDeviation = PathSimplifier.getSquaredDistanceToSegment(x, y, i, start, end);
+                if (squaredDeviation > maxSquaredDeviation) {
+                    maxSquaredDeviation = squaredDeviation;
+                    furthest = i;
+                }
+            }
+            tolerances[furthest] = Math.min(
+                Math.sqrt(maxSquaredDeviation),
+                Math.min(tolerances[start], tolerances[end])
+            );
+            sections[sectionCount++] = start;
+            sections[sectionCount++] = furthest;
+            sections[sectionCount++] = furthest;
+            sections[sectionCount++] = end;
+        }
+        return tolerances;
+    }
+
+    private static int countVerticesAbove(final double[] vertexTolerances, final double toleranceMeters) {
+        int count = 0;
+        for (final double vertexTolerance : vertexTolerances) {
+            if (vertexTolerance > toleranceMeters) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static PackedPath getVerticesAbove(final PackedPath path,
+                                               final double[] vertexTolerances,
+                                               final double toleranceMeters,
+                                               final int vertexCount) {
+        final PackedPath.Builder builder = PackedPath.builder(vertexCount);
+        for (int i = 0; i < vertexTolerances.length; i++) {
+            if (vertexTolerances[i] > toleranceMeters) {
+                builder.add(path.getLatitude(i), path.getLongitude(i));
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,390 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.location;
+
+import ai.rideos.android.common.model.PackedPath;
+import java.util.Arrays;
+
+/**
+ * PathSimplifier reduces a path to at most a fixed number of vertices while keeping its shape, for consumers such as
+ * turn-by-turn navigation that limit how many coordinates a route may have.
+ *
+ * Vertices where the heading changes sharply are kept first, so turns are never cut. The heading change at a vertex
+ * is measured towards vertices a short distance away on either side, so that small jitter in the geometry is not
+ * mistaken for a turn, and only the sharpest vertex of a turn is kept. The rest of the budget is spent refining the
+ * path the way Douglas-Peucker does, but always splitting the section that deviates most from the simplified path
+ * first. Refinement stops when the budget is used up or when no vertex deviates more than the tolerance, so the
+ * tolerance tightens until the result is as accurate as the budget allows. The largest remaining deviation is
+ * reported with the result.
+ *
+ * Distances are measured on a flat projection around the path's middle latitude, which is accurate to about a
+ * percent for paths spanning a few hundred kilometers.
+ */
+public class PathSimplifier {
+
+    public static class Settings {
+        private final int maxVertices;
+        private final double toleranceMeters;
+        private final double maneuverAngleDegrees;
+        private final double maneuverWindowMeters;
+
+        /**
+         * @param maxVertices - The most vertices a simplified path may have. Must be at least 2.
+         * @param toleranceMeters - Refinement stops once no vertex is further than this from the simplified path
+         * @param maneuverAngleDegrees - Vertices where the heading changes by more than this are always kept, unless
+         *                             there are more of them than the budget allows
+         * @param maneuverWindowMeters - How far on either side of a vertex to measure its heading change
+         */
+        public Settings(final int maxVertices,
+                        final double toleranceMeters,
+                        final double maneuverAngleDegrees,
+                        final double maneuverWindowMeters) {
+            if (maxVertices < 2) {
+                throw new IllegalArgumentException("A simplified path needs at least 2 vertices");
+            }
+            this.maxVertices = maxVertices;
+            this.toleranceMeters = toleranceMeters;
+            this.maneuverAngleDegrees = maneuverAngleDegrees;
+            this.maneuverWindowMeters = maneuverWindowMeters;
+        }
+
+        public static Settings defaults(final int maxVertices) {
+            return new Settings(maxVertices, 1, 30, 10);
+        }
+    }
+
+    public static class SimplifiedPath {
+        private final PackedPath path;
+        private final double maxDeviationMeters;
+        private final int maneuverCount;
+
+        SimplifiedPath(final PackedPath path, final double maxDeviationMeters, final int maneuverCount) {
+            this.path = path;
+            this.maxDeviationMeters = maxDeviationMeters;
+            this.maneuverCount = maneuverCount;
+        }
+
+        public PackedPath getPath() {
+            return path;
+        }
+
+        // The furthest any vertex of the original path is from the simplified path
+        public double getMaxDeviationMeters() {
+            return maxDeviationMeters;
+        }
+
+        // The number of kept vertices that were kept because of their heading change
+        public int getManeuverCount() {
+            return maneuverCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "SimplifiedPath{vertices=%d, maxDeviationMeters=%.2f, maneuvers=%d}",
+                path.size(),
+                maxDeviationMeters,
+                maneuverCount
+            );
+        }
+    }
+
+    private final Settings settings;
+    private final double maneuverCosine;
+
+    public PathSimplifier(final Settings settings) {
+        this.settings = settings;
+        maneuverCosine = Math.cos(Math.toRadians(settings.maneuverAngleDegrees));
+    }
+
+    public int getMaxVertices() {
+        return settings.maxVertices;
+    }
+
+    /**
+     * Simplify a path to at most the maximum number of vertices. Paths that are already small enough are returned
+     * unchanged, without copying.
+     */
+    public SimplifiedPath simplify(final PackedPath path) {
+        final int size = path.size();
+        if (size <= settings.maxVertices) {
+            return new SimplifiedPath(path, 0, 0);
+        }
+
+        final double[] x = new double[size];
+        final double[] y = new double[size];
+        project(path, x, y);
+
+        final boolean[] kept = new boolean[size];
+        kept[0] = true;
+        kept[size - 1] = true;
+        final int maneuverCount = keepManeuvers(x, y, kept);
+        final double maxDeviationMeters = refine(x, y, kept, maneuverCount + 2);
+
+        final PackedPath.Builder builder = PackedPath.builder(settings.maxVertices);
+        for (int i = 0; i < size; i++) {
+            if (kept[i]) {
+                builder.add(path.getLatitude(i), path.getLongitude(i));
+            }
+        }
+        return new SimplifiedPath(builder.build(), maxDeviationMeters, maneuverCount);
+    }
+
+    /**
+     * Project a path to meters east and north on a flat projection around its middle latitude, and return that
+     * latitude.
+     */
+    static double project(final PackedPath path, final double[] x, final double[] y) {
+        double minLatitude = Double.POSITIVE_INFINITY;
+        double maxLatitude = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < path.size(); i++) {
+            minLatitude = Math.min(minLatitude, path.getLatitude(i));
+            maxLatitude = Math.max(maxLatitude, path.getLatitude(i));
+        }
+        final double middleLatitude = (minLatitude + maxLatitude) / 2;
+        final double metersPerDegreeLongitude = Geodesy.METERS_PER_DEGREE * Math.cos(Math.toRadians(middleLatitude));
+        for (int i = 0; i < path.size(); i++) {
+            x[i] = path.getLongitude(i) * metersPerDegreeLongitude;
+            y[i] = path.getLatitude(i) * Geodesy.METERS_PER_DEGREE;
+        }
+        return middleLatitude;
+    }
+
+    /**
+     * Mark the sharpest vertex of each turn as kept, and return how many were marked. If there are more turns than
+     * the budget allows, only the sharpest turns are kept.
+     */
+    private int keepManeuvers(final double[] x, final double[] y, final boolean[] kept) {
+        final int size = x.length;
+        final double[] distances = new double[size];
+        for (int i = 1; i < size; i++) {
+            final double deltaX = x[i] - x[i - 1];
+            final double deltaY = y[i] - y[i - 1];
+            distances[i] = distances[i - 1] + Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+        }
+
+        // Cosine of the heading change at each vertex, where 1 is straight ahead. Both window ends only move forward,
+        // so this takes linear time.
+        final double[] cosines = new double[size];
+        cosines[0] = 1;
+        cosines[size - 1] = 1;
+        int before = 0;
+        int after = 1;
+        for (int i = 1; i < size - 1; i++) {
+            while (before + 1 < i && distances[i] - distances[before + 1] >= settings.maneuverWindowMeters) {
+                before++;
+            }
+            after = Math.max(after, i + 1);
+            while (after < size - 1 && distances[after] - distances[i] < settings.maneuverWindowMeters) {
+                after++;
+            }
+            cosines[i] = getHeadingChangeCosine(x, y, before, i, after);
+        }
+
+        int[] maneuvers = new int[16];
+        int maneuverCount = 0;
+        for (int i = 1; i < size - 1; i++) {
+            if (cosines[i] < maneuverCosine && isSharpestInWindow(cosines, distances, i)) {
+                if (maneuverCount == maneuvers.length) {
+                    maneuvers = Arrays.copyOf(maneuvers, maneuverCount * 2);
+                }
+                maneuvers[maneuverCount++] = i;
+            }
+        }
+
+        final int maneuverBudget = settings.maxVertices - 2;
+        if (maneuverCount > maneuverBudget) {
+            maneuvers = sortBySharpness(Arrays.copyOf(maneuvers, maneuverCount), cosines);
+            maneuverCount = maneuverBudget;
+        }
+        for (int i = 0; i < maneuverCount; i++) {
+            kept[maneuvers[i]] = true;
+        }
+        return maneuverCount;
+    }
+
+    // Only the sharpest vertex of a turn is kept. Ties are broken towards the first vertex.
+    private boolean isSharpestInWindow(final double[] cosines, final double[] distances, final int vertex) {
+        for (int i = vertex - 1; i > 0 && distances[vertex] - distances[i] < settings.maneuverWindowMeters; i--) {
+            if (cosines[i] <= cosines[vertex]) {
+                return false;
+            }
+        }
+        for (int i = vertex + 1; i < cosines.length; i++) {
+            if (distances[i] - distances[vertex] >= settings.maneuverWindowMeters) {
+                break;
+            }
+            if (cosines[i] < cosines[vertex]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double getHeadingChangeCosine(final double[] x,
+                                                 final double[] y,
+                                                 final int before,
+                                                 final int vertex,
+                                                 final int after) {
+        final double inX = x[vertex] - x[before];
+        final double inY = y[vertex] - y[before];
+        final double outX = x[after] - x[vertex];
+        final double outY = y[after] - y[vertex];
+        final double lengths = Math.sqrt((inX * inX + inY * inY) * (outX * outX + outY * outY));
+        // Repeated vertices have no heading
+        return lengths == 0 ? 1 : (inX * outX + inY * outY) / lengths;
+    }
+
+    private static int[] sortBySharpness(final int[] maneuvers, final double[] cosines) {
+        return Arrays.stream(maneuvers)
+            .boxed()
+            .sorted((first, second) -> Double.compare(cosines[first], cosines[second]))
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+
+    /**
+     * Split the sections between kept vertices at their furthest vertex, furthest first, until the budget is used up
+     * or every section is within the tolerance. Returns the largest deviation left.
+     */
+    private double refine(final double[] x, final double[] y, final boolean[] kept, final int keptCount) {
+        final SectionHeap sections = new SectionHeap(x.length);
+        int start = 0;
+        for (int i = 1; i < x.length; i++) {
+            if (kept[i]) {
+                sections.pushSection(x, y, start, i);
+                start = i;
+            }
+        }
+
+        int remainingBudget = settings.maxVertices - keptCount;
+        while (!sections.isEmpty()
+            && remainingBudget > 0
+            && sections.getTopDeviation() > settings.toleranceMeters) {
+            final int sectionStart = sections.getTopStart();
+            final int sectionEnd = sections.ends[sectionStart];
+            final int furthest = sections.furthest[sectionStart];
+            sections.pop();
+            kept[furthest] = true;
+            remainingBudget--;
+            sections.pushSection(x, y, sectionStart, furthest);
+            sections.pushSection(x, y, furthest, sectionEnd);
+        }
+        return sections.isEmpty() ? 0 : sections.getTopDeviation();
+    }
+
+    // Squared distances are compared while searching sections, which avoids a square root per vertex
+    static double getSquaredDistanceToSegment(final double[] x,
+                                              final double[] y,
+                                              final int vertex,
+                                              final int start,
+                                              final int end) {
+        final double segmentX = x[end] - x[start];
+        final double segmentY = y[end] - y[start];
+        final double lengthSquared = segmentX * segmentX + segmentY * segmentY;
+        double fraction = 0;
+        if (lengthSquared > 0) {
+            fraction = ((x[vertex] - x[start]) * segmentX + (y[vertex] - y[start]) * segmentY) / lengthSquared;
+            fraction = Math.max(0, Math.min(1, fraction));
+        }
+        final double offsetX = x[start] + fraction * segmentX - x[vertex];
+        final double offsetY = y[start] + fraction * segmentY - y[vertex];
+        return offsetX * offsetX + offsetY * offsetY;
+    }
+
+    /**
+     * A max-heap of the sections between kept vertices, ordered by how far their furthest vertex is from the segment
+     * that replaces them. Sections never overlap, so each is identified by its first vertex.
+     */
+    private static class SectionHeap {
+        private final int[] ends;
+        private final int[] furthest;
+        private final double[] deviations;
+        private final int[] heap;
+        private int size = 0;
+
+        private SectionHeap(final int vertexCount) {
+            ends = new int[vertexCount];
+            furthest = new int[vertexCount];
+            deviations = new double[vertexCount];
+            heap = new int[vertexCount];
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private int getTopStart() {
+            return heap[0];
+        }
+
+        private double getTopDeviation() {
+            return deviations[heap[0]];
+        }
+
+        // Sections without vertices between their ends can't be split, so they are not added
+        private void pushSection(final double[] x, final double[] y, final int start, final int end) {
+            if (end - start < 2) {
+                return;
+            }
+            int furthestVertex = start + 1;
+            double maxDeviation = -1;
+            for (int i = start + 1; i < end; i++) {
+                final double deviation = getSquaredDistanceToSegment(x, y, i, start, end);
+                if (deviation > maxDeviation) {
+                    maxDeviation = deviation;
+                    furthestVertex = i;
+                }
+            }
+            ends[start] = end;
+            furthest[start] = furthestVertex;
+            maxDeviation = Math.sqrt(maxDeviation);
+            deviations[start] = maxDeviation;
+
+            int child = size++;
+            while (child > 0) {
+                final int parent = (child - 1) >>> 1;
+                if (deviations[heap[parent]] >= maxDeviation) {
+                    break;
+                }
+                heap[child] = heap[parent];
+                child = parent;
+            }
+            heap[child] = start;
+        }
+
+        private void pop() {
+            final int last = heap[--size];
+            final double lastDeviation = deviations[last];
+            int parent = 0;
+            while (true) {
+                int child = 2 * parent + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && deviations[heap[child + 1]] > deviations[heap[child]]) {
+                    child++;
+                }
+                if (deviations[heap[child]] <= lastDeviation) {
+                    break;
+                }
+                heap[parent] = heap[child];
+                parent = child;
+            }
+            heap[parent] = last;
+        }
+    }
+}
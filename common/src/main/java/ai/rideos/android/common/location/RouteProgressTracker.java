@@ -0,0 +1,239 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.location;
+
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.PackedPath;
+import ai.rideos.android.common.model.RouteInfoModel;
+
+/**
+ * RouteProgressTracker projects a stream of vehicle positions onto a route to tell how much of the route is left. It
+ * remembers which segment the vehicle was last on and only searches a short distance ahead of it, so each update
+ * takes constant time on average as the vehicle advances. The whole route is only searched when the vehicle is not
+ * near the segments ahead, for example after it left the route.
+ *
+ * Distances are measured on a flat projection around each segment. Route segments are short enough that this is
+ * accurate to well under a meter, and it avoids trigonometry per segment.
+ */
+public class RouteProgressTracker {
+
+    public static class Settings {
+        private final double offRouteMeters;
+        private final double lookAheadMeters;
+
+        /**
+         * @param offRouteMeters - Positions further than this from the route are reported as off route
+         * @param lookAheadMeters - How far ahead of the last position to search before searching the whole route
+         */
+        public Settings(final double offRouteMeters, final double lookAheadMeters) {
+            this.offRouteMeters = offRouteMeters;
+            this.lookAheadMeters = lookAheadMeters;
+        }
+
+        public static Settings defaults() {
+            return new Settings(50, 500);
+        }
+    }
+
+    public static class RouteProgress {
+        private final PackedPath remainingPath;
+        private final double remainingDistanceMeters;
+        private final long remainingTimeMillis;
+        private final double distanceFromRouteMeters;
+        private final boolean isOffRoute;
+
+        RouteProgress(final PackedPath remainingPath,
+                      final double remainingDistanceMeters,
+                      final long remainingTimeMillis,
+                      final double distanceFromRouteMeters,
+                      final boolean isOffRoute) {
+            this.remainingPath = remainingPath;
+            this.remainingDistanceMeters = remainingDistanceMeters;
+            this.remainingTimeMillis = remainingTimeMillis;
+            this.distanceFromRouteMeters = distanceFromRouteMeters;
+            this.isOffRoute = isOffRoute;
+        }
+
+        // The route from the closest point to the position until the end. It shares the route's coordinates.
+        public PackedPath getRemainingPath() {
+            return remainingPath;
+        }
+
+        public double getRemainingDistanceMeters() {
+            return remainingDistanceMeters;
+        }
+
+        // The route's travel time, scaled by the fraction of its distance that is left
+        public long getRemainingTimeMillis() {
+            return remainingTimeMillis;
+        }
+
+        public double getDistanceFromRouteMeters() {
+            return distanceFromRouteMeters;
+        }
+
+        public boolean isOffRoute() {
+            return isOffRoute;
+        }
+    }
+
+    private final Settings settings;
+
+    private RouteInfoModel route;
+    // Distance along the route to each vertex
+    private double[] vertexDistances = new double[0];
+    // The segment the vehicle was last on, which starts at the vertex with the same index
+    private int segmentIndex = 0;
+
+    public RouteProgressTracker() {
+        this(Settings.defaults());
+    }
+
+    public RouteProgressTracker(final Settings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Project a position onto a route. Progress along a route is kept between calls until a different route is
+     * passed, so positions should be passed in the order they were recorded.
+     */
+    public synchronized RouteProgress update(final RouteInfoModel route, final LatLng position) {
+        setRoute(route);
+        final PackedPath path = route.getPath();
+        if (path.isEmpty()) {
+            return new RouteProgress(path, 0, 0, Double.POSITIVE_INFINITY, true);
+        }
+
+        final Projection projection = new Projection();
+        final double searchEndMeters = vertexDistances[segmentIndex] + settings.lookAheadMeters;
+        for (int i = segmentIndex; i < getSegmentCount(path) && vertexDistances[i] <= searchEndMeters; i++) {
+            projectOntoSegment(path, i, position, projection);
+        }
+        if (projection.distanceMeters > settings.offRouteMeters) {
+            for (int i = 0; i < getSegmentCount(path); i++) {
+                projectOntoSegment(path, i, position, projection);
+            }
+        }
+
+        final boolean isOffRoute = projection.distanceMeters > settings.offRouteMeters;
+        if (!isOffRoute) {
+            segmentIndex = projection.segment;
+        }
+        return toRouteProgress(path, projection, isOffRoute);
+    }
+
+    private void setRoute(final RouteInfoModel newRoute) {
+        if (newRoute == route) {
+            return;
+        }
+        final boolean isSamePath = route != null && route.getPath().equals(newRoute.getPath());
+        route = newRoute;
+        if (isSamePath) {
+            // Keep the progress along the path, since polling often returns an identical route
+            return;
+        }
+        final PackedPath path = newRoute.getPath();
+        vertexDistances = new double[path.size()];
+        for (int i = 1; i < path.size(); i++) {
+            vertexDistances[i] = vertexDistances[i - 1] + Geodesy.getEquirectangularMeters(
+                path.getLatitude(i - 1),
+                path.getLongitude(i - 1),
+                path.getLatitude(i),
+                path.getLongitude(i)
+            );
+        }
+        segmentIndex = 0;
+    }
+
+    private RouteProgress toRouteProgress(final PackedPath path,
+                                          final Projection projection,
+                                          final boolean isOffRoute) {
+        final double totalDistanceMeters = vertexDistances[vertexDistances.length - 1];
+        final int segmentEnd = Math.min(projection.segment + 1, path.size() - 1);
+        final double segmentLengthMeters = vertexDistances[segmentEnd] - vertexDistances[projection.segment];
+        final double remainingDistanceMeters = Math.max(
+            0,
+            totalDistanceMeters - vertexDistances[projection.segment] - projection.fraction * segmentLengthMeters
+        );
+        final long remainingTimeMillis = totalDistanceMeters == 0
+            ? 0
+            : Math.round(route.getTravelTimeMillis() * remainingDistanceMeters / totalDistanceMeters);
+
+        final PackedPath projectedPoint = PackedPath.builder(1)
+            .add(projection.latitude, projection.longitude)
+            .build();
+        // The projected point replaces the segment end when it is projected onto it
+        final int nextVertex = projection.fraction == 1 ? segmentEnd + 1 : segmentEnd;
+        final PackedPath remainingPath = nextVertex > projection.segment && nextVertex < path.size()
+            ? projectedPoint.concat(path.subPath(nextVertex, path.size()))
+            : projectedPoint;
+        return new RouteProgress(
+            remainingPath,
+            remainingDistanceMeters,
+            remainingTimeMillis,
+            projection.distanceMeters,
+            isOffRoute
+        );
+    }
+
+    /**
+     * Update the projection if the segment starting at vertex i is closer to the position than the current best.
+     */
+    private static void projectOntoSegment(final PackedPath path,
+                                           final int i,
+                                           final LatLng position,
+                                           final Projection projection) {
+        final double startLatitude = path.getLatitude(i);
+        final double startLongitude = path.getLongitude(i);
+        final int end = Math.min(i + 1, path.size() - 1);
+        final double endLatitude = path.getLatitude(end);
+        final double endLongitude = path.getLongitude(end);
+
+        // Meters east and north of the segment start
+        final double longitudeScale = Math.cos(Math.toRadians((startLatitude + endLatitude) / 2))
+            * Geodesy.METERS_PER_DEGREE;
+        final double segmentX = (endLongitude - startLongitude) * longitudeScale;
+        final double segmentY = (endLatitude - startLatitude) * Geodesy.METERS_PER_DEGREE;
+        final double pointX = (position.getLongitude() - startLongitude) * longitudeScale;
+        final double pointY = (position.getLatitude() - startLatitude) * Geodesy.METERS_PER_DEGREE;
+
+        final double segmentLengthSquared = segmentX * segmentX + segmentY * segmentY;
+        final double fraction = segmentLengthSquared == 0
+            ? 0
+            : Math.max(0, Math.min(1, (pointX * segmentX + pointY * segmentY) / segmentLengthSquared));
+        final double distanceMeters = Math.hypot(pointX - fraction * segmentX, pointY - fraction * segmentY);
+        if (distanceMeters < projection.distanceMeters) {
+            projection.segment = i;
+            projection.fraction = fraction;
+            projection.distanceMeters = distanceMeters;
+            projection.latitude = startLatitude + fraction * (endLatitude - startLatitude);
+            projection.longitude = startLongitude + fraction * (endLongitude - startLongitude);
+        }
+    }
+
+    // A path of one vertex is treated as a single segment of zero length
+    private static int getSegmentCount(final PackedPath path) {
+        return Math.max(path.size() - 1, 1);
+    }
+
+    private static class Projection {
+        private int segment = 0;
+        private double fraction = 0;
+        private double distanceMeters = Double.POSITIVE_INFINITY;
+        private double latitude;
+        private double longitude;
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.metrics;
+
+import java.util.Arrays;
+
+/**
+ * FixedBucketHistogram counts values into a fixed set of buckets, so recording a value never allocates. Percentiles
+ * are approximated by the upper bound of the bucket they fall in, which is accurate enough to compare latencies and
+ * sizes across methods.
+ */
+public class FixedBucketHistogram {
+    // Ascending, inclusive upper bounds of each bucket. Values above the last bound fall in an overflow bucket.
+    private final long[] upperBounds;
+    private final long[] bucketCounts;
+    private long count = 0;
+    private long sum = 0;
+    private long max = 0;
+
+    public FixedBucketHistogram(final long... upperBounds) {
+        this.upperBounds = Arrays.copyOf(upperBounds, upperBounds.length);
+        this.bucketCounts = new long[upperBounds.length + 1];
+    }
+
+    public synchronized void record(final long value) {
+        final int searchIndex = Arrays.binarySearch(upperBounds, value);
+        final int bucketIndex = searchIndex >= 0 ? searchIndex : -searchIndex - 1;
+        bucketCounts[bucketIndex]++;
+        count++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getSum() {
+        return sum;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+
+    public synchronized double getMean() {
+        return count == 0 ? 0 : ((double) sum) / count;
+    }
+
+    /**
+     * Approximate the value at a percentile, in the range [0, 100]. The result is the upper bound of the bucket
+     * containing the percentile, capped at the largest recorded value.
+     */
+    public synchronized long getPercentile(final double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < upperBounds.length; i++) {
+            seen += bucketCounts[i];
+            if (seen >= rank) {
+                return Math.min(upperBounds[i], max);
+            }
+        }
+        return max;
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(bucketCounts, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+}
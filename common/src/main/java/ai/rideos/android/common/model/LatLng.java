@@ -45,4 +45,9 @@ public class LatLng implements Serializable {
         final LatLng otherModel = (LatLng) other;
         return Double.compare(latitude, otherModel.latitude) == 0 && Double.compare(longitude, otherModel.longitude) == 0;
     }
+
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(latitude) + Double.hashCode(longitude);
+    }
 }
@@ -0,0 +1,312 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.model;
+
+import ai.rideos.android.common.model.map.LatLngBounds;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * PackedPath is an immutable sequence of coordinates stored in primitive arrays, rather than one LatLng object per
+ * vertex. Coordinates are stored as doubles, so values read back are exactly the values that were added.
+ *
+ * A path is made of one or more segments that each reference a slice of a shared array. Sub-paths and concatenations
+ * only create new segment references, so they never copy vertices. Use asList() where a List of LatLng is needed; its
+ * elements are created on access.
+ */
+public class PackedPath {
+    private static final PackedPath EMPTY = new PackedPath(new double[0][], new int[0], new int[]{0});
+
+    public interface VertexConsumer {
+        void accept(final double latitude, final double longitude);
+    }
+
+    public static class Builder {
+        private double[] coordinates;
+        private int size = 0;
+
+        private Builder(final int expectedSize) {
+            coordinates = new double[Math.max(expectedSize, 1) * 2];
+        }
+
+        public Builder add(final double latitude, final double longitude) {
+            if (size * 2 == coordinates.length) {
+                coordinates = Arrays.copyOf(coordinates, coordinates.length * 2);
+            }
+            coordinates[size * 2] = latitude;
+            coordinates[size * 2 + 1] = longitude;
+            size++;
+            return this;
+        }
+
+        public Builder add(final LatLng latLng) {
+            return add(latLng.getLatitude(), latLng.getLongitude());
+        }
+
+        public PackedPath build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            // Trim only when the builder overestimated by a lot, otherwise the spare capacity costs less than a copy
+            final double[] packedCoordinates = coordinates.length > size * 4
+                ? Arrays.copyOf(coordinates, size * 2)
+                : coordinates;
+            // The builder must not write into an array owned by a built path
+            coordinates = new double[2];
+            final int builtSize = size;
+            size = 0;
+            return new PackedPath(new double[][]{packedCoordinates}, new int[]{0}, new int[]{0, builtSize});
+        }
+    }
+
+    // Interleaved latitude and longitude arrays, one per segment. Arrays may be shared with other paths.
+    private final double[][] segmentCoordinates;
+    // Index of the first vertex of each segment within its array
+    private final int[] segmentOffsets;
+    // Index within this path of the first vertex of each segment, followed by the size of the path
+    private final int[] segmentStarts;
+    // Computed on first use. Paths are immutable, so racing threads compute the same bounds.
+    private volatile LatLngBounds bounds = null;
+
+    private PackedPath(final double[][] segmentCoordinates, final int[] segmentOffsets, final int[] segmentStarts) {
+        this.segmentCoordinates = segmentCoordinates;
+        this.segmentOffsets = segmentOffsets;
+        this.segmentStarts = segmentStarts;
+    }
+
+    public static PackedPath empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder(final int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    public static PackedPath fromLatLngs(final List<LatLng> latLngs) {
+        final Builder builder = new Builder(latLngs.size());
+        for (final LatLng latLng : latLngs) {
+            builder.add(latLng);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Join paths end to end. Only segment references are copied, not vertices.
+     */
+    public static PackedPath concat(final List<PackedPath> paths) {
+        int segmentCount = 0;
+        for (final PackedPath path : paths) {
+            segmentCount += path.getSegmentCount();
+        }
+        if (segmentCount == 0) {
+            return EMPTY;
+        }
+        final double[][] coordinates = new double[segmentCount][];
+        final int[] offsets = new int[segmentCount];
+        final int[] starts = new int[segmentCount + 1];
+        int segment = 0;
+        for (final PackedPath path : paths) {
+            for (int i = 0; i < path.getSegmentCount(); i++) {
+                coordinates[segment] = path.segmentCoordinates[i];
+                offsets[segment] = path.segmentOffsets[i];
+                starts[segment + 1] = starts[segment] + path.getSegmentSize(i);
+                segment++;
+            }
+        }
+        return new PackedPath(coordinates, offsets, starts);
+    }
+
+    public PackedPath concat(final PackedPath other) {
+        return concat(Arrays.asList(this, other));
+    }
+
+    public int size() {
+        return segmentStarts[segmentStarts.length - 1];
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public double getLatitude(final int index) {
+        final int segment = findSegment(index);
+        return segmentCoordinates[segment][getArrayIndex(segment, index)];
+    }
+
+    public double getLongitude(final int index) {
+        final int segment = findSegment(index);
+        return segmentCoordinates[segment][getArrayIndex(segment, index) + 1];
+    }
+
+    public LatLng get(final int index) {
+        final int segment = findSegment(index);
+        final int arrayIndex = getArrayIndex(segment, index);
+        return new LatLng(segmentCoordinates[segment][arrayIndex], segmentCoordinates[segment][arrayIndex + 1]);
+    }
+
+    public LatLng getFirst() {
+        return get(0);
+    }
+
+    public LatLng getLast() {
+        return get(size() - 1);
+    }
+
+    /**
+     * Return the vertices from fromIndex (inclusive) to toIndex (exclusive). The returned path shares this path's
+     * arrays.
+     */
+    public PackedPath subPath(final int fromIndex, final int toIndex) {
+        if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("Invalid sub-path [" + fromIndex + ", " + toIndex + ") of " + size());
+        }
+        if (fromIndex == toIndex) {
+            return EMPTY;
+        }
+        final int firstSegment = findSegment(fromIndex);
+        final int lastSegment = findSegment(toIndex - 1);
+        final int segmentCount = lastSegment - firstSegment + 1;
+        final double[][] coordinates = new double[segmentCount][];
+        final int[] offsets = new int[segmentCount];
+        final int[] starts = new int[segmentCount + 1];
+        for (int i = 0; i < segmentCount; i++) {
+            final int segment = firstSegment + i;
+            final int segmentStart = Math.max(fromIndex, segmentStarts[segment]);
+            final int segmentEnd = Math.min(toIndex, segmentStarts[segment + 1]);
+            coordinates[i] = segmentCoordinates[segment];
+            offsets[i] = segmentOffsets[segment] + segmentStart - segmentStarts[segment];
+            starts[i + 1] = starts[i] + segmentEnd - segmentStart;
+        }
+        return new PackedPath(coordinates, offsets, starts);
+    }
+
+    /**
+     * Visit every vertex in order without allocating LatLngs.
+     */
+    public void forEach(final VertexConsumer consumer) {
+        for (int segment = 0; segment < getSegmentCount(); segment++) {
+            final double[] coordinates = segmentCoordinates[segment];
+            final int end = (segmentOffsets[segment] + getSegmentSize(segment)) * 2;
+            for (int i = segmentOffsets[segment] * 2; i < end; i += 2) {
+                consumer.accept(coordinates[i], coordinates[i + 1]);
+            }
+        }
+    }
+
+    /**
+     * The smallest box containing every vertex, computed once per path, so a route that is shown repeatedly is only
+     * measured the first time.
+     *
+     * @throws IllegalStateException if the path is empty
+     */
+    public LatLngBounds getBounds() {
+        if (bounds == null) {
+            bounds = LatLngBounds.builder().include(this).build();
+        }
+        return bounds;
+    }
+
+    /**
+     * Return a read-only List view of this path. LatLngs are created when elements are accessed.
+     */
+    public List<LatLng> asList() {
+        return new LatLngListView(this);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (other == this) {
+            return true;
+        }
+        if (!(other instanceof PackedPath)) {
+            return false;
+        }
+        final PackedPath otherPath = (PackedPath) other;
+        if (size() != otherPath.size()) {
+            return false;
+        }
+        for (int i = 0; i < size(); i++) {
+            // Compare the same way LatLng.equals does
+            if (Double.compare(getLatitude(i), otherPath.getLatitude(i)) != 0
+                || Double.compare(getLongitude(i), otherPath.getLongitude(i)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        final int[] hash = {1};
+        forEach((latitude, longitude) ->
+            hash[0] = 31 * (31 * hash[0] + Double.hashCode(latitude)) + Double.hashCode(longitude)
+        );
+        return hash[0];
+    }
+
+    private int getSegmentCount() {
+        return segmentCoordinates.length;
+    }
+
+    private int getSegmentSize(final int segment) {
+        return segmentStarts[segment + 1] - segmentStarts[segment];
+    }
+
+    private int getArrayIndex(final int segment, final int index) {
+        return (segmentOffsets[segment] + index - segmentStarts[segment]) * 2;
+    }
+
+    private int findSegment(final int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of " + size());
+        }
+        if (getSegmentCount() == 1) {
+            return 0;
+        }
+        // Find the last segment that starts at or before index
+        int low = 0;
+        int high = getSegmentCount() - 1;
+        while (low < high) {
+            final int middle = (low + high + 1) >>> 1;
+            if (segmentStarts[middle] <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    private static class LatLngListView extends AbstractList<LatLng> implements RandomAccess {
+        private final PackedPath path;
+
+        private LatLngListView(final PackedPath path) {
+            this.path = path;
+        }
+
+        @Override
+        public LatLng get(final int index) {
+            return path.get(index);
+        }
+
+        @Override
+        public int size() {
+            return path.size();
+        }
+    }
+}
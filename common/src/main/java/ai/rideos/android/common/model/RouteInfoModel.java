@@ -18,18 +18,29 @@ package ai.rideos.android.common.model;
 import java.util.List;
 
 public class RouteInfoModel {
-    private final List<LatLng> route;
+    private final PackedPath path;
     private final long travelTimeMillis;
     private final double travelDistanceMeters;
 
     public RouteInfoModel(final List<LatLng> route, final long travelTimeMillis, final double travelDistanceMeters) {
-        this.route = route;
+        this(PackedPath.fromLatLngs(route), travelTimeMillis, travelDistanceMeters);
+    }
+
+    public RouteInfoModel(final PackedPath path, final long travelTimeMillis, final double travelDistanceMeters) {
+        this.path = path;
         this.travelTimeMillis = travelTimeMillis;
         this.travelDistanceMeters = travelDistanceMeters;
     }
 
+    /**
+     * Return the route as a list view over getPath(). Prefer getPath() when iterating over long routes.
+     */
     public List<LatLng> getRoute() {
-        return route;
+        return path.asList();
+    }
+
+    public PackedPath getPath() {
+        return path;
     }
 
     public long getTravelTimeMillis() {
@@ -49,7 +60,7 @@ public class RouteInfoModel {
             return false;
         }
         final RouteInfoModel otherModel = (RouteInfoModel) other;
-        return route.equals(otherModel.getRoute())
+        return path.equals(otherModel.path)
             && travelTimeMillis == otherModel.travelTimeMillis
             && travelDistanceMeters == otherModel.travelDistanceMeters;
     }
@@ -16,6 +16,7 @@
 package ai.rideos.android.common.model.map;
 
 import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.PackedPath;
 import java.util.List;
 
 public class DrawablePath {
@@ -24,7 +25,7 @@ public class DrawablePath {
         DOTTED
     }
 
-    private final List<LatLng> coordinates;
+    private final PackedPath path;
     private final float width;
     private final int color;
     private final Style style;
@@ -34,14 +35,26 @@ public class DrawablePath {
     }
 
     public DrawablePath(final List<LatLng> coordinates, final float width, final int color, final Style style) {
-        this.coordinates = coordinates;
+        this(PackedPath.fromLatLngs(coordinates), width, color, style);
+    }
+
+    public DrawablePath(final PackedPath path, final float width, final int color) {
+        this(path, width, color, Style.SOLID);
+    }
+
+    public DrawablePath(final PackedPath path, final float width, final int color, final Style style) {
+        this.path = path;
         this.width = width;
         this.color = color;
         this.style = style;
     }
 
     public List<LatLng> getCoordinates() {
-        return coordinates;
+        return path.asList();
+    }
+
+    public PackedPath getPath() {
+        return path;
     }
 
     public float getWidth() {
@@ -65,7 +78,7 @@ public class DrawablePath {
             return false;
         }
         final DrawablePath otherModel = (DrawablePath) other;
-        return coordinates.equals(otherModel.getCoordinates())
+        return path.equals(otherModel.path)
             && width == otherModel.getWidth()
             && color == otherModel.getColor()
             && style == otherModel.getStyle();
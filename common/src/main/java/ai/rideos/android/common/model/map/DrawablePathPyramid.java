@@ -0,0 +1,41 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.model.map;
+
+import ai.rideos.android.common.location.PathPyramid;
+import ai.rideos.android.common.model.PackedPath;
+
+/**
+ * A DrawablePath with its path simplified for each zoom level, so maps can draw it with as many vertices as the
+ * current zoom can show. Building the pyramid walks the whole path, so create these off the main thread.
+ */
+public class DrawablePathPyramid {
+    private final DrawablePath drawablePath;
+    private final PathPyramid pyramid;
+
+    public DrawablePathPyramid(final DrawablePath drawablePath) {
+        this.drawablePath = drawablePath;
+        pyramid = new PathPyramid(drawablePath.getPath());
+    }
+
+    public DrawablePath getDrawablePath() {
+        return drawablePath;
+    }
+
+    public PackedPath getPathForZoom(final float zoom) {
+        return pyramid.getLevel(zoom);
+    }
+}
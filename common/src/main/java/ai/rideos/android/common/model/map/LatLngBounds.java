@@ -16,8 +16,78 @@
 package ai.rideos.android.common.model.map;
 
 import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.PackedPath;
 
+/**
+ * LatLngBounds is a latitude/longitude box given by its south-west and north-east corners. When the box crosses the
+ * antimeridian, the south-west corner's longitude is greater than the north-east corner's.
+ */
 public class LatLngBounds {
+    /**
+     * Builder grows a box to include points one at a time, in a single pass over primitive coordinates. It follows
+     * the Google Maps LatLngBounds.Builder: when a point is outside the box, the box grows east or west, whichever
+     * is shorter, so boxes around routes near the antimeridian cross it instead of spanning the globe.
+     */
+    public static class Builder {
+        private double south = Double.POSITIVE_INFINITY;
+        private double west = Double.NaN;
+        private double north = Double.NEGATIVE_INFINITY;
+        private double east = Double.NaN;
+
+        private Builder() {
+        }
+
+        public Builder include(final double latitude, final double longitude) {
+            south = Math.min(south, latitude);
+            north = Math.max(north, latitude);
+            if (Double.isNaN(west)) {
+                west = longitude;
+                east = longitude;
+            } else if (!containsLongitude(longitude)) {
+                if (getDegreesEast(longitude, west) < getDegreesEast(east, longitude)) {
+                    west = longitude;
+                } else {
+                    east = longitude;
+                }
+            }
+            return this;
+        }
+
+        public Builder include(final LatLng latLng) {
+            return include(latLng.getLatitude(), latLng.getLongitude());
+        }
+
+        public Builder include(final PackedPath path) {
+            path.forEach(this::include);
+            return this;
+        }
+
+        public boolean isEmpty() {
+            return Double.isNaN(west);
+        }
+
+        /**
+         * @throws IllegalStateException if nothing was included
+         */
+        public LatLngBounds build() {
+            if (isEmpty()) {
+                throw new IllegalStateException("Bounds must include at least one point");
+            }
+            return new LatLngBounds(new LatLng(south, west), new LatLng(north, east));
+        }
+
+        private boolean containsLongitude(final double longitude) {
+            return west <= east
+                ? west <= longitude && longitude <= east
+                : west <= longitude || longitude <= east;
+        }
+
+        // How far east the second longitude is from the first, in the range [0, 360)
+        private static double getDegreesEast(final double from, final double to) {
+            return ((to - from) % 360 + 360) % 360;
+        }
+    }
+
     private final LatLng southwest;
     private final LatLng northeast;
 
@@ -26,6 +96,22 @@ public class LatLngBounds {
         this.northeast = northeast;
     }
 
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * A builder starting from these bounds, to grow them with more points.
+     */
+    public Builder toBuilder() {
+        final Builder builder = new Builder();
+        builder.south = southwest.getLatitude();
+        builder.west = southwest.getLongitude();
+        builder.north = northeast.getLatitude();
+        builder.east = northeast.getLongitude();
+        return builder;
+    }
+
     public LatLng getSouthwestCorner() {
         return southwest;
     }
@@ -34,6 +120,10 @@ public class LatLngBounds {
         return northeast;
     }
 
+    public boolean crossesAntimeridian() {
+        return southwest.getLongitude() > northeast.getLongitude();
+    }
+
     @Override
     public boolean equals(final Object other) {
         if (other == this) {
@@ -45,4 +135,9 @@ public class LatLngBounds {
         final LatLngBounds otherModel = (LatLngBounds) other;
         return southwest.equals(otherModel.getSouthwestCorner()) && northeast.equals(otherModel.getNortheastCorner());
     }
+
+    @Override
+    public int hashCode() {
+        return 31 * southwest.hashCode() + northeast.hashCode();
+    }
 }
@@ -0,0 +1,295 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.routing;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * RoadGraph is a read-only directed road graph stored in a compact binary file. The file is memory-mapped and read
+ * through primitive buffer views, so loading it does not create an object per node or edge and the OS only pages in
+ * the parts of the graph a query touches.
+ *
+ * The file is little-endian and laid out as:
+ * - A 32 byte header: magic, version, node count, edge count and the maximum edge speed in meters per second
+ * - Node latitudes and longitudes, as ints in degrees * 1e7
+ * - Edge offsets, one per node plus a final one. The edges leaving node i are the range [offset[i], offset[i + 1]).
+ * - Edge targets, as node indices
+ * - Edge lengths in meters and edge travel times in seconds, as floats
+ *
+ * python_scripts/osm_to_road_graph.py converts an OSM extract to this format.
+ */
+public class RoadGraph {
+    static final int MAGIC = 0x52474452;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+
+    private static final double COORDINATE_SCALE = 1e7;
+    // Aim for a few nodes per grid cell when finding the nearest node
+    private static final int NODES_PER_CELL = 4;
+    private static final int MAX_GRID_DIMENSION = 1024;
+
+    private final int nodeCount;
+    private final int edgeCount;
+    private final float maxSpeedMetersPerSecond;
+    private final IntBuffer latitudesE7;
+    private final IntBuffer longitudesE7;
+    private final IntBuffer edgeOffsets;
+    private final IntBuffer edgeTargets;
+    private final FloatBuffer edgeLengthsMeters;
+    private final FloatBuffer edgeTravelSeconds;
+    private final NodeGrid nodeGrid;
+
+    private RoadGraph(final ByteBuffer buffer) throws IOException {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a road graph file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported road graph version " + buffer.getInt(4));
+        }
+        nodeCount = buffer.getInt(8);
+        edgeCount = buffer.getInt(12);
+        maxSpeedMetersPerSecond = buffer.getFloat(16);
+        final long expectedBytes = HEADER_BYTES + 4L * (3L * nodeCount + 1 + 3L * edgeCount);
+        if (nodeCount < 0 || edgeCount < 0 || buffer.limit() != expectedBytes) {
+            throw new IOException("Road graph file is " + buffer.limit() + " bytes, expected " + expectedBytes);
+        }
+
+        int offset = HEADER_BYTES;
+        latitudesE7 = slice(buffer, offset, nodeCount).asIntBuffer();
+        offset += 4 * nodeCount;
+        longitudesE7 = slice(buffer, offset, nodeCount).asIntBuffer();
+        offset += 4 * nodeCount;
+        edgeOffsets = slice(buffer, offset, nodeCount + 1).asIntBuffer();
+        offset += 4 * (nodeCount + 1);
+        edgeTargets = slice(buffer, offset, edgeCount).asIntBuffer();
+        offset += 4 * edgeCount;
+        edgeLengthsMeters = slice(buffer, offset, edgeCount).asFloatBuffer();
+        offset += 4 * edgeCount;
+        edgeTravelSeconds = slice(buffer, offset, edgeCount).asFloatBuffer();
+
+        if (edgeOffsets.get(0) != 0 || edgeOffsets.get(nodeCount) != edgeCount) {
+            throw new IOException("Road graph edge offsets do not cover its edges");
+        }
+        nodeGrid = new NodeGrid(this);
+    }
+
+    /**
+     * Memory-map a road graph file. The mapping stays valid after the file channel is closed.
+     */
+    public static RoadGraph open(final File file) throws IOException {
+        // RandomAccessFile rather than FileChannel.open, which needs API 26
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            final FileChannel channel = randomAccessFile.getChannel();
+            return new RoadGraph(channel.map(MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Read a road graph from a buffer holding the whole file, for graphs that are not stored in a file.
+     */
+    public static RoadGraph fromBuffer(final ByteBuffer buffer) throws IOException {
+        return new RoadGraph(buffer.duplicate());
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    // Upper bound of the speed on any edge, used to estimate the remaining travel time during a search
+    public float getMaxSpeedMetersPerSecond() {
+        return maxSpeedMetersPerSecond;
+    }
+
+    public double getLatitude(final int node) {
+        return latitudesE7.get(node) / COORDINATE_SCALE;
+    }
+
+    public double getLongitude(final int node) {
+        return longitudesE7.get(node) / COORDINATE_SCALE;
+    }
+
+    // Index of the first edge leaving a node
+    public int getFirstEdge(final int node) {
+        return edgeOffsets.get(node);
+    }
+
+    // Index after the last edge leaving a node
+    public int getEdgeEnd(final int node) {
+        return edgeOffsets.get(node + 1);
+    }
+
+    public int getEdgeTarget(final int edge) {
+        return edgeTargets.get(edge);
+    }
+
+    public float getEdgeLengthMeters(final int edge) {
+        return edgeLengthsMeters.get(edge);
+    }
+
+    public float getEdgeTravelSeconds(final int edge) {
+        return edgeTravelSeconds.get(edge);
+    }
+
+    /**
+     * Return the node closest to a coordinate, or -1 if the graph has no nodes.
+     */
+    public int findNearestNode(final double latitude, final double longitude) {
+        return nodeGrid.findNearestNode(latitude, longitude);
+    }
+
+    private static ByteBuffer slice(final ByteBuffer buffer, final int offset, final int intCount) {
+        final ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.limit(offset + 4 * intCount);
+        // Slices are always big-endian, whatever the order of the buffer they come from
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Uniform grid over the graph's bounding box, holding node indices sorted by cell in a single array.
+     */
+    private static class NodeGrid {
+        private final RoadGraph graph;
+        private final double minLatitude;
+        private final double minLongitude;
+        private final double cellLatitudeDegrees;
+        private final double cellLongitudeDegrees;
+        private final int rows;
+        private final int columns;
+        // Nodes in cell c are cellNodes[cellStarts[c]] to cellNodes[cellStarts[c + 1] - 1]
+        private final int[] cellStarts;
+        private final int[] cellNodes;
+
+        private NodeGrid(final RoadGraph graph) {
+            this.graph = graph;
+            final int nodeCount = graph.getNodeCount();
+            double minLat = Double.MAX_VALUE;
+            double minLon = Double.MAX_VALUE;
+            double maxLat = -Double.MAX_VALUE;
+            double maxLon = -Double.MAX_VALUE;
+            for (int node = 0; node < nodeCount; node++) {
+                minLat = Math.min(minLat, graph.getLatitude(node));
+                maxLat = Math.max(maxLat, graph.getLatitude(node));
+                minLon = Math.min(minLon, graph.getLongitude(node));
+                maxLon = Math.max(maxLon, graph.getLongitude(node));
+            }
+            final int dimension = (int) Math.max(
+                1,
+                Math.min(MAX_GRID_DIMENSION, Math.ceil(Math.sqrt((double) nodeCount / NODES_PER_CELL)))
+            );
+            rows = dimension;
+            columns = dimension;
+            minLatitude = nodeCount == 0 ? 0 : minLat;
+            minLongitude = nodeCount == 0 ? 0 : minLon;
+            // Pad the cells slightly so the maximum coordinates fall inside the last row and column
+            cellLatitudeDegrees = nodeCount == 0 ? 1 : Math.max(maxLat - minLat, 1e-6) * 1.000001 / rows;
+            cellLongitudeDegrees = nodeCount == 0 ? 1 : Math.max(maxLon - minLon, 1e-6) * 1.000001 / columns;
+
+            // Counting sort of the nodes by cell
+            cellStarts = new int[rows * columns + 1];
+            final int[] nodeCells = new int[nodeCount];
+            for (int node = 0; node < nodeCount; node++) {
+                nodeCells[node] = getCell(getRow(graph.getLatitude(node)), getColumn(graph.getLongitude(node)));
+                cellStarts[nodeCells[node] + 1]++;
+            }
+            for (int cell = 0; cell < rows * columns; cell++) {
+                cellStarts[cell + 1] += cellStarts[cell];
+            }
+            final int[] nextIndex = new int[rows * columns];
+            System.arraycopy(cellStarts, 0, nextIndex, 0, rows * columns);
+            cellNodes = new int[nodeCount];
+            for (int node = 0; node < nodeCount; node++) {
+                cellNodes[nextIndex[nodeCells[node]]++] = node;
+            }
+        }
+
+        private int findNearestNode(final double latitude, final double longitude) {
+            if (graph.getNodeCount() == 0) {
+                return -1;
+            }
+            final double longitudeScale = Math.cos(Math.toRadians(latitude));
+            final int row = clamp(getRow(latitude), rows);
+            final int column = clamp(getColumn(longitude), columns);
+            // The smallest distance, in degrees of latitude, from the query to a cell at a given ring
+            final double ringDegrees = Math.min(cellLatitudeDegrees, cellLongitudeDegrees * longitudeScale);
+            int nearestNode = -1;
+            double nearestSquaredDistance = Double.MAX_VALUE;
+            final int maxRing = Math.max(rows, columns);
+            for (int ring = 0; ring <= maxRing; ring++) {
+                // Stop once no unsearched cell can hold a closer node
+                final double ringDistance = (ring - 1) * ringDegrees;
+                if (nearestNode >= 0 && ring > 0 && ringDistance * ringDistance > nearestSquaredDistance) {
+                    break;
+                }
+                for (int r = row - ring; r <= row + ring; r++) {
+                    if (r < 0 || r >= rows) {
+                        continue;
+                    }
+                    final boolean isEdgeRow = r == row - ring || r == row + ring;
+                    // Only visit the cells on the border of the ring
+                    final int step = isEdgeRow ? 1 : Math.max(1, 2 * ring);
+                    for (int c = column - ring; c <= column + ring; c += step) {
+                        if (c < 0 || c >= columns) {
+                            continue;
+                        }
+                        final int cell = getCell(r, c);
+                        for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; i++) {
+                            final int node = cellNodes[i];
+                            final double latitudeDelta = graph.getLatitude(node) - latitude;
+                            final double longitudeDelta = (graph.getLongitude(node) - longitude) * longitudeScale;
+                            final double squaredDistance =
+                                latitudeDelta * latitudeDelta + longitudeDelta * longitudeDelta;
+                            if (squaredDistance < nearestSquaredDistance) {
+                                nearestSquaredDistance = squaredDistance;
+                                nearestNode = node;
+                            }
+                        }
+                    }
+                }
+            }
+            return nearestNode;
+        }
+
+        private int getRow(final double latitude) {
+            return (int) Math.floor((latitude - minLatitude) / cellLatitudeDegrees);
+        }
+
+        private int getColumn(final double longitude) {
+            return (int) Math.floor((longitude - minLongitude) / cellLongitudeDegrees);
+        }
+
+        private int getCell(final int row, final int column) {
+            return clamp(row, rows) * columns + clamp(column, columns);
+        }
+
+        private static int clamp(final int index, final int size) {
+            return Math.max(0, Math.min(size - 1, index));
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.routing;
+
+import ai.rideos.android.common.location.Geodesy;
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.PackedPath;
+import ai.rideos.android.common.model.RouteInfoModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * RoadGraphRouter finds the fastest route through a RoadGraph using A* search. The heuristic is the straight-line
+ * distance to the destination at the graph's maximum speed, which does not overestimate the remaining time within a
+ * regional graph, so routes are the fastest the graph allows.
+ *
+ * Origins and destinations are snapped to their nearest graph node. The straight connections between the requested
+ * points and those nodes are included in the route's geometry and distance, and are assumed to be driven at
+ * CONNECTOR_SPEED_METERS_PER_SECOND.
+ *
+ * Search state is kept in primitive arrays sized to the graph and reused between queries, so a query does not
+ * allocate per visited node. Queries are serialized, since they share that state.
+ */
+public class RoadGraphRouter {
+    public static class NoRouteException extends Exception {
+        public NoRouteException(final String message) {
+            super(message);
+        }
+    }
+
+    static final double CONNECTOR_SPEED_METERS_PER_SECOND = 5;
+    // Points this close to their nearest node are treated as being on it
+    private static final double SNAP_TOLERANCE_METERS = 0.5;
+    // Keeps the flat-earth heuristic below the haversine edge lengths in the graph, so it stays admissible
+    private static final double HEURISTIC_SAFETY_FACTOR = 0.99;
+
+    private final RoadGraph graph;
+    // Best known travel time to each node, valid only when visitStamps matches the current query
+    private final double[] travelSeconds;
+    // Edge used to reach each node on the best known route, or -1 for the start node
+    private final int[] parentEdges;
+    private final int[] parentNodes;
+    private final int[] visitStamps;
+    private final int[] settledStamps;
+    private final NodeHeap openNodes = new NodeHeap();
+    private int currentStamp = 0;
+    private int settledNodeCount = 0;
+
+    public RoadGraphRouter(final RoadGraph graph) {
+        this.graph = graph;
+        travelSeconds = new double[graph.getNodeCount()];
+        parentEdges = new int[graph.getNodeCount()];
+        parentNodes = new int[graph.getNodeCount()];
+        visitStamps = new int[graph.getNodeCount()];
+        settledStamps = new int[graph.getNodeCount()];
+    }
+
+    public synchronized RouteInfoModel route(final LatLng origin, final LatLng destination) throws NoRouteException {
+        final int originNode = graph.findNearestNode(origin.getLatitude(), origin.getLongitude());
+        final int destinationNode = graph.findNearestNode(destination.getLatitude(), destination.getLongitude());
+        if (originNode < 0 || destinationNode < 0) {
+            throw new NoRouteException("Road graph is empty");
+        }
+        search(originNode, destinationNode);
+        if (visitStamps[destinationNode] != currentStamp) {
+            throw new NoRouteException("No road connects " + origin + " to " + destination);
+        }
+        return toRouteInfo(origin, originNode, destination, destinationNode);
+    }
+
+    /**
+     * Route between each pair of consecutive waypoints, returning one route per leg.
+     */
+    public synchronized List<RouteInfoModel> route(final List<LatLng> waypoints) throws NoRouteException {
+        if (waypoints.size() < 2) {
+            throw new NoRouteException("At least 2 waypoints are required");
+        }
+        final List<RouteInfoModel> legs = new ArrayList<>(waypoints.size() - 1);
+        for (int i = 1; i < waypoints.size(); i++) {
+            legs.add(route(waypoints.get(i - 1), waypoints.get(i)));
+        }
+        return legs;
+    }
+
+    // Number of nodes settled by the last query, to compare search effort
+    synchronized int getSettledNodeCount() {
+        return settledNodeCount;
+    }
+
+    private void search(final int originNode, final int destinationNode) {
+        startQuery();
+        final double destinationLatitude = graph.getLatitude(destinationNode);
+        final double destinationLongitude = graph.getLongitude(destinationNode);
+        final double longitudeScale = Math.cos(Math.toRadians(destinationLatitude));
+        final double secondsPerMeter = HEURISTIC_SAFETY_FACTOR / graph.getMaxSpeedMetersPerSecond();
+
+        visit(originNode, 0, -1, -1);
+        openNodes.push(originNode, 0);
+        while (!openNodes.isEmpty()) {
+            final int node = openNodes.pop();
+            if (settledStamps[node] == currentStamp) {
+                // A stale entry for a node that was already reached faster
+                continue;
+            }
+            settledStamps[node] = currentStamp;
+            settledNodeCount++;
+            if (node == destinationNode) {
+                return;
+            }
+            for (int edge = graph.getFirstEdge(node); edge < graph.getEdgeEnd(node); edge++) {
+                final int target = graph.getEdgeTarget(edge);
+                if (settledStamps[target] == currentStamp) {
+                    continue;
+                }
+                final double targetSeconds = travelSeconds[node] + graph.getEdgeTravelSeconds(edge);
+                if (visitStamps[target] == currentStamp && targetSeconds >= travelSeconds[target]) {
+                    continue;
+                }
+                visit(target, targetSeconds, edge, node);
+                final double remainingMeters = getFlatDistanceMeters(
+                    graph.getLatitude(target),
+                    graph.getLongitude(target),
+                    destinationLatitude,
+                    destinationLongitude,
+                    longitudeScale
+                );
+                openNodes.push(target, targetSeconds + remainingMeters * secondsPerMeter);
+            }
+        }
+    }
+
+    private void startQuery() {
+        currentStamp++;
+        if (currentStamp == Integer.MAX_VALUE) {
+            // Stamps wrapped around, so old stamps could match new queries
+            Arrays.fill(visitStamps, 0);
+            Arrays.fill(settledStamps, 0);
+            currentStamp = 1;
+        }
+        openNodes.clear();
+        settledNodeCount = 0;
+    }
+
+    private void visit(final int node, final double seconds, final int parentEdge, final int parentNode) {
+        visitStamps[node] = currentStamp;
+        travelSeconds[node] = seconds;
+        parentEdges[node] = parentEdge;
+        parentNodes[node] = parentNode;
+    }
+
+    private RouteInfoModel toRouteInfo(final LatLng origin,
+                                       final int originNode,
+                                       final LatLng destination,
+                                       final int destinationNode) {
+        // Walk back from the destination to count the nodes, then fill the path front to back
+        int nodeCount = 1;
+        for (int node = destinationNode; node != originNode; node = parentNodes[node]) {
+            nodeCount++;
+        }
+        final int[] nodes = new int[nodeCount];
+        double roadMeters = 0;
+        int index = nodeCount - 1;
+        for (int node = destinationNode; index >= 0; node = parentNodes[node]) {
+            nodes[index--] = node;
+            if (node != originNode) {
+                roadMeters += graph.getEdgeLengthMeters(parentEdges[node]);
+            }
+        }
+
+        final double originConnectorMeters = getConnectorMeters(origin, originNode);
+        final double destinationConnectorMeters = getConnectorMeters(destination, destinationNode);
+        final PackedPath.Builder path = PackedPath.builder(nodeCount + 2);
+        if (originConnectorMeters > 0) {
+            path.add(origin);
+        }
+        for (final int node : nodes) {
+            path.add(graph.getLatitude(node), graph.getLongitude(node));
+        }
+        if (destinationConnectorMeters > 0) {
+            path.add(destination);
+        }
+        final double connectorMeters = originConnectorMeters + destinationConnectorMeters;
+        final double totalSeconds = travelSeconds[destinationNode]
+            + connectorMeters / CONNECTOR_SPEED_METERS_PER_SECOND;
+        return new RouteInfoModel(path.build(), Math.round(totalSeconds * 1000), roadMeters + connectorMeters);
+    }
+
+    private double getConnectorMeters(final LatLng latLng, final int node) {
+        final double latitude = graph.getLatitude(node);
+        final double distanceMeters = getFlatDistanceMeters(
+            latLng.getLatitude(),
+            latLng.getLongitude(),
+            latitude,
+            graph.getLongitude(node),
+            Math.cos(Math.toRadians(latitude))
+        );
+        return distanceMeters > SNAP_TOLERANCE_METERS ? distanceMeters : 0;
+    }
+
+    private static double getFlatDistanceMeters(final double latitude1,
+                                                final double longitude1,
+                                                final double latitude2,
+                                                final double longitude2,
+                                                final double longitudeScale) {
+        final double latitudeMeters = (latitude2 - latitude1) * Geodesy.METERS_PER_DEGREE;
+        final double longitudeMeters = (longitude2 - longitude1) * Geodesy.METERS_PER_DEGREE * longitudeScale;
+        return Math.sqrt(latitudeMeters * latitudeMeters + longitudeMeters * longitudeMeters);
+    }
+
+    /**
+     * Binary min-heap of nodes keyed by estimated travel time. A node can be pushed more than once; callers skip
+     * entries for nodes that were already settled.
+     */
+    private static class NodeHeap {
+        private int[] nodes = new int[64];
+        private double[] keys = new double[64];
+        private int size = 0;
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private void clear() {
+            size = 0;
+        }
+
+        private void push(final int node, final double key) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            int child = size++;
+            while (child > 0) {
+                final int parent = (child - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                nodes[child] = nodes[parent];
+                keys[child] = keys[parent];
+                child = parent;
+            }
+            nodes[child] = node;
+            keys[child] = key;
+        }
+
+        private int pop() {
+            final int top = nodes[0];
+            final int lastNode = nodes[--size];
+            final double lastKey = keys[size];
+            int parent = 0;
+            while (true) {
+                int child = 2 * parent + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (keys[child] >= lastKey) {
+                    break;
+                }
+                nodes[parent] = nodes[child];
+                keys[parent] = keys[child];
+                parent = child;
+            }
+            nodes[parent] = lastNode;
+            keys[parent] = lastKey;
+            return top;
+        }
+    }
+}
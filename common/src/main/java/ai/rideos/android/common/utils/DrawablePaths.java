@@ -17,6 +17,7 @@ package ai.rideos.android.common.utils;
 
 import ai.rideos.android.common.R;
 import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.PackedPath;
 import ai.rideos.android.common.model.map.DrawablePath;
 import ai.rideos.android.common.view.resources.ResourceProvider;
 import java.util.List;
@@ -25,10 +26,18 @@ public class DrawablePaths {
     public static final float DEFAULT_PATH_WIDTH = 10.0f;
 
     public static DrawablePath getActivePath(final List<LatLng> route, final ResourceProvider resourceProvider) {
+        return getActivePath(PackedPath.fromLatLngs(route), resourceProvider);
+    }
+
+    public static DrawablePath getActivePath(final PackedPath route, final ResourceProvider resourceProvider) {
         return new DrawablePath(route, DEFAULT_PATH_WIDTH, resourceProvider.getColor(R.attr.rideos_route_color));
     }
 
     public static DrawablePath getInactivePath(final List<LatLng> route, final ResourceProvider resourceProvider) {
+        return getInactivePath(PackedPath.fromLatLngs(route), resourceProvider);
+    }
+
+    public static DrawablePath getInactivePath(final PackedPath route, final ResourceProvider resourceProvider) {
         return new DrawablePath(route, DEFAULT_PATH_WIDTH, resourceProvider.getColor(R.attr.rideos_inactive_route_color));
     }
 }
@@ -15,11 +15,11 @@
  */
 package ai.rideos.android.common.utils;
 
+import ai.rideos.android.common.location.Geodesy;
 import ai.rideos.android.common.model.LatLng;
 import ai.rideos.android.common.model.map.LatLngBounds;
 import ai.rideos.api.geo.v1.GeoProto.Position;
 import android.location.Location;
-import com.google.maps.android.SphericalUtil;
 
 /**
  * Locations contains various useful conversions between rideOS models and Google/Android models.
@@ -48,10 +48,23 @@ public class Locations {
     }
 
     public static LatLngBounds getBoundsFromCenterAndRadius(final LatLng center, final int radiusMeters) {
-        return new LatLngBounds(
-            fromGoogleLatLng(SphericalUtil.computeOffset(toGoogleLatLng(center), radiusMeters, SOUTH_WEST_HEADING_DEGREES)),
-            fromGoogleLatLng(SphericalUtil.computeOffset(toGoogleLatLng(center), radiusMeters, NORTH_EAST_HEADING_DEGREES))
+        final double[] corner = new double[2];
+        Geodesy.getDestination(
+            center.getLatitude(),
+            center.getLongitude(),
+            SOUTH_WEST_HEADING_DEGREES,
+            radiusMeters,
+            corner
         );
+        final LatLng southwest = new LatLng(corner[Geodesy.LATITUDE], corner[Geodesy.LONGITUDE]);
+        Geodesy.getDestination(
+            center.getLatitude(),
+            center.getLongitude(),
+            NORTH_EAST_HEADING_DEGREES,
+            radiusMeters,
+            corner
+        );
+        return new LatLngBounds(southwest, new LatLng(corner[Geodesy.LATITUDE], corner[Geodesy.LONGITUDE]));
     }
 
     public static LatLng getLatLngFromAndroidLocation(final Location location) {
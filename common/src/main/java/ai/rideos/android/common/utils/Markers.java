@@ -17,6 +17,7 @@ package ai.rideos.android.common.utils;
 
 import ai.rideos.android.common.R;
 import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.PackedPath;
 import ai.rideos.android.common.model.RouteInfoModel;
 import ai.rideos.android.common.model.map.DrawableMarker;
 import ai.rideos.android.common.model.map.DrawableMarker.Anchor;
@@ -38,11 +39,11 @@ public class Markers {
      */
     public static Map<String, DrawableMarker> getMarkersForRoute(final RouteInfoModel routeInfoModel,
                                                                  final ResourceProvider resourceProvider) {
-        final List<LatLng> path = routeInfoModel.getRoute();
+        final PackedPath path = routeInfoModel.getPath();
         final Map<String, DrawableMarker> markers = new HashMap<>();
-        if (path.size() > 0) {
-            markers.put(PICKUP_MARKER_KEY, getPickupMarker(path.get(0), resourceProvider));
-            markers.put(DROP_OFF_MARKER_KEY, getDropOffMarker(path.get(path.size() - 1), resourceProvider));
+        if (!path.isEmpty()) {
+            markers.put(PICKUP_MARKER_KEY, getPickupMarker(path.getFirst(), resourceProvider));
+            markers.put(DROP_OFF_MARKER_KEY, getDropOffMarker(path.getLast(), resourceProvider));
         }
         return markers;
     }
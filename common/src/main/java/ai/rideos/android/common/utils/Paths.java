@@ -16,36 +16,48 @@
 package ai.rideos.android.common.utils;
 
 import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.PackedPath;
 import ai.rideos.android.common.model.RouteInfoModel;
 import ai.rideos.android.common.model.map.LatLngBounds;
+import ai.rideos.api.geo.v1.GeoProto.Position;
 import ai.rideos.api.route.v1.RouteProto.RouteResponse;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class Paths {
 
     public static LatLngBounds getBoundsForPath(final List<LatLng> path, LatLng... additionalPoints) {
-        final com.google.android.gms.maps.model.LatLngBounds.Builder boundsBuilder =
-            com.google.android.gms.maps.model.LatLngBounds.builder();
-
+        final LatLngBounds.Builder boundsBuilder = LatLngBounds.builder();
         for (final LatLng latLng : path) {
-            boundsBuilder.include(Locations.toGoogleLatLng(latLng));
+            boundsBuilder.include(latLng);
         }
         for (final LatLng latLng : additionalPoints) {
-            boundsBuilder.include(Locations.toGoogleLatLng(latLng));
+            boundsBuilder.include(latLng);
         }
-        final com.google.android.gms.maps.model.LatLngBounds googleBounds = boundsBuilder.build();
-        return new LatLngBounds(
-            Locations.fromGoogleLatLng(googleBounds.southwest),
-            Locations.fromGoogleLatLng(googleBounds.northeast)
-        );
+        return boundsBuilder.build();
+    }
+
+    public static LatLngBounds getBoundsForPath(final PackedPath path, LatLng... additionalPoints) {
+        if (additionalPoints.length == 0) {
+            return path.getBounds();
+        }
+        // Start from the path's cached bounds, so only the additional points are measured
+        final LatLngBounds.Builder boundsBuilder = path.isEmpty()
+            ? LatLngBounds.builder()
+            : path.getBounds().toBuilder();
+        for (final LatLng latLng : additionalPoints) {
+            boundsBuilder.include(latLng);
+        }
+        return boundsBuilder.build();
     }
 
     public static RouteInfoModel getRouteInfoFromRideOsRoute(final RouteResponse routeResponse) {
+        final List<Position> geometry = routeResponse.getPath().getGeometryList();
+        final PackedPath.Builder pathBuilder = PackedPath.builder(geometry.size());
+        for (final Position position : geometry) {
+            pathBuilder.add(position.getLatitude(), position.getLongitude());
+        }
         return new RouteInfoModel(
-            routeResponse.getPath().getGeometryList().stream()
-                .map(position -> new LatLng(position.getLatitude(), position.getLongitude()))
-                .collect(Collectors.toList()),
+            pathBuilder.build(),
             routeResponse.getPath().getTravelTime().getMilliseconds(),
             routeResponse.getPath().getDistanceMeters()
         );
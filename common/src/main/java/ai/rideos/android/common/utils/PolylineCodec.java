@@ -0,0 +1,163 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.utils;
+
+import ai.rideos.android.common.model.PackedPath;
+import ai.rideos.android.common.model.PackedPath.VertexConsumer;
+
+/**
+ * PolylineCodec reads and writes encoded polylines (https://developers.google.com/maps/documentation/utilities/
+ * polylinealgorithm) directly to and from PackedPaths. Decoding writes coordinates straight into a PackedPath.Builder
+ * and encoding reads them straight out of a PackedPath, so no object is created per vertex.
+ *
+ * The rideOS API and Google use 5 decimal places of precision. Mapbox directions use 6.
+ */
+public class PolylineCodec implements Polylines.PolylineDecoder, Polylines.PolylineEncoder {
+    public static final int PRECISION_5 = 5;
+    public static final int PRECISION_6 = 6;
+
+    // Every encoded vertex takes at least 2 characters, and usually closer to 8
+    private static final int ESTIMATED_CHARACTERS_PER_VERTEX = 4;
+
+    private final double factor;
+
+    public PolylineCodec(final int precision) {
+        this.factor = Math.pow(10, precision);
+    }
+
+    @Override
+    public PackedPath decode(final String polyline) {
+        final PackedPath.Builder builder = PackedPath.builder(polyline.length() / ESTIMATED_CHARACTERS_PER_VERTEX + 1);
+        decodeInto(polyline, builder);
+        return builder.build();
+    }
+
+    /**
+     * Decode several polylines, such as the geometry of each step in a route, into one path.
+     */
+    public PackedPath decodeAll(final Iterable<String> polylines) {
+        int totalLength = 0;
+        for (final String polyline : polylines) {
+            totalLength += polyline.length();
+        }
+        final PackedPath.Builder builder = PackedPath.builder(totalLength / ESTIMATED_CHARACTERS_PER_VERTEX + 1);
+        for (final String polyline : polylines) {
+            decodeInto(polyline, builder);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Append the vertices of an encoded polyline to a builder.
+     * @return the number of vertices added
+     */
+    public int decodeInto(final CharSequence polyline, final PackedPath.Builder builder) {
+        final int length = polyline.length();
+        int index = 0;
+        int latitude = 0;
+        int longitude = 0;
+        int vertexCount = 0;
+        while (index < length) {
+            // Each value is stored as a variable length integer, so the position of the next value depends on the
+            // length of this one
+            int result = 0;
+            int shift = 0;
+            int chunk;
+            do {
+                chunk = readChunk(polyline, index++);
+                result |= (chunk & 0x1f) << shift;
+                shift += 5;
+            } while (chunk >= 0x20);
+            latitude += decodeSigned(result);
+
+            result = 0;
+            shift = 0;
+            do {
+                chunk = readChunk(polyline, index++);
+                result |= (chunk & 0x1f) << shift;
+                shift += 5;
+            } while (chunk >= 0x20);
+            longitude += decodeSigned(result);
+
+            builder.add(latitude / factor, longitude / factor);
+            vertexCount++;
+        }
+        return vertexCount;
+    }
+
+    @Override
+    public String encode(final PackedPath path) {
+        final StringBuilder polyline = new StringBuilder(path.size() * ESTIMATED_CHARACTERS_PER_VERTEX * 2);
+        encodeInto(path, polyline);
+        return polyline.toString();
+    }
+
+    /**
+     * Append the encoded form of a path to a StringBuilder.
+     */
+    public void encodeInto(final PackedPath path, final StringBuilder polyline) {
+        path.forEach(new Encoder(polyline, factor));
+    }
+
+    private static int readChunk(final CharSequence polyline, final int index) {
+        if (index >= polyline.length()) {
+            throw new IllegalArgumentException("Polyline ends in the middle of a value at index " + index);
+        }
+        final int chunk = polyline.charAt(index) - 63;
+        if (chunk < 0 || chunk > 0x3f) {
+            throw new IllegalArgumentException("Invalid polyline character at index " + index);
+        }
+        return chunk;
+    }
+
+    private static int decodeSigned(final int value) {
+        return (value & 1) != 0 ? ~(value >> 1) : value >> 1;
+    }
+
+    /**
+     * Encodes each vertex as the difference from the previous one, which is what keeps polylines short.
+     */
+    private static class Encoder implements VertexConsumer {
+        private final StringBuilder polyline;
+        private final double factor;
+        private long previousLatitude = 0;
+        private long previousLongitude = 0;
+
+        private Encoder(final StringBuilder polyline, final double factor) {
+            this.polyline = polyline;
+            this.factor = factor;
+        }
+
+        @Override
+        public void accept(final double latitude, final double longitude) {
+            final long roundedLatitude = Math.round(latitude * factor);
+            final long roundedLongitude = Math.round(longitude * factor);
+            encodeSigned(roundedLatitude - previousLatitude);
+            encodeSigned(roundedLongitude - previousLongitude);
+            previousLatitude = roundedLatitude;
+            previousLongitude = roundedLongitude;
+        }
+
+        private void encodeSigned(final long delta) {
+            long value = delta < 0 ? ~(delta << 1) : delta << 1;
+            while (value >= 0x20) {
+                polyline.append((char) ((0x20 | (value & 0x1f)) + 63));
+                value >>= 5;
+            }
+            polyline.append((char) (value + 63));
+        }
+    }
+}
@@ -15,37 +15,18 @@
  */
 package ai.rideos.android.common.utils;
 
-import ai.rideos.android.common.model.LatLng;
-import com.google.maps.android.PolyUtil;
-import java.util.List;
-import java.util.stream.Collectors;
+import ai.rideos.android.common.model.PackedPath;
 
+/**
+ * Polylines defines how paths are converted to and from encoded polyline strings. See PolylineCodec for the
+ * implementation.
+ */
 public class Polylines {
     public interface PolylineDecoder {
-        List<LatLng> decode(final String polyline);
+        PackedPath decode(final String polyline);
     }
 
     public interface PolylineEncoder {
-        String encode(final List<LatLng> path);
-    }
-
-    public static class GMSPolylineDecoder implements Polylines.PolylineDecoder {
-        @Override
-        public List<LatLng> decode(final String polyline) {
-            return PolyUtil.decode(polyline).stream()
-                .map(Locations::fromGoogleLatLng)
-                .collect(Collectors.toList());
-        }
-    }
-
-    public static class GMSPolylineEncoder implements Polylines.PolylineEncoder {
-        @Override
-        public String encode(final List<LatLng> path) {
-            return PolyUtil.encode(
-                path.stream()
-                    .map(Locations::toGoogleLatLng)
-                    .collect(Collectors.toList())
-            );
-        }
+        String encode(final PackedPath path);
     }
 }
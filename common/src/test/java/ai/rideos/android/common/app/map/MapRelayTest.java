@@ -15,19 +15,24 @@
  */
 package ai.rideos.android.common.app.map;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.when;
 
 import ai.rideos.android.common.app.map.MapStateReceiver.MapCenterListener;
 import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.PackedPath;
 import ai.rideos.android.common.model.map.CameraUpdate;
 import ai.rideos.android.common.model.map.CenterPin;
 import ai.rideos.android.common.model.map.DrawableMarker;
 import ai.rideos.android.common.model.map.DrawableMarker.Anchor;
 import ai.rideos.android.common.model.map.DrawablePath;
+import ai.rideos.android.common.model.map.DrawablePathPyramid;
 import ai.rideos.android.common.model.map.MapSettings;
 import ai.rideos.android.common.reactive.SchedulerProviders.TrampolineSchedulerProvider;
 import ai.rideos.android.common.viewmodel.map.MapStateProvider;
 import io.reactivex.Observable;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -116,9 +121,39 @@ public class MapRelayTest {
             .assertValueAt(0, markers);
         mapRelayUnderTest.getPaths().test()
             .assertValueCount(1)
-            .assertValueAt(0, paths);
+            .assertValueAt(0, pyramids -> pyramids.size() == 1
+                && pyramids.get(0).getDrawablePath().equals(paths.get(0)));
         mapRelayUnderTest.getMapCenterListener().test()
             .assertValueCount(1)
             .assertValueAt(0, mapCenterListener);
     }
+
+    @Test
+    public void testPathPyramidsAreReusedForUnchangedPaths() {
+        final DrawablePath unchangedPath = new DrawablePath(Arrays.asList(new LatLng(0, 0), new LatLng(1, 1)), 15f, 0);
+        final DrawablePath changedPath = new DrawablePath(Arrays.asList(new LatLng(0, 0), new LatLng(2, 2)), 15f, 0);
+        final DrawablePath newPath = new DrawablePath(Arrays.asList(new LatLng(0, 0), new LatLng(3, 3)), 15f, 0);
+
+        mapRelayUnderTest.showPaths(Arrays.asList(unchangedPath, changedPath));
+        final List<DrawablePathPyramid> firstPyramids = mapRelayUnderTest.getPaths().blockingFirst();
+        mapRelayUnderTest.showPaths(Arrays.asList(unchangedPath, newPath));
+        final List<DrawablePathPyramid> secondPyramids = mapRelayUnderTest.getPaths().blockingFirst();
+
+        assertSame(firstPyramids.get(0), secondPyramids.get(0));
+        assertEquals(newPath, secondPyramids.get(1).getDrawablePath());
+    }
+
+    @Test
+    public void testLastPathPyramidsAreKeptWhenBuildingFails() {
+        final DrawablePath firstPath = new DrawablePath(Arrays.asList(new LatLng(0, 0), new LatLng(1, 1)), 15f, 0);
+        final DrawablePath brokenPath = new DrawablePath((PackedPath) null, 15f, 0);
+        final DrawablePath lastPath = new DrawablePath(Arrays.asList(new LatLng(0, 0), new LatLng(2, 2)), 15f, 0);
+
+        mapRelayUnderTest.showPaths(Collections.singletonList(firstPath));
+        mapRelayUnderTest.showPaths(Collections.singletonList(brokenPath));
+        assertEquals(firstPath, mapRelayUnderTest.getPaths().blockingFirst().get(0).getDrawablePath());
+
+        mapRelayUnderTest.showPaths(Collections.singletonList(lastPath));
+        assertEquals(lastPath, mapRelayUnderTest.getPaths().blockingFirst().get(0).getDrawablePath());
+    }
 }
@@ -16,11 +16,13 @@
 package ai.rideos.android.common.app.menu_navigator.developer_options;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import ai.rideos.android.common.R;
 import ai.rideos.android.common.authentication.User;
 import ai.rideos.android.common.fleets.FleetResolver;
 import ai.rideos.android.common.fleets.ResolvedFleet;
+import ai.rideos.android.common.grpc.RpcMetrics;
 import ai.rideos.android.common.interactors.FleetInteractor;
 import ai.rideos.android.common.model.FleetInfo;
 import ai.rideos.android.common.model.SingleSelectOptions;
@@ -30,11 +32,19 @@ import ai.rideos.android.common.user_storage.StorageKeys;
 import ai.rideos.android.common.user_storage.UserStorageReader;
 import ai.rideos.android.common.user_storage.UserStorageWriter;
 import ai.rideos.android.common.view.resources.ResourceProvider;
+import io.grpc.Status;
 import io.reactivex.Observable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 
 public class DefaultDeveloperOptionsViewModelTest {
@@ -46,6 +56,10 @@ public class DefaultDeveloperOptionsViewModelTest {
     private UserStorageReader userStorageReader;
     private ResourceProvider resourceProvider;
     private ResolvedFleet resolvedFleet;
+    private RpcMetrics rpcMetrics;
+
+    @Rule
+    public TemporaryFolder reportDirectory = new TemporaryFolder();
 
     @Before
     public void setUp() {
@@ -66,6 +80,7 @@ public class DefaultDeveloperOptionsViewModelTest {
         Mockito.when(user.getId()).thenReturn(USER_ID);
 
         resolvedFleet = Mockito.mock(ResolvedFleet.class);
+        rpcMetrics = new RpcMetrics();
 
         viewModelUnderTest = new DefaultDeveloperOptionsViewModel(
             fleetInteractor,
@@ -74,6 +89,8 @@ public class DefaultDeveloperOptionsViewModelTest {
             resourceProvider,
             user,
             resolvedFleet,
+            rpcMetrics,
+            reportDirectory.getRoot(),
             new TrampolineSchedulerProvider()
         );
     }
@@ -143,4 +160,15 @@ public class DefaultDeveloperOptionsViewModelTest {
         viewModelUnderTest.getResolvedFleetId().test()
             .assertValueAt(0, expectedDisplayName);
     }
+
+    @Test
+    public void testExportRpcMetricsWritesReportToFile() throws IOException {
+        rpcMetrics.recordCall("rideos.Service/Method", Status.Code.OK, 42, 100, 200);
+
+        final String path = viewModelUnderTest.exportRpcMetrics().blockingGet();
+
+        final String report = new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8);
+        assertTrue(report.contains("rideos.Service/Method"));
+        assertEquals(reportDirectory.getRoot(), new File(path).getParentFile());
+    }
 }
@@ -0,0 +1,183 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.authentication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import ai.rideos.android.common.authentication.UserTokenCache.Settings;
+import io.reactivex.Single;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.SingleSubject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class UserTokenCacheTest {
+    private static final long TOKEN_LIFETIME_MILLIS = 10000;
+    private static final long REFRESH_AHEAD_MILLIS = 3000;
+    private static final long EXPIRY_MARGIN_MILLIS = 1000;
+
+    private TestScheduler clockScheduler;
+    private FakeCredentialsStore credentialsStore;
+    private UserTokenCache cacheUnderTest;
+
+    @Before
+    public void setUp() {
+        clockScheduler = new TestScheduler();
+        credentialsStore = new FakeCredentialsStore();
+        cacheUnderTest = new UserTokenCache(
+            credentialsStore::fetchToken,
+            credentialsStore::getExpiryMillis,
+            clockScheduler,
+            new Settings(REFRESH_AHEAD_MILLIS, EXPIRY_MARGIN_MILLIS, TOKEN_LIFETIME_MILLIS)
+        );
+    }
+
+    @Test
+    public void testTokenIsCachedUntilRefreshWindow() {
+        cacheUnderTest.getToken().test().assertValue("token-1");
+        clockScheduler.advanceTimeBy(TOKEN_LIFETIME_MILLIS - REFRESH_AHEAD_MILLIS - 1, TimeUnit.MILLISECONDS);
+        cacheUnderTest.getToken().test().assertValue("token-1");
+
+        assertEquals(1, credentialsStore.fetches.size());
+    }
+
+    @Test
+    public void testConcurrentCallersShareOneRefresh() {
+        final SingleSubject<String> pendingFetch = SingleSubject.create();
+        credentialsStore.pendingFetch = pendingFetch;
+
+        final Single<String> token = cacheUnderTest.getToken();
+        token.test().assertNoValues();
+        token.test().assertNoValues();
+        assertEquals(1, credentialsStore.fetches.size());
+
+        pendingFetch.onSuccess(credentialsStore.issueToken());
+        cacheUnderTest.getToken().test().assertValue("token-1");
+        assertEquals(1, credentialsStore.fetches.size());
+    }
+
+    @Test
+    public void testTokenIsRenewedInBackgroundBeforeExpiry() {
+        cacheUnderTest.getToken().test().assertValue("token-1");
+
+        final SingleSubject<String> pendingFetch = SingleSubject.create();
+        credentialsStore.pendingFetch = pendingFetch;
+        clockScheduler.advanceTimeBy(TOKEN_LIFETIME_MILLIS - REFRESH_AHEAD_MILLIS, TimeUnit.MILLISECONDS);
+
+        // The old token is still handed out while the renewal is pending
+        cacheUnderTest.getToken().test().assertValue("token-1");
+        cacheUnderTest.getToken().test().assertValue("token-1");
+        assertEquals(2, credentialsStore.fetches.size());
+        assertTrue(credentialsStore.fetches.get(1));
+
+        pendingFetch.onSuccess(credentialsStore.issueToken());
+        cacheUnderTest.getToken().test().assertValue("token-2");
+    }
+
+    @Test
+    public void testTokenCloseToExpiryWaitsForRenewal() {
+        cacheUnderTest.getToken().test().assertValue("token-1");
+
+        final SingleSubject<String> pendingFetch = SingleSubject.create();
+        credentialsStore.pendingFetch = pendingFetch;
+        clockScheduler.advanceTimeBy(TOKEN_LIFETIME_MILLIS - EXPIRY_MARGIN_MILLIS, TimeUnit.MILLISECONDS);
+
+        cacheUnderTest.getToken().test().assertNoValues();
+        pendingFetch.onSuccess(credentialsStore.issueToken());
+        cacheUnderTest.getToken().test().assertValue("token-2");
+    }
+
+    @Test
+    public void testTokenIsKeptUntilExpiryWhenItCannotBeRenewedEarly() {
+        credentialsStore.canRenewEarly = false;
+        cacheUnderTest.getToken().test().assertValue("token-1");
+
+        // The renewal ahead of expiry returns the same token, so it is only attempted once
+        clockScheduler.advanceTimeBy(TOKEN_LIFETIME_MILLIS - REFRESH_AHEAD_MILLIS, TimeUnit.MILLISECONDS);
+        cacheUnderTest.getToken().test().assertValue("token-1");
+        clockScheduler.advanceTimeBy(REFRESH_AHEAD_MILLIS - 1, TimeUnit.MILLISECONDS);
+        cacheUnderTest.getToken().test().assertValue("token-1");
+        assertEquals(2, credentialsStore.fetches.size());
+
+        // Once the token has expired, the store renews it
+        clockScheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+        cacheUnderTest.getToken().test().assertValue("token-2");
+        assertEquals(3, credentialsStore.fetches.size());
+    }
+
+    @Test
+    public void testFailedRefreshIsRetriedOnNextCall() {
+        final SingleSubject<String> failingFetch = SingleSubject.create();
+        credentialsStore.pendingFetch = failingFetch;
+        failingFetch.onError(new RuntimeException());
+        cacheUnderTest.getToken().test().assertError(RuntimeException.class);
+
+        credentialsStore.pendingFetch = null;
+        cacheUnderTest.getToken().test().assertValue("token-1");
+        assertEquals(2, credentialsStore.fetches.size());
+    }
+
+    @Test
+    public void testInvalidateForcesRefresh() {
+        cacheUnderTest.getToken().test().assertValue("token-1");
+
+        cacheUnderTest.invalidate();
+        credentialsStore.issueToken();
+        cacheUnderTest.getToken().test().assertValue("token-2");
+    }
+
+    /**
+     * Behaves like the Auth0 credentials manager: the stored token is returned until it expires, and is only renewed
+     * ahead of expiry when renewal is forced and a refresh token is available.
+     */
+    private class FakeCredentialsStore {
+        // Whether each fetch forced a renewal
+        private final List<Boolean> fetches = new ArrayList<>();
+        private final Map<String, Long> expiryMillisByToken = new HashMap<>();
+        private SingleSubject<String> pendingFetch;
+        private boolean canRenewEarly = true;
+        private String storedToken;
+
+        Single<String> fetchToken(final boolean forceRenewal) {
+            fetches.add(forceRenewal);
+            if (pendingFetch != null) {
+                return pendingFetch;
+            }
+            if (storedToken == null
+                || clockScheduler.now(TimeUnit.MILLISECONDS) >= getExpiryMillis(storedToken)
+                || (forceRenewal && canRenewEarly)) {
+                issueToken();
+            }
+            return Single.just(storedToken);
+        }
+
+        String issueToken() {
+            storedToken = "token-" + (expiryMillisByToken.size() + 1);
+            expiryMillisByToken.put(storedToken, clockScheduler.now(TimeUnit.MILLISECONDS) + TOKEN_LIFETIME_MILLIS);
+            return storedToken;
+        }
+
+        long getExpiryMillis(final String token) {
+            return expiryMillisByToken.get(token);
+        }
+    }
+}
@@ -17,19 +17,21 @@ package ai.rideos.android.common.fleets;
 
 import ai.rideos.android.common.device.DeviceLocator;
 import ai.rideos.android.common.interactors.FleetInteractor;
-import ai.rideos.android.common.location.DistanceCalculator;
 import ai.rideos.android.common.model.FleetInfo;
 import ai.rideos.android.common.model.LatLng;
 import ai.rideos.android.common.model.LocationAndHeading;
+import ai.rideos.android.common.reactive.SchedulerProviders.TestSchedulerProvider;
 import ai.rideos.android.common.reactive.SchedulerProviders.TrampolineSchedulerProvider;
 import io.reactivex.Observable;
 import io.reactivex.Single;
 import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
 import io.reactivex.subjects.BehaviorSubject;
 import io.reactivex.subjects.Subject;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -39,14 +41,16 @@ public class DefaultFleetResolverTest {
         = new LocationAndHeading(new LatLng(5, 5), 1.0f);
     private static final String MANUAL_FLEET_ID = "fleet-1";
     private static final String DEFAULT_FLEET_ID = "default-fleet";
+    private static final long REFRESH_INTERVAL_MILLIS = 60000;
 
     private DefaultFleetResolver resolver;
     private FleetInteractor fleetInteractor;
+    private DeviceLocator deviceLocator;
 
     @Before
     public void setUp() {
         fleetInteractor = Mockito.mock(FleetInteractor.class);
-        final DeviceLocator deviceLocator = Mockito.mock(DeviceLocator.class);
+        deviceLocator = Mockito.mock(DeviceLocator.class);
         Mockito.when(deviceLocator.getLastKnownLocation())
             .thenReturn(Single.just(CURRENT_LOCATION));
 
@@ -54,8 +58,8 @@ public class DefaultFleetResolverTest {
             fleetInteractor,
             deviceLocator,
             DEFAULT_FLEET_ID,
-            new TestDistanceCalculator(),
-            new TrampolineSchedulerProvider()
+            new TrampolineSchedulerProvider(),
+            REFRESH_INTERVAL_MILLIS
         );
     }
 
@@ -156,12 +160,58 @@ public class DefaultFleetResolverTest {
         fleetObserver.assertValueCount(2).assertValueAt(1, secondFleet);
     }
 
-    // For testing purposes, just return the total difference in lat/lng. Note this will not work when wrapping around.
-    private static class TestDistanceCalculator implements DistanceCalculator {
-        @Override
-        public double getDistanceInMeters(final LatLng origin, final LatLng destination) {
-            return Math.abs(origin.getLatitude() - destination.getLatitude())
-                + Math.abs(origin.getLongitude() - destination.getLongitude());
-        }
+    @Test
+    public void testResolvingAutomaticFleetAcrossAntimeridian() {
+        final FleetInfo closestFleet = new FleetInfo("fleet-2", "Fleet", new LatLng(-17.7, 179.9), false);
+        Mockito.when(deviceLocator.getLastKnownLocation())
+            .thenReturn(Single.just(new LocationAndHeading(new LatLng(-17.7, -179.9), 0)));
+        Mockito.when(fleetInteractor.getFleets()).thenReturn(Observable.just(Arrays.asList(
+            new FleetInfo("fleet-3", "Fleet", new LatLng(-17.7, -175), false),
+            closestFleet
+        )));
+        resolver.resolveFleet(Observable.just(FleetResolver.AUTOMATIC_FLEET_ID)).test()
+            .assertValueAt(0, closestFleet);
+    }
+
+    @Test
+    public void testFleetsAreFetchedOncePerRefreshInterval() {
+        final TestScheduler testScheduler = new TestScheduler();
+        resolver = new DefaultFleetResolver(
+            fleetInteractor,
+            deviceLocator,
+            DEFAULT_FLEET_ID,
+            new TestSchedulerProvider(testScheduler),
+            REFRESH_INTERVAL_MILLIS
+        );
+        final FleetInfo fleet = new FleetInfo("fleet-1", "Fleet", CURRENT_LOCATION.getLatLng(), false);
+        Mockito.when(fleetInteractor.getFleets()).thenReturn(Observable.just(Collections.singletonList(fleet)));
+        final Subject<String> fleetIdSubject = BehaviorSubject.createDefault(FleetResolver.AUTOMATIC_FLEET_ID);
+        final TestObserver<FleetInfo> fleetObserver = resolver.resolveFleet(fleetIdSubject).test();
+        testScheduler.triggerActions();
+
+        fleetIdSubject.onNext("unknown-fleet");
+        testScheduler.triggerActions();
+        fleetObserver.assertValueCount(2).assertValueAt(1, fleet);
+        Mockito.verify(fleetInteractor, Mockito.times(1)).getFleets();
+
+        testScheduler.advanceTimeBy(REFRESH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        fleetIdSubject.onNext(FleetResolver.AUTOMATIC_FLEET_ID);
+        testScheduler.triggerActions();
+        fleetObserver.assertValueCount(3).assertValueAt(2, fleet);
+        Mockito.verify(fleetInteractor, Mockito.times(2)).getFleets();
+    }
+
+    @Test
+    public void testFailedFleetFetchIsRetriedOnNextResolution() {
+        final FleetInfo fleet = new FleetInfo("fleet-1");
+        Mockito.when(fleetInteractor.getFleets())
+            .thenReturn(Observable.error(new IOException()))
+            .thenReturn(Observable.just(Collections.singletonList(fleet)));
+        final Subject<String> fleetIdSubject = BehaviorSubject.createDefault(fleet.getId());
+        final TestObserver<FleetInfo> fleetObserver = resolver.resolveFleet(fleetIdSubject).test();
+        fleetObserver.assertValueAt(0, new FleetInfo(DEFAULT_FLEET_ID));
+
+        fleetIdSubject.onNext(fleet.getId());
+        fleetObserver.assertValueCount(2).assertValueAt(1, fleet);
     }
 }
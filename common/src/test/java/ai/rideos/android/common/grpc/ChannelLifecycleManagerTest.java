@@ -0,0 +1,143 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.grpc;
+
+import static org.junit.Assert.assertEquals;
+
+import ai.rideos.android.common.grpc.ChannelLifecycleManager.Settings;
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.reactivex.Completable;
+import io.reactivex.schedulers.TestScheduler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class ChannelLifecycleManagerTest {
+    private static final String ENDPOINT = "endpoint";
+    private static final long LINGER_MILLIS = 1000;
+    private static final long IDLE_SHUTDOWN_MILLIS = 5000;
+
+    private TestScheduler testScheduler;
+    private List<ManagedChannel> createdChannels;
+    private ChannelPool channelPool;
+    private RpcMetrics rpcMetrics;
+    private AtomicInteger tokenFetchCount;
+
+    @Before
+    public void setUp() {
+        testScheduler = new TestScheduler();
+        createdChannels = new ArrayList<>();
+        channelPool = new ChannelPool(
+            endpoint -> {
+                final ManagedChannel channel = Mockito.mock(ManagedChannel.class);
+                createdChannels.add(channel);
+                return channel;
+            },
+            testScheduler,
+            LINGER_MILLIS
+        );
+        rpcMetrics = new RpcMetrics();
+        tokenFetchCount = new AtomicInteger(0);
+    }
+
+    @Test
+    public void testForegroundConnectsChannelAndPrefetchesToken() {
+        final ChannelLifecycleManager manager = createManager(true);
+
+        manager.onForeground();
+
+        assertEquals(1, createdChannels.size());
+        Mockito.verify(createdChannels.get(0)).getState(true);
+        assertEquals(1, tokenFetchCount.get());
+        assertEquals(1, channelPool.getStats().getActiveLeaseCount());
+    }
+
+    @Test
+    public void testWarmupCanBeDisabled() {
+        final ChannelLifecycleManager manager = createManager(false);
+
+        manager.onForeground();
+
+        assertEquals(0, createdChannels.size());
+        assertEquals(0, tokenFetchCount.get());
+    }
+
+    @Test
+    public void testConnectionsAreClosedAfterIdlePeriodInBackground() {
+        final ChannelLifecycleManager manager = createManager(true);
+        manager.onForeground();
+        manager.onBackground();
+
+        testScheduler.advanceTimeBy(IDLE_SHUTDOWN_MILLIS - 1, TimeUnit.MILLISECONDS);
+        Mockito.verify(createdChannels.get(0), Mockito.never()).enterIdle();
+
+        testScheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+        Mockito.verify(createdChannels.get(0)).enterIdle();
+        assertEquals(0, channelPool.getStats().getActiveLeaseCount());
+    }
+
+    @Test
+    public void testReturningToForegroundCancelsIdleShutdown() {
+        final ChannelLifecycleManager manager = createManager(true);
+        manager.onForeground();
+        manager.onBackground();
+        testScheduler.advanceTimeBy(IDLE_SHUTDOWN_MILLIS / 2, TimeUnit.MILLISECONDS);
+        manager.onForeground();
+        testScheduler.advanceTimeBy(IDLE_SHUTDOWN_MILLIS, TimeUnit.MILLISECONDS);
+
+        Mockito.verify(createdChannels.get(0), Mockito.never()).enterIdle();
+        assertEquals(1, channelPool.getStats().getActiveLeaseCount());
+        assertEquals(1, createdChannels.size());
+    }
+
+    @Test
+    public void testTimeToFirstRpcIsRecordedOncePerColdForeground() {
+        final ChannelLifecycleManager manager = createManager(true);
+        manager.onForeground();
+        rpcMetrics.recordCall("rideos.Service/Method", Status.Code.OK, 10, 10, 10);
+        rpcMetrics.recordCall("rideos.Service/Method", Status.Code.OK, 10, 10, 10);
+        assertEquals(1, rpcMetrics.getTimeToFirstRpcMillis(true).getCount());
+
+        // Coming back before the connections are closed is not a cold start
+        manager.onBackground();
+        manager.onForeground();
+        rpcMetrics.recordCall("rideos.Service/Method", Status.Code.OK, 10, 10, 10);
+        assertEquals(1, rpcMetrics.getTimeToFirstRpcMillis(true).getCount());
+
+        manager.onBackground();
+        testScheduler.advanceTimeBy(IDLE_SHUTDOWN_MILLIS, TimeUnit.MILLISECONDS);
+        manager.onForeground();
+        rpcMetrics.recordCall("rideos.Service/Method", Status.Code.OK, 10, 10, 10);
+        assertEquals(2, rpcMetrics.getTimeToFirstRpcMillis(true).getCount());
+        assertEquals(0, rpcMetrics.getTimeToFirstRpcMillis(false).getCount());
+    }
+
+    private ChannelLifecycleManager createManager(final boolean warmupEnabled) {
+        return new ChannelLifecycleManager(
+            () -> channelPool.lease(ENDPOINT),
+            () -> Completable.fromAction(tokenFetchCount::incrementAndGet),
+            channelPool,
+            rpcMetrics,
+            testScheduler,
+            new Settings(warmupEnabled, IDLE_SHUTDOWN_MILLIS)
+        );
+    }
+}
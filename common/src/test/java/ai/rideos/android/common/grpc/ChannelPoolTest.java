@@ -0,0 +1,132 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.grpc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.grpc.ManagedChannel;
+import io.reactivex.schedulers.TestScheduler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class ChannelPoolTest {
+    private static final String ENDPOINT_1 = "endpoint-1";
+    private static final String ENDPOINT_2 = "endpoint-2";
+    private static final long LINGER_MILLIS = 1000;
+
+    private TestScheduler testScheduler;
+    private List<ManagedChannel> createdChannels;
+    private ChannelPool poolUnderTest;
+
+    @Before
+    public void setUp() {
+        testScheduler = new TestScheduler();
+        createdChannels = new ArrayList<>();
+        poolUnderTest = new ChannelPool(
+            endpoint -> {
+                final ManagedChannel channel = Mockito.mock(ManagedChannel.class);
+                createdChannels.add(channel);
+                return channel;
+            },
+            testScheduler,
+            LINGER_MILLIS
+        );
+    }
+
+    @Test
+    public void testLeasesForSameEndpointShareChannel() {
+        poolUnderTest.lease(ENDPOINT_1);
+        poolUnderTest.lease(ENDPOINT_1);
+
+        assertEquals(1, createdChannels.size());
+        assertEquals(2, poolUnderTest.getStats().getLeaseCount());
+        assertEquals(1, poolUnderTest.getStats().getChannelCount());
+    }
+
+    @Test
+    public void testLeasesForDifferentEndpointsUseDifferentChannels() {
+        poolUnderTest.lease(ENDPOINT_1);
+        poolUnderTest.lease(ENDPOINT_2);
+
+        assertEquals(2, createdChannels.size());
+        assertEquals(2, poolUnderTest.getStats().getOpenChannelCount());
+    }
+
+    @Test
+    public void testChannelIsNotShutDownWhileLeased() {
+        final ManagedChannel lease1 = poolUnderTest.lease(ENDPOINT_1);
+        poolUnderTest.lease(ENDPOINT_1);
+
+        lease1.shutdownNow();
+        testScheduler.advanceTimeBy(LINGER_MILLIS, TimeUnit.MILLISECONDS);
+
+        assertTrue(lease1.isShutdown());
+        Mockito.verify(createdChannels.get(0), Mockito.never()).shutdown();
+        assertEquals(1, poolUnderTest.getStats().getActiveLeaseCount());
+    }
+
+    @Test
+    public void testChannelIsShutDownAfterLingeringWhenAllLeasesReleased() {
+        final ManagedChannel lease = poolUnderTest.lease(ENDPOINT_1);
+
+        lease.shutdownNow();
+        testScheduler.advanceTimeBy(LINGER_MILLIS - 1, TimeUnit.MILLISECONDS);
+        Mockito.verify(createdChannels.get(0), Mockito.never()).shutdown();
+
+        testScheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+        Mockito.verify(createdChannels.get(0)).shutdown();
+        assertEquals(0, poolUnderTest.getStats().getOpenChannelCount());
+    }
+
+    @Test
+    public void testLeasingDuringLingerReusesChannel() {
+        poolUnderTest.lease(ENDPOINT_1).shutdownNow();
+        testScheduler.advanceTimeBy(LINGER_MILLIS / 2, TimeUnit.MILLISECONDS);
+
+        poolUnderTest.lease(ENDPOINT_1);
+        testScheduler.advanceTimeBy(LINGER_MILLIS, TimeUnit.MILLISECONDS);
+
+        assertEquals(1, createdChannels.size());
+        Mockito.verify(createdChannels.get(0), Mockito.never()).shutdown();
+    }
+
+    @Test
+    public void testReleasingLeaseTwiceOnlyReleasesOnce() {
+        final ManagedChannel lease1 = poolUnderTest.lease(ENDPOINT_1);
+        poolUnderTest.lease(ENDPOINT_1);
+
+        lease1.shutdownNow();
+        lease1.shutdown();
+
+        assertEquals(1, poolUnderTest.getStats().getActiveLeaseCount());
+    }
+
+    @Test
+    public void testNewChannelIsCreatedAfterIdleShutdown() {
+        poolUnderTest.lease(ENDPOINT_1).shutdownNow();
+        testScheduler.advanceTimeBy(LINGER_MILLIS, TimeUnit.MILLISECONDS);
+
+        poolUnderTest.lease(ENDPOINT_1);
+
+        assertEquals(2, createdChannels.size());
+        assertEquals(2, poolUnderTest.getStats().getChannelCount());
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.grpc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import ai.rideos.api.geo.v1.GeoProto.Position;
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.SingleSubject;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RequestCoalescerTest {
+    private static final String METHOD_NAME = "service/Method";
+    private static final Position REQUEST = Position.newBuilder().setLatitude(1).setLongitude(2).build();
+
+    private RpcMetrics rpcMetrics;
+    private RequestCoalescer coalescerUnderTest;
+    private SingleSubject<String> response;
+    private AtomicInteger callCount;
+
+    @Before
+    public void setUp() {
+        rpcMetrics = new RpcMetrics();
+        coalescerUnderTest = new RequestCoalescer(rpcMetrics);
+        response = SingleSubject.create();
+        callCount = new AtomicInteger(0);
+    }
+
+    @Test
+    public void testIdenticalConcurrentRequestsShareOneCall() {
+        final TestObserver<String> first = coalesce(REQUEST).test();
+        final TestObserver<String> second = coalesce(Position.newBuilder(REQUEST).build()).test();
+
+        response.onSuccess("response");
+
+        first.assertValue("response").assertComplete();
+        second.assertValue("response").assertComplete();
+        assertEquals(1, callCount.get());
+        final RpcMetrics.MethodMetrics metrics = rpcMetrics.getMethodMetrics(METHOD_NAME).get();
+        assertEquals(2, metrics.getCoalescableRequestCount());
+        assertEquals(1, metrics.getCoalescedRequestCount());
+        assertEquals(0.5, metrics.getCoalescingHitRate(), 0.0001);
+    }
+
+    @Test
+    public void testDifferentRequestsAreNotCoalesced() {
+        coalesce(REQUEST).test();
+        coalesce(Position.newBuilder().setLatitude(3).build()).test();
+        assertEquals(2, callCount.get());
+    }
+
+    @Test
+    public void testRequestAfterCompletionStartsNewCall() {
+        coalesce(REQUEST).test();
+        response.onSuccess("response");
+        assertEquals(0, coalescerUnderTest.getInFlightCallCount());
+
+        response = SingleSubject.create();
+        coalesce(REQUEST).test();
+        assertEquals(2, callCount.get());
+    }
+
+    @Test
+    public void testErrorsAreSharedAndCallIsRemoved() {
+        final TestObserver<String> first = coalesce(REQUEST).test();
+        final TestObserver<String> second = coalesce(REQUEST).test();
+
+        final Exception error = new Exception("failed");
+        response.onError(error);
+
+        first.assertError(error);
+        second.assertError(error);
+        assertEquals(0, coalescerUnderTest.getInFlightCallCount());
+    }
+
+    @Test
+    public void testCallIsDisposedWhenAllSubscribersDispose() {
+        final Disposable first = coalesce(REQUEST).subscribe();
+        final Disposable second = coalesce(REQUEST).subscribe();
+
+        first.dispose();
+        assertEquals(1, coalescerUnderTest.getInFlightCallCount());
+        second.dispose();
+
+        assertFalse(response.hasObservers());
+        assertEquals(0, coalescerUnderTest.getInFlightCallCount());
+    }
+
+    private Observable<String> coalesce(final Position request) {
+        return coalescerUnderTest.coalesce(METHOD_NAME, request, () -> {
+            callCount.incrementAndGet();
+            return response.toObservable();
+        });
+    }
+}
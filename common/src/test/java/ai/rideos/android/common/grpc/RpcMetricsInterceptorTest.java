@@ -0,0 +1,194 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.grpc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import ai.rideos.android.common.grpc.RpcMetrics.MethodMetrics;
+import ai.rideos.api.commons.ride_hail_commons.RideHailCommons.VehicleState;
+import ai.rideos.api.ride_hail_driver.v1.RideHailDriver.CompleteStepRequest;
+import ai.rideos.api.ride_hail_driver.v1.RideHailDriver.GetVehicleStateRequest;
+import ai.rideos.api.ride_hail_driver.v1.RideHailDriver.GetVehicleStateResponse;
+import ai.rideos.api.ride_hail_driver.v1.RideHailDriverServiceGrpc;
+import ai.rideos.api.ride_hail_driver.v1.RideHailDriverServiceGrpc.RideHailDriverServiceBlockingStub;
+import io.grpc.ClientInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.grpc.testing.GrpcCleanupRule;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class RpcMetricsInterceptorTest {
+    private static final String GET_VEHICLE_STATE_METHOD = RideHailDriverServiceGrpc.getGetVehicleStateMethod()
+        .getFullMethodName();
+    private static final String COMPLETE_STEP_METHOD = RideHailDriverServiceGrpc.getCompleteStepMethod()
+        .getFullMethodName();
+
+    @Rule
+    public final GrpcCleanupRule grpcCleanup = new GrpcCleanupRule();
+
+    private final RideHailDriverServiceGrpc.RideHailDriverServiceImplBase mockBase = Mockito.mock(
+        RideHailDriverServiceGrpc.RideHailDriverServiceImplBase.class
+    );
+    private RpcMetrics rpcMetrics;
+    private RideHailDriverServiceBlockingStub stub;
+
+    @Before
+    public void setUp() throws IOException {
+        final String serverName = InProcessServerBuilder.generateName();
+        grpcCleanup.register(InProcessServerBuilder
+            .forName(serverName).directExecutor().addService(mockBase).build().start());
+
+        rpcMetrics = new RpcMetrics();
+        stub = RideHailDriverServiceGrpc.newBlockingStub(ClientInterceptors.intercept(
+            grpcCleanup.register(InProcessChannelBuilder.forName(serverName).directExecutor().build()),
+            new RpcMetricsInterceptor(rpcMetrics)
+        ));
+    }
+
+    @Test
+    public void testRecordsCallsAndStatusesPerMethod() {
+        mockVehicleStateResponse(GetVehicleStateResponse.getDefaultInstance());
+        Mockito.doAnswer(invocation -> {
+            ((StreamObserver<?>) invocation.getArguments()[1])
+                .onError(new StatusRuntimeException(Status.FAILED_PRECONDITION));
+            return null;
+        }).when(mockBase).completeStep(Mockito.any(), Mockito.any());
+
+        stub.getVehicleState(GetVehicleStateRequest.getDefaultInstance());
+        stub.getVehicleState(GetVehicleStateRequest.getDefaultInstance());
+        try {
+            stub.completeStep(CompleteStepRequest.getDefaultInstance());
+            fail("Expected the step completion to fail");
+        } catch (final StatusRuntimeException e) {
+            assertEquals(Status.Code.FAILED_PRECONDITION, e.getStatus().getCode());
+        }
+
+        assertEquals(Arrays.asList(COMPLETE_STEP_METHOD, GET_VEHICLE_STATE_METHOD), rpcMetrics.getMethodNames());
+        final MethodMetrics vehicleStateMetrics = rpcMetrics.getMethodMetrics(GET_VEHICLE_STATE_METHOD).get();
+        assertEquals(2, vehicleStateMetrics.getCallCount());
+        assertEquals(2, vehicleStateMetrics.getStatusCount(Status.Code.OK));
+        final MethodMetrics completeStepMetrics = rpcMetrics.getMethodMetrics(COMPLETE_STEP_METHOD).get();
+        assertEquals(1, completeStepMetrics.getCallCount());
+        assertEquals(1, completeStepMetrics.getStatusCount(Status.Code.FAILED_PRECONDITION));
+        assertEquals(0, completeStepMetrics.getStatusCount(Status.Code.OK));
+    }
+
+    @Test
+    public void testRecordsSerializedMessageSizes() {
+        final GetVehicleStateRequest request = GetVehicleStateRequest.newBuilder().setId("vehicle-1").build();
+        final GetVehicleStateResponse response = GetVehicleStateResponse.newBuilder()
+            .setState(VehicleState.newBuilder().setReadiness(true))
+            .build();
+        mockVehicleStateResponse(response);
+
+        stub.getVehicleState(request);
+
+        final MethodMetrics metrics = rpcMetrics.getMethodMetrics(GET_VEHICLE_STATE_METHOD).get();
+        assertEquals(request.getSerializedSize(), metrics.getRequestBytes().getMax());
+        assertEquals(response.getSerializedSize(), metrics.getResponseBytes().getMax());
+        assertEquals(1, metrics.getRequestBytes().getCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testOnlySuccessfulFirstAttemptsReachTheHedgeDelay() {
+        final long deadlineMillis = 100;
+        final String unansweredVehicleId = "unanswered";
+        final String slowVehicleId = "slow";
+        Mockito.doAnswer(invocation -> {
+            final GetVehicleStateRequest request = (GetVehicleStateRequest) invocation.getArguments()[0];
+            if (request.getId().equals(slowVehicleId)) {
+                Thread.sleep(deadlineMillis);
+            }
+            if (!request.getId().equals(unansweredVehicleId)) {
+                final StreamObserver<GetVehicleStateResponse> observer =
+                    (StreamObserver<GetVehicleStateResponse>) invocation.getArguments()[1];
+                observer.onNext(GetVehicleStateResponse.getDefaultInstance());
+                observer.onCompleted();
+            }
+            return null;
+        }).when(mockBase).getVehicleState(Mockito.any(), Mockito.any());
+        final RpcPolicyTable policyTable = RpcPolicyTable.forRideOsApis(rpcMetrics);
+
+        for (int i = 0; i < 20; i++) {
+            stub.getVehicleState(GetVehicleStateRequest.getDefaultInstance());
+        }
+        for (int i = 0; i < 5; i++) {
+            try {
+                stub.withDeadlineAfter(deadlineMillis, TimeUnit.MILLISECONDS)
+                    .getVehicleState(GetVehicleStateRequest.newBuilder().setId(unansweredVehicleId).build());
+                fail("Expected the call to hit its deadline");
+            } catch (final StatusRuntimeException e) {
+                assertEquals(Status.Code.DEADLINE_EXCEEDED, e.getStatus().getCode());
+            }
+            stub.withOption(RpcMetricsInterceptor.HEDGED_ATTEMPT, true)
+                .getVehicleState(GetVehicleStateRequest.newBuilder().setId(slowVehicleId).build());
+        }
+
+        final MethodMetrics metrics = rpcMetrics.getMethodMetrics(GET_VEHICLE_STATE_METHOD).get();
+        assertEquals(30, metrics.getCallCount());
+        assertEquals(25, metrics.getStatusCount(Status.Code.OK));
+        assertEquals(20, metrics.getOkLatencyMillis().getCount());
+        assertTrue(policyTable.getHedgeDelayMillis(GET_VEHICLE_STATE_METHOD) < deadlineMillis);
+    }
+
+    @Test
+    public void testReportHasTimeToFirstRpcAndOneLinePerMethod() throws IOException {
+        rpcMetrics.recordCall("svc/B", Status.Code.OK, 40, 100, 2000);
+        rpcMetrics.recordCall("svc/B", Status.Code.UNAVAILABLE, 120, 100, 0);
+        rpcMetrics.recordCall("svc/A", Status.Code.OK, 8, 10, 20);
+        rpcMetrics.recordCoalescableRequest("svc/B", true);
+        rpcMetrics.recordCoalescableRequest("svc/B", false);
+
+        final StringWriter report = new StringWriter();
+        rpcMetrics.writeReport(report);
+
+        assertEquals(
+            Arrays.asList(
+                "timeToFirstRpc(warm) count=0 ms[p50=0 p95=0 max=0]",
+                "timeToFirstRpc(cold) count=0 ms[p50=0 p95=0 max=0]",
+                "svc/A calls=1 latencyMs[p50=8 p95=8 p99=8 max=8] requestBytes[mean=10 max=10] "
+                    + "responseBytes[mean=20 max=20] coalesced[0/0] statuses[OK=1]",
+                "svc/B calls=2 latencyMs[p50=50 p95=120 p99=120 max=120] requestBytes[mean=100 max=100] "
+                    + "responseBytes[mean=1000 max=2000] coalesced[1/2] statuses[OK=1 UNAVAILABLE=1]"
+            ),
+            Arrays.asList(report.toString().split("\n"))
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockVehicleStateResponse(final GetVehicleStateResponse response) {
+        Mockito.doAnswer(invocation -> {
+            final StreamObserver<GetVehicleStateResponse> observer =
+                (StreamObserver<GetVehicleStateResponse>) invocation.getArguments()[1];
+            observer.onNext(response);
+            observer.onCompleted();
+            return null;
+        }).when(mockBase).getVehicleState(Mockito.any(), Mockito.any());
+    }
+}
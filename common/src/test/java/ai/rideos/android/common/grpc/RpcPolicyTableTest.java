@@ -0,0 +1,108 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.grpc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import ai.rideos.api.ride_hail_driver.v1.RideHailDriverServiceGrpc;
+import ai.rideos.api.ride_hail_rider.v1.RideHailRiderServiceGrpc;
+import io.grpc.Status;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RpcPolicyTableTest {
+    private static final String TRIP_STATE_METHOD = RideHailRiderServiceGrpc.getGetTripStateRCMethod()
+        .getFullMethodName();
+
+    private RpcMetrics rpcMetrics;
+    private RpcPolicyTable tableUnderTest;
+
+    @Before
+    public void setUp() {
+        rpcMetrics = new RpcMetrics();
+        tableUnderTest = RpcPolicyTable.forRideOsApis(rpcMetrics);
+    }
+
+    @Test
+    public void testMutationsAreNeverHedgedOrRetried() {
+        final RpcPolicy requestTrip = tableUnderTest.getPolicy(
+            RideHailRiderServiceGrpc.getRequestTripMethod().getFullMethodName()
+        );
+        final RpcPolicy completeStep = tableUnderTest.getPolicy(
+            RideHailDriverServiceGrpc.getCompleteStepMethod().getFullMethodName()
+        );
+        assertFalse(requestTrip.isHedged());
+        assertFalse(requestTrip.isRetryable());
+        assertFalse(completeStep.isHedged());
+        assertFalse(completeStep.isRetryable());
+    }
+
+    @Test
+    public void testUnknownMethodsUseNonRetryableDefault() {
+        final RpcPolicy policy = tableUnderTest.getPolicy("unknown.Service/Method");
+        assertFalse(policy.isRetryable());
+        assertTrue(policy.getDeadlineMillis() > 0);
+    }
+
+    @Test
+    public void testHedgeDelayUsesPolicyUntilEnoughSamples() {
+        final RpcPolicy policy = tableUnderTest.getPolicy(TRIP_STATE_METHOD);
+        assertTrue(policy.isHedged());
+        assertEquals(policy.getHedgeDelayMillis(), tableUnderTest.getHedgeDelayMillis(TRIP_STATE_METHOD));
+    }
+
+    @Test
+    public void testHedgeDelayUsesObservedP95() {
+        for (int i = 0; i < 100; i++) {
+            rpcMetrics.recordCall(TRIP_STATE_METHOD, Status.Code.OK, i < 97 ? 40 : 2000, 0, 0);
+        }
+        // 40ms falls in the 50ms bucket
+        assertEquals(50, tableUnderTest.getHedgeDelayMillis(TRIP_STATE_METHOD));
+    }
+
+    @Test
+    public void testHedgeDelayIgnoresCancelledAndExpiredCalls() {
+        for (int i = 0; i < 20; i++) {
+            rpcMetrics.recordCall(TRIP_STATE_METHOD, Status.Code.OK, 40, 0, 0);
+            rpcMetrics.recordCall(TRIP_STATE_METHOD, Status.Code.CANCELLED, 1, 0, 0);
+            rpcMetrics.recordCall(TRIP_STATE_METHOD, Status.Code.DEADLINE_EXCEEDED, 5000, 0, 0);
+        }
+        // Every successful first attempt took 40ms
+        assertEquals(40, tableUnderTest.getHedgeDelayMillis(TRIP_STATE_METHOD));
+    }
+
+    @Test
+    public void testHedgeDelayIgnoresHedgedAttempts() {
+        for (int i = 0; i < 20; i++) {
+            rpcMetrics.recordCall(TRIP_STATE_METHOD, Status.Code.OK, 40, 0, 0);
+            rpcMetrics.recordCall(TRIP_STATE_METHOD, Status.Code.OK, 2000, 0, 0, true);
+        }
+        // Every successful first attempt took 40ms
+        assertEquals(40, tableUnderTest.getHedgeDelayMillis(TRIP_STATE_METHOD));
+    }
+
+    @Test
+    public void testHedgeDelayUsesPolicyUntilEnoughSuccessfulCalls() {
+        final RpcPolicy policy = tableUnderTest.getPolicy(TRIP_STATE_METHOD);
+        for (int i = 0; i < 19; i++) {
+            rpcMetrics.recordCall(TRIP_STATE_METHOD, Status.Code.OK, 40, 0, 0);
+            rpcMetrics.recordCall(TRIP_STATE_METHOD, Status.Code.UNAVAILABLE, 40, 0, 0);
+        }
+        assertEquals(policy.getHedgeDelayMillis(), tableUnderTest.getHedgeDelayMillis(TRIP_STATE_METHOD));
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.interactors;
+
+import ai.rideos.android.common.location.DistanceCalculator;
+import ai.rideos.android.common.model.LatLng;
+import io.reactivex.Observable;
+import io.reactivex.schedulers.TestScheduler;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class CachingEtaInteractorTest {
+    private static final double MAX_MOVED_METERS = 100;
+    private static final long MAX_AGE_MILLIS = 60000;
+    private static final LatLng PICKUP = new LatLng(0, 0);
+    private static final LatLng VEHICLE_1 = new LatLng(0, 0.01);
+    private static final LatLng VEHICLE_2 = new LatLng(0, 0.02);
+    // Degrees of latitude and longitude on the equator are about 111km
+    private static final DistanceCalculator EQUATOR_DISTANCE_CALCULATOR = (origin, destination) -> 111000 * Math.hypot(
+        origin.getLatitude() - destination.getLatitude(),
+        origin.getLongitude() - destination.getLongitude()
+    );
+
+    private TestScheduler testScheduler;
+    private EtaInteractor etaInteractor;
+    private CachingEtaInteractor interactorUnderTest;
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void setUp() {
+        testScheduler = new TestScheduler();
+        etaInteractor = Mockito.mock(EtaInteractor.class);
+        Mockito.when(etaInteractor.getTravelTimesMillis(Mockito.anyMap(), Mockito.any(LatLng.class)))
+            .thenAnswer(invocation -> {
+                final Map<String, LatLng> origins = invocation.getArgumentAt(0, Map.class);
+                // Estimates are the time they were made, so tests can tell which estimates were reused
+                final Map<String, Long> travelTimes = new HashMap<>();
+                for (final String originId : origins.keySet()) {
+                    travelTimes.put(originId, testScheduler.now(TimeUnit.MILLISECONDS));
+                }
+                return Observable.just(travelTimes);
+            });
+        interactorUnderTest = new CachingEtaInteractor(
+            etaInteractor,
+            EQUATOR_DISTANCE_CALCULATOR,
+            new CachingEtaInteractor.Settings(MAX_MOVED_METERS, MAX_AGE_MILLIS),
+            testScheduler
+        );
+    }
+
+    @Test
+    public void testEstimateIsReusedWhileVehicleStaysNearby() {
+        interactorUnderTest.getTravelTimesMillis(Collections.singletonMap("vehicle-1", VEHICLE_1), PICKUP).test();
+        testScheduler.advanceTimeBy(1000, TimeUnit.MILLISECONDS);
+
+        // About 11m from where the vehicle was estimated
+        final LatLng movedVehicle1 = new LatLng(0.0001, 0.01);
+        interactorUnderTest.getTravelTimesMillis(Collections.singletonMap("vehicle-1", movedVehicle1), PICKUP).test()
+            .assertValue(Collections.singletonMap("vehicle-1", 0L));
+        Mockito.verify(etaInteractor, Mockito.times(1)).getTravelTimesMillis(Mockito.anyMap(), Mockito.any());
+    }
+
+    @Test
+    public void testOnlyMovedVehiclesAreEstimatedAgain() {
+        final Map<String, LatLng> origins = new HashMap<>();
+        origins.put("vehicle-1", VEHICLE_1);
+        origins.put("vehicle-2", VEHICLE_2);
+        interactorUnderTest.getTravelTimesMillis(origins, PICKUP).test();
+        testScheduler.advanceTimeBy(1000, TimeUnit.MILLISECONDS);
+
+        // Vehicle 2 moves about 1km
+        final LatLng movedVehicle2 = new LatLng(0, 0.03);
+        origins.put("vehicle-2", movedVehicle2);
+        final Map<String, Long> expectedTravelTimes = new HashMap<>();
+        expectedTravelTimes.put("vehicle-1", 0L);
+        expectedTravelTimes.put("vehicle-2", 1000L);
+        interactorUnderTest.getTravelTimesMillis(origins, PICKUP).test()
+            .assertValue(expectedTravelTimes);
+        Mockito.verify(etaInteractor)
+            .getTravelTimesMillis(Collections.singletonMap("vehicle-2", movedVehicle2), PICKUP);
+    }
+
+    @Test
+    public void testEstimatesAreRefreshedWhenPickupMoves() {
+        final Map<String, LatLng> origins = Collections.singletonMap("vehicle-1", VEHICLE_1);
+        interactorUnderTest.getTravelTimesMillis(origins, PICKUP).test();
+        testScheduler.advanceTimeBy(1000, TimeUnit.MILLISECONDS);
+
+        interactorUnderTest.getTravelTimesMillis(origins, new LatLng(0.01, 0)).test()
+            .assertValue(Collections.singletonMap("vehicle-1", 1000L));
+    }
+
+    @Test
+    public void testOldEstimatesAreRefreshed() {
+        final Map<String, LatLng> origins = Collections.singletonMap("vehicle-1", VEHICLE_1);
+        interactorUnderTest.getTravelTimesMillis(origins, PICKUP).test();
+        testScheduler.advanceTimeBy(MAX_AGE_MILLIS + 1, TimeUnit.MILLISECONDS);
+
+        interactorUnderTest.getTravelTimesMillis(origins, PICKUP).test()
+            .assertValue(Collections.singletonMap("vehicle-1", MAX_AGE_MILLIS + 1));
+    }
+}
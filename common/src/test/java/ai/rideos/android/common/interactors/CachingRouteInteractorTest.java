@@ -0,0 +1,165 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.interactors;
+
+import static org.junit.Assert.assertEquals;
+
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.LocationAndHeading;
+import ai.rideos.android.common.model.RouteInfoModel;
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.PublishSubject;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class CachingRouteInteractorTest {
+    private static final long TTL_MILLIS = 10000;
+    private static final int MAX_ENTRIES = 2;
+    private static final LatLng ORIGIN = new LatLng(37.7749, -122.4194);
+    private static final LatLng DESTINATION = new LatLng(37.8044, -122.2712);
+    private static final RouteInfoModel ROUTE = new RouteInfoModel(Arrays.asList(ORIGIN, DESTINATION), 1000, 100);
+
+    private TestScheduler testScheduler;
+    private RouteInteractor routeInteractor;
+    private RouteCache routeCache;
+    private CachingRouteInteractor interactorUnderTest;
+
+    @Before
+    public void setUp() {
+        testScheduler = new TestScheduler();
+        routeInteractor = Mockito.mock(RouteInteractor.class);
+        Mockito.when(routeInteractor.getRoute(Mockito.any(LatLng.class), Mockito.any(LatLng.class)))
+            .thenReturn(Observable.just(ROUTE));
+        routeCache = new RouteCache(new RouteCache.Settings(MAX_ENTRIES, TTL_MILLIS), testScheduler);
+        interactorUnderTest = new CachingRouteInteractor(routeInteractor, routeCache);
+    }
+
+    @Test
+    public void testNearbyEndpointsShareCachedRoute() {
+        interactorUnderTest.getRoute(ORIGIN, DESTINATION).test().assertValue(ROUTE);
+        // A couple of meters away from the original request
+        interactorUnderTest.getRoute(new LatLng(37.77491, -122.41941), DESTINATION).test().assertValue(ROUTE);
+
+        Mockito.verify(routeInteractor, Mockito.times(1))
+            .getRoute(Mockito.any(LatLng.class), Mockito.any(LatLng.class));
+        assertEquals(1, routeCache.getStats().getHitCount());
+        assertEquals(1, routeCache.getStats().getMissCount());
+    }
+
+    @Test
+    public void testDistantEndpointsAreFetchedSeparately() {
+        interactorUnderTest.getRoute(ORIGIN, DESTINATION).test().assertValue(ROUTE);
+        interactorUnderTest.getRoute(new LatLng(37.7760, -122.4194), DESTINATION).test().assertValue(ROUTE);
+
+        assertEquals(2, routeCache.getStats().getMissCount());
+    }
+
+    @Test
+    public void testRoutesExpireAfterTtl() {
+        interactorUnderTest.getRoute(ORIGIN, DESTINATION).test().assertValue(ROUTE);
+        testScheduler.advanceTimeBy(TTL_MILLIS, TimeUnit.MILLISECONDS);
+        interactorUnderTest.getRoute(ORIGIN, DESTINATION).test().assertValue(ROUTE);
+
+        assertEquals(2, routeCache.getStats().getMissCount());
+        assertEquals(1, routeCache.getStats().getExpirationCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedRouteIsEvicted() {
+        final LatLng otherDestination = new LatLng(37.0, -122.0);
+        final LatLng thirdDestination = new LatLng(38.0, -122.0);
+        interactorUnderTest.getRoute(ORIGIN, DESTINATION).test();
+        interactorUnderTest.getRoute(ORIGIN, otherDestination).test();
+        // Use the first route again, so the second one is the least recently used
+        interactorUnderTest.getRoute(ORIGIN, DESTINATION).test();
+        interactorUnderTest.getRoute(ORIGIN, thirdDestination).test();
+
+        interactorUnderTest.getRoute(ORIGIN, DESTINATION).test();
+        interactorUnderTest.getRoute(ORIGIN, otherDestination).test();
+
+        Mockito.verify(routeInteractor, Mockito.times(1)).getRoute(ORIGIN, DESTINATION);
+        Mockito.verify(routeInteractor, Mockito.times(2)).getRoute(ORIGIN, otherDestination);
+        assertEquals(2, routeCache.getStats().getEvictionCount());
+    }
+
+    @Test
+    public void testConcurrentRequestsShareOneFetch() {
+        final PublishSubject<RouteInfoModel> pendingRoute = PublishSubject.create();
+        Mockito.when(routeInteractor.getRoute(Mockito.any(LatLng.class), Mockito.any(LatLng.class)))
+            .thenReturn(pendingRoute);
+
+        final Observable<RouteInfoModel> route1 = interactorUnderTest.getRoute(ORIGIN, DESTINATION);
+        final Observable<RouteInfoModel> route2 = interactorUnderTest.getRoute(ORIGIN, DESTINATION);
+        final TestObserver<RouteInfoModel> observer1 = route1.test();
+        final TestObserver<RouteInfoModel> observer2 = route2.test();
+        pendingRoute.onNext(ROUTE);
+        pendingRoute.onComplete();
+
+        observer1.assertValue(ROUTE).assertComplete();
+        observer2.assertValue(ROUTE).assertComplete();
+        Mockito.verify(routeInteractor, Mockito.times(1))
+            .getRoute(Mockito.any(LatLng.class), Mockito.any(LatLng.class));
+        assertEquals(1, routeCache.getStats().getInFlightJoinCount());
+    }
+
+    @Test
+    public void testFailuresAreNotCached() {
+        Mockito.when(routeInteractor.getRoute(Mockito.any(LatLng.class), Mockito.any(LatLng.class)))
+            .thenReturn(Observable.error(new IOException()))
+            .thenReturn(Observable.just(ROUTE));
+
+        interactorUnderTest.getRoute(ORIGIN, DESTINATION).test().assertError(IOException.class);
+        interactorUnderTest.getRoute(ORIGIN, DESTINATION).test().assertValue(ROUTE);
+    }
+
+    @Test
+    public void testHeadingIsPartOfKey() {
+        Mockito.when(routeInteractor.getRoute(
+            Mockito.any(LocationAndHeading.class),
+            Mockito.any(LocationAndHeading.class)
+        ))
+            .thenReturn(Observable.just(ROUTE));
+        final LocationAndHeading destination = new LocationAndHeading(DESTINATION, 0);
+
+        interactorUnderTest.getRoute(new LocationAndHeading(ORIGIN, 359), destination).test();
+        // Wraps around to the same bucket as 359
+        interactorUnderTest.getRoute(new LocationAndHeading(ORIGIN, 2), destination).test();
+        interactorUnderTest.getRoute(new LocationAndHeading(ORIGIN, 180), destination).test();
+
+        assertEquals(1, routeCache.getStats().getHitCount());
+        assertEquals(2, routeCache.getStats().getMissCount());
+    }
+
+    @Test
+    public void testWaypointRoutesAreCached() {
+        Mockito.when(routeInteractor.getRouteForWaypoints(Mockito.any()))
+            .thenReturn(Observable.just(Collections.singletonList(ROUTE)));
+
+        interactorUnderTest.getRouteForWaypoints(Arrays.asList(ORIGIN, DESTINATION)).test()
+            .assertValue(Collections.singletonList(ROUTE));
+        interactorUnderTest.getRouteForWaypoints(Arrays.asList(ORIGIN, DESTINATION)).test()
+            .assertValue(Collections.singletonList(ROUTE));
+
+        Mockito.verify(routeInteractor, Mockito.times(1)).getRouteForWaypoints(Mockito.any());
+    }
+}
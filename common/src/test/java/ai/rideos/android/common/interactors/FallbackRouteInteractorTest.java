@@ -0,0 +1,91 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.interactors;
+
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.RouteInfoModel;
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class FallbackRouteInteractorTest {
+    private static final long TIMEOUT_MILLIS = 1000;
+    private static final LatLng ORIGIN = new LatLng(37.7749, -122.4194);
+    private static final LatLng DESTINATION = new LatLng(37.8044, -122.2712);
+    private static final RouteInfoModel PRIMARY_ROUTE =
+        new RouteInfoModel(Arrays.asList(ORIGIN, DESTINATION), 1000, 100);
+    private static final RouteInfoModel FALLBACK_ROUTE =
+        new RouteInfoModel(Arrays.asList(ORIGIN, new LatLng(37.79, -122.35), DESTINATION), 1500, 120);
+
+    private TestScheduler testScheduler;
+    private RouteInteractor primaryInteractor;
+    private RouteInteractor fallbackInteractor;
+    private FallbackRouteInteractor interactorUnderTest;
+
+    @Before
+    public void setUp() {
+        testScheduler = new TestScheduler();
+        primaryInteractor = Mockito.mock(RouteInteractor.class);
+        fallbackInteractor = Mockito.mock(RouteInteractor.class);
+        Mockito.when(fallbackInteractor.getRoute(ORIGIN, DESTINATION)).thenReturn(Observable.just(FALLBACK_ROUTE));
+        interactorUnderTest =
+            new FallbackRouteInteractor(primaryInteractor, fallbackInteractor, TIMEOUT_MILLIS, testScheduler);
+    }
+
+    @Test
+    public void testPrimaryRouteIsUsedWhenAvailable() {
+        Mockito.when(primaryInteractor.getRoute(ORIGIN, DESTINATION)).thenReturn(Observable.just(PRIMARY_ROUTE));
+
+        interactorUnderTest.getRoute(ORIGIN, DESTINATION).test().assertValue(PRIMARY_ROUTE);
+        Mockito.verify(fallbackInteractor, Mockito.never()).getRoute(ORIGIN, DESTINATION);
+    }
+
+    @Test
+    public void testFallbackRouteIsUsedWhenPrimaryFails() {
+        Mockito.when(primaryInteractor.getRoute(ORIGIN, DESTINATION))
+            .thenReturn(Observable.error(new IOException()));
+
+        interactorUnderTest.getRoute(ORIGIN, DESTINATION).test().assertValue(FALLBACK_ROUTE);
+    }
+
+    @Test
+    public void testFallbackRouteIsUsedWhenPrimaryTimesOut() {
+        Mockito.when(primaryInteractor.getRoute(ORIGIN, DESTINATION)).thenReturn(Observable.never());
+
+        final TestObserver<RouteInfoModel> observer = interactorUnderTest.getRoute(ORIGIN, DESTINATION).test();
+        observer.assertNoValues();
+        testScheduler.advanceTimeBy(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        observer.assertValue(FALLBACK_ROUTE);
+    }
+
+    @Test
+    public void testFallbackWaypointRouteIsUsedWhenPrimaryFails() {
+        Mockito.when(primaryInteractor.getRouteForWaypoints(Mockito.any()))
+            .thenReturn(Observable.error(new IOException()));
+        Mockito.when(fallbackInteractor.getRouteForWaypoints(Mockito.any()))
+            .thenReturn(Observable.just(Collections.singletonList(FALLBACK_ROUTE)));
+
+        interactorUnderTest.getRouteForWaypoints(Arrays.asList(ORIGIN, DESTINATION)).test()
+            .assertValue(Collections.singletonList(FALLBACK_ROUTE));
+    }
+}
@@ -0,0 +1,214 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.interactors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import ai.rideos.android.common.authentication.User;
+import ai.rideos.android.common.grpc.RequestCoalescer;
+import ai.rideos.android.common.grpc.RpcMetrics;
+import ai.rideos.android.common.grpc.RpcPolicy;
+import ai.rideos.android.common.grpc.RpcPolicyTable;
+import ai.rideos.android.common.reactive.SchedulerProvider;
+import ai.rideos.android.common.reactive.SchedulerProviders.TestSchedulerProvider;
+import ai.rideos.android.common.reactive.SchedulerProviders.TrampolineSchedulerProvider;
+import ai.rideos.api.ride_hail_operations.v1.RideHailOperations.GetFleetsRequest;
+import ai.rideos.api.ride_hail_operations.v1.RideHailOperations.GetFleetsResponse;
+import ai.rideos.api.ride_hail_operations.v1.RideHailOperations.GetVehiclesRequest;
+import ai.rideos.api.ride_hail_operations.v1.RideHailOperations.GetVehiclesResponse;
+import ai.rideos.api.ride_hail_operations.v1.RideHailOperationsServiceGrpc;
+import ai.rideos.api.ride_hail_operations.v1.RideHailOperationsServiceGrpc.RideHailOperationsServiceFutureStub;
+import com.google.common.util.concurrent.SettableFuture;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.reactivex.Single;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class GrpcServerInteractorTest {
+    private static final long HEDGE_DELAY_MILLIS = 100;
+
+    private TestInteractor interactorUnderTest;
+
+    @Before
+    public void setUp() {
+        final ManagedChannel channel = Mockito.mock(ManagedChannel.class);
+        interactorUnderTest = new TestInteractor(() -> channel, Mockito.mock(User.class));
+    }
+
+    @Test
+    public void testAsyncFutureEmitsWhenCompleted() {
+        final SettableFuture<String> future = SettableFuture.create();
+        final TestObserver<String> testObserver = interactorUnderTest.observeFuture(future).test();
+        testObserver.assertNoValues();
+
+        future.set("response");
+        testObserver.assertValue("response");
+        testObserver.assertComplete();
+    }
+
+    @Test
+    public void testAsyncFutureWrapsErrorsLikeBlockingFuture() {
+        final SettableFuture<String> future = SettableFuture.create();
+        final TestObserver<String> testObserver = interactorUnderTest.observeFuture(future).test();
+
+        final StatusRuntimeException error = new StatusRuntimeException(Status.NOT_FOUND);
+        future.setException(error);
+        testObserver.assertError(e -> e instanceof ExecutionException && e.getCause() == error);
+    }
+
+    @Test
+    public void testAsyncFutureIsDeliveredOnIoScheduler() {
+        final TestScheduler testScheduler = new TestScheduler();
+        final TestInteractor asyncInteractor = new TestInteractor(
+            () -> Mockito.mock(ManagedChannel.class),
+            Mockito.mock(User.class),
+            new TestSchedulerProvider(testScheduler)
+        );
+        final SettableFuture<String> future = SettableFuture.create();
+        final TestObserver<String> testObserver = asyncInteractor.observeFuture(future).test();
+
+        future.set("response");
+        testObserver.assertNoValues();
+        testScheduler.triggerActions();
+        testObserver.assertValue("response");
+    }
+
+    @Test
+    public void testDisposingAsyncFutureCancelsIt() {
+        final SettableFuture<String> future = SettableFuture.create();
+        interactorUnderTest.observeFuture(future).test().dispose();
+
+        assertTrue(future.isCancelled());
+    }
+
+    @Test
+    public void testHedgedReadSendsSecondAttemptAfterHedgeDelay() {
+        final TestScheduler testScheduler = new TestScheduler();
+        final TestInteractor hedgingInteractor = createHedgingInteractor(testScheduler);
+        final List<SettableFuture<GetFleetsResponse>> attempts = new ArrayList<>();
+
+        final TestObserver<GetFleetsResponse> testObserver = hedgingInteractor.fetchAuthorizedStubAndExecuteCoalesced(
+            RideHailOperationsServiceGrpc.getGetFleetsMethod(),
+            GetFleetsRequest.getDefaultInstance(),
+            stub -> {
+                final SettableFuture<GetFleetsResponse> attempt = SettableFuture.create();
+                attempts.add(attempt);
+                return attempt;
+            }
+        ).test();
+        testScheduler.triggerActions();
+        assertEquals(1, attempts.size());
+
+        testScheduler.advanceTimeBy(HEDGE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        assertEquals(2, attempts.size());
+
+        final GetFleetsResponse response = GetFleetsResponse.getDefaultInstance();
+        attempts.get(1).set(response);
+        testScheduler.triggerActions();
+        testObserver.assertValue(response);
+        assertTrue(attempts.get(0).isCancelled());
+    }
+
+    @Test
+    public void testUnhedgedReadSendsOneAttempt() {
+        final TestScheduler testScheduler = new TestScheduler();
+        final TestInteractor hedgingInteractor = createHedgingInteractor(testScheduler);
+        final List<SettableFuture<GetVehiclesResponse>> attempts = new ArrayList<>();
+
+        hedgingInteractor.fetchAuthorizedStubAndExecuteCoalesced(
+            RideHailOperationsServiceGrpc.getGetVehiclesMethod(),
+            GetVehiclesRequest.getDefaultInstance(),
+            stub -> {
+                final SettableFuture<GetVehiclesResponse> attempt = SettableFuture.create();
+                attempts.add(attempt);
+                return attempt;
+            }
+        ).test();
+        testScheduler.advanceTimeBy(HEDGE_DELAY_MILLIS * 10, TimeUnit.MILLISECONDS);
+        assertEquals(1, attempts.size());
+    }
+
+    private static TestInteractor createHedgingInteractor(final TestScheduler testScheduler) {
+        final User user = Mockito.mock(User.class);
+        Mockito.when(user.fetchUserToken()).thenReturn(Single.just("token"));
+        final RpcMetrics rpcMetrics = new RpcMetrics();
+        final Map<MethodDescriptor<?, ?>, RpcPolicy> policies = new HashMap<>();
+        policies.put(
+            RideHailOperationsServiceGrpc.getGetFleetsMethod(),
+            RpcPolicy.hedgedRead(HEDGE_DELAY_MILLIS * 100, HEDGE_DELAY_MILLIS)
+        );
+        policies.put(
+            RideHailOperationsServiceGrpc.getGetVehiclesMethod(),
+            RpcPolicy.withoutHedging(HEDGE_DELAY_MILLIS * 100, true)
+        );
+        final ManagedChannel channel = Mockito.mock(ManagedChannel.class);
+        return new TestInteractor(
+            () -> channel,
+            user,
+            new TestSchedulerProvider(testScheduler),
+            new RequestCoalescer(rpcMetrics),
+            new RpcPolicyTable(RpcPolicy.withoutHedging(HEDGE_DELAY_MILLIS * 100, false), policies, rpcMetrics)
+        );
+    }
+
+    private static class TestInteractor extends GrpcServerInteractor<RideHailOperationsServiceFutureStub> {
+        TestInteractor(final Supplier<ManagedChannel> channelSupplier, final User user) {
+            this(channelSupplier, user, new TrampolineSchedulerProvider());
+        }
+
+        TestInteractor(final Supplier<ManagedChannel> channelSupplier,
+                       final User user,
+                       final SchedulerProvider schedulerProvider) {
+            super(
+                RideHailOperationsServiceGrpc::newFutureStub,
+                channelSupplier,
+                user,
+                schedulerProvider,
+                ExecutionMode.ASYNC
+            );
+        }
+
+        TestInteractor(final Supplier<ManagedChannel> channelSupplier,
+                       final User user,
+                       final SchedulerProvider schedulerProvider,
+                       final RequestCoalescer requestCoalescer,
+                       final RpcPolicyTable rpcPolicyTable) {
+            super(
+                RideHailOperationsServiceGrpc::newFutureStub,
+                channelSupplier,
+                user,
+                schedulerProvider,
+                ExecutionMode.ASYNC,
+                requestCoalescer,
+                rpcPolicyTable
+            );
+        }
+    }
+}
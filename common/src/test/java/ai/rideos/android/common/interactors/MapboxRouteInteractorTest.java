@@ -19,6 +19,7 @@ import ai.rideos.android.common.interactors.RideOsRouteInteractor.RouteException
 import ai.rideos.android.common.interactors.mapbox.MapboxApiInteractor;
 import ai.rideos.android.common.interactors.mapbox.MapboxRouteInteractor;
 import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.PackedPath;
 import ai.rideos.android.common.model.RouteInfoModel;
 import ai.rideos.android.common.reactive.SchedulerProviders.TrampolineSchedulerProvider;
 import ai.rideos.android.common.utils.Polylines.PolylineDecoder;
@@ -60,7 +61,8 @@ public class MapboxRouteInteractorTest {
         )).thenReturn(Observable.just(mapboxRoute));
 
         interactorUnderTest = new MapboxRouteInteractor(apiInteractor, polyLineDecoder, new TrampolineSchedulerProvider());
-        Mockito.when(polyLineDecoder.decode(GEOMETRY)).thenReturn(Arrays.asList(ORIGIN, DESTINATION));
+        Mockito.when(polyLineDecoder.decode(GEOMETRY))
+            .thenReturn(PackedPath.fromLatLngs(Arrays.asList(ORIGIN, DESTINATION)));
     }
 
     @Test
@@ -107,12 +109,12 @@ public class MapboxRouteInteractorTest {
         final LegStep firstLegFirstStep = Mockito.mock(LegStep.class);
         Mockito.when(firstLegFirstStep.geometry()).thenReturn("firstLegFirstStep");
         Mockito.when(polyLineDecoder.decode("firstLegFirstStep"))
-            .thenReturn(Arrays.asList(ORIGIN, latLng0));
+            .thenReturn(PackedPath.fromLatLngs(Arrays.asList(ORIGIN, latLng0)));
 
         final LegStep firstLegSecondStep = Mockito.mock(LegStep.class);
         Mockito.when(firstLegSecondStep.geometry()).thenReturn("firstLegSecondStep");
         Mockito.when(polyLineDecoder.decode("firstLegSecondStep"))
-            .thenReturn(Arrays.asList(latLng0, WAYPOINT));
+            .thenReturn(PackedPath.fromLatLngs(Arrays.asList(latLng0, WAYPOINT)));
 
         Mockito.when(firstLeg.steps()).thenReturn(Arrays.asList(firstLegFirstStep, firstLegSecondStep));
 
@@ -123,12 +125,12 @@ public class MapboxRouteInteractorTest {
         final LegStep secondLegFirstStep = Mockito.mock(LegStep.class);
         Mockito.when(secondLegFirstStep.geometry()).thenReturn("secondLegFirstStep");
         Mockito.when(polyLineDecoder.decode("secondLegFirstStep"))
-            .thenReturn(Arrays.asList(WAYPOINT, latLng1));
+            .thenReturn(PackedPath.fromLatLngs(Arrays.asList(WAYPOINT, latLng1)));
 
         final LegStep secondLegSecondStep = Mockito.mock(LegStep.class);
         Mockito.when(secondLegSecondStep.geometry()).thenReturn("secondLegSecondStep");
         Mockito.when(polyLineDecoder.decode("secondLegSecondStep"))
-            .thenReturn(Arrays.asList(latLng1, DESTINATION));
+            .thenReturn(PackedPath.fromLatLngs(Arrays.asList(latLng1, DESTINATION)));
 
         Mockito.when(secondLeg.steps()).thenReturn(Arrays.asList(secondLegFirstStep, secondLegSecondStep));
 
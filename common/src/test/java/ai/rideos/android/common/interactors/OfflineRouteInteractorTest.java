@@ -0,0 +1,70 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.interactors;
+
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.LocationAndHeading;
+import ai.rideos.android.common.reactive.SchedulerProviders.TrampolineSchedulerProvider;
+import ai.rideos.android.common.routing.RoadGraph;
+import ai.rideos.android.common.routing.RoadGraphRouter;
+import ai.rideos.android.common.routing.RoadGraphRouter.NoRouteException;
+import java.io.File;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OfflineRouteInteractorTest {
+    // Corners of the grid in src/test/resources/road_graph/test_extract.osm
+    private static final LatLng ORIGIN = new LatLng(37.770, -122.420);
+    private static final LatLng DESTINATION = new LatLng(37.776, -122.4125);
+    private static final LatLng DISCONNECTED = new LatLng(37.800, -122.400);
+
+    private RoadGraphRouter router;
+    private OfflineRouteInteractor interactorUnderTest;
+
+    @Before
+    public void setUp() throws Exception {
+        final File graphFile = new File(getClass().getClassLoader().getResource("road_graph/test_graph.bin").toURI());
+        router = new RoadGraphRouter(RoadGraph.open(graphFile));
+        interactorUnderTest = new OfflineRouteInteractor(router, new TrampolineSchedulerProvider());
+    }
+
+    @Test
+    public void testGetRouteReturnsRouteFromGraph() throws NoRouteException {
+        interactorUnderTest.getRoute(ORIGIN, DESTINATION).test()
+            .assertValue(router.route(ORIGIN, DESTINATION))
+            .assertComplete();
+    }
+
+    @Test
+    public void testGetRouteWithHeadingIgnoresHeading() throws NoRouteException {
+        interactorUnderTest.getRoute(new LocationAndHeading(ORIGIN, 90), new LocationAndHeading(DESTINATION, 180))
+            .test()
+            .assertValue(router.route(ORIGIN, DESTINATION));
+    }
+
+    @Test
+    public void testGetRouteForWaypointsReturnsLegs() throws NoRouteException {
+        interactorUnderTest.getRouteForWaypoints(Arrays.asList(ORIGIN, DESTINATION, ORIGIN)).test()
+            .assertValue(router.route(Arrays.asList(ORIGIN, DESTINATION, ORIGIN)));
+    }
+
+    @Test
+    public void testMissingRouteIsAnError() {
+        interactorUnderTest.getRoute(ORIGIN, DISCONNECTED).test()
+            .assertError(NoRouteException.class);
+    }
+}
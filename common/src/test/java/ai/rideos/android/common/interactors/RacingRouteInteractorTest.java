@@ -0,0 +1,303 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.interactors;
+
+import static org.junit.Assert.assertEquals;
+
+import ai.rideos.android.common.interactors.RacingRouteInteractor.Settings;
+import ai.rideos.android.common.interactors.RacingRouteInteractor.Strategy;
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.LocationAndHeading;
+import ai.rideos.android.common.model.RouteInfoModel;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RacingRouteInteractorTest {
+    private static final int MIN_SAMPLES = 3;
+    private static final double MAX_ERROR_RATE = 0.25;
+    private static final long REQUEST_TIMEOUT_MILLIS = 2000;
+    private static final int WINDOW_SIZE = 10;
+    private static final long WINDOW_MILLIS = 60000;
+    private static final LatLng ORIGIN = new LatLng(37.7749, -122.4194);
+    private static final LatLng DESTINATION = new LatLng(37.8044, -122.2712);
+    private static final RouteInfoModel ROUTE_A = new RouteInfoModel(Arrays.asList(ORIGIN, DESTINATION), 1000, 100);
+    private static final RouteInfoModel ROUTE_B = new RouteInfoModel(
+        Arrays.asList(ORIGIN, new LatLng(37.79, -122.35), DESTINATION),
+        1200,
+        120
+    );
+    private static final RouteInfoModel EMPTY_ROUTE = new RouteInfoModel(Collections.emptyList(), 0, 0);
+
+    private TestScheduler testScheduler;
+    private RouteProviderStats providerStats;
+
+    @Before
+    public void setUp() {
+        testScheduler = new TestScheduler();
+        providerStats = new RouteProviderStats(
+            new RouteProviderStats.Settings(WINDOW_SIZE, WINDOW_MILLIS),
+            testScheduler
+        );
+    }
+
+    @Test
+    public void testRaceUsesFastestProviderAndCancelsOthers() {
+        final FakeRouteProvider fast = new FakeRouteProvider(testScheduler, fixedLatency(100), ROUTE_A);
+        final FakeRouteProvider slow = new FakeRouteProvider(testScheduler, fixedLatency(500), ROUTE_B);
+        final RacingRouteInteractor interactorUnderTest = createInteractor(Strategy.RACE, "slow", slow, "fast", fast);
+
+        final TestObserver<RouteInfoModel> observer = interactorUnderTest.getRoute(ORIGIN, DESTINATION).test();
+        testScheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+
+        observer.assertValue(ROUTE_A).assertComplete();
+        assertEquals(1, slow.cancelCount);
+        assertEquals(1, providerStats.getSnapshot("fast").getWinCount());
+        assertEquals(100, providerStats.getSnapshot("fast").getP50LatencyMillis());
+        assertEquals(1, providerStats.getSnapshot("slow").getCancelledCount());
+        assertEquals(0, providerStats.getSnapshot("slow").getSampleCount());
+    }
+
+    @Test
+    public void testRaceSkipsFailedAndEmptyRoutes() {
+        final FakeRouteProvider failing = new FakeRouteProvider(testScheduler, fixedLatency(50), ROUTE_A);
+        failing.isFailing = true;
+        final FakeRouteProvider empty = new FakeRouteProvider(testScheduler, fixedLatency(80), EMPTY_ROUTE);
+        final FakeRouteProvider valid = new FakeRouteProvider(testScheduler, fixedLatency(300), ROUTE_B);
+        final Map<String, RouteInteractor> providers = new LinkedHashMap<>();
+        providers.put("failing", failing);
+        providers.put("empty", empty);
+        providers.put("valid", valid);
+        final RacingRouteInteractor interactorUnderTest = new RacingRouteInteractor(
+            providers,
+            providerStats,
+            testScheduler,
+            createSettings(Strategy.RACE)
+        );
+
+        final TestObserver<RouteInfoModel> observer = interactorUnderTest.getRoute(ORIGIN, DESTINATION).test();
+        testScheduler.advanceTimeBy(300, TimeUnit.MILLISECONDS);
+
+        observer.assertValue(ROUTE_B).assertComplete();
+        assertEquals(1, providerStats.getSnapshot("failing").getFailureCount());
+        assertEquals(1, providerStats.getSnapshot("empty").getFailureCount());
+        assertEquals(1, providerStats.getSnapshot("valid").getWinCount());
+    }
+
+    @Test
+    public void testRaceFailsWhenEveryProviderFails() {
+        final FakeRouteProvider first = new FakeRouteProvider(testScheduler, fixedLatency(100), ROUTE_A);
+        first.isFailing = true;
+        final FakeRouteProvider second = new FakeRouteProvider(testScheduler, fixedLatency(200), ROUTE_B);
+        second.isFailing = true;
+        final RacingRouteInteractor interactorUnderTest =
+            createInteractor(Strategy.RACE, "first", first, "second", second);
+
+        final TestObserver<RouteInfoModel> observer = interactorUnderTest.getRoute(ORIGIN, DESTINATION).test();
+        testScheduler.advanceTimeBy(200, TimeUnit.MILLISECONDS);
+
+        observer.assertError(IOException.class);
+    }
+
+    @Test
+    public void testRaceRejectsWaypointRoutesWithEmptyLegs() {
+        final FakeRouteProvider empty = new FakeRouteProvider(testScheduler, fixedLatency(100), EMPTY_ROUTE);
+        final FakeRouteProvider valid = new FakeRouteProvider(testScheduler, fixedLatency(200), ROUTE_B);
+        final RacingRouteInteractor interactorUnderTest =
+            createInteractor(Strategy.RACE, "empty", empty, "valid", valid);
+
+        final TestObserver<List<RouteInfoModel>> observer =
+            interactorUnderTest.getRouteForWaypoints(Arrays.asList(ORIGIN, DESTINATION)).test();
+        testScheduler.advanceTimeBy(200, TimeUnit.MILLISECONDS);
+
+        observer.assertValue(Collections.singletonList(ROUTE_B));
+    }
+
+    @Test
+    public void testPrimaryIsChosenByMeasuredLatency() {
+        final Random random = new Random(42);
+        final FakeRouteProvider slow = new FakeRouteProvider(testScheduler, uniformLatency(random, 400, 600), ROUTE_A);
+        final FakeRouteProvider fast = new FakeRouteProvider(testScheduler, uniformLatency(random, 100, 200), ROUTE_B);
+        final RacingRouteInteractor interactorUnderTest =
+            createInteractor(Strategy.PRIMARY_WITH_FALLBACK, "slow", slow, "fast", fast);
+
+        for (int i = 0; i < 10; i++) {
+            final TestObserver<RouteInfoModel> observer = interactorUnderTest.getRoute(ORIGIN, DESTINATION).test();
+            testScheduler.advanceTimeBy(1000, TimeUnit.MILLISECONDS);
+            observer.assertValueCount(1);
+        }
+
+        // Each provider is measured MIN_SAMPLES times before the faster one takes over
+        assertEquals(MIN_SAMPLES, slow.requestCount);
+        assertEquals(10 - MIN_SAMPLES, fast.requestCount);
+        assertEquals(Arrays.asList("fast", "slow"), interactorUnderTest.getRankedProviderNames());
+    }
+
+    @Test
+    public void testFailingPrimaryFallsBackAndIsDemoted() {
+        final FakeRouteProvider primary = new FakeRouteProvider(testScheduler, fixedLatency(100), ROUTE_A);
+        primary.isFailing = true;
+        final FakeRouteProvider backup = new FakeRouteProvider(testScheduler, fixedLatency(300), ROUTE_B);
+        final RacingRouteInteractor interactorUnderTest =
+            createInteractor(Strategy.PRIMARY_WITH_FALLBACK, "primary", primary, "backup", backup);
+
+        for (int i = 0; i < MIN_SAMPLES; i++) {
+            final TestObserver<RouteInfoModel> observer = interactorUnderTest.getRoute(ORIGIN, DESTINATION).test();
+            testScheduler.advanceTimeBy(400, TimeUnit.MILLISECONDS);
+            observer.assertValue(ROUTE_B);
+        }
+        assertEquals(Arrays.asList("backup", "primary"), interactorUnderTest.getRankedProviderNames());
+
+        // The demoted provider is no longer called while the backup is healthy
+        final TestObserver<RouteInfoModel> observer = interactorUnderTest.getRoute(ORIGIN, DESTINATION).test();
+        testScheduler.advanceTimeBy(300, TimeUnit.MILLISECONDS);
+        observer.assertValue(ROUTE_B);
+        assertEquals(MIN_SAMPLES, primary.requestCount);
+        assertEquals(1.0, providerStats.getSnapshot("primary").getErrorRate(), 0);
+    }
+
+    @Test
+    public void testDemotedProviderIsRetriedAfterFailuresLeaveWindow() {
+        final FakeRouteProvider primary = new FakeRouteProvider(testScheduler, fixedLatency(100), ROUTE_A);
+        primary.isFailing = true;
+        final FakeRouteProvider backup = new FakeRouteProvider(testScheduler, fixedLatency(300), ROUTE_B);
+        final RacingRouteInteractor interactorUnderTest =
+            createInteractor(Strategy.PRIMARY_WITH_FALLBACK, "primary", primary, "backup", backup);
+        for (int i = 0; i < MIN_SAMPLES; i++) {
+            interactorUnderTest.getRoute(ORIGIN, DESTINATION).test();
+            testScheduler.advanceTimeBy(400, TimeUnit.MILLISECONDS);
+        }
+        assertEquals("backup", interactorUnderTest.getRankedProviderNames().get(0));
+
+        primary.isFailing = false;
+        testScheduler.advanceTimeBy(WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+
+        assertEquals("primary", interactorUnderTest.getRankedProviderNames().get(0));
+        final TestObserver<RouteInfoModel> observer = interactorUnderTest.getRoute(ORIGIN, DESTINATION).test();
+        testScheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+        observer.assertValue(ROUTE_A);
+    }
+
+    @Test
+    public void testSlowPrimaryTimesOutAndFallsBack() {
+        final FakeRouteProvider primary =
+            new FakeRouteProvider(testScheduler, fixedLatency(REQUEST_TIMEOUT_MILLIS * 2), ROUTE_A);
+        final FakeRouteProvider backup = new FakeRouteProvider(testScheduler, fixedLatency(100), ROUTE_B);
+        final RacingRouteInteractor interactorUnderTest =
+            createInteractor(Strategy.PRIMARY_WITH_FALLBACK, "primary", primary, "backup", backup);
+
+        final TestObserver<RouteInfoModel> observer = interactorUnderTest.getRoute(ORIGIN, DESTINATION).test();
+        testScheduler.advanceTimeBy(REQUEST_TIMEOUT_MILLIS + 100, TimeUnit.MILLISECONDS);
+
+        observer.assertValue(ROUTE_B);
+        assertEquals(1, primary.cancelCount);
+        assertEquals(1, providerStats.getSnapshot("primary").getFailureCount());
+        assertEquals(1, providerStats.getSnapshot("backup").getWinCount());
+    }
+
+    private RacingRouteInteractor createInteractor(final Strategy strategy,
+                                                   final String firstName,
+                                                   final RouteInteractor first,
+                                                   final String secondName,
+                                                   final RouteInteractor second) {
+        final Map<String, RouteInteractor> providers = new LinkedHashMap<>();
+        providers.put(firstName, first);
+        providers.put(secondName, second);
+        return new RacingRouteInteractor(providers, providerStats, testScheduler, createSettings(strategy));
+    }
+
+    private static Settings createSettings(final Strategy strategy) {
+        return new Settings(strategy, MIN_SAMPLES, MAX_ERROR_RATE, REQUEST_TIMEOUT_MILLIS);
+    }
+
+    private static LongSupplier fixedLatency(final long latencyMillis) {
+        return () -> latencyMillis;
+    }
+
+    private static LongSupplier uniformLatency(final Random random, final long minMillis, final long maxMillis) {
+        return () -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+    }
+
+    /**
+     * Route provider that answers after a latency drawn from a distribution, measured on the test scheduler.
+     */
+    private static class FakeRouteProvider implements RouteInteractor {
+        private final Scheduler scheduler;
+        private final LongSupplier latencyMillis;
+        private final RouteInfoModel route;
+        private boolean isFailing = false;
+        private int requestCount = 0;
+        private int cancelCount = 0;
+
+        private FakeRouteProvider(final Scheduler scheduler,
+                                  final LongSupplier latencyMillis,
+                                  final RouteInfoModel route) {
+            this.scheduler = scheduler;
+            this.latencyMillis = latencyMillis;
+            this.route = route;
+        }
+
+        @Override
+        public Observable<RouteInfoModel> getRoute(final LatLng origin, final LatLng destination) {
+            return respond(route);
+        }
+
+        @Override
+        public Observable<RouteInfoModel> getRoute(final LocationAndHeading origin,
+                                                   final LocationAndHeading destination) {
+            return respond(route);
+        }
+
+        @Override
+        public Observable<List<RouteInfoModel>> getRouteForWaypoints(final List<LatLng> waypoints) {
+            return respond(Collections.singletonList(route));
+        }
+
+        @Override
+        public void shutDown() {
+        }
+
+        private <T> Observable<T> respond(final T value) {
+            requestCount++;
+            final boolean shouldFail = isFailing;
+            final AtomicBoolean hasResponded = new AtomicBoolean(false);
+            return Observable.timer(latencyMillis.getAsLong(), TimeUnit.MILLISECONDS, scheduler)
+                .doOnNext(tick -> hasResponded.set(true))
+                .flatMap(tick -> shouldFail
+                    ? Observable.<T>error(new IOException("Route provider failed"))
+                    : Observable.just(value)
+                )
+                .doOnDispose(() -> {
+                    if (!hasResponded.get()) {
+                        cancelCount++;
+                    }
+                });
+        }
+    }
+}
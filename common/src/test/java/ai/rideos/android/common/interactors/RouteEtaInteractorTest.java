@@ -0,0 +1,127 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.interactors;
+
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.RouteInfoModel;
+import io.reactivex.Observable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class RouteEtaInteractorTest {
+    private static final LatLng PICKUP = new LatLng(37.7749, -122.4194);
+    private static final LatLng VEHICLE_1 = new LatLng(37.78, -122.41);
+    private static final LatLng VEHICLE_2 = new LatLng(37.77, -122.43);
+
+    private RouteInteractor routeInteractor;
+    private EtaInteractor fallbackEtaInteractor;
+    private RouteEtaInteractor interactorUnderTest;
+
+    @Before
+    public void setUp() {
+        routeInteractor = Mockito.mock(RouteInteractor.class);
+        fallbackEtaInteractor = Mockito.mock(EtaInteractor.class);
+        interactorUnderTest = new RouteEtaInteractor(routeInteractor, fallbackEtaInteractor);
+    }
+
+    @Test
+    public void testTravelTimesComeFromLegsToTheDestination() {
+        final Map<String, LatLng> origins = new LinkedHashMap<>();
+        origins.put("vehicle-1", VEHICLE_1);
+        origins.put("vehicle-2", VEHICLE_2);
+        // Legs alternate between an origin to the pickup and the pickup back to the next origin
+        Mockito.when(routeInteractor.getRouteForWaypoints(Arrays.asList(VEHICLE_1, PICKUP, VEHICLE_2, PICKUP)))
+            .thenReturn(Observable.just(Arrays.asList(
+                new RouteInfoModel(Arrays.asList(VEHICLE_1, PICKUP), 60000, 1000),
+                new RouteInfoModel(Arrays.asList(PICKUP, VEHICLE_2), 90000, 1500),
+                new RouteInfoModel(Arrays.asList(VEHICLE_2, PICKUP), 120000, 2000)
+            )));
+
+        final Map<String, Long> expectedTravelTimes = new HashMap<>();
+        expectedTravelTimes.put("vehicle-1", 60000L);
+        expectedTravelTimes.put("vehicle-2", 120000L);
+        interactorUnderTest.getTravelTimesMillis(origins, PICKUP).test()
+            .assertValue(expectedTravelTimes);
+        Mockito.verify(routeInteractor, Mockito.times(1)).getRouteForWaypoints(Mockito.anyList());
+        Mockito.verifyNoMoreInteractions(routeInteractor);
+        Mockito.verifyZeroInteractions(fallbackEtaInteractor);
+    }
+
+    @Test
+    public void testFallbackIsUsedWhenRouteFails() {
+        final Map<String, LatLng> origins = Collections.singletonMap("vehicle-1", VEHICLE_1);
+        final Map<String, Long> fallbackTravelTimes = Collections.singletonMap("vehicle-1", 30000L);
+        Mockito.when(routeInteractor.getRouteForWaypoints(Arrays.asList(VEHICLE_1, PICKUP)))
+            .thenReturn(Observable.error(new IOException()));
+        Mockito.when(fallbackEtaInteractor.getTravelTimesMillis(origins, PICKUP))
+            .thenReturn(Observable.just(fallbackTravelTimes));
+
+        interactorUnderTest.getTravelTimesMillis(origins, PICKUP).test()
+            .assertValue(fallbackTravelTimes);
+        Mockito.verify(routeInteractor, Mockito.times(1)).getRouteForWaypoints(Mockito.anyList());
+        Mockito.verifyNoMoreInteractions(routeInteractor);
+    }
+
+    @Test
+    public void testOriginsAreRoutedSeparatelyWhenTheRouteFails() {
+        final Map<String, LatLng> origins = new LinkedHashMap<>();
+        origins.put("vehicle-1", VEHICLE_1);
+        origins.put("vehicle-2", VEHICLE_2);
+        Mockito.when(routeInteractor.getRouteForWaypoints(Arrays.asList(VEHICLE_1, PICKUP, VEHICLE_2, PICKUP)))
+            .thenReturn(Observable.error(new IOException()));
+        Mockito.when(routeInteractor.getRoute(VEHICLE_1, PICKUP))
+            .thenReturn(Observable.just(new RouteInfoModel(Arrays.asList(VEHICLE_1, PICKUP), 60000, 1000)));
+        Mockito.when(routeInteractor.getRoute(VEHICLE_2, PICKUP))
+            .thenReturn(Observable.error(new IOException()));
+        final Map<String, LatLng> unroutableOrigins = Collections.singletonMap("vehicle-2", VEHICLE_2);
+        Mockito.when(fallbackEtaInteractor.getTravelTimesMillis(unroutableOrigins, PICKUP))
+            .thenReturn(Observable.just(Collections.singletonMap("vehicle-2", 30000L)));
+
+        final Map<String, Long> expectedTravelTimes = new HashMap<>();
+        expectedTravelTimes.put("vehicle-1", 60000L);
+        expectedTravelTimes.put("vehicle-2", 30000L);
+        interactorUnderTest.getTravelTimesMillis(origins, PICKUP).test()
+            .assertValue(expectedTravelTimes);
+        Mockito.verify(fallbackEtaInteractor, Mockito.times(1)).getTravelTimesMillis(Mockito.anyMap(), Mockito.any());
+    }
+
+    @Test
+    public void testNoRequestIsMadeWithoutOrigins() {
+        interactorUnderTest.getTravelTimesMillis(Collections.emptyMap(), PICKUP).test()
+            .assertValue(Map::isEmpty);
+        Mockito.verifyZeroInteractions(routeInteractor);
+    }
+
+    @Test
+    public void testStraightLineEstimateUsesSpeedAndDetour() {
+        // 1km apart, with roads twice as long, at 10 m/s
+        final StraightLineEtaInteractor straightLineEtaInteractor = new StraightLineEtaInteractor(
+            (origin, destination) -> 1000,
+            new StraightLineEtaInteractor.Settings(10, 2)
+        );
+
+        straightLineEtaInteractor.getTravelTimesMillis(Collections.singletonMap("vehicle-1", VEHICLE_1), PICKUP)
+            .test()
+            .assertValue(Collections.singletonMap("vehicle-1", 200000L));
+    }
+}
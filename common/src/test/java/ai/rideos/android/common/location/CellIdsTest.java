@@ -0,0 +1,246 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.location;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+public class CellIdsTest {
+    private static final double DELTA_DEGREES = 1e-9;
+    private static final int RANDOM_POINTS = 10_000;
+
+    @Test
+    public void testCellContainsItsPoint() {
+        final Random random = new Random(0);
+        final double[] bounds = new double[4];
+        for (int i = 0; i < RANDOM_POINTS; i++) {
+            final double latitude = random.nextDouble() * 180 - 90;
+            final double longitude = random.nextDouble() * 360 - 180;
+            final int level = random.nextInt(CellIds.MAX_LEVEL + 1);
+
+            final long cellId = CellIds.fromLatLng(latitude, longitude, level);
+            CellIds.getBounds(cellId, bounds);
+
+            assertTrue(CellIds.isValid(cellId));
+            assertEquals(level, CellIds.getLevel(cellId));
+            assertTrue(latitude >= bounds[Geodesy.SOUTH] && latitude < bounds[Geodesy.NORTH]);
+            assertTrue(longitude >= bounds[Geodesy.WEST] && longitude < bounds[Geodesy.EAST]);
+            assertEquals(180.0 / (1 << level), bounds[Geodesy.NORTH] - bounds[Geodesy.SOUTH], DELTA_DEGREES);
+            assertEquals(360.0 / (1 << level), bounds[Geodesy.EAST] - bounds[Geodesy.WEST], DELTA_DEGREES);
+        }
+    }
+
+    @Test
+    public void testPolesAndAntimeridianAreInRange() {
+        assertEquals(CellIds.fromLatLng(90, 0, 10), CellIds.fromLatLng(89.9999, 0, 10));
+        assertEquals(CellIds.fromLatLng(-90, 0, 10), CellIds.fromLatLng(-89.9999, 0, 10));
+        assertEquals(CellIds.fromLatLng(10, 180, 10), CellIds.fromLatLng(10, -180, 10));
+        assertEquals(CellIds.fromLatLng(10, 190, 10), CellIds.fromLatLng(10, -170, 10));
+    }
+
+    @Test
+    public void testLevelZeroIsTheWholeWorld() {
+        final long world = CellIds.fromLatLng(37.77, -122.42, 0);
+
+        assertEquals(world, CellIds.fromLatLng(-33.87, 151.21, 0));
+        assertTrue(CellIds.contains(world, CellIds.fromLatLng(51.51, -0.13, CellIds.MAX_LEVEL)));
+    }
+
+    @Test
+    public void testParentsAndChildren() {
+        final long cellId = CellIds.fromLatLng(37.77, -122.42, 12);
+        final long parent = CellIds.getParent(cellId);
+
+        assertEquals(11, CellIds.getLevel(parent));
+        assertEquals(CellIds.fromLatLng(37.77, -122.42, 11), parent);
+        assertEquals(CellIds.fromLatLng(37.77, -122.42, 5), CellIds.getParent(cellId, 5));
+        assertEquals(cellId, CellIds.getParent(cellId, 12));
+
+        final Set<Long> children = new HashSet<>();
+        for (int position = 0; position < 4; position++) {
+            final long child = CellIds.getChild(parent, position);
+            assertEquals(12, CellIds.getLevel(child));
+            assertEquals(parent, CellIds.getParent(child));
+            assertTrue(CellIds.contains(parent, child));
+            children.add(child);
+        }
+        assertTrue(children.contains(cellId));
+        assertEquals(4, children.size());
+        assertFalse(CellIds.contains(cellId, parent));
+    }
+
+    @Test
+    public void testChildrenAreInZOrder() {
+        final long parent = CellIds.fromLatLng(0.1, 0.1, 8);
+        final double[] parentBounds = new double[4];
+        CellIds.getBounds(parent, parentBounds);
+        final double middleLatitude = (parentBounds[Geodesy.SOUTH] + parentBounds[Geodesy.NORTH]) / 2;
+        final double middleLongitude = (parentBounds[Geodesy.WEST] + parentBounds[Geodesy.EAST]) / 2;
+
+        final double[] bounds = new double[4];
+        CellIds.getBounds(CellIds.getChild(parent, 0), bounds);
+        assertEquals(parentBounds[Geodesy.SOUTH], bounds[Geodesy.SOUTH], DELTA_DEGREES);
+        assertEquals(parentBounds[Geodesy.WEST], bounds[Geodesy.WEST], DELTA_DEGREES);
+        CellIds.getBounds(CellIds.getChild(parent, 1), bounds);
+        assertEquals(parentBounds[Geodesy.SOUTH], bounds[Geodesy.SOUTH], DELTA_DEGREES);
+        assertEquals(middleLongitude, bounds[Geodesy.WEST], DELTA_DEGREES);
+        CellIds.getBounds(CellIds.getChild(parent, 2), bounds);
+        assertEquals(middleLatitude, bounds[Geodesy.SOUTH], DELTA_DEGREES);
+        assertEquals(parentBounds[Geodesy.WEST], bounds[Geodesy.WEST], DELTA_DEGREES);
+        CellIds.getBounds(CellIds.getChild(parent, 3), bounds);
+        assertEquals(parentBounds[Geodesy.NORTH], bounds[Geodesy.NORTH], DELTA_DEGREES);
+        assertEquals(parentBounds[Geodesy.EAST], bounds[Geodesy.EAST], DELTA_DEGREES);
+    }
+
+    @Test
+    public void testNeighbors() {
+        final long cellId = CellIds.fromLatLng(37.77, -122.42, 16);
+        final double[] bounds = new double[4];
+        CellIds.getBounds(cellId, bounds);
+        final double height = bounds[Geodesy.NORTH] - bounds[Geodesy.SOUTH];
+        final double width = bounds[Geodesy.EAST] - bounds[Geodesy.WEST];
+
+        assertEquals(CellIds.fromLatLng(37.77 + height, -122.42, 16), CellIds.getNeighbor(cellId, CellIds.NORTH));
+        assertEquals(CellIds.fromLatLng(37.77, -122.42 + width, 16), CellIds.getNeighbor(cellId, CellIds.EAST));
+        assertEquals(CellIds.fromLatLng(37.77 - height, -122.42, 16), CellIds.getNeighbor(cellId, CellIds.SOUTH));
+        assertEquals(CellIds.fromLatLng(37.77, -122.42 - width, 16), CellIds.getNeighbor(cellId, CellIds.WEST));
+        assertEquals(
+            cellId,
+            CellIds.getNeighbor(CellIds.getNeighbor(cellId, CellIds.NORTH), CellIds.SOUTH)
+        );
+    }
+
+    @Test
+    public void testNeighborsWrapAroundAntimeridianButNotPoles() {
+        final long eastEdge = CellIds.fromLatLng(0, 179.9999, 10);
+        final long westEdge = CellIds.fromLatLng(0, -179.9999, 10);
+
+        assertEquals(westEdge, CellIds.getNeighbor(eastEdge, CellIds.EAST));
+        assertEquals(eastEdge, CellIds.getNeighbor(westEdge, CellIds.WEST));
+        assertEquals(CellIds.NONE, CellIds.getNeighbor(CellIds.fromLatLng(90, 0, 10), CellIds.NORTH));
+        assertEquals(CellIds.NONE, CellIds.getNeighbor(CellIds.fromLatLng(-90, 0, 10), CellIds.SOUTH));
+    }
+
+    @Test
+    public void testInvalidIds() {
+        assertFalse(CellIds.isValid(CellIds.NONE));
+        assertFalse(CellIds.isValid(-1));
+        // The level bit in an odd position
+        assertFalse(CellIds.isValid(CellIds.fromLatLng(1, 1, 10) << 1));
+    }
+
+    @Test
+    public void testCoveringContainsEveryPointInBox() {
+        final Random random = new Random(0);
+        final long[] covering = new long[8];
+        final int count = CellIds.getCovering(37.7, -122.5, 37.8, -122.4, CellIds.MAX_LEVEL, covering.length, covering);
+
+        assertTrue(count > 0 && count <= covering.length);
+        final int level = CellIds.getLevel(covering[0]);
+        for (int i = 0; i < RANDOM_POINTS; i++) {
+            final double latitude = 37.7 + random.nextDouble() * 0.1;
+            final double longitude = -122.5 + random.nextDouble() * 0.1;
+            final long cellId = CellIds.fromLatLng(latitude, longitude, level);
+            assertTrue(Arrays.stream(covering, 0, count).anyMatch(coveringCell -> coveringCell == cellId));
+        }
+        // One level finer would have needed too many cells
+        assertTrue(CellIds.getCovering(37.7, -122.5, 37.8, -122.4, level + 1, 1000, new long[1000]) > covering.length);
+    }
+
+    @Test
+    public void testCoveringStopsAtMaxLevel() {
+        final long[] covering = new long[16];
+        final int count = CellIds.getCovering(37.77, -122.42, 37.7701, -122.4199, 10, covering.length, covering);
+
+        assertEquals(1, count);
+        assertEquals(CellIds.fromLatLng(37.77, -122.42, 10), covering[0]);
+    }
+
+    @Test
+    public void testCoveringAcrossAntimeridian() {
+        final long[] covering = new long[4];
+        final int count = CellIds.getCovering(-1, 179, 1, -179, 8, covering.length, covering);
+
+        final Set<Long> cells = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            cells.add(covering[i]);
+        }
+        assertTrue(cells.contains(CellIds.fromLatLng(0.5, 179.5, CellIds.getLevel(covering[0]))));
+        assertTrue(cells.contains(CellIds.fromLatLng(0.5, -179.5, CellIds.getLevel(covering[0]))));
+        assertTrue(cells.contains(CellIds.fromLatLng(-0.5, 179.5, CellIds.getLevel(covering[0]))));
+        assertTrue(cells.contains(CellIds.fromLatLng(-0.5, -179.5, CellIds.getLevel(covering[0]))));
+        assertFalse(cells.contains(CellIds.fromLatLng(0, 0, CellIds.getLevel(covering[0]))));
+    }
+
+    @Test
+    public void testCircleCoveringDropsCornersOutsideCircle() {
+        final long[] boxCovering = new long[64];
+        final long[] circleCovering = new long[64];
+        final double[] bounds = new double[4];
+        Geodesy.getBoundsAroundCircle(37.77, -122.42, 2000, bounds);
+        final int boxCount = CellIds.getCovering(
+            bounds[Geodesy.SOUTH],
+            bounds[Geodesy.WEST],
+            bounds[Geodesy.NORTH],
+            bounds[Geodesy.EAST],
+            CellIds.MAX_LEVEL,
+            boxCovering.length,
+            boxCovering
+        );
+        final int circleCount = CellIds.getCircleCovering(
+            37.77,
+            -122.42,
+            2000,
+            CellIds.MAX_LEVEL,
+            circleCovering.length,
+            circleCovering
+        );
+
+        assertTrue(circleCount < boxCount);
+        final Random random = new Random(0);
+        final double[] point = new double[2];
+        final int level = CellIds.getLevel(circleCovering[0]);
+        for (int i = 0; i < RANDOM_POINTS; i++) {
+            Geodesy.getDestination(37.77, -122.42, random.nextDouble() * 360, random.nextDouble() * 2000, point);
+            final long cellId = CellIds.fromLatLng(point[Geodesy.LATITUDE], point[Geodesy.LONGITUDE], level);
+            assertTrue(Arrays.stream(circleCovering, 0, circleCount).anyMatch(coveringCell -> coveringCell == cellId));
+        }
+    }
+
+    @Test
+    public void testCircleAroundPoleCoversEveryLongitude() {
+        final long[] covering = new long[64];
+        final int count = CellIds.getCircleCovering(89.99, 0, 5000, CellIds.MAX_LEVEL, covering.length, covering);
+
+        final int level = CellIds.getLevel(covering[0]);
+        final Set<Long> cells = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            cells.add(covering[i]);
+        }
+        assertTrue(cells.contains(CellIds.fromLatLng(89.995, 0, level)));
+        assertTrue(cells.contains(CellIds.fromLatLng(89.995, 179, level)));
+        assertTrue(cells.contains(CellIds.fromLatLng(89.995, -90, level)));
+        assertNotEquals(0, count);
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.location;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+
+public class GeodesyTest {
+    private static final double DELTA_METERS = 1e-6;
+    private static final double DELTA_DEGREES = 1e-9;
+    private static final int RANDOM_PAIRS = 10_000;
+
+    @Test
+    public void testHaversineAlongMeridianAndEquator() {
+        assertEquals(Geodesy.METERS_PER_DEGREE, Geodesy.getHaversineMeters(10, 20, 11, 20), DELTA_METERS);
+        assertEquals(Geodesy.METERS_PER_DEGREE * 90, Geodesy.getHaversineMeters(0, -45, 0, 45), DELTA_METERS);
+        assertEquals(Math.PI * Geodesy.EARTH_RADIUS_METERS, Geodesy.getHaversineMeters(0, 0, 0, 180), DELTA_METERS);
+        assertEquals(0, Geodesy.getHaversineMeters(37.77, -122.42, 37.77, -122.42), 0);
+    }
+
+    @Test
+    public void testHaversineMatchesChordDistance() {
+        final Random random = new Random(0);
+        for (int i = 0; i < RANDOM_PAIRS; i++) {
+            final double latitude0 = random.nextDouble() * 180 - 90;
+            final double longitude0 = random.nextDouble() * 360 - 180;
+            final double latitude1 = random.nextDouble() * 180 - 90;
+            final double longitude1 = random.nextDouble() * 360 - 180;
+            final double expected = getChordArcMeters(latitude0, longitude0, latitude1, longitude1);
+            assertEquals(
+                expected,
+                Geodesy.getHaversineMeters(latitude0, longitude0, latitude1, longitude1),
+                1e-9 * Geodesy.EARTH_RADIUS_METERS
+            );
+        }
+    }
+
+    @Test
+    public void testEquirectangularIsCloseToHaversineForShortDistances() {
+        // Up to 10km apart at latitudes up to 70 degrees
+        final Random random = new Random(0);
+        for (int i = 0; i < RANDOM_PAIRS; i++) {
+            final double latitude0 = random.nextDouble() * 140 - 70;
+            final double longitude0 = random.nextDouble() * 360 - 180;
+            final double distance = random.nextDouble() * 10_000;
+            final double[] destination = new double[2];
+            Geodesy.getDestination(latitude0, longitude0, random.nextDouble() * 360, distance, destination);
+
+            final double approximation = Geodesy.getEquirectangularMeters(
+                latitude0,
+                longitude0,
+                destination[Geodesy.LATITUDE],
+                destination[Geodesy.LONGITUDE]
+            );
+            assertEquals(distance, approximation, 0.5);
+        }
+    }
+
+    @Test
+    public void testEquirectangularAcrossAntimeridian() {
+        assertEquals(
+            Geodesy.getHaversineMeters(0, 179.99, 0, -179.99),
+            Geodesy.getEquirectangularMeters(0, 179.99, 0, -179.99),
+            DELTA_METERS
+        );
+    }
+
+    @Test
+    public void testBearingToCardinalDirections() {
+        assertEquals(0, Geodesy.getBearingDegrees(10, 10, 11, 10), DELTA_DEGREES);
+        assertEquals(90, Geodesy.getBearingDegrees(0, 10, 0, 11), DELTA_DEGREES);
+        assertEquals(180, Geodesy.getBearingDegrees(10, 10, 9, 10), DELTA_DEGREES);
+        assertEquals(270, Geodesy.getBearingDegrees(0, 10, 0, 9), DELTA_DEGREES);
+        assertEquals(90, Geodesy.getBearingDegrees(0, 179.5, 0, -179.5), DELTA_DEGREES);
+    }
+
+    @Test
+    public void testDestinationRoundTripsThroughDistanceAndBearing() {
+        final Random random = new Random(0);
+        final double[] destination = new double[2];
+        for (int i = 0; i < RANDOM_PAIRS; i++) {
+            final double latitude = random.nextDouble() * 160 - 80;
+            final double longitude = random.nextDouble() * 360 - 180;
+            final double bearing = random.nextDouble() * 360;
+            final double distance = 1 + random.nextDouble() * 1_000_000;
+
+            Geodesy.getDestination(latitude, longitude, bearing, distance, destination);
+
+            final double destinationLatitude = destination[Geodesy.LATITUDE];
+            final double destinationLongitude = destination[Geodesy.LONGITUDE];
+            assertTrue(destinationLongitude >= -180 && destinationLongitude < 180);
+            assertEquals(
+                distance,
+                Geodesy.getHaversineMeters(latitude, longitude, destinationLatitude, destinationLongitude),
+                1e-6
+            );
+            final double bearingError = Geodesy.normalizeLongitude(
+                Geodesy.getBearingDegrees(latitude, longitude, destinationLatitude, destinationLongitude) - bearing
+            );
+            assertEquals(0, bearingError, 1e-6);
+        }
+    }
+
+    @Test
+    public void testBoundsContainCircleAndTouchIt() {
+        final double latitude = 37.77;
+        final double longitude = -122.42;
+        final double radius = 5000;
+        final double[] bounds = new double[4];
+        Geodesy.getBoundsAroundCircle(latitude, longitude, radius, bounds);
+
+        final double[] point = new double[2];
+        double maxLongitude = -180;
+        for (int degrees = 0; degrees < 360; degrees++) {
+            Geodesy.getDestination(latitude, longitude, degrees, radius, point);
+            assertTrue(point[Geodesy.LATITUDE] >= bounds[Geodesy.SOUTH] - DELTA_DEGREES);
+            assertTrue(point[Geodesy.LATITUDE] <= bounds[Geodesy.NORTH] + DELTA_DEGREES);
+            assertTrue(point[Geodesy.LONGITUDE] >= bounds[Geodesy.WEST] - DELTA_DEGREES);
+            assertTrue(point[Geodesy.LONGITUDE] <= bounds[Geodesy.EAST] + DELTA_DEGREES);
+            maxLongitude = Math.max(maxLongitude, point[Geodesy.LONGITUDE]);
+        }
+        assertEquals(latitude + radius / Geodesy.METERS_PER_DEGREE, bounds[Geodesy.NORTH], DELTA_DEGREES);
+        assertEquals(latitude - radius / Geodesy.METERS_PER_DEGREE, bounds[Geodesy.SOUTH], DELTA_DEGREES);
+        // Sampling every degree finds the tangent meridian to within a few millimeters
+        assertEquals(bounds[Geodesy.EAST], maxLongitude, 1e-6);
+    }
+
+    @Test
+    public void testBoundsAcrossAntimeridian() {
+        final double[] bounds = new double[4];
+        Geodesy.getBoundsAroundCircle(0, 179.99, 10_000, bounds);
+
+        assertTrue(bounds[Geodesy.WEST] > bounds[Geodesy.EAST]);
+        assertEquals(179.99 - 10_000 / Geodesy.METERS_PER_DEGREE, bounds[Geodesy.WEST], DELTA_DEGREES);
+        assertEquals(-180 + 10_000 / Geodesy.METERS_PER_DEGREE - 0.01, bounds[Geodesy.EAST], DELTA_DEGREES);
+    }
+
+    @Test
+    public void testBoundsAroundPoleSpanEveryLongitude() {
+        final double[] bounds = new double[4];
+        Geodesy.getBoundsAroundCircle(89.99, 10, 5000, bounds);
+
+        assertEquals(90, bounds[Geodesy.NORTH], 0);
+        assertEquals(-180, bounds[Geodesy.WEST], 0);
+        assertEquals(180, bounds[Geodesy.EAST], 0);
+        assertEquals(89.99 - 5000 / Geodesy.METERS_PER_DEGREE, bounds[Geodesy.SOUTH], DELTA_DEGREES);
+    }
+
+    @Test
+    public void testNormalizeLongitude() {
+        assertEquals(10, Geodesy.normalizeLongitude(10), 0);
+        assertEquals(-180, Geodesy.normalizeLongitude(180), 0);
+        assertEquals(-170, Geodesy.normalizeLongitude(190), DELTA_DEGREES);
+        assertEquals(170, Geodesy.normalizeLongitude(-190), DELTA_DEGREES);
+        assertEquals(-180, Geodesy.normalizeLongitude(540), 0);
+    }
+
+    // The great circle distance from the straight-line distance between the points on a unit sphere
+    private static double getChordArcMeters(final double latitude0,
+                                            final double longitude0,
+                                            final double latitude1,
+                                            final double longitude1) {
+        final double phi0 = Math.toRadians(latitude0);
+        final double phi1 = Math.toRadians(latitude1);
+        final double lambda0 = Math.toRadians(longitude0);
+        final double lambda1 = Math.toRadians(longitude1);
+        final double x = Math.cos(phi1) * Math.cos(lambda1) - Math.cos(phi0) * Math.cos(lambda0);
+        final double y = Math.cos(phi1) * Math.sin(lambda1) - Math.cos(phi0) * Math.sin(lambda0);
+        final double z = Math.sin(phi1) - Math.sin(phi0);
+        final double chord = Math.sqrt(x * x + y * y + z * z);
+        return 2 * Geodesy.EARTH_RADIUS_METERS * Math.asin(Math.min(chord / 2, 1));
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.location;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import ai.rideos.android.common.model.LatLng;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+public class NearestNeighborIndexTest {
+    private static final int RANDOM_QUERIES = 1000;
+
+    @Test
+    public void testEmptyIndexFindsNothing() {
+        final NearestNeighborIndex<LatLng> index = new NearestNeighborIndex<>(Collections.emptyList(), Optional::of);
+
+        assertEquals(0, index.size());
+        assertFalse(index.findNearest(new LatLng(0, 0)).isPresent());
+        assertTrue(index.findNearest(new LatLng(0, 0), 3).isEmpty());
+    }
+
+    @Test
+    public void testItemsWithoutLocationAreLeftOut() {
+        final List<String> items = Arrays.asList("located", "unlocated");
+        final NearestNeighborIndex<String> index = new NearestNeighborIndex<>(
+            items,
+            item -> item.equals("located") ? Optional.of(new LatLng(50, 50)) : Optional.empty()
+        );
+
+        assertEquals(1, index.size());
+        assertEquals(Collections.singletonList("located"), index.findNearest(new LatLng(0, 0), 2));
+    }
+
+    @Test
+    public void testNearestAcrossAntimeridianAndPole() {
+        final LatLng westOfAntimeridian = new LatLng(0, 179.9);
+        final LatLng acrossPole = new LatLng(89.9, 100);
+        final NearestNeighborIndex<LatLng> index = new NearestNeighborIndex<>(
+            Arrays.asList(new LatLng(0, -170), westOfAntimeridian, new LatLng(85, -80), acrossPole),
+            Optional::of
+        );
+
+        assertEquals(westOfAntimeridian, index.findNearest(new LatLng(0, -179.9)).get());
+        assertEquals(acrossPole, index.findNearest(new LatLng(89.9, -80)).get());
+    }
+
+    @Test
+    public void testNearestMatchesLinearSearch() {
+        final Random random = new Random(0);
+        final List<LatLng> locations = createRandomLocations(random, 300);
+        final NearestNeighborIndex<LatLng> index = new NearestNeighborIndex<>(locations, Optional::of);
+
+        for (int i = 0; i < RANDOM_QUERIES; i++) {
+            final LatLng query = new LatLng(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180);
+            final List<LatLng> expected = sortByDistance(locations, query).subList(0, 5);
+
+            assertEquals(expected.get(0), index.findNearest(query).get());
+            assertEquals(expected, index.findNearest(query, 5));
+        }
+    }
+
+    @Test
+    public void testDuplicateLocationsAreAllReturned() {
+        final LatLng location = new LatLng(10, 10);
+        final NearestNeighborIndex<Integer> index = new NearestNeighborIndex<>(
+            Arrays.asList(0, 1, 2, 3),
+            item -> Optional.of(item < 3 ? location : new LatLng(20, 20))
+        );
+
+        final List<Integer> nearest = new ArrayList<>(index.findNearest(location, 3));
+        Collections.sort(nearest);
+        assertEquals(Arrays.asList(0, 1, 2), nearest);
+        assertEquals(4, index.findNearest(location, 10).size());
+    }
+
+    private static List<LatLng> sortByDistance(final List<LatLng> locations, final LatLng query) {
+        return locations.stream()
+            .sorted(Comparator.comparingDouble(location -> Geodesy.getHaversineMeters(
+                query.getLatitude(),
+                query.getLongitude(),
+                location.getLatitude(),
+                location.getLongitude()
+            )))
+            .collect(Collectors.toList());
+    }
+
+    private static List<LatLng> createRandomLocations(final Random random, final int count) {
+        final List<LatLng> locations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            locations.add(new LatLng(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180));
+        }
+        return locations;
+    }
+}
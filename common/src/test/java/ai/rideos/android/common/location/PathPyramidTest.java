@@ -0,0 +1,116 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.location;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.PackedPath;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class PathPyramidTest {
+    private static final double METERS_PER_DEGREE = 6371008.8 * Math.PI / 180;
+    private static final int LONG_ROUTE_VERTEX_COUNT = 10_000;
+
+    @Test
+    public void testStraightPathIsTwoVerticesAtEveryLevel() {
+        final PackedPath.Builder builder = PackedPath.builder(101);
+        for (int i = 0; i <= 100; i++) {
+            builder.add(0, i * 0.001);
+        }
+        final PathPyramid pyramid = new PathPyramid(builder.build());
+
+        final PackedPath level = pyramid.getLevel(PathPyramid.MIN_ZOOM);
+        assertEquals(2, level.size());
+        for (int zoom = PathPyramid.MIN_ZOOM; zoom <= PathPyramid.MAX_ZOOM; zoom++) {
+            assertSame(level, pyramid.getLevel(zoom));
+        }
+    }
+
+    @Test
+    public void testDetailAppearsWhenZoomedIn() {
+        // A 10km path east along the equator, with a 100m detour to the north in the middle
+        final PackedPath path = PackedPath.builder(3)
+            .add(0, 0)
+            .add(100 / METERS_PER_DEGREE, 5000 / METERS_PER_DEGREE)
+            .add(0, 10000 / METERS_PER_DEGREE)
+            .build();
+        final PathPyramid pyramid = new PathPyramid(path);
+
+        // At zoom 8 a dp is about 600m, and at zoom 14 about 10m
+        assertEquals(2, pyramid.getLevel(8).size());
+        assertEquals(path, pyramid.getLevel(14));
+    }
+
+    @Test
+    public void testLevelsAreNestedAndEndpointsAreKept() {
+        final PackedPath path = createRandomPath(LONG_ROUTE_VERTEX_COUNT);
+        final PathPyramid pyramid = new PathPyramid(path);
+
+        PackedPath lessDetailedLevel = pyramid.getLevel(PathPyramid.MIN_ZOOM);
+        for (int zoom = PathPyramid.MIN_ZOOM; zoom <= PathPyramid.MAX_ZOOM; zoom++) {
+            final PackedPath level = pyramid.getLevel(zoom);
+            assertEquals(path.getFirst(), level.getFirst());
+            assertEquals(path.getLast(), level.getLast());
+            assertTrue(isSubsequence(lessDetailedLevel, level));
+            assertTrue(isSubsequence(level, path));
+            lessDetailedLevel = level;
+        }
+        assertTrue(pyramid.getLevel(PathPyramid.MIN_ZOOM).size() < pyramid.getLevel(PathPyramid.MAX_ZOOM).size());
+    }
+
+    @Test
+    public void testFractionalZoomRoundsUp() {
+        final PathPyramid pyramid = new PathPyramid(createRandomPath(1000));
+
+        assertSame(pyramid.getLevel(13), pyramid.getLevel(12.2f));
+        assertSame(pyramid.getLevel(PathPyramid.MIN_ZOOM), pyramid.getLevel(0));
+        assertSame(pyramid.getPath(), pyramid.getLevel(PathPyramid.MAX_ZOOM + 1));
+    }
+
+    // A random walk around San Francisco with steps of roughly 10 meters
+    private static PackedPath createRandomPath(final int vertexCount) {
+        final Random random = new Random(0);
+        final PackedPath.Builder builder = PackedPath.builder(vertexCount);
+        double latitude = 37.7749;
+        double longitude = -122.4194;
+        for (int i = 0; i < vertexCount; i++) {
+            latitude += random.nextGaussian() * 0.0001;
+            longitude += random.nextGaussian() * 0.0001;
+            builder.add(latitude, longitude);
+        }
+        return builder.build();
+    }
+
+    private static boolean isSubsequence(final PackedPath subsequence, final PackedPath path) {
+        final List<LatLng> vertices = path.asList();
+        int index = 0;
+        for (final LatLng vertex : subsequence.asList()) {
+            while (index < vertices.size() && !vertices.get(index).equals(vertex)) {
+                index++;
+            }
+            if (index == vertices.size()) {
+                return false;
+            }
+            index++;
+        }
+        return true;
+    }
+}
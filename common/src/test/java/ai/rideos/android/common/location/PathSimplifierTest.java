@@ -0,0 +1,216 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.location;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import ai.rideos.android.common.location.PathSimplifier.Settings;
+import ai.rideos.android.common.location.PathSimplifier.SimplifiedPath;
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.PackedPath;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+public class PathSimplifierTest {
+    // Paths in these tests are built from offsets in meters around the origin
+    private static final double METERS_PER_DEGREE = 6371008.8 * Math.PI / 180;
+    private static final double DELTA_METERS = 1e-6;
+    private static final int LONG_ROUTE_VERTEX_COUNT = 10_000;
+    private static final int LONG_ROUTE_MAX_VERTICES = 500;
+
+    @Test
+    public void testSmallPathIsReturnedUnchanged() {
+        final PackedPath path = new PathBuilder().add(0, 0).add(5, 1).add(10, 0).build();
+
+        final SimplifiedPath simplified = new PathSimplifier(Settings.defaults(3)).simplify(path);
+
+        assertSame(path, simplified.getPath());
+        assertEquals(0, simplified.getMaxDeviationMeters(), 0);
+    }
+
+    @Test
+    public void testCollinearVerticesAreRemovedAndTurnsKept() {
+        // East 500m, north 500m, then west 500m, with a vertex every 5m
+        final PathBuilder builder = new PathBuilder();
+        for (int i = 0; i < 100; i++) {
+            builder.add(i * 5, 0);
+        }
+        for (int i = 0; i < 100; i++) {
+            builder.add(500, i * 5);
+        }
+        for (int i = 0; i <= 100; i++) {
+            builder.add(500 - i * 5, 500);
+        }
+
+        final SimplifiedPath simplified = new PathSimplifier(Settings.defaults(10)).simplify(builder.build());
+
+        assertPathEquals(new PathBuilder().add(0, 0).add(500, 0).add(500, 500).add(0, 500).build(), simplified);
+        assertEquals(2, simplified.getManeuverCount());
+        assertEquals(0, simplified.getMaxDeviationMeters(), DELTA_METERS);
+    }
+
+    @Test
+    public void testTurnIsKeptOverLargerDeviation() {
+        // A gentle 1km arc bulging 100m to the north, followed by a sharp right turn and a 20m stub to the south. The
+        // arc deviates much more than the stub, but the turn must be kept.
+        final PathBuilder builder = new PathBuilder();
+        for (int i = 0; i <= 100; i++) {
+            final double east = i * 10;
+            builder.add(east, 100 * Math.sin(Math.PI * east / 1000));
+        }
+        builder.add(1000, -10).add(1000, -20);
+
+        final SimplifiedPath simplified = new PathSimplifier(Settings.defaults(3)).simplify(builder.build());
+
+        assertPathEquals(new PathBuilder().add(0, 0).add(1000, 0).add(1000, -20).build(), simplified);
+        assertEquals(1, simplified.getManeuverCount());
+        assertEquals(100, simplified.getMaxDeviationMeters(), 0.1);
+    }
+
+    @Test
+    public void testJitterIsNotMistakenForTurns() {
+        // Straight east for 1km, zigzagging half a meter every 2m
+        final PathBuilder builder = new PathBuilder();
+        for (int i = 0; i <= 500; i++) {
+            builder.add(i * 2, i % 2 == 0 ? 0 : 0.5);
+        }
+
+        final SimplifiedPath simplified = new PathSimplifier(new Settings(50, 1, 30, 10)).simplify(builder.build());
+
+        assertEquals(0, simplified.getManeuverCount());
+        assertPathEquals(new PathBuilder().add(0, 0).add(1000, 0).build(), simplified);
+        assertEquals(0.5, simplified.getMaxDeviationMeters(), DELTA_METERS);
+    }
+
+    @Test
+    public void testSharpestTurnsAreKeptWhenTheyExceedTheBudget() {
+        // 100m steps, turning alternately left and right at every vertex, with the turns getting sharper along the path
+        final PathBuilder builder = new PathBuilder().add(0, 0);
+        double east = 0;
+        double north = 0;
+        double heading = 0;
+        for (int i = 1; i <= 10; i++) {
+            east += 100 * Math.cos(heading);
+            north += 100 * Math.sin(heading);
+            builder.add(east, north);
+            heading += Math.toRadians((i % 2 == 0 ? -1 : 1) * (32 + 5 * i));
+        }
+        final PackedPath path = builder.build();
+
+        final SimplifiedPath simplified = new PathSimplifier(Settings.defaults(5)).simplify(path);
+
+        assertEquals(3, simplified.getManeuverCount());
+        assertPathEquals(
+            PackedPath.fromLatLngs(Arrays.asList(path.get(0), path.get(7), path.get(8), path.get(9), path.get(10))),
+            simplified
+        );
+    }
+
+    @Test
+    public void testLongRouteMeetsBudgetAndReportsDeviation() {
+        final PackedPath path = createRandomPath(LONG_ROUTE_VERTEX_COUNT);
+
+        final SimplifiedPath simplified =
+            new PathSimplifier(Settings.defaults(LONG_ROUTE_MAX_VERTICES)).simplify(path);
+
+        assertEquals(LONG_ROUTE_MAX_VERTICES, simplified.getPath().size());
+        assertEquals(path.getFirst(), simplified.getPath().getFirst());
+        assertEquals(path.getLast(), simplified.getPath().getLast());
+        assertEquals(getMaxDeviationMeters(path, simplified.getPath()), simplified.getMaxDeviationMeters(), 1e-3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBudgetMustIncludeEndpoints() {
+        new Settings(1, 1, 30, 10);
+    }
+
+    // A random walk around the origin with steps of roughly 10 meters, turning at random every 20 steps
+    private static PackedPath createRandomPath(final int vertexCount) {
+        final Random random = new Random(0);
+        final PathBuilder builder = new PathBuilder();
+        double east = 0;
+        double north = 0;
+        double heading = 0;
+        for (int i = 0; i < vertexCount; i++) {
+            if (i % 20 == 0) {
+                heading += random.nextGaussian() * Math.PI / 4;
+            }
+            east += 10 * Math.cos(heading) + random.nextGaussian();
+            north += 10 * Math.sin(heading) + random.nextGaussian();
+            builder.add(east, north);
+        }
+        return builder.build();
+    }
+
+    // The furthest each original vertex is from the simplified segment that replaced it, measured independently
+    private static double getMaxDeviationMeters(final PackedPath original, final PackedPath simplified) {
+        double maxDeviation = 0;
+        int start = 0;
+        for (int end = 1; end < simplified.size(); end++) {
+            final LatLng startVertex = simplified.get(end - 1);
+            final LatLng endVertex = simplified.get(end);
+            while (!original.get(start).equals(startVertex)) {
+                start++;
+            }
+            for (int i = start + 1; !original.get(i).equals(endVertex); i++) {
+                maxDeviation = Math.max(maxDeviation, getDistanceToSegment(original.get(i), startVertex, endVertex));
+            }
+        }
+        return maxDeviation;
+    }
+
+    private static double getDistanceToSegment(final LatLng point, final LatLng start, final LatLng end) {
+        final double[] segment = toMeters(end, start);
+        final double[] offset = toMeters(point, start);
+        final double lengthSquared = segment[0] * segment[0] + segment[1] * segment[1];
+        final double fraction = lengthSquared == 0
+            ? 0
+            : Math.max(0, Math.min(1, (offset[0] * segment[0] + offset[1] * segment[1]) / lengthSquared));
+        return Math.hypot(offset[0] - fraction * segment[0], offset[1] - fraction * segment[1]);
+    }
+
+    // Paths in these tests are near the equator, so degrees of longitude and latitude are the same length
+    private static double[] toMeters(final LatLng point, final LatLng origin) {
+        return new double[]{
+            (point.getLongitude() - origin.getLongitude()) * METERS_PER_DEGREE,
+            (point.getLatitude() - origin.getLatitude()) * METERS_PER_DEGREE
+        };
+    }
+
+    private static void assertPathEquals(final PackedPath expected, final SimplifiedPath actual) {
+        assertEquals(expected.size(), actual.getPath().size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getLatitude(i), actual.getPath().getLatitude(i), 1e-9);
+            assertEquals(expected.getLongitude(i), actual.getPath().getLongitude(i), 1e-9);
+        }
+    }
+
+    private static class PathBuilder {
+        private final PackedPath.Builder builder = PackedPath.builder(16);
+
+        private PathBuilder add(final double eastMeters, final double northMeters) {
+            builder.add(northMeters / METERS_PER_DEGREE, eastMeters / METERS_PER_DEGREE);
+            return this;
+        }
+
+        private PackedPath build() {
+            return builder.build();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.location;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import ai.rideos.android.common.location.RouteProgressTracker.RouteProgress;
+import ai.rideos.android.common.location.RouteProgressTracker.Settings;
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.PackedPath;
+import ai.rideos.android.common.model.RouteInfoModel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RouteProgressTrackerTest {
+    // A straight route east along the equator, with a vertex every 0.001 degrees (about 111m)
+    private static final int VERTEX_COUNT = 101;
+    private static final double VERTEX_SPACING_DEGREES = 0.001;
+    private static final double METERS_PER_DEGREE = 6371008.8 * Math.PI / 180;
+    private static final double ROUTE_LENGTH_METERS = (VERTEX_COUNT - 1) * VERTEX_SPACING_DEGREES * METERS_PER_DEGREE;
+    private static final long TRAVEL_TIME_MILLIS = 100_000;
+    private static final double DELTA_METERS = 0.01;
+
+    private RouteInfoModel route;
+    private RouteProgressTracker trackerUnderTest;
+
+    @Before
+    public void setUp() {
+        route = new RouteInfoModel(createStraightPath(), TRAVEL_TIME_MILLIS, ROUTE_LENGTH_METERS);
+        trackerUnderTest = new RouteProgressTracker(new Settings(50, 500));
+    }
+
+    @Test
+    public void testProgressAtStartOfRoute() {
+        final RouteProgress progress = trackerUnderTest.update(route, new LatLng(0, 0));
+
+        assertEquals(ROUTE_LENGTH_METERS, progress.getRemainingDistanceMeters(), DELTA_METERS);
+        assertEquals(TRAVEL_TIME_MILLIS, progress.getRemainingTimeMillis());
+        assertEquals(route.getPath(), progress.getRemainingPath());
+        assertFalse(progress.isOffRoute());
+    }
+
+    @Test
+    public void testProgressIsScaledAlongRoute() {
+        // A quarter of the way along, slightly north of the route
+        final RouteProgress progress = trackerUnderTest.update(route, new LatLng(0.0001, 0.025));
+
+        assertEquals(ROUTE_LENGTH_METERS * 0.75, progress.getRemainingDistanceMeters(), DELTA_METERS);
+        assertEquals(TRAVEL_TIME_MILLIS * 3 / 4, progress.getRemainingTimeMillis());
+        assertEquals(0.0001 * METERS_PER_DEGREE, progress.getDistanceFromRouteMeters(), DELTA_METERS);
+        assertFalse(progress.isOffRoute());
+    }
+
+    @Test
+    public void testRemainingPathStartsAtProjectedPosition() {
+        final RouteProgress progress = trackerUnderTest.update(route, new LatLng(0.0001, 0.0105));
+        final PackedPath remainingPath = progress.getRemainingPath();
+
+        assertEquals(new LatLng(0, 0.0105), remainingPath.getFirst());
+        assertEquals(route.getPath().subPath(11, VERTEX_COUNT), remainingPath.subPath(1, remainingPath.size()));
+    }
+
+    @Test
+    public void testProgressAtEndOfRoute() {
+        final RouteProgress progress = trackerUnderTest.update(route, new LatLng(0, 0.1));
+
+        assertEquals(0, progress.getRemainingDistanceMeters(), DELTA_METERS);
+        assertEquals(0, progress.getRemainingTimeMillis());
+        assertEquals(1, progress.getRemainingPath().size());
+    }
+
+    @Test
+    public void testPositionFarFromRouteIsOffRoute() {
+        trackerUnderTest.update(route, new LatLng(0, 0.02));
+        final RouteProgress progress = trackerUnderTest.update(route, new LatLng(0.01, 0.021));
+
+        assertTrue(progress.isOffRoute());
+        assertEquals(0.01 * METERS_PER_DEGREE, progress.getDistanceFromRouteMeters(), 1);
+    }
+
+    @Test
+    public void testOffRoutePositionDoesNotMoveProgress() {
+        trackerUnderTest.update(route, new LatLng(0, 0.02));
+        trackerUnderTest.update(route, new LatLng(0.01, 0.09));
+
+        // Slightly behind the last position on the route, which projects onto the segment it was last on
+        final RouteProgress progress = trackerUnderTest.update(route, new LatLng(0, 0.0201));
+        assertEquals(ROUTE_LENGTH_METERS * 0.799, progress.getRemainingDistanceMeters(), DELTA_METERS);
+    }
+
+    @Test
+    public void testJumpBeyondLookAheadIsFound() {
+        trackerUnderTest.update(route, new LatLng(0, 0.01));
+        final RouteProgress progress = trackerUnderTest.update(route, new LatLng(0, 0.08));
+
+        assertEquals(ROUTE_LENGTH_METERS * 0.2, progress.getRemainingDistanceMeters(), DELTA_METERS);
+        assertFalse(progress.isOffRoute());
+    }
+
+    @Test
+    public void testProgressIsKeptForIdenticalRoute() {
+        trackerUnderTest.update(route, new LatLng(0, 0.05));
+        final RouteInfoModel polledRoute = new RouteInfoModel(
+            createStraightPath(),
+            TRAVEL_TIME_MILLIS,
+            ROUTE_LENGTH_METERS
+        );
+
+        final RouteProgress progress = trackerUnderTest.update(polledRoute, new LatLng(0, 0.051));
+        assertEquals(ROUTE_LENGTH_METERS * 0.49, progress.getRemainingDistanceMeters(), DELTA_METERS);
+    }
+
+    @Test
+    public void testEmptyRoute() {
+        final RouteProgress progress = trackerUnderTest.update(
+            new RouteInfoModel(Collections.emptyList(), 0, 0),
+            new LatLng(0, 0)
+        );
+        assertTrue(progress.isOffRoute());
+        assertTrue(progress.getRemainingPath().isEmpty());
+    }
+
+    @Test
+    public void testSingleVertexRoute() {
+        final RouteProgress progress = trackerUnderTest.update(
+            new RouteInfoModel(Collections.singletonList(new LatLng(0, 0)), 1000, 0),
+            new LatLng(0, 0.0001)
+        );
+        assertEquals(0, progress.getRemainingDistanceMeters(), DELTA_METERS);
+        assertEquals(0, progress.getRemainingTimeMillis());
+        assertFalse(progress.isOffRoute());
+    }
+
+    private static List<LatLng> createStraightPath() {
+        final List<LatLng> path = new ArrayList<>(VERTEX_COUNT);
+        for (int i = 0; i < VERTEX_COUNT; i++) {
+            path.add(new LatLng(0, i * VERTEX_SPACING_DEGREES));
+        }
+        return path;
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class FixedBucketHistogramTest {
+    @Test
+    public void testEmptyHistogramReturnsZero() {
+        final FixedBucketHistogram histogram = new FixedBucketHistogram(10, 100);
+        assertEquals(0, histogram.getPercentile(50));
+        assertEquals(0, histogram.getMean(), 0);
+    }
+
+    @Test
+    public void testPercentilesUseBucketUpperBounds() {
+        final FixedBucketHistogram histogram = new FixedBucketHistogram(10, 100, 1000);
+        for (int i = 0; i < 90; i++) {
+            histogram.record(5);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(500);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(10, histogram.getPercentile(50));
+        assertEquals(10, histogram.getPercentile(90));
+        assertEquals(500, histogram.getPercentile(95));
+        assertEquals(500, histogram.getMax());
+    }
+
+    @Test
+    public void testValuesOnBoundaryFallInLowerBucket() {
+        final FixedBucketHistogram histogram = new FixedBucketHistogram(10, 100);
+        histogram.record(10);
+        histogram.record(100);
+        assertEquals(10, histogram.getPercentile(50));
+        assertEquals(100, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void testOverflowBucketReturnsMax() {
+        final FixedBucketHistogram histogram = new FixedBucketHistogram(10);
+        histogram.record(5000);
+        assertEquals(5000, histogram.getPercentile(99));
+    }
+
+    @Test
+    public void testMeanAndReset() {
+        final FixedBucketHistogram histogram = new FixedBucketHistogram(10, 100);
+        histogram.record(2);
+        histogram.record(4);
+        assertEquals(3, histogram.getMean(), 0.001);
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class PackedPathTest {
+    @Test
+    public void testBuilderRoundTripsCoordinatesExactly() {
+        final List<LatLng> latLngs = createLatLngs(0, 100);
+        final PackedPath path = PackedPath.fromLatLngs(latLngs);
+
+        assertEquals(100, path.size());
+        assertEquals(latLngs, path.asList());
+        assertEquals(latLngs.get(0), path.getFirst());
+        assertEquals(latLngs.get(99), path.getLast());
+    }
+
+    @Test
+    public void testBuilderGrowsPastExpectedSize() {
+        final PackedPath.Builder builder = PackedPath.builder(1);
+        for (final LatLng latLng : createLatLngs(0, 10)) {
+            builder.add(latLng);
+        }
+        assertEquals(createLatLngs(0, 10), builder.build().asList());
+    }
+
+    @Test
+    public void testEmptyPath() {
+        assertTrue(PackedPath.fromLatLngs(Collections.emptyList()).isEmpty());
+        assertTrue(PackedPath.builder(10).build().isEmpty());
+        assertEquals(Collections.emptyList(), PackedPath.empty().asList());
+    }
+
+    @Test
+    public void testSubPath() {
+        final List<LatLng> latLngs = createLatLngs(0, 10);
+        final PackedPath subPath = PackedPath.fromLatLngs(latLngs).subPath(2, 7);
+
+        assertEquals(latLngs.subList(2, 7), subPath.asList());
+        assertEquals(latLngs.subList(4, 6), subPath.subPath(2, 4).asList());
+        assertTrue(subPath.subPath(3, 3).isEmpty());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testSubPathOutOfRange() {
+        PackedPath.fromLatLngs(createLatLngs(0, 10)).subPath(5, 11);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOutOfRange() {
+        PackedPath.fromLatLngs(createLatLngs(0, 10)).subPath(2, 4).get(2);
+    }
+
+    @Test
+    public void testConcat() {
+        final List<LatLng> first = createLatLngs(0, 5);
+        final List<LatLng> second = createLatLngs(5, 3);
+        final List<LatLng> third = createLatLngs(8, 4);
+        final PackedPath path = PackedPath.concat(Arrays.asList(
+            PackedPath.fromLatLngs(first),
+            PackedPath.empty(),
+            PackedPath.fromLatLngs(second),
+            PackedPath.fromLatLngs(third)
+        ));
+
+        final List<LatLng> expected = createLatLngs(0, 12);
+        assertEquals(expected, path.asList());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getLatitude(), path.getLatitude(i), 0);
+            assertEquals(expected.get(i).getLongitude(), path.getLongitude(i), 0);
+        }
+    }
+
+    @Test
+    public void testSubPathAcrossConcatenatedSegments() {
+        final PackedPath path = PackedPath.fromLatLngs(createLatLngs(0, 5))
+            .concat(PackedPath.fromLatLngs(createLatLngs(5, 5)))
+            .concat(PackedPath.fromLatLngs(createLatLngs(10, 5)));
+
+        assertEquals(createLatLngs(3, 9), path.subPath(3, 12).asList());
+        assertEquals(createLatLngs(5, 5), path.subPath(5, 10).asList());
+    }
+
+    @Test
+    public void testForEachVisitsVerticesInOrder() {
+        final PackedPath path = PackedPath.fromLatLngs(createLatLngs(0, 4))
+            .concat(PackedPath.fromLatLngs(createLatLngs(4, 4)))
+            .subPath(1, 7);
+        final List<LatLng> visited = new ArrayList<>();
+        path.forEach((latitude, longitude) -> visited.add(new LatLng(latitude, longitude)));
+        assertEquals(createLatLngs(1, 6), visited);
+    }
+
+    @Test
+    public void testEqualsDoesNotDependOnSegments() {
+        final PackedPath singleSegment = PackedPath.fromLatLngs(createLatLngs(0, 10));
+        final PackedPath concatenated = PackedPath.fromLatLngs(createLatLngs(0, 4))
+            .concat(PackedPath.fromLatLngs(createLatLngs(4, 6)));
+
+        assertEquals(singleSegment, concatenated);
+        assertEquals(singleSegment.hashCode(), concatenated.hashCode());
+        assertNotEquals(singleSegment, singleSegment.subPath(0, 9));
+    }
+
+    @Test
+    public void testRouteInfoModelEquality() {
+        final List<LatLng> latLngs = createLatLngs(0, 10);
+        assertEquals(
+            new RouteInfoModel(latLngs, 1000, 100),
+            new RouteInfoModel(PackedPath.fromLatLngs(latLngs), 1000, 100)
+        );
+    }
+
+    private static List<LatLng> createLatLngs(final int start, final int count) {
+        final List<LatLng> latLngs = new ArrayList<>(count);
+        for (int i = start; i < start + count; i++) {
+            latLngs.add(new LatLng(getLatitude(i), getLongitude(i)));
+        }
+        return latLngs;
+    }
+
+    private static double getLatitude(final int index) {
+        return 37.7749 + index * 0.0001;
+    }
+
+    private static double getLongitude(final int index) {
+        return -122.4194 - index * 0.0001;
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.model.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.PackedPath;
+import org.junit.Test;
+
+public class LatLngBoundsTest {
+    @Test
+    public void testSinglePoint() {
+        final LatLngBounds bounds = LatLngBounds.builder().include(10, 20).build();
+
+        assertEquals(new LatLng(10, 20), bounds.getSouthwestCorner());
+        assertEquals(new LatLng(10, 20), bounds.getNortheastCorner());
+    }
+
+    @Test
+    public void testBoundsIncludeEveryPoint() {
+        final LatLngBounds bounds = LatLngBounds.builder()
+            .include(1, 2)
+            .include(-3, 4)
+            .include(new LatLng(5, -6))
+            .build();
+
+        assertEquals(new LatLngBounds(new LatLng(-3, -6), new LatLng(5, 4)), bounds);
+        assertFalse(bounds.crossesAntimeridian());
+    }
+
+    @Test
+    public void testBoundsGrowTheShorterWayAcrossAntimeridian() {
+        final LatLngBounds bounds = LatLngBounds.builder()
+            .include(0, 179)
+            .include(1, -179)
+            .include(2, 178)
+            .build();
+
+        assertEquals(new LatLngBounds(new LatLng(0, 178), new LatLng(2, -179)), bounds);
+        assertTrue(bounds.crossesAntimeridian());
+    }
+
+    @Test
+    public void testPointsInsideCrossingBoundsDoNotGrowThem() {
+        final LatLngBounds bounds = LatLngBounds.builder()
+            .include(0, 170)
+            .include(0, -170)
+            .include(0, 180)
+            .include(0, -175)
+            .build();
+
+        assertEquals(new LatLngBounds(new LatLng(0, 170), new LatLng(0, -170)), bounds);
+    }
+
+    @Test
+    public void testToBuilderGrowsExistingBounds() {
+        final LatLngBounds bounds = new LatLngBounds(new LatLng(0, 170), new LatLng(1, -170));
+
+        assertEquals(bounds, bounds.toBuilder().include(0.5, 175).build());
+        assertEquals(
+            new LatLngBounds(new LatLng(0, 170), new LatLng(3, -160)),
+            bounds.toBuilder().include(3, -160).build()
+        );
+    }
+
+    @Test
+    public void testPathBoundsAreCached() {
+        final PackedPath path = PackedPath.builder(3).add(0, 0).add(2, -1).add(1, 3).build();
+
+        final LatLngBounds bounds = path.getBounds();
+
+        assertEquals(new LatLngBounds(new LatLng(0, -1), new LatLng(2, 3)), bounds);
+        assertSame(bounds, path.getBounds());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEmptyBoundsCannotBeBuilt() {
+        LatLngBounds.builder().build();
+    }
+}
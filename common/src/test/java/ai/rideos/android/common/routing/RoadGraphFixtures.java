@@ -0,0 +1,198 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.routing;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Builds road graph files for tests, in the same format as python_scripts/osm_to_road_graph.py.
+ */
+class RoadGraphFixtures {
+    private static final double EARTH_RADIUS_METERS = 6371008.8;
+
+    static class Builder {
+        private final List<double[]> nodes = new ArrayList<>();
+        private final List<List<double[]>> edgesBySource = new ArrayList<>();
+        private int edgeCount = 0;
+
+        int addNode(final double latitude, final double longitude) {
+            nodes.add(new double[]{latitude, longitude});
+            edgesBySource.add(new ArrayList<>());
+            return nodes.size() - 1;
+        }
+
+        Builder addEdge(final int source, final int target, final double speedMetersPerSecond) {
+            final double lengthMeters = getHaversineMeters(
+                nodes.get(source)[0],
+                nodes.get(source)[1],
+                nodes.get(target)[0],
+                nodes.get(target)[1]
+            );
+            edgesBySource.get(source).add(new double[]{target, lengthMeters, lengthMeters / speedMetersPerSecond});
+            edgeCount++;
+            return this;
+        }
+
+        Builder addRoad(final int from, final int to, final double speedMetersPerSecond) {
+            return addEdge(from, to, speedMetersPerSecond).addEdge(to, from, speedMetersPerSecond);
+        }
+
+        ByteBuffer toBuffer() {
+            final int nodeCount = nodes.size();
+            final ByteBuffer buffer = ByteBuffer
+                .allocate(RoadGraph.HEADER_BYTES + 4 * (3 * nodeCount + 1 + 3 * edgeCount))
+                .order(ByteOrder.LITTLE_ENDIAN);
+            double maxSpeed = 0;
+            for (final List<double[]> edges : edgesBySource) {
+                for (final double[] edge : edges) {
+                    maxSpeed = Math.max(maxSpeed, edge[1] / edge[2]);
+                }
+            }
+            buffer.putInt(RoadGraph.MAGIC)
+                .putInt(RoadGraph.VERSION)
+                .putInt(nodeCount)
+                .putInt(edgeCount)
+                .putFloat((float) (maxSpeed * (1 + 1e-6)));
+            buffer.position(RoadGraph.HEADER_BYTES);
+            for (final double[] node : nodes) {
+                buffer.putInt((int) Math.round(node[0] * 1e7));
+            }
+            for (final double[] node : nodes) {
+                buffer.putInt((int) Math.round(node[1] * 1e7));
+            }
+            int offset = 0;
+            for (final List<double[]> edges : edgesBySource) {
+                buffer.putInt(offset);
+                offset += edges.size();
+            }
+            buffer.putInt(offset);
+            for (int field = 0; field < 3; field++) {
+                for (final List<double[]> edges : edgesBySource) {
+                    for (final double[] edge : edges) {
+                        if (field == 0) {
+                            buffer.putInt((int) edge[0]);
+                        } else {
+                            buffer.putFloat((float) edge[field]);
+                        }
+                    }
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        RoadGraph build() throws IOException {
+            return RoadGraph.fromBuffer(toBuffer());
+        }
+
+        File writeTo(final File file) throws IOException {
+            final ByteBuffer buffer = toBuffer();
+            try (final FileOutputStream output = new FileOutputStream(file)) {
+                output.getChannel().write(buffer);
+            }
+            return file;
+        }
+    }
+
+    /**
+     * Create a grid of two-way roads with a random speed per road. Node r * columns + c is at row r and column c.
+     */
+    static Builder createGrid(final int rows, final int columns, final double spacingDegrees, final Random random) {
+        final Builder builder = new Builder();
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                builder.addNode(37.7 + row * spacingDegrees, -122.5 + column * spacingDegrees);
+            }
+        }
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                final int node = row * columns + column;
+                if (column + 1 < columns) {
+                    builder.addRoad(node, node + 1, 5 + random.nextDouble() * 25);
+                }
+                if (row + 1 < rows) {
+                    builder.addRoad(node, node + columns, 5 + random.nextDouble() * 25);
+                }
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * Return the graph converted from src/test/resources/road_graph/test_extract.osm.
+     */
+    static File getTestGraphFile() {
+        try {
+            return new File(RoadGraphFixtures.class.getClassLoader().getResource("road_graph/test_graph.bin").toURI());
+        } catch (final URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static double getHaversineMeters(final double latitude1,
+                                     final double longitude1,
+                                     final double latitude2,
+                                     final double longitude2) {
+        final double phi1 = Math.toRadians(latitude1);
+        final double phi2 = Math.toRadians(latitude2);
+        final double deltaPhi = phi2 - phi1;
+        final double deltaLambda = Math.toRadians(longitude2 - longitude1);
+        final double a = Math.pow(Math.sin(deltaPhi / 2), 2)
+            + Math.cos(phi1) * Math.cos(phi2) * Math.pow(Math.sin(deltaLambda / 2), 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.sqrt(a));
+    }
+
+    /**
+     * Fastest travel time between two nodes using Dijkstra's algorithm, as a reference for the router.
+     */
+    static double getFastestSeconds(final RoadGraph graph, final int origin, final int destination) {
+        final double[] seconds = new double[graph.getNodeCount()];
+        Arrays.fill(seconds, Double.MAX_VALUE);
+        final PriorityQueue<double[]> queue =
+            new PriorityQueue<>((first, second) -> Double.compare(first[0], second[0]));
+        seconds[origin] = 0;
+        queue.add(new double[]{0, origin});
+        while (!queue.isEmpty()) {
+            final double[] entry = queue.poll();
+            final int node = (int) entry[1];
+            if (entry[0] > seconds[node]) {
+                continue;
+            }
+            if (node == destination) {
+                return entry[0];
+            }
+            for (int edge = graph.getFirstEdge(node); edge < graph.getEdgeEnd(node); edge++) {
+                final int target = graph.getEdgeTarget(edge);
+                final double targetSeconds = entry[0] + graph.getEdgeTravelSeconds(edge);
+                if (targetSeconds < seconds[target]) {
+                    seconds[target] = targetSeconds;
+                    queue.add(new double[]{targetSeconds, target});
+                }
+            }
+        }
+        return Double.MAX_VALUE;
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.RouteInfoModel;
+import ai.rideos.android.common.routing.RoadGraphRouter.NoRouteException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RoadGraphRouterTest {
+    private static final double ROW_DEGREES = 0.002;
+    private static final double COLUMN_DEGREES = 0.0025;
+    // Graph coordinates are stored to 7 decimal places
+    private static final double COORDINATE_DELTA = 1e-7;
+
+    private RoadGraph testGraph;
+    private RoadGraphRouter routerUnderTest;
+
+    @Before
+    public void setUp() throws IOException {
+        testGraph = RoadGraph.open(RoadGraphFixtures.getTestGraphFile());
+        routerUnderTest = new RoadGraphRouter(testGraph);
+    }
+
+    @Test
+    public void testRouteTakesFasterRoadAroundSlowStreet() throws NoRouteException {
+        final RouteInfoModel route = routerUnderTest.route(getGridLatLng(1, 0), getGridLatLng(1, 3));
+
+        // Row 1 is a living street, so it is faster to drive down column 0, along the primary road and up column 3
+        assertPathEquals(
+            Arrays.asList(
+                getGridLatLng(1, 0),
+                getGridLatLng(0, 0),
+                getGridLatLng(0, 1),
+                getGridLatLng(0, 2),
+                getGridLatLng(0, 3),
+                getGridLatLng(1, 3)
+            ),
+            route.getRoute()
+        );
+        final double expectedMeters = 2 * getMeters(1, 0, 0, 0) + getMeters(0, 0, 0, 3);
+        assertEquals(expectedMeters, route.getTravelDistanceMeters(), 1);
+        assertEquals(
+            2 * getMeters(1, 0, 0, 0) / (30 / 3.6) + getMeters(0, 0, 0, 3) / (40 * 1.609344 / 3.6),
+            route.getTravelTimeMillis() / 1000.0,
+            0.01
+        );
+    }
+
+    @Test
+    public void testRouteRespectsOneWayRoads() throws NoRouteException {
+        // Column 3 can only be driven north, so going south has to leave it
+        final RouteInfoModel northbound = routerUnderTest.route(getGridLatLng(0, 3), getGridLatLng(1, 3));
+        final RouteInfoModel southbound = routerUnderTest.route(getGridLatLng(1, 3), getGridLatLng(0, 3));
+
+        assertEquals(2, northbound.getPath().size());
+        assertTrue(southbound.getPath().size() > 2);
+        assertTrue(southbound.getTravelTimeMillis() > northbound.getTravelTimeMillis());
+    }
+
+    @Test
+    public void testRouteIgnoresFootways() throws NoRouteException {
+        final RouteInfoModel route = routerUnderTest.route(getGridLatLng(0, 0), getGridLatLng(3, 3));
+
+        // Driving the grid covers at least the distance along both sides, not the diagonal footway
+        assertTrue(route.getTravelDistanceMeters() >= getMeters(0, 0, 3, 0) + getMeters(0, 0, 0, 3) - 1);
+    }
+
+    @Test
+    public void testPointsOffTheGraphAreConnectedToNearestNodes() throws NoRouteException {
+        final LatLng origin = new LatLng(37.7701, -122.4199);
+        final LatLng destination = new LatLng(37.7699, -122.4126);
+
+        final RouteInfoModel route = routerUnderTest.route(origin, destination);
+
+        assertPathEquals(
+            Arrays.asList(
+                origin,
+                getGridLatLng(0, 0),
+                getGridLatLng(0, 1),
+                getGridLatLng(0, 2),
+                getGridLatLng(0, 3),
+                destination
+            ),
+            route.getRoute()
+        );
+        assertTrue(route.getTravelDistanceMeters() > getMeters(0, 0, 0, 3));
+    }
+
+    @Test(expected = NoRouteException.class)
+    public void testDisconnectedRoadHasNoRoute() throws NoRouteException {
+        routerUnderTest.route(getGridLatLng(0, 0), new LatLng(37.8, -122.4));
+    }
+
+    @Test
+    public void testWaypointsAreRoutedLegByLeg() throws NoRouteException {
+        final List<RouteInfoModel> legs = routerUnderTest.route(Arrays.asList(
+            getGridLatLng(0, 0),
+            getGridLatLng(0, 2),
+            getGridLatLng(2, 2)
+        ));
+
+        assertEquals(2, legs.size());
+        assertEquals(routerUnderTest.route(getGridLatLng(0, 0), getGridLatLng(0, 2)), legs.get(0));
+        assertEquals(routerUnderTest.route(getGridLatLng(0, 2), getGridLatLng(2, 2)), legs.get(1));
+    }
+
+    @Test
+    public void testRoutesAreFastestOnRandomGrid() throws IOException, NoRouteException {
+        final Random random = new Random(3);
+        final int rows = 30;
+        final int columns = 30;
+        final RoadGraph graph = RoadGraphFixtures.createGrid(rows, columns, 0.002, random).build();
+        final RoadGraphRouter router = new RoadGraphRouter(graph);
+
+        for (int i = 0; i < 50; i++) {
+            final int origin = random.nextInt(rows * columns);
+            final int destination = random.nextInt(rows * columns);
+            final RouteInfoModel route = router.route(
+                new LatLng(graph.getLatitude(origin), graph.getLongitude(origin)),
+                new LatLng(graph.getLatitude(destination), graph.getLongitude(destination))
+            );
+            assertEquals(
+                RoadGraphFixtures.getFastestSeconds(graph, origin, destination),
+                route.getTravelTimeMillis() / 1000.0,
+                0.001
+            );
+        }
+    }
+
+    private static void assertPathEquals(final List<LatLng> expected, final List<LatLng> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getLatitude(), actual.get(i).getLatitude(), COORDINATE_DELTA);
+            assertEquals(expected.get(i).getLongitude(), actual.get(i).getLongitude(), COORDINATE_DELTA);
+        }
+    }
+
+    private static LatLng getGridLatLng(final int row, final int column) {
+        return new LatLng(37.77 + row * ROW_DEGREES, -122.42 + column * COLUMN_DEGREES);
+    }
+
+    private static double getMeters(final int fromRow, final int fromColumn, final int toRow, final int toColumn) {
+        final LatLng from = getGridLatLng(fromRow, fromColumn);
+        final LatLng to = getGridLatLng(toRow, toColumn);
+        return RoadGraphFixtures.getHaversineMeters(
+            from.getLatitude(),
+            from.getLongitude(),
+            to.getLatitude(),
+            to.getLongitude()
+        );
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.routing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.junit.Test;
+
+public class RoadGraphTest {
+    private static final double DELTA = 1e-6;
+
+    @Test
+    public void testOpensConvertedExtract() throws IOException {
+        final RoadGraph graph = RoadGraph.open(RoadGraphFixtures.getTestGraphFile());
+
+        // The 4x4 grid and the disconnected road. The footway and the node outside the extract are dropped.
+        assertEquals(18, graph.getNodeCount());
+        assertEquals(44, graph.getEdgeCount());
+        // The primary road's 40 mph limit
+        assertEquals(40 * 1609.344 / 3600, graph.getMaxSpeedMetersPerSecond(), 0.01);
+    }
+
+    @Test
+    public void testConvertedExtractKeepsOneWayRoads() throws IOException {
+        final RoadGraph graph = RoadGraph.open(RoadGraphFixtures.getTestGraphFile());
+        // Column 3 can only be driven north
+        final int south = graph.findNearestNode(37.770, -122.4125);
+        final int north = graph.findNearestNode(37.772, -122.4125);
+
+        assertEquals(1, countEdges(graph, south, north));
+        assertEquals(0, countEdges(graph, north, south));
+    }
+
+    @Test
+    public void testReadsNodesAndEdges() throws IOException {
+        final RoadGraphFixtures.Builder builder = new RoadGraphFixtures.Builder();
+        final int first = builder.addNode(37.7749, -122.4194);
+        final int second = builder.addNode(37.7755, -122.4194);
+        builder.addEdge(first, second, 10);
+        final RoadGraph graph = builder.build();
+
+        assertEquals(2, graph.getNodeCount());
+        assertEquals(1, graph.getEdgeCount());
+        assertEquals(37.7755, graph.getLatitude(second), DELTA);
+        assertEquals(-122.4194, graph.getLongitude(second), DELTA);
+        assertEquals(0, graph.getFirstEdge(first));
+        assertEquals(1, graph.getEdgeEnd(first));
+        assertEquals(1, graph.getFirstEdge(second));
+        assertEquals(1, graph.getEdgeEnd(second));
+        assertEquals(second, graph.getEdgeTarget(0));
+        assertEquals(66.7, graph.getEdgeLengthMeters(0), 0.1);
+        assertEquals(6.67, graph.getEdgeTravelSeconds(0), 0.01);
+    }
+
+    @Test
+    public void testMemoryMappedGraphMatchesBuffer() throws IOException {
+        final RoadGraphFixtures.Builder builder = RoadGraphFixtures.createGrid(5, 5, 0.001, new Random(1));
+        final File file = File.createTempFile("road_graph", ".bin");
+        file.deleteOnExit();
+        final RoadGraph mappedGraph = RoadGraph.open(builder.writeTo(file));
+        final RoadGraph bufferGraph = builder.build();
+
+        assertEquals(bufferGraph.getEdgeCount(), mappedGraph.getEdgeCount());
+        for (int edge = 0; edge < bufferGraph.getEdgeCount(); edge++) {
+            assertEquals(bufferGraph.getEdgeTarget(edge), mappedGraph.getEdgeTarget(edge));
+            assertEquals(bufferGraph.getEdgeTravelSeconds(edge), mappedGraph.getEdgeTravelSeconds(edge), 0);
+        }
+    }
+
+    @Test
+    public void testFindNearestNodeMatchesLinearSearch() throws IOException {
+        final Random random = new Random(7);
+        final RoadGraphFixtures.Builder builder = new RoadGraphFixtures.Builder();
+        for (int i = 0; i < 500; i++) {
+            builder.addNode(37.7 + random.nextDouble() * 0.1, -122.5 + random.nextDouble() * 0.1);
+        }
+        final RoadGraph graph = builder.build();
+
+        for (int i = 0; i < 200; i++) {
+            // Include queries outside the graph's bounds
+            final double latitude = 37.68 + random.nextDouble() * 0.14;
+            final double longitude = -122.52 + random.nextDouble() * 0.14;
+            assertEquals(
+                getNearestNodeDistance(graph, latitude, longitude, findNearestNodeLinearly(graph, latitude, longitude)),
+                getNearestNodeDistance(graph, latitude, longitude, graph.findNearestNode(latitude, longitude)),
+                0
+            );
+        }
+    }
+
+    @Test
+    public void testEmptyGraphHasNoNearestNode() throws IOException {
+        assertEquals(-1, new RoadGraphFixtures.Builder().build().findNearestNode(37.7749, -122.4194));
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsOtherFiles() throws IOException {
+        RoadGraph.fromBuffer(ByteBuffer.wrap(new byte[RoadGraph.HEADER_BYTES]));
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsTruncatedFiles() throws IOException {
+        final ByteBuffer buffer = RoadGraphFixtures.createGrid(3, 3, 0.001, new Random(1)).toBuffer();
+        buffer.limit(buffer.limit() - 4);
+        RoadGraph.fromBuffer(buffer);
+    }
+
+    private static int countEdges(final RoadGraph graph, final int source, final int target) {
+        int count = 0;
+        for (int edge = graph.getFirstEdge(source); edge < graph.getEdgeEnd(source); edge++) {
+            if (graph.getEdgeTarget(edge) == target) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int findNearestNodeLinearly(final RoadGraph graph, final double latitude, final double longitude) {
+        int nearestNode = -1;
+        double nearestDistance = Double.MAX_VALUE;
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            final double distance = getNearestNodeDistance(graph, latitude, longitude, node);
+            if (distance < nearestDistance) {
+                nearestDistance = distance;
+                nearestNode = node;
+            }
+        }
+        return nearestNode;
+    }
+
+    // Compare distances rather than nodes, since two nodes can be equally close
+    private static double getNearestNodeDistance(final RoadGraph graph,
+                                                 final double latitude,
+                                                 final double longitude,
+                                                 final int node) {
+        final double latitudeDelta = graph.getLatitude(node) - latitude;
+        final double longitudeDelta = (graph.getLongitude(node) - longitude) * Math.cos(Math.toRadians(latitude));
+        return latitudeDelta * latitudeDelta + longitudeDelta * longitudeDelta;
+    }
+}
@@ -18,6 +18,7 @@ package ai.rideos.android.common.utils;
 import static org.junit.Assert.assertEquals;
 
 import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.PackedPath;
 import ai.rideos.android.common.model.RouteInfoModel;
 import ai.rideos.android.common.model.map.LatLngBounds;
 import ai.rideos.api.route.v1.RouteProto.RouteResponse;
@@ -49,6 +50,17 @@ public class PathsTest {
         assertEquals(expectedBounds.getNortheastCorner(), actualBounds.getNortheastCorner());
     }
 
+    @Test
+    public void testGetBoundsForPathWithAdditionalPoints() {
+        final PackedPath path = PackedPath.builder(2).add(0, 179).add(1, -179).build();
+
+        final LatLngBounds bounds = Paths.getBoundsForPath(path, new LatLng(2, 178));
+
+        assertEquals(new LatLngBounds(new LatLng(0, 178), new LatLng(2, -179)), bounds);
+        // The path's own bounds are not changed by the additional points
+        assertEquals(new LatLngBounds(new LatLng(0, 179), new LatLng(1, -179)), path.getBounds());
+    }
+
     @Test
     public void testGetRouteInfoFromRideOsRoute() {
         final LatLng origin = new LatLng(0, 0);
@@ -0,0 +1,155 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.common.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.PackedPath;
+import com.google.maps.android.PolyUtil;
+import com.mapbox.core.constants.Constants;
+import com.mapbox.geojson.LineString;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+public class PolylineCodecTest {
+    // Example from the encoded polyline algorithm documentation
+    private static final String PRECISION_5_POLYLINE = "_p~iF~ps|U_ulLnnqC_mqNvxq`@";
+    private static final String PRECISION_6_POLYLINE = "_izlhA~rlgdF_{geC~ywl@_kwzCn`{nI";
+    private static final List<LatLng> EXPECTED_PATH = Arrays.asList(
+        new LatLng(38.5, -120.2),
+        new LatLng(40.7, -120.95),
+        new LatLng(43.252, -126.453)
+    );
+    private static final double DELTA = 1e-9;
+
+    private static final int LONG_ROUTE_VERTEX_COUNT = 2000;
+
+    private final PolylineCodec precision5Codec = new PolylineCodec(PolylineCodec.PRECISION_5);
+    private final PolylineCodec precision6Codec = new PolylineCodec(PolylineCodec.PRECISION_6);
+
+    @Test
+    public void testDecodePrecision5() {
+        assertPathEquals(EXPECTED_PATH, precision5Codec.decode(PRECISION_5_POLYLINE));
+    }
+
+    @Test
+    public void testDecodePrecision6() {
+        assertPathEquals(EXPECTED_PATH, precision6Codec.decode(PRECISION_6_POLYLINE));
+    }
+
+    @Test
+    public void testEncode() {
+        final PackedPath path = PackedPath.fromLatLngs(EXPECTED_PATH);
+        assertEquals(PRECISION_5_POLYLINE, precision5Codec.encode(path));
+        assertEquals(PRECISION_6_POLYLINE, precision6Codec.encode(path));
+    }
+
+    @Test
+    public void testEncodeEmptyPath() {
+        assertEquals("", precision5Codec.encode(PackedPath.empty()));
+        assertTrue(precision5Codec.decode("").isEmpty());
+    }
+
+    @Test
+    public void testEncodeSubPathStartsFromItsFirstVertex() {
+        final PackedPath path = PackedPath.fromLatLngs(EXPECTED_PATH).subPath(1, 3);
+        assertPathEquals(EXPECTED_PATH.subList(1, 3), precision5Codec.decode(precision5Codec.encode(path)));
+    }
+
+    @Test
+    public void testDecodeAllJoinsPolylinesInOrder() {
+        final String first = precision5Codec.encode(PackedPath.fromLatLngs(EXPECTED_PATH.subList(0, 2)));
+        final String second = precision5Codec.encode(PackedPath.fromLatLngs(EXPECTED_PATH.subList(1, 3)));
+
+        assertPathEquals(
+            Arrays.asList(EXPECTED_PATH.get(0), EXPECTED_PATH.get(1), EXPECTED_PATH.get(1), EXPECTED_PATH.get(2)),
+            precision5Codec.decodeAll(Arrays.asList(first, second))
+        );
+    }
+
+    @Test
+    public void testDecodeIntoReturnsVertexCount() {
+        final PackedPath.Builder builder = PackedPath.builder(1);
+        assertEquals(3, precision5Codec.decodeInto(PRECISION_5_POLYLINE, builder));
+        assertEquals(3, precision5Codec.decodeInto(PRECISION_5_POLYLINE, builder));
+        assertEquals(6, builder.build().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncatedPolylineThrows() {
+        precision5Codec.decode(PRECISION_5_POLYLINE.substring(0, PRECISION_5_POLYLINE.length() - 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCharacterThrows() {
+        precision5Codec.decode("_p~iF ps|U");
+    }
+
+    @Test
+    public void testMatchesExistingDecoders() {
+        final PackedPath path = createRandomPath(LONG_ROUTE_VERTEX_COUNT);
+
+        final String precision5Polyline = precision5Codec.encode(path);
+        assertEquals(PolyUtil.encode(toGoogleLatLngs(path)), precision5Polyline);
+        assertPathEquals(decodeWithPolyUtil(precision5Polyline), precision5Codec.decode(precision5Polyline));
+
+        final String precision6Polyline = precision6Codec.encode(path);
+        assertPathEquals(decodeWithMapbox(precision6Polyline), precision6Codec.decode(precision6Polyline));
+    }
+
+    private static List<LatLng> decodeWithPolyUtil(final String polyline) {
+        return PolyUtil.decode(polyline).stream()
+            .map(Locations::fromGoogleLatLng)
+            .collect(Collectors.toList());
+    }
+
+    private static List<LatLng> decodeWithMapbox(final String polyline) {
+        return LineString.fromPolyline(polyline, Constants.PRECISION_6).coordinates().stream()
+            .map(point -> new LatLng(point.latitude(), point.longitude()))
+            .collect(Collectors.toList());
+    }
+
+    private static List<com.google.android.gms.maps.model.LatLng> toGoogleLatLngs(final PackedPath path) {
+        return path.asList().stream().map(Locations::toGoogleLatLng).collect(Collectors.toList());
+    }
+
+    // A random walk around San Francisco with steps of roughly 10 meters
+    private static PackedPath createRandomPath(final int vertexCount) {
+        final Random random = new Random(0);
+        final PackedPath.Builder builder = PackedPath.builder(vertexCount);
+        double latitude = 37.7749;
+        double longitude = -122.4194;
+        for (int i = 0; i < vertexCount; i++) {
+            latitude += random.nextGaussian() * 0.0001;
+            longitude += random.nextGaussian() * 0.0001;
+            builder.add(latitude, longitude);
+        }
+        return builder.build();
+    }
+
+    private static void assertPathEquals(final List<LatLng> expected, final PackedPath actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getLatitude(), actual.getLatitude(i), DELTA);
+            assertEquals(expected.get(i).getLongitude(), actual.getLongitude(i), DELTA);
+        }
+    }
+}
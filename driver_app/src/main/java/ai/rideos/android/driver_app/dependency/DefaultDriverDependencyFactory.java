@@ -23,11 +23,15 @@ import ai.rideos.android.common.app.menu_navigator.MenuOptionFragmentRegistry;
 import ai.rideos.android.common.app.menu_navigator.account_settings.AccountSettingsFragment;
 import ai.rideos.android.common.app.menu_navigator.account_settings.UserProfileInteractor;
 import ai.rideos.android.common.authentication.User;
+import ai.rideos.android.common.connectivity.SocketConnectivityInteractor;
 import ai.rideos.android.common.grpc.ChannelProvider;
+import ai.rideos.android.common.interactors.CachingRouteInteractor;
+import ai.rideos.android.common.interactors.RouteCache;
 import ai.rideos.android.common.interactors.RouteInteractor;
 import ai.rideos.android.common.interactors.mapbox.MapboxApiInteractor;
 import ai.rideos.android.common.interactors.mapbox.MapboxRouteInteractor;
 import ai.rideos.android.common.model.MenuOption;
+import ai.rideos.android.common.reactive.SchedulerProviders.DefaultSchedulerProvider;
 import ai.rideos.android.driver_app.MainFragment;
 import ai.rideos.android.driver_app.R;
 import ai.rideos.android.driver_app.menu.developer_options.DriverDeveloperOptionsFragment;
@@ -37,10 +41,22 @@ import ai.rideos.android.interactors.DefaultDriverVehicleInteractor;
 import ai.rideos.android.interactors.DriverPlanInteractor;
 import ai.rideos.android.interactors.DriverUserProfileInteractor;
 import ai.rideos.android.interactors.DriverVehicleInteractor;
+import ai.rideos.android.interactors.OutboxDriverVehicleInteractor;
+import ai.rideos.android.interactors.outbox.GrpcMutationSender;
+import ai.rideos.android.interactors.outbox.MutationOutbox;
+import ai.rideos.android.interactors.outbox.OutboxLog;
 import android.content.Context;
+import java.io.File;
 
 public class DefaultDriverDependencyFactory extends DefaultCommonDependencyFactory implements DriverDependencyFactory {
     private static final int VEHICLE_SETTINGS_ID = 3;
+    private static final String MUTATION_OUTBOX_FILE_NAME = "driver-mutation-outbox.log";
+
+    // Shared by every route interactor, so that all screens benefit from each other's routes
+    private static final RouteCache ROUTE_CACHE = new RouteCache();
+
+    // Shared by every vehicle interactor so that all queued mutations are replayed in a single order
+    private static MutationOutbox mutationOutbox;
 
     @Override
     public DriverPlanInteractor getDriverPlanInteractor(final Context context) {
@@ -49,7 +65,23 @@ public class DefaultDriverDependencyFactory extends DefaultCommonDependencyFacto
 
     @Override
     public DriverVehicleInteractor getDriverVehicleInteractor(final Context context) {
-        return new DefaultDriverVehicleInteractor(ChannelProvider.getChannelSupplierForContext(context), User.get(context));
+        return new OutboxDriverVehicleInteractor(
+            new DefaultDriverVehicleInteractor(ChannelProvider.getChannelSupplierForContext(context), User.get(context)),
+            getMutationOutbox(context)
+        );
+    }
+
+    private static synchronized MutationOutbox getMutationOutbox(final Context context) {
+        if (mutationOutbox == null) {
+            mutationOutbox = new MutationOutbox(
+                new OutboxLog(new File(context.getApplicationContext().getFilesDir(), MUTATION_OUTBOX_FILE_NAME)),
+                new GrpcMutationSender(ChannelProvider.getChannelSupplierForContext(context), User.get(context)),
+                new DefaultSchedulerProvider()
+            );
+            // Entries left from a previous run are read on the io scheduler once replay starts, not on this thread
+            mutationOutbox.replayWhenConnected(new SocketConnectivityInteractor().observeNetworkStatus());
+        }
+        return mutationOutbox;
     }
 
     @Override
@@ -109,6 +141,9 @@ public class DefaultDriverDependencyFactory extends DefaultCommonDependencyFacto
     @Override
     public RouteInteractor getRouteInteractor(final Context context) {
         // Since our routes do not match well to Mapbox turn-by-turn nav, the driver app uses mapbox routes and ETAs.
-        return new MapboxRouteInteractor(context);
+        return withOfflineRouteFallback(
+            context,
+            new CachingRouteInteractor(new MapboxRouteInteractor(context), ROUTE_CACHE)
+        );
     }
 }
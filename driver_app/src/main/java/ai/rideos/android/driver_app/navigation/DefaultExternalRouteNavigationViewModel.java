@@ -17,6 +17,8 @@ package ai.rideos.android.driver_app.navigation;
 
 import ai.rideos.android.common.device.DeviceLocator;
 import ai.rideos.android.common.interactors.RouteInteractor;
+import ai.rideos.android.common.location.PathSimplifier;
+import ai.rideos.android.common.location.PathSimplifier.SimplifiedPath;
 import ai.rideos.android.common.model.LatLng;
 import ai.rideos.android.common.model.LocationAndHeading;
 import ai.rideos.android.common.model.RouteInfoModel;
@@ -24,12 +26,9 @@ import ai.rideos.android.common.reactive.Result;
 import ai.rideos.android.common.reactive.SchedulerProvider;
 import ai.rideos.android.common.reactive.SchedulerProviders.DefaultSchedulerProvider;
 import androidx.core.util.Pair;
-import com.goebl.simplify.PointExtractor;
-import com.goebl.simplify.Simplify;
 import io.reactivex.Observable;
 import io.reactivex.disposables.CompositeDisposable;
 import io.reactivex.subjects.BehaviorSubject;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import timber.log.Timber;
@@ -37,7 +36,6 @@ import timber.log.Timber;
 public class DefaultExternalRouteNavigationViewModel implements ExternalRouteNavigationViewModel {
     private static final int RETRY_COUNT = 3;
     private static final int DEFAULT_MAX_COORDINATES = 500;
-    private static final float DEFAULT_SIMPLIFICATION_TOLERANCE = 0.002f;
 
     private final CompositeDisposable compositeDisposable = new CompositeDisposable();
     private final BehaviorSubject<LatLng> destinationSubject = BehaviorSubject.create();
@@ -47,34 +45,26 @@ public class DefaultExternalRouteNavigationViewModel implements ExternalRouteNav
     private final DeviceLocator deviceLocator;
     private final SchedulerProvider schedulerProvider;
 
-    private final int maxCoordinatesPerRoute;
-    private final float simplificationTolerance;
-    private final Simplify<LatLng> coordinateSimplifier;
+    private final PathSimplifier pathSimplifier;
 
     public DefaultExternalRouteNavigationViewModel(final RouteInteractor routeInteractor,
                                                    final DeviceLocator deviceLocator) {
         this(
             routeInteractor,
             deviceLocator,
-            DEFAULT_MAX_COORDINATES,
-            DEFAULT_SIMPLIFICATION_TOLERANCE,
-            new Simplify<>(new LatLng[0], new LatLngPointExtractor()),
+            new PathSimplifier(PathSimplifier.Settings.defaults(DEFAULT_MAX_COORDINATES)),
             new DefaultSchedulerProvider()
         );
     }
 
     public DefaultExternalRouteNavigationViewModel(final RouteInteractor routeInteractor,
                                                    final DeviceLocator deviceLocator,
-                                                   final int maxCoordinatesPerRoute,
-                                                   final float simplificationTolerance,
-                                                   final Simplify<LatLng> coordinateSimplifier,
+                                                   final PathSimplifier pathSimplifier,
                                                    final SchedulerProvider schedulerProvider) {
         this.schedulerProvider = schedulerProvider;
         this.routeInteractor = routeInteractor;
         this.deviceLocator = deviceLocator;
-        this.maxCoordinatesPerRoute = maxCoordinatesPerRoute;
-        this.simplificationTolerance = simplificationTolerance;
-        this.coordinateSimplifier = coordinateSimplifier;
+        this.pathSimplifier = pathSimplifier;
     }
 
     @Override
@@ -101,7 +91,6 @@ public class DefaultExternalRouteNavigationViewModel implements ExternalRouteNav
                 .getRoute(originDestination.first, new LocationAndHeading(originDestination.second, 0))
                 .retry(RETRY_COUNT)
                 .doOnError(e -> Timber.e(e, "Failed to find route to destination"))
-                .map(RouteInfoModel::getRoute)
             )
             // simplify the route so it doesn't go over mapbox limits
             .map(this::simplifyRoute)
@@ -109,16 +98,12 @@ public class DefaultExternalRouteNavigationViewModel implements ExternalRouteNav
             .onErrorReturn(Result::failure);
     }
 
-    private List<LatLng> simplifyRoute(final List<LatLng> originalRoute) {
-        if (originalRoute.size() <= maxCoordinatesPerRoute) {
-            return originalRoute;
+    private List<LatLng> simplifyRoute(final RouteInfoModel route) {
+        final SimplifiedPath simplifiedPath = pathSimplifier.simplify(route.getPath());
+        if (simplifiedPath.getPath().size() < route.getPath().size()) {
+            Timber.d("Simplified route of %d coordinates to %s", route.getPath().size(), simplifiedPath);
         }
-        final LatLng[] simplifiedRoute = coordinateSimplifier.simplify(
-            originalRoute.toArray(new LatLng[0]),
-            simplificationTolerance,
-            false
-        );
-        return Arrays.asList(simplifiedRoute);
+        return simplifiedPath.getPath().asList();
     }
 
     @Override
@@ -135,20 +120,4 @@ public class DefaultExternalRouteNavigationViewModel implements ExternalRouteNav
     public void destroy() {
         compositeDisposable.dispose();
     }
-
-    // Create point extractor to interface with simplification library's internal point representation
-    private static class LatLngPointExtractor implements PointExtractor<LatLng> {
-        // Used to improve simplification algorithm by not dealing with small decimals
-        private static final int COORDINATE_MULTIPLE_CONSTANT = 1000000;
-
-        @Override
-        public double getX(LatLng latLng) {
-            return latLng.getLatitude() * COORDINATE_MULTIPLE_CONSTANT;
-        }
-
-        @Override
-        public double getY(LatLng latLng) {
-            return latLng.getLongitude() * COORDINATE_MULTIPLE_CONSTANT;
-        }
-    }
 }
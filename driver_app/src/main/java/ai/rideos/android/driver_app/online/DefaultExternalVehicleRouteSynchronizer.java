@@ -17,11 +17,15 @@ package ai.rideos.android.driver_app.online;
 
 import ai.rideos.android.common.authentication.User;
 import ai.rideos.android.common.interactors.RouteInteractor;
+import ai.rideos.android.common.location.HaversineDistanceCalculator;
+import ai.rideos.android.common.location.RouteProgressTracker;
 import ai.rideos.android.common.model.LatLng;
 import ai.rideos.android.common.model.LocationAndHeading;
 import ai.rideos.android.common.model.RouteInfoModel;
 import ai.rideos.android.common.reactive.SchedulerProvider;
 import ai.rideos.android.common.reactive.SchedulerProviders.DefaultSchedulerProvider;
+import ai.rideos.android.driver_app.online.VehicleTelemetryFilter.Thresholds;
+import ai.rideos.android.interactors.DefaultDriverVehicleInteractor;
 import ai.rideos.android.interactors.DriverVehicleInteractor;
 import ai.rideos.android.model.VehicleDisplayRouteLeg;
 import ai.rideos.android.model.VehiclePlan;
@@ -29,18 +33,62 @@ import ai.rideos.android.model.VehiclePlan.Action.ActionType;
 import ai.rideos.android.model.VehiclePlan.Waypoint;
 import androidx.core.util.Pair;
 import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.Single;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import timber.log.Timber;
 
+/**
+ * DefaultExternalVehicleRouteSynchronizer uploads the vehicle's route legs for each polled plan. It remembers the legs
+ * it last uploaded, so that when a plan is polled again:
+ * - Nothing is routed or uploaded if no leg changed.
+ * - Only legs whose endpoints changed are routed again, and the rest are reused.
+ * - The leg from the vehicle to the first waypoint is routed again once the vehicle strays too far from it.
+ * - Any leg is routed again once it is too old, so that travel times stay current.
+ */
 public class DefaultExternalVehicleRouteSynchronizer implements ExternalVehicleRouteSynchronizer {
+    public static class RefreshThresholds {
+        private final double maxDeviationMeters;
+        private final long maxRouteAgeMillis;
+
+        /**
+         * @param maxDeviationMeters - The first leg is routed again when the vehicle is further than this from it
+         * @param maxRouteAgeMillis - Any leg is routed again when it was routed longer ago than this
+         */
+        public RefreshThresholds(final double maxDeviationMeters, final long maxRouteAgeMillis) {
+            this.maxDeviationMeters = maxDeviationMeters;
+            this.maxRouteAgeMillis = maxRouteAgeMillis;
+        }
+
+        public static RefreshThresholds defaults() {
+            return new RefreshThresholds(50, TimeUnit.MINUTES.toMillis(2));
+        }
+    }
+
     private final DriverVehicleInteractor vehicleInteractor;
     private final RouteInteractor routeInteractor;
     private final User user;
     private final SchedulerProvider schedulerProvider;
+    private final VehicleTelemetryFilter telemetryFilter;
+    private final RefreshThresholds refreshThresholds;
+    // Tracks the vehicle along the first leg to tell when it strays from it
+    private final RouteProgressTracker firstLegTracker = new RouteProgressTracker();
+
+    // Legs from the last successful upload, in plan order. The first leg starts at the vehicle.
+    private List<SyncedLeg> lastSyncedLegs = Collections.emptyList();
+    private List<VehicleDisplayRouteLeg> lastSyncedDisplayLegs = Collections.emptyList();
+
+    private long fullRouteCount = 0;
+    private long partialRouteCount = 0;
+    private long skippedSyncCount = 0;
+    private long routedLegCount = 0;
+    private long reusedLegCount = 0;
 
     public DefaultExternalVehicleRouteSynchronizer(final DriverVehicleInteractor vehicleInteractor,
                                                    final RouteInteractor routeInteractor,
@@ -52,40 +100,267 @@ public class DefaultExternalVehicleRouteSynchronizer implements ExternalVehicleR
                                                    final RouteInteractor routeInteractor,
                                                    final User user,
                                                    final SchedulerProvider schedulerProvider) {
+        this(
+            vehicleInteractor,
+            routeInteractor,
+            user,
+            schedulerProvider,
+            new VehicleTelemetryFilter(
+                Thresholds.defaults(),
+                new HaversineDistanceCalculator(),
+                location -> DefaultDriverVehicleInteractor.buildUpdateVehicleLocationRequest(user.getId(), location)
+                    .getSerializedSize()
+            )
+        );
+    }
+
+    public DefaultExternalVehicleRouteSynchronizer(final DriverVehicleInteractor vehicleInteractor,
+                                                   final RouteInteractor routeInteractor,
+                                                   final User user,
+                                                   final SchedulerProvider schedulerProvider,
+                                                   final VehicleTelemetryFilter telemetryFilter) {
+        this(
+            vehicleInteractor,
+            routeInteractor,
+            user,
+            schedulerProvider,
+            telemetryFilter,
+            RefreshThresholds.defaults()
+        );
+    }
+
+    public DefaultExternalVehicleRouteSynchronizer(final DriverVehicleInteractor vehicleInteractor,
+                                                   final RouteInteractor routeInteractor,
+                                                   final User user,
+                                                   final SchedulerProvider schedulerProvider,
+                                                   final VehicleTelemetryFilter telemetryFilter,
+                                                   final RefreshThresholds refreshThresholds) {
         this.vehicleInteractor = vehicleInteractor;
         this.routeInteractor = routeInteractor;
         this.user = user;
         this.schedulerProvider = schedulerProvider;
+        this.telemetryFilter = telemetryFilter;
+        this.refreshThresholds = refreshThresholds;
     }
 
     @Override
     public Completable synchronizeForPlan(final VehiclePlan plan, final LocationAndHeading currentLocation) {
-        final List<Waypoint> filteredSteps = filterRoutableSteps(plan);
-        if (filteredSteps.isEmpty()) {
+        return Completable.defer(() -> synchronizeRoutableSteps(plan, currentLocation))
+            .doOnError(e -> Timber.e(e, "Could not synchronize vehicle route with backend"))
+            .onErrorComplete();
+    }
+
+    // Number of syncs that routed every leg
+    public synchronized long getFullRouteCount() {
+        return fullRouteCount;
+    }
+
+    // Number of syncs that reused at least one leg from an earlier sync
+    public synchronized long getPartialRouteCount() {
+        return partialRouteCount;
+    }
+
+    // Number of syncs that neither routed nor uploaded anything because no leg changed
+    public synchronized long getSkippedSyncCount() {
+        return skippedSyncCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(
+            "full=%d partial=%d skipped=%d routedLegs=%d reusedLegs=%d",
+            fullRouteCount,
+            partialRouteCount,
+            skippedSyncCount,
+            routedLegCount,
+            reusedLegCount
+        );
+    }
+
+    private Completable synchronizeRoutableSteps(final VehiclePlan plan, final LocationAndHeading currentLocation) {
+        final List<Waypoint> routableWaypoints = filterRoutableSteps(plan);
+        if (routableWaypoints.isEmpty()) {
+            forgetSyncedLegs();
             // Just update the location
-            return vehicleInteractor.updateVehicleLocation(user.getId(), currentLocation)
-                .doOnError(e -> Timber.e(e, "Could not synchronize vehicle route with backend"))
-                .onErrorComplete();
+            return updateLocationIfNeeded(currentLocation);
+        }
+
+        final long nowMillis = schedulerProvider.computation().now(TimeUnit.MILLISECONDS);
+        final SyncedLeg[] legs = findReusableLegs(routableWaypoints, currentLocation.getLatLng(), nowMillis);
+        final List<LegRange> rangesToRoute = getRangesToRoute(legs);
+        if (rangesToRoute.isEmpty()) {
+            final List<VehicleDisplayRouteLeg> displayLegs = toDisplayRoutes(plan, collectRoutesByStep(legs));
+            if (isLastSynced(displayLegs)) {
+                recordSkippedSync();
+                return updateLocationIfNeeded(currentLocation);
+            }
         }
-        return routeInteractor.getRouteForWaypoints(getRoutableWaypoints(filteredSteps, currentLocation))
+
+        return routeLegRanges(rangesToRoute, routableWaypoints, currentLocation.getLatLng(), nowMillis)
             .observeOn(schedulerProvider.computation())
-            .map(routes -> collectRoutesByStep(routes, filteredSteps))
-            .map(routesByStep -> toDisplayRoutes(plan, routesByStep))
-            .flatMapCompletable(routeLegs -> Completable.mergeArray(
-                vehicleInteractor.updateVehicleLocation(user.getId(), currentLocation),
-                vehicleInteractor.updateVehicleRoute(user.getId(), routeLegs)
-            ))
-            .doOnError(e -> Timber.e(e, "Could not synchronize vehicle route with backend"))
-            .onErrorComplete();
+            .flatMapCompletable(routedLegs -> {
+                for (final Pair<LegRange, List<SyncedLeg>> routedRange : routedLegs) {
+                    for (int i = 0; i < routedRange.second.size(); i++) {
+                        legs[routedRange.first.start + i] = routedRange.second.get(i);
+                    }
+                }
+                final List<VehicleDisplayRouteLeg> displayLegs = toDisplayRoutes(plan, collectRoutesByStep(legs));
+                return Completable.mergeArray(
+                    updateLocationIfNeeded(currentLocation),
+                    vehicleInteractor.updateVehicleRoute(user.getId(), displayLegs)
+                )
+                    .doOnComplete(() -> recordSync(legs, displayLegs, countRoutedLegs(rangesToRoute)));
+            });
     }
 
-    private static Map<Pair<String, String>, RouteInfoModel> collectRoutesByStep(
-        final List<RouteInfoModel> routes,
-        final List<Waypoint> routableWaypoints
-    ) {
-        return IntStream.range(0, routableWaypoints.size())
-            .boxed()
-            .collect(Collectors.toMap(i -> toWaypointKey(routableWaypoints.get(i)), routes::get));
+    private Completable updateLocationIfNeeded(final LocationAndHeading currentLocation) {
+        return Completable.defer(() -> {
+            if (!telemetryFilter.offer(currentLocation, schedulerProvider.computation().now(TimeUnit.MILLISECONDS))) {
+                return Completable.complete();
+            }
+            Timber.d("Sending vehicle location, telemetry %s", telemetryFilter);
+            return vehicleInteractor.updateVehicleLocation(user.getId(), currentLocation);
+        });
+    }
+
+    /**
+     * Return the legs from the last sync that can be uploaded again, with null for legs that must be routed. Leg i
+     * ends at routableWaypoints[i] and starts at the previous routable waypoint, or at the vehicle for the first leg.
+     */
+    private synchronized SyncedLeg[] findReusableLegs(final List<Waypoint> routableWaypoints,
+                                                      final LatLng vehicleLocation,
+                                                      final long nowMillis) {
+        final SyncedLeg[] legs = new SyncedLeg[routableWaypoints.size()];
+        for (int i = 0; i < routableWaypoints.size(); i++) {
+            final Waypoint from = i == 0 ? null : routableWaypoints.get(i - 1);
+            final SyncedLeg lastSyncedLeg = findLastSyncedLeg(from, routableWaypoints.get(i));
+            if (lastSyncedLeg == null
+                || nowMillis - lastSyncedLeg.routedAtMillis > refreshThresholds.maxRouteAgeMillis) {
+                continue;
+            }
+            if (from == null && hasDeviatedFrom(lastSyncedLeg, vehicleLocation)) {
+                continue;
+            }
+            legs[i] = lastSyncedLeg;
+        }
+        return legs;
+    }
+
+    private boolean hasDeviatedFrom(final SyncedLeg firstLeg, final LatLng vehicleLocation) {
+        return firstLegTracker.update(firstLeg.route, vehicleLocation).getDistanceFromRouteMeters()
+            > refreshThresholds.maxDeviationMeters;
+    }
+
+    private SyncedLeg findLastSyncedLeg(final Waypoint from, final Waypoint to) {
+        for (final SyncedLeg lastSyncedLeg : lastSyncedLegs) {
+            if (lastSyncedLeg.hasEndpoints(from, to)) {
+                return lastSyncedLeg;
+            }
+        }
+        return null;
+    }
+
+    private synchronized boolean isLastSynced(final List<VehicleDisplayRouteLeg> displayLegs) {
+        return displayLegs.equals(lastSyncedDisplayLegs);
+    }
+
+    private synchronized void recordSync(final SyncedLeg[] legs,
+                                         final List<VehicleDisplayRouteLeg> displayLegs,
+                                         final int legsRouted) {
+        lastSyncedLegs = new ArrayList<>(legs.length);
+        Collections.addAll(lastSyncedLegs, legs);
+        lastSyncedDisplayLegs = displayLegs;
+        if (legsRouted == legs.length) {
+            fullRouteCount++;
+        } else {
+            partialRouteCount++;
+        }
+        routedLegCount += legsRouted;
+        reusedLegCount += legs.length - legsRouted;
+        Timber.d("Synchronized vehicle route, %s", this);
+    }
+
+    private synchronized void recordSkippedSync() {
+        skippedSyncCount++;
+        reusedLegCount += lastSyncedLegs.size();
+    }
+
+    private synchronized void forgetSyncedLegs() {
+        lastSyncedLegs = Collections.emptyList();
+        lastSyncedDisplayLegs = Collections.emptyList();
+    }
+
+    /**
+     * Route each range of consecutive legs with one request, so a plan where every leg changed is still routed with
+     * a single request.
+     */
+    private Single<List<Pair<LegRange, List<SyncedLeg>>>> routeLegRanges(final List<LegRange> ranges,
+                                                                         final List<Waypoint> routableWaypoints,
+                                                                         final LatLng vehicleLocation,
+                                                                         final long nowMillis) {
+        return Observable.fromIterable(ranges)
+            .concatMapSingle(range -> {
+                final List<LatLng> waypoints = new ArrayList<>(range.end - range.start + 1);
+                waypoints.add(
+                    range.start == 0
+                        ? vehicleLocation
+                        : routableWaypoints.get(range.start - 1).getAction().getDestination()
+                );
+                for (int i = range.start; i < range.end; i++) {
+                    waypoints.add(routableWaypoints.get(i).getAction().getDestination());
+                }
+                return routeInteractor.getRouteForWaypoints(waypoints)
+                    .firstOrError()
+                    .map(routes -> {
+                        if (routes.size() != range.end - range.start) {
+                            throw new IllegalStateException(
+                                "Expected " + (range.end - range.start) + " legs but got " + routes.size()
+                            );
+                        }
+                        final List<SyncedLeg> routedLegs = new ArrayList<>(routes.size());
+                        for (int i = range.start; i < range.end; i++) {
+                            routedLegs.add(new SyncedLeg(
+                                i == 0 ? null : routableWaypoints.get(i - 1),
+                                routableWaypoints.get(i),
+                                routes.get(i - range.start),
+                                nowMillis
+                            ));
+                        }
+                        return Pair.create(range, routedLegs);
+                    });
+            })
+            .toList();
+    }
+
+    private static List<LegRange> getRangesToRoute(final SyncedLeg[] legs) {
+        final List<LegRange> ranges = new ArrayList<>();
+        int rangeStart = -1;
+        for (int i = 0; i <= legs.length; i++) {
+            final boolean needsRoute = i < legs.length && legs[i] == null;
+            if (needsRoute && rangeStart < 0) {
+                rangeStart = i;
+            } else if (!needsRoute && rangeStart >= 0) {
+                ranges.add(new LegRange(rangeStart, i));
+                rangeStart = -1;
+            }
+        }
+        return ranges;
+    }
+
+    private static int countRoutedLegs(final List<LegRange> ranges) {
+        int count = 0;
+        for (final LegRange range : ranges) {
+            count += range.end - range.start;
+        }
+        return count;
+    }
+
+    private static Map<Pair<String, String>, RouteInfoModel> collectRoutesByStep(final SyncedLeg[] legs) {
+        final Map<Pair<String, String>, RouteInfoModel> routesByStep = new HashMap<>(legs.length);
+        for (final SyncedLeg leg : legs) {
+            routesByStep.put(toWaypointKey(leg.to), leg.route);
+        }
+        return routesByStep;
     }
 
     private static List<VehicleDisplayRouteLeg> toDisplayRoutes(
@@ -128,18 +403,6 @@ public class DefaultExternalVehicleRouteSynchronizer implements ExternalVehicleR
             || waypoint.getAction().getActionType() == ActionType.DRIVE_TO_PICKUP;
     }
 
-    private static List<LatLng> getRoutableWaypoints(final List<Waypoint> waypoints,
-                                                     final LocationAndHeading currentLocation) {
-        final List<LatLng> routableWaypoints = new ArrayList<>(waypoints.size() + 1);
-        routableWaypoints.add(currentLocation.getLatLng());
-        routableWaypoints.addAll(
-            waypoints.stream()
-                .map(waypoint -> waypoint.getAction().getDestination())
-                .collect(Collectors.toList())
-        );
-        return routableWaypoints;
-    }
-
     /**
      * This key identifies a Waypoint based on the current assumption that each waypoint has a unique task and first
      * step.
@@ -147,4 +410,45 @@ public class DefaultExternalVehicleRouteSynchronizer implements ExternalVehicleR
     private static Pair<String, String> toWaypointKey(final Waypoint waypoint) {
         return Pair.create(waypoint.getTaskId(), waypoint.getStepIds().get(0));
     }
+
+    private static boolean isSameEndpoint(final Waypoint waypoint, final Waypoint otherWaypoint) {
+        if (waypoint == null || otherWaypoint == null) {
+            return waypoint == otherWaypoint;
+        }
+        return toWaypointKey(waypoint).equals(toWaypointKey(otherWaypoint))
+            && waypoint.getAction().getDestination().equals(otherWaypoint.getAction().getDestination());
+    }
+
+    // Legs [start, end) of the routable waypoints
+    private static class LegRange {
+        private final int start;
+        private final int end;
+
+        private LegRange(final int start, final int end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static class SyncedLeg {
+        // Null when the leg starts at the vehicle
+        private final Waypoint from;
+        private final Waypoint to;
+        private final RouteInfoModel route;
+        private final long routedAtMillis;
+
+        private SyncedLeg(final Waypoint from,
+                          final Waypoint to,
+                          final RouteInfoModel route,
+                          final long routedAtMillis) {
+            this.from = from;
+            this.to = to;
+            this.route = route;
+            this.routedAtMillis = routedAtMillis;
+        }
+
+        private boolean hasEndpoints(final Waypoint otherFrom, final Waypoint otherTo) {
+            return isSameEndpoint(from, otherFrom) && isSameEndpoint(to, otherTo);
+        }
+    }
 }
@@ -0,0 +1,170 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.driver_app.online;
+
+import ai.rideos.android.common.location.DistanceCalculator;
+import ai.rideos.android.common.model.LocationAndHeading;
+import java.util.function.ToIntFunction;
+
+/**
+ * VehicleTelemetryFilter decides which device locations are worth sending to the backend. A location is sent when the
+ * vehicle moved or turned enough since the last sent location, but no more often than its speed calls for: a fast
+ * moving vehicle is reported every few seconds, a slow one less often, and a parked one only on a heartbeat.
+ *
+ * Suppressed locations are buffered, and the next update sends only the newest of them, since the backend only keeps
+ * the latest position of a vehicle.
+ */
+public class VehicleTelemetryFilter {
+    public static class Thresholds {
+        private final double minDistanceMeters;
+        private final float minHeadingChangeDegrees;
+        private final double highSpeedMetersPerSecond;
+        private final long highSpeedIntervalMillis;
+        private final long lowSpeedIntervalMillis;
+        private final long heartbeatIntervalMillis;
+
+        /**
+         * @param minDistanceMeters - Movement below this distance is ignored unless the vehicle turned
+         * @param minHeadingChangeDegrees - Turns below this angle are ignored unless the vehicle moved
+         * @param highSpeedMetersPerSecond - At or above this speed, highSpeedIntervalMillis is used
+         * @param highSpeedIntervalMillis - Minimum time between updates when moving fast
+         * @param lowSpeedIntervalMillis - Minimum time between updates when moving slowly
+         * @param heartbeatIntervalMillis - Maximum time between updates, even when stationary
+         */
+        public Thresholds(final double minDistanceMeters,
+                          final float minHeadingChangeDegrees,
+                          final double highSpeedMetersPerSecond,
+                          final long highSpeedIntervalMillis,
+                          final long lowSpeedIntervalMillis,
+                          final long heartbeatIntervalMillis) {
+            this.minDistanceMeters = minDistanceMeters;
+            this.minHeadingChangeDegrees = minHeadingChangeDegrees;
+            this.highSpeedMetersPerSecond = highSpeedMetersPerSecond;
+            this.highSpeedIntervalMillis = highSpeedIntervalMillis;
+            this.lowSpeedIntervalMillis = lowSpeedIntervalMillis;
+            this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+        }
+
+        public static Thresholds defaults() {
+            return new Thresholds(10, 20, 8, 2000, 6000, 30000);
+        }
+    }
+
+    private final Thresholds thresholds;
+    private final DistanceCalculator distanceCalculator;
+    // Estimates the size of the update request that would be sent for a location
+    private final ToIntFunction<LocationAndHeading> requestSizeEstimator;
+
+    private LocationAndHeading lastSentLocation;
+    private long lastSentTimeMillis;
+    private LocationAndHeading lastOfferedLocation;
+    private long lastOfferedTimeMillis;
+    private double speedMetersPerSecond = 0;
+
+    private long sentCount = 0;
+    private long suppressedCount = 0;
+    private long suppressedBytes = 0;
+
+    public VehicleTelemetryFilter(final Thresholds thresholds,
+                                  final DistanceCalculator distanceCalculator,
+                                  final ToIntFunction<LocationAndHeading> requestSizeEstimator) {
+        this.thresholds = thresholds;
+        this.distanceCalculator = distanceCalculator;
+        this.requestSizeEstimator = requestSizeEstimator;
+    }
+
+    /**
+     * Record a new device location and decide whether it should be sent.
+     * @return true if the location should be sent now, false if it is buffered until a later update
+     */
+    public synchronized boolean offer(final LocationAndHeading location, final long timeMillis) {
+        updateSpeed(location, timeMillis);
+        lastOfferedLocation = location;
+        lastOfferedTimeMillis = timeMillis;
+
+        if (shouldSend(location, timeMillis)) {
+            lastSentLocation = location;
+            lastSentTimeMillis = timeMillis;
+            sentCount++;
+            return true;
+        }
+        suppressedCount++;
+        suppressedBytes += requestSizeEstimator.applyAsInt(location);
+        return false;
+    }
+
+    public synchronized long getSentCount() {
+        return sentCount;
+    }
+
+    // Number of update RPCs that were not sent
+    public synchronized long getSuppressedCount() {
+        return suppressedCount;
+    }
+
+    // Estimated number of request bytes that were not sent
+    public synchronized long getSuppressedBytes() {
+        return suppressedBytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(
+            "sent=%d suppressed=%d savedBytes=%d speed=%.1fm/s",
+            sentCount,
+            suppressedCount,
+            suppressedBytes,
+            speedMetersPerSecond
+        );
+    }
+
+    private boolean shouldSend(final LocationAndHeading location, final long timeMillis) {
+        if (lastSentLocation == null) {
+            return true;
+        }
+        final long elapsedMillis = timeMillis - lastSentTimeMillis;
+        if (elapsedMillis >= thresholds.heartbeatIntervalMillis) {
+            return true;
+        }
+        final boolean moved = distanceCalculator.getDistanceInMeters(lastSentLocation.getLatLng(), location.getLatLng())
+            >= thresholds.minDistanceMeters;
+        final boolean turned = getHeadingChange(lastSentLocation.getHeading(), location.getHeading())
+            >= thresholds.minHeadingChangeDegrees;
+        if (!moved && !turned) {
+            return false;
+        }
+        final long minIntervalMillis = speedMetersPerSecond >= thresholds.highSpeedMetersPerSecond
+            ? thresholds.highSpeedIntervalMillis
+            : thresholds.lowSpeedIntervalMillis;
+        return elapsedMillis >= minIntervalMillis;
+    }
+
+    private void updateSpeed(final LocationAndHeading location, final long timeMillis) {
+        if (lastOfferedLocation == null || timeMillis <= lastOfferedTimeMillis) {
+            return;
+        }
+        final double distanceMeters = distanceCalculator.getDistanceInMeters(
+            lastOfferedLocation.getLatLng(),
+            location.getLatLng()
+        );
+        speedMetersPerSecond = distanceMeters * 1000.0 / (timeMillis - lastOfferedTimeMillis);
+    }
+
+    private static float getHeadingChange(final float fromHeading, final float toHeading) {
+        final float difference = Math.abs(toHeading - fromHeading) % 360;
+        return difference > 180 ? 360 - difference : difference;
+    }
+}
@@ -18,6 +18,8 @@ package ai.rideos.android.driver_app.online.driving.drive_pending;
 import ai.rideos.android.common.device.DeviceLocator;
 import ai.rideos.android.common.interactors.GeocodeInteractor;
 import ai.rideos.android.common.interactors.RouteInteractor;
+import ai.rideos.android.common.location.RouteProgressTracker;
+import ai.rideos.android.common.location.RouteProgressTracker.RouteProgress;
 import ai.rideos.android.common.model.LatLng;
 import ai.rideos.android.common.model.LocationAndHeading;
 import ai.rideos.android.common.model.RouteInfoModel;
@@ -53,10 +55,12 @@ import timber.log.Timber;
 public class DefaultDrivePendingViewModel extends DefaultOnTripViewModel implements DrivePendingViewModel {
     private static final int RETRY_COUNT = 2;
     private static final float PATH_WIDTH = 10.0f;
+    private static final int POLL_INTERVAL_MILLIS = 1000;
 
     private final CompositeDisposable compositeDisposable = new CompositeDisposable();
     private final SingleSubject<Result<RouteInfoModel>> routeInfoResult = SingleSubject.create();
     private final BehaviorSubject<LocationAndHeading> currentLocation = BehaviorSubject.create();
+    private final RouteProgressTracker progressTracker = new RouteProgressTracker();
 
     private final RouteInteractor routeInteractor;
     private final SchedulerProvider schedulerProvider;
@@ -99,6 +103,7 @@ public class DefaultDrivePendingViewModel extends DefaultOnTripViewModel impleme
         this.drawableDestinationPin = drawableDestinationPin;
         compositeDisposable.addAll(
             deviceLocator.getLastKnownLocation().subscribe(currentLocation::onNext),
+            deviceLocator.observeCurrentLocation(POLL_INTERVAL_MILLIS).subscribe(currentLocation::onNext),
             fetchRouteInfo().subscribe(routeInfoResult::onSuccess)
         );
     }
@@ -120,7 +125,7 @@ public class DefaultDrivePendingViewModel extends DefaultOnTripViewModel impleme
             .toObservable()
             .filter(Result::isSuccess)
             .map(routeResponse -> {
-                final LatLngBounds bounds = Paths.getBoundsForPath(routeResponse.get().getRoute(), destination);
+                final LatLngBounds bounds = Paths.getBoundsForPath(routeResponse.get().getPath(), destination);
                 return CameraUpdate.fitToBounds(bounds);
             });
     }
@@ -157,20 +162,32 @@ public class DefaultDrivePendingViewModel extends DefaultOnTripViewModel impleme
 
     @Override
     public Observable<List<DrawablePath>> getPaths() {
-        return routeInfoResult.observeOn(schedulerProvider.computation())
-            .toObservable()
-            .filter(Result::isSuccess)
-            .map(routeResponse -> Collections.singletonList(
-                new DrawablePath(
-                    routeResponse.get().getRoute(),
-                    PATH_WIDTH,
-                    resourceProvider.getColor(R.attr.rideos_route_color)
-                )
-            ));
+        return Observable.combineLatest(
+            routeInfoResult.toObservable().filter(Result::isSuccess),
+            currentLocation,
+            Pair::create
+        )
+            .observeOn(schedulerProvider.computation())
+            .map(routeAndLocation -> {
+                // Only draw the part of the route ahead of the vehicle
+                final RouteProgress progress = progressTracker.update(
+                    routeAndLocation.first.get(),
+                    routeAndLocation.second.getLatLng()
+                );
+                return Collections.singletonList(
+                    new DrawablePath(
+                        progress.isOffRoute() ? routeAndLocation.first.get().getPath() : progress.getRemainingPath(),
+                        PATH_WIDTH,
+                        resourceProvider.getColor(R.attr.rideos_route_color)
+                    )
+                );
+            });
     }
 
     private Observable<Result<RouteInfoModel>> fetchRouteInfo() {
+        // Route from the first location only. Later locations just move the vehicle along the route.
         return currentLocation
+            .take(1)
             .observeOn(schedulerProvider.computation())
             .flatMap(origin -> routeInteractor.getRoute(origin.getLatLng(), destination))
             .retry(RETRY_COUNT)
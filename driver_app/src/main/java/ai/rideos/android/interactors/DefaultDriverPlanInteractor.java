@@ -50,16 +50,20 @@ public class DefaultDriverPlanInteractor
     public DefaultDriverPlanInteractor(final Supplier<ManagedChannel> channelSupplier,
                                        final User user,
                                        final SchedulerProvider schedulerProvider) {
-        super(RideHailDriverServiceGrpc::newFutureStub, channelSupplier, user, schedulerProvider);
+        // The plan is polled continuously while online, so don't hold an io thread for each poll while it is in flight
+        super(RideHailDriverServiceGrpc::newFutureStub, channelSupplier, user, schedulerProvider, ExecutionMode.ASYNC);
     }
 
     @Override
     public Observable<VehiclePlan> getPlanForVehicle(final String vehicleId) {
-        return fetchAuthorizedStubAndExecute(stub -> stub.getVehicleState(
-            GetVehicleStateRequest.newBuilder()
-                .setId(vehicleId)
-                .build()
-        ))
+        final GetVehicleStateRequest request = GetVehicleStateRequest.newBuilder()
+            .setId(vehicleId)
+            .build();
+        return fetchAuthorizedStubAndExecuteCoalesced(
+            RideHailDriverServiceGrpc.getGetVehicleStateMethod(),
+            request,
+            stub -> stub.getVehicleState(request)
+        )
             .map(response -> {
                 final List<Step> steps = response.getState().getPlan().getStepList();
                 final List<Waypoint> waypoints = new ArrayList<>();
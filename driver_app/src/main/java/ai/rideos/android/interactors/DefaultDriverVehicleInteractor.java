@@ -17,7 +17,6 @@ package ai.rideos.android.interactors;
 
 import ai.rideos.android.common.authentication.User;
 import ai.rideos.android.common.interactors.GrpcServerInteractor;
-import ai.rideos.android.common.model.LatLng;
 import ai.rideos.android.common.model.LocationAndHeading;
 import ai.rideos.android.common.model.RouteInfoModel;
 import ai.rideos.android.common.model.VehicleInfo;
@@ -25,6 +24,8 @@ import ai.rideos.android.common.model.VehicleInfo.ContactInfo;
 import ai.rideos.android.common.reactive.SchedulerProvider;
 import ai.rideos.android.common.reactive.SchedulerProviders.DefaultSchedulerProvider;
 import ai.rideos.android.common.utils.Locations;
+import ai.rideos.android.common.utils.PolylineCodec;
+import ai.rideos.android.common.utils.Polylines.PolylineEncoder;
 import ai.rideos.android.model.VehicleDisplayRouteLeg;
 import ai.rideos.android.model.VehicleRegistration;
 import ai.rideos.android.model.VehicleStatus;
@@ -50,7 +51,6 @@ import ai.rideos.api.ride_hail_driver.v1.RideHailDriver.UpdateVehicleStateReques
 import ai.rideos.api.ride_hail_driver.v1.RideHailDriverServiceGrpc;
 import ai.rideos.api.ride_hail_driver.v1.RideHailDriverServiceGrpc.RideHailDriverServiceFutureStub;
 import androidx.core.util.Pair;
-import com.google.maps.android.PolyUtil;
 import com.google.protobuf.FloatValue;
 import com.google.protobuf.StringValue;
 import io.grpc.ManagedChannel;
@@ -66,14 +66,10 @@ import java.util.stream.Collectors;
 public class DefaultDriverVehicleInteractor
     extends GrpcServerInteractor<RideHailDriverServiceFutureStub>
     implements DriverVehicleInteractor {
-    public interface PolylineEncoder {
-        String encodePolyline(final List<LatLng> route);
-    }
-
     private final PolylineEncoder polylineEncoder;
 
     public DefaultDriverVehicleInteractor(final Supplier<ManagedChannel> channelSupplier, final User user) {
-        this(channelSupplier, user, new DefaultPolylineEncoder(), new DefaultSchedulerProvider());
+        this(channelSupplier, user, new PolylineCodec(PolylineCodec.PRECISION_5), new DefaultSchedulerProvider());
     }
 
     public DefaultDriverVehicleInteractor(final Supplier<ManagedChannel> channelSupplier,
@@ -86,9 +82,12 @@ public class DefaultDriverVehicleInteractor
 
     @Override
     public Single<VehicleStatus> getVehicleStatus(final String vehicleId) {
-        return fetchAuthorizedStubAndExecute(stub -> stub.getVehicleState(
-            GetVehicleStateRequest.newBuilder().setId(vehicleId).build()
-        ))
+        final GetVehicleStateRequest request = GetVehicleStateRequest.newBuilder().setId(vehicleId).build();
+        return fetchAuthorizedStubAndExecuteCoalesced(
+            RideHailDriverServiceGrpc.getGetVehicleStateMethod(),
+            request,
+            stub -> stub.getVehicleState(request)
+        )
             .map(stateResponse ->
                 stateResponse.getState().getReadiness() ? VehicleStatus.READY : VehicleStatus.NOT_READY
             )
@@ -129,41 +128,60 @@ public class DefaultDriverVehicleInteractor
 
     @Override
     public Completable markVehicleReady(final String vehicleId) {
-        return fetchAuthorizedStubAndExecute(stub -> stub.updateVehicleState(
-            UpdateVehicleStateRequest.newBuilder()
-                .setId(vehicleId)
-                .setSetToReady(SetToReady.getDefaultInstance())
-                .build()
-        ))
-            .ignoreElements();
+        return updateVehicleState(buildMarkVehicleReadyRequest(vehicleId));
     }
 
     @Override
     public Completable markVehicleNotReady(final String vehicleId) {
-        return fetchAuthorizedStubAndExecute(stub -> stub.updateVehicleState(
-            UpdateVehicleStateRequest.newBuilder()
-                .setId(vehicleId)
-                .setSetToNotReady(SetToNotReady.getDefaultInstance())
-                .build()
-        ))
+        return updateVehicleState(buildMarkVehicleNotReadyRequest(vehicleId));
+    }
+
+    Completable updateVehicleState(final UpdateVehicleStateRequest request) {
+        return fetchAuthorizedStubAndExecute(stub -> stub.updateVehicleState(request))
             .ignoreElements();
     }
 
+    static UpdateVehicleStateRequest buildMarkVehicleReadyRequest(final String vehicleId) {
+        return UpdateVehicleStateRequest.newBuilder()
+            .setId(vehicleId)
+            .setSetToReady(SetToReady.getDefaultInstance())
+            .build();
+    }
+
+    static UpdateVehicleStateRequest buildMarkVehicleNotReadyRequest(final String vehicleId) {
+        return UpdateVehicleStateRequest.newBuilder()
+            .setId(vehicleId)
+            .setSetToNotReady(SetToNotReady.getDefaultInstance())
+            .build();
+    }
+
     @Override
     public Completable finishSteps(final String vehicleId, final String taskId, final List<String> stepIds) {
-        return Observable.fromIterable(stepIds)
-            .concatMapCompletable(stepId ->
-                fetchAuthorizedStubAndExecute(stub -> stub.completeStep(
-                    CompleteStepRequest.newBuilder()
-                        .setVehicleId(vehicleId)
-                        .setTripId(taskId)
-                        .setStepId(stepId)
-                        .build()
-                ))
-                    .ignoreElements()
+        // The steps belong to one trip and the API requires them to be completed in plan order, so each completion
+        // waits for the one before it to be acknowledged. Only the stub is shared between them. A failure stops the
+        // remaining steps and is reported with the steps that were already completed.
+        return fetchAuthorizedStub()
+            .flatMapCompletable(stub -> Observable.range(0, stepIds.size())
+                .concatMapCompletable(stepIndex ->
+                    observeFuture(stub.completeStep(
+                        buildCompleteStepRequest(vehicleId, taskId, stepIds.get(stepIndex))
+                    ))
+                        .ignoreElements()
+                        .onErrorResumeNext(e -> Completable.error(new StepCompletionException(stepIds, stepIndex, e)))
+                )
             );
     }
 
+    static CompleteStepRequest buildCompleteStepRequest(final String vehicleId,
+                                                        final String taskId,
+                                                        final String stepId) {
+        return CompleteStepRequest.newBuilder()
+            .setVehicleId(vehicleId)
+            .setTripId(taskId)
+            .setStepId(stepId)
+            .build();
+    }
+
     @Override
     public Completable rejectTrip(final String vehicleId, final String tripId) {
         return fetchAuthorizedStubAndExecute(stub -> stub.rejectTrip(RejectTripRequest.newBuilder()
@@ -185,21 +203,30 @@ public class DefaultDriverVehicleInteractor
 
     @Override
     public Completable updateVehicleLocation(final String vehicleId, final LocationAndHeading locationAndHeading) {
-        return fetchAuthorizedStubAndExecute(stub -> stub.updateVehicleState(
-            UpdateVehicleStateRequest.newBuilder()
-                .setId(vehicleId)
-                .setUpdatePosition(
-                    UpdatePosition.newBuilder()
-                        .setUpdatedHeading(FloatValue.newBuilder().setValue(locationAndHeading.getHeading()))
-                        .setUpdatedPosition(Locations.toRideOsPosition(locationAndHeading.getLatLng()))
-                )
-                .build()
-        ))
-            .ignoreElements();
+        return updateVehicleState(buildUpdateVehicleLocationRequest(vehicleId, locationAndHeading));
+    }
+
+    public static UpdateVehicleStateRequest buildUpdateVehicleLocationRequest(
+        final String vehicleId,
+        final LocationAndHeading locationAndHeading
+    ) {
+        return UpdateVehicleStateRequest.newBuilder()
+            .setId(vehicleId)
+            .setUpdatePosition(
+                UpdatePosition.newBuilder()
+                    .setUpdatedHeading(FloatValue.newBuilder().setValue(locationAndHeading.getHeading()))
+                    .setUpdatedPosition(Locations.toRideOsPosition(locationAndHeading.getLatLng()))
+            )
+            .build();
     }
 
     @Override
     public Completable updateVehicleRoute(final String vehicleId, final List<VehicleDisplayRouteLeg> updatedLegs) {
+        return updateVehicleState(buildUpdateVehicleRouteRequest(vehicleId, updatedLegs));
+    }
+
+    UpdateVehicleStateRequest buildUpdateVehicleRouteRequest(final String vehicleId,
+                                                             final List<VehicleDisplayRouteLeg> updatedLegs) {
         final List<LegDefinition> legDefinitions = updatedLegs.stream()
             .map(displayLeg -> {
                 final Pair<String, String> prevTripAndStep = displayLeg.getPreviousTripAndStep()
@@ -213,13 +240,10 @@ public class DefaultDriverVehicleInteractor
                     .build();
             })
             .collect(Collectors.toList());
-        return fetchAuthorizedStubAndExecute(stub -> stub.updateVehicleState(
-            UpdateVehicleStateRequest.newBuilder()
-                .setId(vehicleId)
-                .setSetRouteLegs(SetRouteLegs.newBuilder().addAllLegDefinition(legDefinitions))
-                .build()
-        ))
-            .ignoreElements();
+        return UpdateVehicleStateRequest.newBuilder()
+            .setId(vehicleId)
+            .setSetRouteLegs(SetRouteLegs.newBuilder().addAllLegDefinition(legDefinitions))
+            .build();
     }
 
     @Override
@@ -276,20 +300,9 @@ public class DefaultDriverVehicleInteractor
 
     private RouteLeg getRouteLegFromRouteInfo(final RouteInfoModel routeInfo) {
         return RouteLeg.newBuilder()
-            .setPolyline(polylineEncoder.encodePolyline(routeInfo.getRoute()))
+            .setPolyline(polylineEncoder.encode(routeInfo.getPath()))
             .setDistanceInMeters(routeInfo.getTravelDistanceMeters())
             .setTravelTimeInSeconds(((double) routeInfo.getTravelTimeMillis()) / 1000)
             .build();
     }
-
-    private static class DefaultPolylineEncoder implements PolylineEncoder {
-        @Override
-        public String encodePolyline(final List<LatLng> route) {
-            return PolyUtil.encode(
-                route.stream()
-                    .map(Locations::toGoogleLatLng)
-                    .collect(Collectors.toList())
-            );
-        }
-    }
 }
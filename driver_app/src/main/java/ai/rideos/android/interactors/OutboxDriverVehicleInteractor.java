@@ -0,0 +1,198 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.interactors;
+
+import ai.rideos.android.common.model.LocationAndHeading;
+import ai.rideos.android.common.model.VehicleInfo;
+import ai.rideos.android.common.model.VehicleInfo.ContactInfo;
+import ai.rideos.android.interactors.outbox.MutationOutbox;
+import ai.rideos.android.interactors.outbox.OutboxEntry.Type;
+import ai.rideos.android.model.VehicleDisplayRouteLeg;
+import ai.rideos.android.model.VehicleRegistration;
+import ai.rideos.android.model.VehicleStatus;
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import java.util.List;
+import java.util.function.Supplier;
+import timber.log.Timber;
+
+/**
+ * OutboxDriverVehicleInteractor keeps driver mutations from being lost while the device is offline. Location, route,
+ * readiness and step completion updates are sent directly while the outbox is empty. If one fails because the network
+ * is unavailable, it is queued in the MutationOutbox instead of failing, and replayed once the network is back. When
+ * only some of the steps passed to finishSteps were completed, only the unfinished steps are queued.
+ * While the outbox has pending entries, new mutations are queued behind them so they reach the backend in order.
+ *
+ * All other calls are passed through to the wrapped interactor.
+ */
+public class OutboxDriverVehicleInteractor implements DriverVehicleInteractor {
+    private static final String LOCATION_COLLAPSE_KEY_PREFIX = "location/";
+    private static final String ROUTE_COLLAPSE_KEY_PREFIX = "route/";
+
+    private final DefaultDriverVehicleInteractor vehicleInteractor;
+    private final MutationOutbox outbox;
+
+    public OutboxDriverVehicleInteractor(final DefaultDriverVehicleInteractor vehicleInteractor,
+                                         final MutationOutbox outbox) {
+        this.vehicleInteractor = vehicleInteractor;
+        this.outbox = outbox;
+    }
+
+    @Override
+    public Single<VehicleStatus> getVehicleStatus(final String vehicleId) {
+        return vehicleInteractor.getVehicleStatus(vehicleId);
+    }
+
+    @Override
+    public Completable createVehicle(final String vehicleId,
+                                     final String fleetId,
+                                     final VehicleRegistration vehicleRegistration) {
+        return vehicleInteractor.createVehicle(vehicleId, fleetId, vehicleRegistration);
+    }
+
+    @Override
+    public Completable markVehicleReady(final String vehicleId) {
+        return sendOrQueue(
+            vehicleInteractor.markVehicleReady(vehicleId),
+            Type.UPDATE_VEHICLE_STATE,
+            null,
+            () -> DefaultDriverVehicleInteractor.buildMarkVehicleReadyRequest(vehicleId).toByteArray()
+        );
+    }
+
+    @Override
+    public Completable markVehicleNotReady(final String vehicleId) {
+        return sendOrQueue(
+            vehicleInteractor.markVehicleNotReady(vehicleId),
+            Type.UPDATE_VEHICLE_STATE,
+            null,
+            () -> DefaultDriverVehicleInteractor.buildMarkVehicleNotReadyRequest(vehicleId).toByteArray()
+        );
+    }
+
+    @Override
+    public Completable finishSteps(final String vehicleId, final String taskId, final List<String> stepIds) {
+        return outbox.load().andThen(Completable.defer(() -> {
+            if (!outbox.isEmpty()) {
+                return queueSteps(vehicleId, taskId, stepIds).doOnComplete(this::flushInBackground);
+            }
+            return vehicleInteractor.finishSteps(vehicleId, taskId, stepIds)
+                .onErrorResumeNext(e -> queueStepsThatFailedTransiently(vehicleId, taskId, stepIds, e));
+        }));
+    }
+
+    @Override
+    public Completable rejectTrip(final String vehicleId, final String tripId) {
+        return vehicleInteractor.rejectTrip(vehicleId, tripId);
+    }
+
+    @Override
+    public Completable cancelTrip(final String tripId) {
+        return vehicleInteractor.cancelTrip(tripId);
+    }
+
+    @Override
+    public Completable updateVehicleLocation(final String vehicleId, final LocationAndHeading locationAndHeading) {
+        return sendOrQueue(
+            vehicleInteractor.updateVehicleLocation(vehicleId, locationAndHeading),
+            Type.UPDATE_VEHICLE_STATE,
+            LOCATION_COLLAPSE_KEY_PREFIX + vehicleId,
+            () -> DefaultDriverVehicleInteractor.buildUpdateVehicleLocationRequest(vehicleId, locationAndHeading)
+                .toByteArray()
+        );
+    }
+
+    @Override
+    public Completable updateVehicleRoute(final String vehicleId, final List<VehicleDisplayRouteLeg> updatedLegs) {
+        return sendOrQueue(
+            vehicleInteractor.updateVehicleRoute(vehicleId, updatedLegs),
+            Type.UPDATE_VEHICLE_STATE,
+            ROUTE_COLLAPSE_KEY_PREFIX + vehicleId,
+            () -> vehicleInteractor.buildUpdateVehicleRouteRequest(vehicleId, updatedLegs).toByteArray()
+        );
+    }
+
+    @Override
+    public Completable updateContactInfo(final String vehicleId, final ContactInfo contactInfo) {
+        return vehicleInteractor.updateContactInfo(vehicleId, contactInfo);
+    }
+
+    @Override
+    public Completable updateLicensePlate(final String vehicleId, final String licensePlate) {
+        return vehicleInteractor.updateLicensePlate(vehicleId, licensePlate);
+    }
+
+    @Override
+    public Single<VehicleInfo> getVehicleInfo(final String vehicleId) {
+        return vehicleInteractor.getVehicleInfo(vehicleId);
+    }
+
+    @Override
+    public void shutDown() {
+        vehicleInteractor.shutDown();
+    }
+
+    private Completable sendOrQueue(final Completable directCall,
+                                    final Type type,
+                                    final String collapseKey,
+                                    final Supplier<byte[]> payloadSupplier) {
+        // Wait for entries from a previous run, so new mutations are queued behind them
+        return outbox.load().andThen(Completable.defer(() -> {
+            if (!outbox.isEmpty()) {
+                return outbox.enqueue(type, collapseKey, payloadSupplier.get())
+                    .doOnComplete(this::flushInBackground);
+            }
+            return directCall.onErrorResumeNext(e -> MutationOutbox.isTransientFailure(e)
+                ? outbox.enqueue(type, collapseKey, payloadSupplier.get())
+                : Completable.error(e)
+            );
+        }));
+    }
+
+    private Completable queueStepsThatFailedTransiently(final String vehicleId,
+                                                        final String taskId,
+                                                        final List<String> stepIds,
+                                                        final Throwable error) {
+        if (!(error instanceof StepCompletionException)) {
+            // No step was sent, e.g. because the user token could not be fetched
+            return MutationOutbox.isTransientFailure(error)
+                ? queueSteps(vehicleId, taskId, stepIds)
+                : Completable.error(error);
+        }
+        // Completed steps must not be sent again, so only the failed step and the steps after it are queued
+        final StepCompletionException stepError = (StepCompletionException) error;
+        return MutationOutbox.isTransientFailure(stepError.getCause())
+            ? queueSteps(vehicleId, taskId, stepError.getUnfinishedStepIds())
+            : Completable.error(stepError);
+    }
+
+    private Completable queueSteps(final String vehicleId, final String taskId, final List<String> stepIds) {
+        return Observable.fromIterable(stepIds)
+            .concatMapCompletable(stepId -> outbox.enqueue(
+                Type.COMPLETE_STEP,
+                null,
+                DefaultDriverVehicleInteractor.buildCompleteStepRequest(vehicleId, taskId, stepId).toByteArray()
+            ));
+    }
+
+    private void flushInBackground() {
+        outbox.flush().subscribe(
+            () -> { },
+            e -> Timber.e(e, "Could not flush outbox")
+        );
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.interactors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * StepCompletionException is returned when finishSteps stops at a step that could not be completed. Steps are
+ * completed in plan order, so it reports which steps were completed before the failure, and which steps were left
+ * unfinished: the failed step and every step after it. Callers only need to retry the unfinished steps.
+ */
+public class StepCompletionException extends Exception {
+    private final List<String> completedStepIds;
+    private final List<String> unfinishedStepIds;
+
+    public StepCompletionException(final List<String> stepIds, final int failedStepIndex, final Throwable cause) {
+        super(
+            String.format(
+                "Completed %d of %d steps, failed at %s",
+                failedStepIndex,
+                stepIds.size(),
+                stepIds.get(failedStepIndex)
+            ),
+            cause
+        );
+        completedStepIds = Collections.unmodifiableList(new ArrayList<>(stepIds.subList(0, failedStepIndex)));
+        unfinishedStepIds = Collections.unmodifiableList(
+            new ArrayList<>(stepIds.subList(failedStepIndex, stepIds.size()))
+        );
+    }
+
+    public List<String> getCompletedStepIds() {
+        return completedStepIds;
+    }
+
+    public String getFailedStepId() {
+        return unfinishedStepIds.get(0);
+    }
+
+    // The failed step, followed by the steps that were not attempted
+    public List<String> getUnfinishedStepIds() {
+        return unfinishedStepIds;
+    }
+}
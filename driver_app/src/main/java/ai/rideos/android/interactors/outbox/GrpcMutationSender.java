@@ -0,0 +1,71 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.interactors.outbox;
+
+import ai.rideos.android.common.authentication.User;
+import ai.rideos.android.common.interactors.GrpcServerInteractor;
+import ai.rideos.android.common.reactive.SchedulerProvider;
+import ai.rideos.android.common.reactive.SchedulerProviders.DefaultSchedulerProvider;
+import ai.rideos.api.ride_hail_driver.v1.RideHailDriver.CompleteStepRequest;
+import ai.rideos.api.ride_hail_driver.v1.RideHailDriver.UpdateVehicleStateRequest;
+import ai.rideos.api.ride_hail_driver.v1.RideHailDriverServiceGrpc;
+import ai.rideos.api.ride_hail_driver.v1.RideHailDriverServiceGrpc.RideHailDriverServiceFutureStub;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.grpc.ManagedChannel;
+import io.reactivex.Completable;
+import java.util.function.Supplier;
+
+/**
+ * GrpcMutationSender delivers outbox entries by sending their stored request protos to the RideHailDriverService.
+ */
+public class GrpcMutationSender
+    extends GrpcServerInteractor<RideHailDriverServiceFutureStub>
+    implements MutationOutbox.Sender {
+
+    public GrpcMutationSender(final Supplier<ManagedChannel> channelSupplier, final User user) {
+        this(channelSupplier, user, new DefaultSchedulerProvider());
+    }
+
+    public GrpcMutationSender(final Supplier<ManagedChannel> channelSupplier,
+                              final User user,
+                              final SchedulerProvider schedulerProvider) {
+        super(RideHailDriverServiceGrpc::newFutureStub, channelSupplier, user, schedulerProvider);
+    }
+
+    @Override
+    public Completable send(final OutboxEntry entry) {
+        return Completable.defer(() -> {
+            switch (entry.getType()) {
+                case UPDATE_VEHICLE_STATE:
+                    final UpdateVehicleStateRequest stateRequest = UpdateVehicleStateRequest.parseFrom(
+                        entry.getPayload()
+                    );
+                    return fetchAuthorizedStubAndExecute(stub -> stub.updateVehicleState(stateRequest))
+                        .ignoreElements();
+                case COMPLETE_STEP:
+                    final CompleteStepRequest stepRequest = CompleteStepRequest.parseFrom(entry.getPayload());
+                    return fetchAuthorizedStubAndExecute(stub -> stub.completeStep(stepRequest))
+                        .ignoreElements();
+                default:
+                    return Completable.error(new IllegalArgumentException("Unknown entry type " + entry.getType()));
+            }
+        })
+            // A corrupt payload will never parse, so it must not look like a transient IO failure
+            .onErrorResumeNext(e -> Completable.error(
+                e instanceof InvalidProtocolBufferException ? new IllegalArgumentException(e.getMessage()) : e
+            ));
+    }
+}
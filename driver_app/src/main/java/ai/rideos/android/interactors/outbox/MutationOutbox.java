@@ -0,0 +1,355 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.interactors.outbox;
+
+import ai.rideos.android.common.connectivity.ConnectivityInteractor;
+import ai.rideos.android.common.reactive.SchedulerProvider;
+import io.grpc.Status;
+import io.grpc.StatusException;
+import io.grpc.StatusRuntimeException;
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.subjects.BehaviorSubject;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import timber.log.Timber;
+
+/**
+ * MutationOutbox queues driver mutations that could not be delivered because the device is offline, persists them in
+ * an OutboxLog, and replays them in order once the network is back.
+ *
+ * When an entry is queued, older pending entries with the same collapse key are dropped, since only the newest
+ * location or route matters to the backend. Entries without a collapse key, like step completions, are all kept.
+ * Replay stops at the first transient failure and resumes on the next flush. Entries that fail for any other reason
+ * would never succeed, so they are dropped and logged.
+ *
+ * Entries left pending by a previous run are read from the log on the io scheduler the first time the outbox is used,
+ * so that constructing it never touches the disk.
+ */
+public class MutationOutbox {
+    // Rewrite the log once this many records have been acknowledged since the last rewrite
+    private static final int COMPACTION_THRESHOLD = 256;
+
+    public interface Sender {
+        Completable send(final OutboxEntry entry);
+    }
+
+    public static class Stats {
+        private final int pendingCount;
+        private final long enqueuedCount;
+        private final long deliveredCount;
+        private final long collapsedCount;
+        private final long droppedCount;
+        private final double lastReplayEntriesPerSecond;
+
+        Stats(final int pendingCount,
+              final long enqueuedCount,
+              final long deliveredCount,
+              final long collapsedCount,
+              final long droppedCount,
+              final double lastReplayEntriesPerSecond) {
+            this.pendingCount = pendingCount;
+            this.enqueuedCount = enqueuedCount;
+            this.deliveredCount = deliveredCount;
+            this.collapsedCount = collapsedCount;
+            this.droppedCount = droppedCount;
+            this.lastReplayEntriesPerSecond = lastReplayEntriesPerSecond;
+        }
+
+        public int getPendingCount() {
+            return pendingCount;
+        }
+
+        public long getEnqueuedCount() {
+            return enqueuedCount;
+        }
+
+        public long getDeliveredCount() {
+            return deliveredCount;
+        }
+
+        // Number of entries that were superseded by a newer entry before they were sent
+        public long getCollapsedCount() {
+            return collapsedCount;
+        }
+
+        // Number of entries that failed permanently and were not retried
+        public long getDroppedCount() {
+            return droppedCount;
+        }
+
+        public double getLastReplayEntriesPerSecond() {
+            return lastReplayEntriesPerSecond;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "pending=%d enqueued=%d delivered=%d collapsed=%d dropped=%d lastReplayPerSecond=%.1f",
+                pendingCount,
+                enqueuedCount,
+                deliveredCount,
+                collapsedCount,
+                droppedCount,
+                lastReplayEntriesPerSecond
+            );
+        }
+    }
+
+    private final OutboxLog outboxLog;
+    private final Sender sender;
+    private final SchedulerProvider schedulerProvider;
+    private final LinkedList<OutboxEntry> pendingEntries = new LinkedList<>();
+    private final BehaviorSubject<Integer> depthSubject = BehaviorSubject.create();
+    private final Completable loadPendingEntries;
+    private final AtomicBoolean isFlushing = new AtomicBoolean(false);
+
+    private long nextSequence = 1;
+    // Sequence of the entry currently being sent, which must not be collapsed away while in flight
+    private long inFlightSequence = 0;
+    private int acknowledgedSinceCompaction = 0;
+    private long enqueuedCount = 0;
+    private long deliveredCount = 0;
+    private long collapsedCount = 0;
+    private long droppedCount = 0;
+    private double lastReplayEntriesPerSecond = 0;
+
+    public MutationOutbox(final OutboxLog outboxLog, final Sender sender, final SchedulerProvider schedulerProvider) {
+        this.outboxLog = outboxLog;
+        this.sender = sender;
+        this.schedulerProvider = schedulerProvider;
+        loadPendingEntries = Completable.fromAction(this::readPendingEntries)
+            .subscribeOn(schedulerProvider.io())
+            .cache();
+    }
+
+    /**
+     * Whether a failure is likely caused by missing connectivity, so that the mutation should be queued and retried.
+     */
+    public static boolean isTransientFailure(final Throwable throwable) {
+        Throwable cause = throwable;
+        while (cause != null) {
+            final Status status = cause instanceof StatusRuntimeException
+                ? ((StatusRuntimeException) cause).getStatus()
+                : cause instanceof StatusException ? ((StatusException) cause).getStatus() : null;
+            if (status != null) {
+                return status.getCode() == Status.Code.UNAVAILABLE
+                    || status.getCode() == Status.Code.DEADLINE_EXCEEDED;
+            }
+            if (cause instanceof IOException) {
+                return true;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * Read the entries left pending by a previous run. The log is only read once, and enqueue, flush and
+     * replayWhenConnected all wait for it, so this only needs to be called directly before using isEmpty.
+     */
+    public Completable load() {
+        return loadPendingEntries;
+    }
+
+    // Until load completes, the outbox is empty
+    public synchronized boolean isEmpty() {
+        return pendingEntries.isEmpty();
+    }
+
+    public Observable<Integer> observeDepth() {
+        return depthSubject;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(
+            pendingEntries.size(),
+            enqueuedCount,
+            deliveredCount,
+            collapsedCount,
+            droppedCount,
+            lastReplayEntriesPerSecond
+        );
+    }
+
+    /**
+     * Durably queue a mutation. The returned Completable completes once the entry is written to disk; delivery
+     * happens on the next flush.
+     * @param collapseKey - Pending entries with the same key are superseded by this one. Use null to always send.
+     */
+    public Completable enqueue(final OutboxEntry.Type type, final String collapseKey, final byte[] payload) {
+        return loadPendingEntries.andThen(
+            Completable.fromAction(() -> append(type, collapseKey, payload))
+                .subscribeOn(schedulerProvider.io())
+        );
+    }
+
+    /**
+     * Send pending entries in order until the outbox is empty or a transient failure occurs. If a flush is already
+     * running, this completes immediately and the running flush picks up any new entries.
+     */
+    public Completable flush() {
+        return loadPendingEntries.andThen(
+            Completable.fromAction(this::drain)
+                .subscribeOn(schedulerProvider.io())
+        );
+    }
+
+    /**
+     * Flush the outbox every time the network comes back while entries are pending. Network status is only observed
+     * while the outbox is not empty. This also starts loading the log, so entries from a previous run are replayed.
+     */
+    public Disposable replayWhenConnected(final Observable<ConnectivityInteractor.Status> networkStatus) {
+        return loadPendingEntries.andThen(depthSubject)
+            .map(depth -> depth > 0)
+            .distinctUntilChanged()
+            .switchMap(hasPendingEntries -> hasPendingEntries
+                ? networkStatus
+                    .distinctUntilChanged()
+                    .filter(status -> status == ConnectivityInteractor.Status.CONNECTED)
+                : Observable.never()
+            )
+            .flatMapCompletable(status -> flush())
+            .subscribe(
+                () -> { },
+                e -> Timber.e(e, "Outbox replay stopped")
+            );
+    }
+
+    private synchronized void readPendingEntries() {
+        try {
+            pendingEntries.addAll(outboxLog.readPendingEntries());
+        } catch (final IOException e) {
+            Timber.e(e, "Could not read outbox, starting empty");
+        }
+        if (!pendingEntries.isEmpty()) {
+            nextSequence = pendingEntries.getLast().getSequence() + 1;
+        }
+        depthSubject.onNext(pendingEntries.size());
+    }
+
+    private synchronized void append(final OutboxEntry.Type type,
+                                     final String collapseKey,
+                                     final byte[] payload) throws IOException {
+        final OutboxEntry entry = new OutboxEntry(
+            nextSequence++,
+            type,
+            collapseKey == null ? OutboxEntry.NO_COLLAPSE_KEY : collapseKey,
+            payload
+        );
+        outboxLog.append(entry);
+        pendingEntries.addLast(entry);
+        enqueuedCount++;
+        if (entry.isCollapsible()) {
+            final Iterator<OutboxEntry> iterator = pendingEntries.iterator();
+            while (iterator.hasNext()) {
+                final OutboxEntry pendingEntry = iterator.next();
+                if (pendingEntry != entry
+                    && pendingEntry.getCollapseKey().equals(entry.getCollapseKey())
+                    && pendingEntry.getSequence() != inFlightSequence) {
+                    iterator.remove();
+                    acknowledge(pendingEntry);
+                    collapsedCount++;
+                }
+            }
+        }
+        depthSubject.onNext(pendingEntries.size());
+    }
+
+    private void drain() {
+        if (!isFlushing.compareAndSet(false, true)) {
+            return;
+        }
+        final long startNanos = System.nanoTime();
+        int sentCount = 0;
+        try {
+            OutboxEntry entry;
+            while ((entry = startNextEntry()) != null) {
+                try {
+                    sender.send(entry).blockingAwait();
+                    finishEntry(entry, true);
+                    sentCount++;
+                } catch (final RuntimeException e) {
+                    if (isTransientFailure(e)) {
+                        Timber.i("Outbox replay paused, %d entries pending", getStats().getPendingCount());
+                        clearInFlightEntry();
+                        break;
+                    }
+                    Timber.e(e, "Dropping outbox entry %d that cannot be delivered", entry.getSequence());
+                    finishEntry(entry, false);
+                }
+            }
+        } finally {
+            recordReplay(sentCount, System.nanoTime() - startNanos);
+            isFlushing.set(false);
+        }
+    }
+
+    private synchronized OutboxEntry startNextEntry() {
+        final OutboxEntry entry = pendingEntries.peekFirst();
+        inFlightSequence = entry == null ? 0 : entry.getSequence();
+        return entry;
+    }
+
+    private synchronized void clearInFlightEntry() {
+        inFlightSequence = 0;
+    }
+
+    private synchronized void finishEntry(final OutboxEntry entry, final boolean delivered) {
+        pendingEntries.remove(entry);
+        inFlightSequence = 0;
+        if (delivered) {
+            deliveredCount++;
+        } else {
+            droppedCount++;
+        }
+        try {
+            acknowledge(entry);
+        } catch (final IOException e) {
+            // The entry is still marked as pending on disk, so it may be sent again after a restart
+            Timber.e(e, "Could not acknowledge outbox entry %d", entry.getSequence());
+        }
+        depthSubject.onNext(pendingEntries.size());
+    }
+
+    private synchronized void acknowledge(final OutboxEntry entry) throws IOException {
+        outboxLog.acknowledge(entry.getSequence());
+        acknowledgedSinceCompaction++;
+        if (pendingEntries.isEmpty() || acknowledgedSinceCompaction >= COMPACTION_THRESHOLD) {
+            outboxLog.compact(new ArrayList<>(pendingEntries));
+            acknowledgedSinceCompaction = 0;
+        }
+    }
+
+    private synchronized void recordReplay(final int sentCount, final long elapsedNanos) {
+        if (sentCount == 0) {
+            return;
+        }
+        lastReplayEntriesPerSecond = sentCount / Math.max(elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1), 1e-9);
+        Timber.i("Outbox replayed %d entries: %s", sentCount, getStats());
+    }
+
+    // Visible for testing
+    synchronized List<OutboxEntry> getPendingEntries() {
+        return new ArrayList<>(pendingEntries);
+    }
+}
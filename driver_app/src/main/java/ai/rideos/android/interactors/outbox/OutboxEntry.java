@@ -0,0 +1,83 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.interactors.outbox;
+
+/**
+ * OutboxEntry is a single queued mutation. The payload is the serialized request proto for the entry's type.
+ * Entries with the same collapse key supersede each other, so only the newest one needs to be sent. Entries without a
+ * collapse key are always sent.
+ */
+public class OutboxEntry {
+    static final String NO_COLLAPSE_KEY = "";
+
+    public enum Type {
+        // Payload is an UpdateVehicleStateRequest
+        UPDATE_VEHICLE_STATE((byte) 1),
+        // Payload is a CompleteStepRequest
+        COMPLETE_STEP((byte) 2);
+
+        private final byte code;
+
+        Type(final byte code) {
+            this.code = code;
+        }
+
+        byte getCode() {
+            return code;
+        }
+
+        static Type fromCode(final byte code) {
+            for (final Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown outbox entry type " + code);
+        }
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final String collapseKey;
+    private final byte[] payload;
+
+    OutboxEntry(final long sequence, final Type type, final String collapseKey, final byte[] payload) {
+        this.sequence = sequence;
+        this.type = type;
+        this.collapseKey = collapseKey;
+        this.payload = payload;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getCollapseKey() {
+        return collapseKey;
+    }
+
+    public boolean isCollapsible() {
+        return !collapseKey.equals(NO_COLLAPSE_KEY);
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+}
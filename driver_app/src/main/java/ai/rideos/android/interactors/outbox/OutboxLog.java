@@ -0,0 +1,211 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.interactors.outbox;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import timber.log.Timber;
+
+/**
+ * OutboxLog persists outbox entries in an append-only file. Entries are written as they are queued, and delivered or
+ * superseded entries are marked with acknowledgement records rather than being removed. Each record is synced to disk
+ * before the append returns.
+ *
+ * If the app dies halfway through an append, the incomplete record at the end of the file is discarded on the next
+ * read. The file is rewritten with only the pending entries when compact() is called.
+ */
+public class OutboxLog {
+    private static final byte ENTRY_RECORD = 1;
+    private static final byte ACK_RECORD = 2;
+
+    private final File file;
+    private FileOutputStream fileOutput;
+    private DataOutputStream output;
+
+    public OutboxLog(final File file) {
+        this.file = file;
+    }
+
+    /**
+     * Read all entries that have not been acknowledged, in the order they were appended.
+     */
+    public synchronized List<OutboxEntry> readPendingEntries() throws IOException {
+        closeOutput();
+        if (!file.exists()) {
+            return new ArrayList<>();
+        }
+        final Map<Long, OutboxEntry> pendingBySequence = new LinkedHashMap<>();
+        long validLength = 0;
+        final CountingInputStream countingInput = new CountingInputStream(
+            new BufferedInputStream(new FileInputStream(file))
+        );
+        try (final DataInputStream input = new DataInputStream(countingInput)) {
+            while (true) {
+                final byte recordType;
+                try {
+                    recordType = input.readByte();
+                } catch (final EOFException e) {
+                    break;
+                }
+                try {
+                    if (recordType == ENTRY_RECORD) {
+                        final OutboxEntry entry = readEntry(input);
+                        pendingBySequence.put(entry.getSequence(), entry);
+                    } else if (recordType == ACK_RECORD) {
+                        pendingBySequence.remove(input.readLong());
+                    } else {
+                        Timber.w("Unknown outbox record type %d, ignoring rest of outbox", recordType);
+                        break;
+                    }
+                } catch (final IOException | IllegalArgumentException | NegativeArraySizeException e) {
+                    // The app died while this record was being written
+                    Timber.w(e, "Discarding incomplete outbox record");
+                    break;
+                }
+                validLength = countingInput.getCount();
+            }
+        }
+        if (validLength < file.length()) {
+            try (final RandomAccessFile truncatedFile = new RandomAccessFile(file, "rw")) {
+                truncatedFile.setLength(validLength);
+            }
+        }
+        return new ArrayList<>(pendingBySequence.values());
+    }
+
+    public synchronized void append(final OutboxEntry entry) throws IOException {
+        final DataOutputStream output = getOutput();
+        output.writeByte(ENTRY_RECORD);
+        output.writeLong(entry.getSequence());
+        output.writeByte(entry.getType().getCode());
+        output.writeUTF(entry.getCollapseKey());
+        output.writeInt(entry.getPayload().length);
+        output.write(entry.getPayload());
+        sync();
+    }
+
+    public synchronized void acknowledge(final long sequence) throws IOException {
+        final DataOutputStream output = getOutput();
+        output.writeByte(ACK_RECORD);
+        output.writeLong(sequence);
+        sync();
+    }
+
+    /**
+     * Replace the log with one containing only the given pending entries. The new log is written to a temporary file
+     * first, so a crash during compaction leaves the old log in place.
+     */
+    public synchronized void compact(final List<OutboxEntry> pendingEntries) throws IOException {
+        closeOutput();
+        final File compactedFile = new File(file.getPath() + ".compact");
+        final OutboxLog compactedLog = new OutboxLog(compactedFile);
+        try {
+            for (final OutboxEntry entry : pendingEntries) {
+                compactedLog.append(entry);
+            }
+        } finally {
+            compactedLog.closeOutput();
+        }
+        if (!compactedFile.renameTo(file)) {
+            throw new IOException("Could not replace outbox log " + file);
+        }
+    }
+
+    public synchronized long getSizeBytes() {
+        return file.length();
+    }
+
+    private static OutboxEntry readEntry(final DataInputStream input) throws IOException {
+        final long sequence = input.readLong();
+        final OutboxEntry.Type type = OutboxEntry.Type.fromCode(input.readByte());
+        final String collapseKey = input.readUTF();
+        final byte[] payload = new byte[input.readInt()];
+        input.readFully(payload);
+        return new OutboxEntry(sequence, type, collapseKey, payload);
+    }
+
+    private DataOutputStream getOutput() throws IOException {
+        if (output == null) {
+            fileOutput = new FileOutputStream(file, true);
+            output = new DataOutputStream(fileOutput);
+        }
+        return output;
+    }
+
+    private void sync() throws IOException {
+        output.flush();
+        fileOutput.getFD().sync();
+    }
+
+    private void closeOutput() throws IOException {
+        if (output != null) {
+            output.close();
+            output = null;
+            fileOutput = null;
+        }
+    }
+
+    // Counts the bytes read so far, so the end of the last complete record is known
+    private static class CountingInputStream extends FilterInputStream {
+        private long count = 0;
+
+        private CountingInputStream(final InputStream input) {
+            super(input);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int result = super.read();
+            if (result >= 0) {
+                count++;
+            }
+            return result;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            final int bytesRead = super.read(buffer, offset, length);
+            if (bytesRead > 0) {
+                count += bytesRead;
+            }
+            return bytesRead;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            final long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        private long getCount() {
+            return count;
+        }
+    }
+}
@@ -17,12 +17,12 @@ package ai.rideos.android.driver_app.navigation;
 
 import ai.rideos.android.common.device.DeviceLocator;
 import ai.rideos.android.common.interactors.RouteInteractor;
+import ai.rideos.android.common.location.PathSimplifier;
 import ai.rideos.android.common.model.LatLng;
 import ai.rideos.android.common.model.LocationAndHeading;
 import ai.rideos.android.common.model.RouteInfoModel;
 import ai.rideos.android.common.reactive.Result;
 import ai.rideos.android.common.reactive.SchedulerProviders.TrampolineSchedulerProvider;
-import com.goebl.simplify.Simplify;
 import io.reactivex.Observable;
 import io.reactivex.Single;
 import io.reactivex.observers.TestObserver;
@@ -36,16 +36,12 @@ public class DefaultExternalRouteNavigationViewModelTest {
     private static final LocationAndHeading CURRENT_LOCATION = new LocationAndHeading(new LatLng(0, 1), 0);
     private static final LocationAndHeading DESTINATION = new LocationAndHeading(new LatLng(0, 2), 0);
     private static final List<LatLng> MOCK_ROUTE = Arrays.asList(CURRENT_LOCATION.getLatLng(), DESTINATION.getLatLng());
-    private static final List<LatLng> SIMPLE_ROUTE = Arrays.asList(DESTINATION.getLatLng());
     private static final int MAX_COORDINATES = 4;
-    private static final float TOLERANCE = 1.0f;
 
     private DefaultExternalRouteNavigationViewModel viewModelUnderTest;
     private DeviceLocator deviceLocator;
     private RouteInteractor routeInteractor;
-    private Simplify<LatLng> simplifier;
 
-    @SuppressWarnings("unchecked")
     @Before
     public void setUp() {
         deviceLocator = Mockito.mock(DeviceLocator.class);
@@ -54,16 +50,11 @@ public class DefaultExternalRouteNavigationViewModelTest {
         );
 
         routeInteractor = Mockito.mock(RouteInteractor.class);
-        simplifier = Mockito.mock(Simplify.class);
-        Mockito.when(simplifier.simplify(MOCK_ROUTE.toArray(new LatLng[0]), TOLERANCE, false))
-            .thenReturn(SIMPLE_ROUTE.toArray(new LatLng[0]));
 
         viewModelUnderTest = new DefaultExternalRouteNavigationViewModel(
             routeInteractor,
             deviceLocator,
-            MAX_COORDINATES,
-            TOLERANCE,
-            simplifier,
+            new PathSimplifier(PathSimplifier.Settings.defaults(MAX_COORDINATES)),
             new TrampolineSchedulerProvider()
         );
     }
@@ -82,23 +73,49 @@ public class DefaultExternalRouteNavigationViewModelTest {
 
     @Test
     public void testSetDestinationSimplifiesRouteWhenTooLong() {
+        // A straight route, so only its ends are needed
         final List<LatLng> longRoute = Arrays.asList(
             CURRENT_LOCATION.getLatLng(),
-            new LatLng(4, 4),
-            new LatLng(5, 5),
-            new LatLng(6, 6),
+            new LatLng(0, 1.25),
+            new LatLng(0, 1.5),
+            new LatLng(0, 1.75),
             DESTINATION.getLatLng()
         );
         Mockito.when(routeInteractor.getRoute(CURRENT_LOCATION, DESTINATION))
             .thenReturn(Observable.just(new RouteInfoModel(longRoute, 0, 0)));
-        Mockito.when(simplifier.simplify(longRoute.toArray(new LatLng[0]), TOLERANCE, false))
-            .thenReturn(SIMPLE_ROUTE.toArray(new LatLng[0]));
 
         viewModelUnderTest.setDestination(DESTINATION.getLatLng());
 
         viewModelUnderTest.getRoute().test()
             .assertValueCount(1)
-            .assertValueAt(0, result -> result.get().equals(SIMPLE_ROUTE));
+            .assertValueAt(0, result -> result.get().equals(MOCK_ROUTE));
+    }
+
+    @Test
+    public void testSimplifiedRouteKeepsTurns() {
+        // Drive north, turn east, then turn south to the destination
+        final List<LatLng> longRoute = Arrays.asList(
+            CURRENT_LOCATION.getLatLng(),
+            new LatLng(0.5, 1),
+            new LatLng(1, 1),
+            new LatLng(1, 1.5),
+            new LatLng(1, 2),
+            new LatLng(0.5, 2),
+            DESTINATION.getLatLng()
+        );
+        Mockito.when(routeInteractor.getRoute(CURRENT_LOCATION, DESTINATION))
+            .thenReturn(Observable.just(new RouteInfoModel(longRoute, 0, 0)));
+
+        viewModelUnderTest.setDestination(DESTINATION.getLatLng());
+
+        viewModelUnderTest.getRoute().test()
+            .assertValueCount(1)
+            .assertValueAt(0, result -> result.get().equals(Arrays.asList(
+                CURRENT_LOCATION.getLatLng(),
+                new LatLng(1, 1),
+                new LatLng(1, 2),
+                DESTINATION.getLatLng()
+            )));
     }
 
     @Test
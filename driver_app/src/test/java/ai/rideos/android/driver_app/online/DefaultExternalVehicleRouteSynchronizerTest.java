@@ -15,14 +15,19 @@
  */
 package ai.rideos.android.driver_app.online;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 
 import ai.rideos.android.common.authentication.User;
 import ai.rideos.android.common.interactors.RouteInteractor;
+import ai.rideos.android.common.location.DistanceCalculator;
 import ai.rideos.android.common.model.LatLng;
 import ai.rideos.android.common.model.LocationAndHeading;
 import ai.rideos.android.common.model.RouteInfoModel;
+import ai.rideos.android.common.reactive.SchedulerProviders.TestSchedulerProvider;
 import ai.rideos.android.common.reactive.SchedulerProviders.TrampolineSchedulerProvider;
+import ai.rideos.android.driver_app.online.DefaultExternalVehicleRouteSynchronizer.RefreshThresholds;
+import ai.rideos.android.driver_app.online.VehicleTelemetryFilter.Thresholds;
 import ai.rideos.android.interactors.DriverVehicleInteractor;
 import ai.rideos.android.model.TripResourceInfo;
 import ai.rideos.android.model.VehicleDisplayRouteLeg;
@@ -33,10 +38,14 @@ import ai.rideos.android.model.VehiclePlan.Waypoint;
 import androidx.core.util.Pair;
 import io.reactivex.Completable;
 import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -45,10 +54,29 @@ public class DefaultExternalVehicleRouteSynchronizerTest {
     private static final String USER_ID = "user";
     private static final LocationAndHeading CURRENT_LOCATION = new LocationAndHeading(new LatLng(1, 2), 1.0f);
     private static final TripResourceInfo TRIP_INFO = new TripResourceInfo(1, "Rider");
+    private static final Waypoint WAYPOINT_0 = new Waypoint(
+        "trip-1",
+        Collections.singletonList("step-1"),
+        new Action(new LatLng(1, 2.001), ActionType.DRIVE_TO_PICKUP, TRIP_INFO)
+    );
+    private static final Waypoint WAYPOINT_1 = new Waypoint(
+        "trip-1",
+        Collections.singletonList("step-2"),
+        new Action(new LatLng(1.01, 2), ActionType.DRIVE_TO_DROP_OFF, TRIP_INFO)
+    );
+    private static final Waypoint WAYPOINT_2 = new Waypoint(
+        "trip-2",
+        Collections.singletonList("step-1"),
+        new Action(new LatLng(1.02, 2), ActionType.DRIVE_TO_PICKUP, TRIP_INFO)
+    );
+    private static final double METERS_PER_DEGREE = 111_000;
+    private static final double MAX_DEVIATION_METERS = 50;
+    private static final long MAX_ROUTE_AGE_MILLIS = TimeUnit.MINUTES.toMillis(2);
 
     private DefaultExternalVehicleRouteSynchronizer synchronizer;
     private DriverVehicleInteractor vehicleInteractor;
     private RouteInteractor routeInteractor;
+    private TestScheduler testScheduler;
 
     @Before
     public void setUp() {
@@ -176,4 +204,213 @@ public class DefaultExternalVehicleRouteSynchronizerTest {
 
         synchronizer.synchronizeForPlan(planToSync, CURRENT_LOCATION).test().assertNoErrors().assertComplete();
     }
+
+    @Test
+    public void testUnchangedLocationIsNotSentAgain() {
+        final TestScheduler testScheduler = new TestScheduler();
+        synchronizer = new DefaultExternalVehicleRouteSynchronizer(
+            vehicleInteractor,
+            routeInteractor,
+            Mockito.mock(User.class),
+            new TestSchedulerProvider(testScheduler),
+            new VehicleTelemetryFilter(
+                new Thresholds(10, 20, 8, 2000, 6000, 30000),
+                (origin, destination) -> origin.equals(destination) ? 0 : 1000,
+                location -> 0
+            )
+        );
+        Mockito.when(vehicleInteractor.updateVehicleLocation(any(), any())).thenReturn(Completable.complete());
+        final VehiclePlan emptyPlan = new VehiclePlan(Collections.emptyList());
+
+        synchronizer.synchronizeForPlan(emptyPlan, CURRENT_LOCATION).test().assertComplete();
+        testScheduler.advanceTimeBy(2, TimeUnit.SECONDS);
+        synchronizer.synchronizeForPlan(emptyPlan, CURRENT_LOCATION).test().assertComplete();
+
+        Mockito.verify(vehicleInteractor, Mockito.times(1)).updateVehicleLocation(any(), any());
+    }
+
+    @Test
+    public void testUnchangedPlanIsNotRoutedOrUploadedAgain() {
+        synchronizer = createSynchronizerWithRefreshThresholds();
+        final VehiclePlan plan = new VehiclePlan(Arrays.asList(WAYPOINT_0, WAYPOINT_1));
+        mockRoute(CURRENT_LOCATION.getLatLng(), WAYPOINT_0, WAYPOINT_1);
+
+        synchronize(plan, CURRENT_LOCATION);
+        testScheduler.advanceTimeBy(5, TimeUnit.SECONDS);
+        synchronize(plan, CURRENT_LOCATION);
+
+        Mockito.verify(routeInteractor, Mockito.times(1)).getRouteForWaypoints(any());
+        Mockito.verify(vehicleInteractor, Mockito.times(1)).updateVehicleRoute(Mockito.eq(USER_ID), any());
+        assertEquals(1, synchronizer.getFullRouteCount());
+        assertEquals(0, synchronizer.getPartialRouteCount());
+        assertEquals(1, synchronizer.getSkippedSyncCount());
+    }
+
+    @Test
+    public void testOnlyLegsWithChangedEndpointsAreRoutedAgain() {
+        synchronizer = createSynchronizerWithRefreshThresholds();
+        final List<RouteInfoModel> originalRoutes = mockRoute(
+            CURRENT_LOCATION.getLatLng(),
+            WAYPOINT_0,
+            WAYPOINT_1,
+            WAYPOINT_2
+        );
+        synchronize(
+            new VehiclePlan(Arrays.asList(WAYPOINT_0, WAYPOINT_1, WAYPOINT_2)),
+            CURRENT_LOCATION
+        );
+
+        // Moving the second waypoint changes the legs into and out of it, but not the first leg
+        final Waypoint movedWaypoint1 = new Waypoint(
+            WAYPOINT_1.getTaskId(),
+            WAYPOINT_1.getStepIds(),
+            new Action(new LatLng(1.01, 2.01), ActionType.DRIVE_TO_DROP_OFF, TRIP_INFO)
+        );
+        final List<RouteInfoModel> changedRoutes = mockRoute(
+            WAYPOINT_0.getAction().getDestination(),
+            movedWaypoint1,
+            WAYPOINT_2
+        );
+        synchronize(
+            new VehiclePlan(Arrays.asList(WAYPOINT_0, movedWaypoint1, WAYPOINT_2)),
+            CURRENT_LOCATION
+        );
+
+        Mockito.verify(vehicleInteractor).updateVehicleRoute(USER_ID, Arrays.asList(
+            new VehicleDisplayRouteLeg(null, toKey(WAYPOINT_0), originalRoutes.get(0)),
+            new VehicleDisplayRouteLeg(toKey(WAYPOINT_0), toKey(movedWaypoint1), changedRoutes.get(0)),
+            new VehicleDisplayRouteLeg(toKey(movedWaypoint1), toKey(WAYPOINT_2), changedRoutes.get(1))
+        ));
+        Mockito.verify(routeInteractor, Mockito.times(2)).getRouteForWaypoints(any());
+        assertEquals(1, synchronizer.getFullRouteCount());
+        assertEquals(1, synchronizer.getPartialRouteCount());
+    }
+
+    @Test
+    public void testCompletedWaypointOnlyRoutesFirstLeg() {
+        synchronizer = createSynchronizerWithRefreshThresholds();
+        final List<RouteInfoModel> originalRoutes = mockRoute(
+            CURRENT_LOCATION.getLatLng(),
+            WAYPOINT_0,
+            WAYPOINT_1,
+            WAYPOINT_2
+        );
+        synchronize(
+            new VehiclePlan(Arrays.asList(WAYPOINT_0, WAYPOINT_1, WAYPOINT_2)),
+            CURRENT_LOCATION
+        );
+
+        final LocationAndHeading atWaypoint0 = new LocationAndHeading(WAYPOINT_0.getAction().getDestination(), 0);
+        final List<RouteInfoModel> firstLeg = mockRoute(atWaypoint0.getLatLng(), WAYPOINT_1);
+        synchronize(new VehiclePlan(Arrays.asList(WAYPOINT_1, WAYPOINT_2)), atWaypoint0);
+
+        Mockito.verify(vehicleInteractor).updateVehicleRoute(USER_ID, Arrays.asList(
+            new VehicleDisplayRouteLeg(null, toKey(WAYPOINT_1), firstLeg.get(0)),
+            new VehicleDisplayRouteLeg(toKey(WAYPOINT_1), toKey(WAYPOINT_2), originalRoutes.get(2))
+        ));
+        assertEquals(1, synchronizer.getPartialRouteCount());
+    }
+
+    @Test
+    public void testDeviatingFromFirstLegRoutesItAgain() {
+        synchronizer = createSynchronizerWithRefreshThresholds();
+        final VehiclePlan plan = new VehiclePlan(Arrays.asList(WAYPOINT_0, WAYPOINT_1));
+        mockRoute(CURRENT_LOCATION.getLatLng(), WAYPOINT_0, WAYPOINT_1);
+        synchronize(plan, CURRENT_LOCATION);
+
+        // Still on the first leg, halfway to the first waypoint
+        final LocationAndHeading onRoute = new LocationAndHeading(new LatLng(1, 2.0005), 0);
+        synchronize(plan, onRoute);
+        assertEquals(1, synchronizer.getSkippedSyncCount());
+
+        // About 110m off the first leg
+        final LocationAndHeading offRoute = new LocationAndHeading(new LatLng(1.001, 2.0005), 0);
+        mockRoute(offRoute.getLatLng(), WAYPOINT_0);
+        synchronize(plan, offRoute);
+
+        Mockito.verify(routeInteractor).getRouteForWaypoints(
+            Arrays.asList(offRoute.getLatLng(), WAYPOINT_0.getAction().getDestination())
+        );
+        assertEquals(1, synchronizer.getPartialRouteCount());
+    }
+
+    @Test
+    public void testOldLegsAreRoutedAgain() {
+        synchronizer = createSynchronizerWithRefreshThresholds();
+        final VehiclePlan plan = new VehiclePlan(Arrays.asList(WAYPOINT_0, WAYPOINT_1));
+        mockRoute(CURRENT_LOCATION.getLatLng(), WAYPOINT_0, WAYPOINT_1);
+
+        synchronize(plan, CURRENT_LOCATION);
+        testScheduler.advanceTimeBy(MAX_ROUTE_AGE_MILLIS + 1, TimeUnit.MILLISECONDS);
+        synchronize(plan, CURRENT_LOCATION);
+
+        Mockito.verify(routeInteractor, Mockito.times(2)).getRouteForWaypoints(Arrays.asList(
+            CURRENT_LOCATION.getLatLng(),
+            WAYPOINT_0.getAction().getDestination(),
+            WAYPOINT_1.getAction().getDestination()
+        ));
+        assertEquals(2, synchronizer.getFullRouteCount());
+    }
+
+    @Test
+    public void testFailedUploadIsRetriedOnNextSync() {
+        synchronizer = createSynchronizerWithRefreshThresholds();
+        final VehiclePlan plan = new VehiclePlan(Arrays.asList(WAYPOINT_0, WAYPOINT_1));
+        mockRoute(CURRENT_LOCATION.getLatLng(), WAYPOINT_0, WAYPOINT_1);
+        Mockito.when(vehicleInteractor.updateVehicleRoute(Mockito.eq(USER_ID), any()))
+            .thenReturn(Completable.error(new IOException()))
+            .thenReturn(Completable.complete());
+
+        synchronize(plan, CURRENT_LOCATION);
+        synchronize(plan, CURRENT_LOCATION);
+
+        Mockito.verify(vehicleInteractor, Mockito.times(2)).updateVehicleRoute(Mockito.eq(USER_ID), any());
+        assertEquals(1, synchronizer.getFullRouteCount());
+        assertEquals(0, synchronizer.getSkippedSyncCount());
+    }
+
+    private DefaultExternalVehicleRouteSynchronizer createSynchronizerWithRefreshThresholds() {
+        testScheduler = new TestScheduler();
+        final User user = Mockito.mock(User.class);
+        Mockito.when(user.getId()).thenReturn(USER_ID);
+        Mockito.when(vehicleInteractor.updateVehicleLocation(any(), any())).thenReturn(Completable.complete());
+        // Flat distance for the telemetry filter, which is close enough to the real one over these short distances
+        final DistanceCalculator distanceCalculator = (origin, destination) -> Math.hypot(
+            origin.getLatitude() - destination.getLatitude(),
+            origin.getLongitude() - destination.getLongitude()
+        ) * METERS_PER_DEGREE;
+        return new DefaultExternalVehicleRouteSynchronizer(
+            vehicleInteractor,
+            routeInteractor,
+            user,
+            new TestSchedulerProvider(testScheduler),
+            new VehicleTelemetryFilter(Thresholds.defaults(), distanceCalculator, location -> 0),
+            new RefreshThresholds(MAX_DEVIATION_METERS, MAX_ROUTE_AGE_MILLIS)
+        );
+    }
+
+    private void synchronize(final VehiclePlan plan, final LocationAndHeading location) {
+        final TestObserver<Void> testObserver = synchronizer.synchronizeForPlan(plan, location).test();
+        testScheduler.triggerActions();
+        testObserver.assertComplete();
+    }
+
+    // Mock a route through the given waypoints, with one straight leg between each pair of consecutive points
+    private List<RouteInfoModel> mockRoute(final LatLng origin, final Waypoint... waypoints) {
+        final List<LatLng> points = new ArrayList<>(waypoints.length + 1);
+        points.add(origin);
+        for (final Waypoint waypoint : waypoints) {
+            points.add(waypoint.getAction().getDestination());
+        }
+        final List<RouteInfoModel> routes = new ArrayList<>(waypoints.length);
+        for (int i = 1; i < points.size(); i++) {
+            routes.add(new RouteInfoModel(Arrays.asList(points.get(i - 1), points.get(i)), 1000 * i, 100 * i));
+        }
+        Mockito.when(routeInteractor.getRouteForWaypoints(points)).thenReturn(Observable.just(routes));
+        return routes;
+    }
+
+    private static Pair<String, String> toKey(final Waypoint waypoint) {
+        return Pair.create(waypoint.getTaskId(), waypoint.getStepIds().get(0));
+    }
 }
@@ -0,0 +1,91 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.driver_app.online;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import ai.rideos.android.common.location.DistanceCalculator;
+import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.LocationAndHeading;
+import ai.rideos.android.driver_app.online.VehicleTelemetryFilter.Thresholds;
+import org.junit.Before;
+import org.junit.Test;
+
+public class VehicleTelemetryFilterTest {
+    private static final int REQUEST_SIZE = 40;
+    // Treat one degree of latitude as one meter to keep the arithmetic simple
+    private static final DistanceCalculator DISTANCE_CALCULATOR =
+        (origin, destination) -> Math.abs(destination.getLatitude() - origin.getLatitude());
+
+    private VehicleTelemetryFilter filterUnderTest;
+
+    @Before
+    public void setUp() {
+        filterUnderTest = new VehicleTelemetryFilter(
+            new Thresholds(10, 20, 8, 2000, 6000, 30000),
+            DISTANCE_CALCULATOR,
+            location -> REQUEST_SIZE
+        );
+    }
+
+    @Test
+    public void testFirstLocationIsSent() {
+        assertTrue(filterUnderTest.offer(location(0, 0), 0));
+    }
+
+    @Test
+    public void testStationaryVehicleOnlySendsHeartbeats() {
+        filterUnderTest.offer(location(0, 0), 0);
+        for (long time = 2000; time < 30000; time += 2000) {
+            assertFalse(filterUnderTest.offer(location(1, 0), time));
+        }
+        assertTrue(filterUnderTest.offer(location(1, 0), 30000));
+
+        assertEquals(2, filterUnderTest.getSentCount());
+        assertEquals(14, filterUnderTest.getSuppressedCount());
+        assertEquals(14 * REQUEST_SIZE, filterUnderTest.getSuppressedBytes());
+    }
+
+    @Test
+    public void testFastVehicleSendsAtHighRate() {
+        filterUnderTest.offer(location(0, 0), 0);
+        // 20 m/s
+        assertTrue(filterUnderTest.offer(location(40, 0), 2000));
+        assertTrue(filterUnderTest.offer(location(80, 0), 4000));
+    }
+
+    @Test
+    public void testSlowVehicleSendsAtLowRate() {
+        filterUnderTest.offer(location(0, 0), 0);
+        // 6 m/s
+        assertFalse(filterUnderTest.offer(location(12, 0), 2000));
+        assertFalse(filterUnderTest.offer(location(24, 0), 4000));
+        assertTrue(filterUnderTest.offer(location(36, 0), 6000));
+    }
+
+    @Test
+    public void testTurningInPlaceIsSent() {
+        filterUnderTest.offer(location(0, 350), 0);
+        assertFalse(filterUnderTest.offer(location(0, 5), 6000));
+        assertTrue(filterUnderTest.offer(location(0, 30), 12000));
+    }
+
+    private static LocationAndHeading location(final double latitude, final float heading) {
+        return new LocationAndHeading(new LatLng(latitude, 0), heading);
+    }
+}
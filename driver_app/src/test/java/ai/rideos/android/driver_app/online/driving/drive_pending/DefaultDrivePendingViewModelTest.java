@@ -70,6 +70,7 @@ public class DefaultDrivePendingViewModelTest {
         Mockito.when(deviceLocator.getLastKnownLocation()).thenReturn(
             Single.just(new LocationAndHeading(ORIGIN, 0f))
         );
+        Mockito.when(deviceLocator.observeCurrentLocation(Mockito.anyInt())).thenReturn(Observable.never());
 
         final RouteInteractor routeInteractor = Mockito.mock(RouteInteractor.class);
         Mockito.when(routeInteractor.getRoute(ORIGIN, DESTINATION))
@@ -15,11 +15,14 @@
  */
 package ai.rideos.android.interactors;
 
+import static org.junit.Assert.assertEquals;
+
 import ai.rideos.android.common.authentication.User;
 import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.PackedPath;
 import ai.rideos.android.common.model.RouteInfoModel;
 import ai.rideos.android.common.reactive.SchedulerProviders.TrampolineSchedulerProvider;
-import ai.rideos.android.interactors.DefaultDriverVehicleInteractor.PolylineEncoder;
+import ai.rideos.android.common.utils.Polylines.PolylineEncoder;
 import ai.rideos.android.model.VehicleDisplayRouteLeg;
 import ai.rideos.android.model.VehicleRegistration;
 import ai.rideos.android.model.VehicleStatus;
@@ -29,6 +32,8 @@ import ai.rideos.api.commons.ride_hail_commons.RideHailCommons.VehicleDefinition
 import ai.rideos.api.commons.ride_hail_commons.RideHailCommons.VehicleInfo;
 import ai.rideos.api.commons.ride_hail_commons.RideHailCommons.VehicleState;
 import ai.rideos.api.commons.ride_hail_commons.RideHailCommons.VehicleState.Step.RouteLeg;
+import ai.rideos.api.ride_hail_driver.v1.RideHailDriver.CompleteStepRequest;
+import ai.rideos.api.ride_hail_driver.v1.RideHailDriver.CompleteStepResponse;
 import ai.rideos.api.ride_hail_driver.v1.RideHailDriver.CreateVehicleRequest;
 import ai.rideos.api.ride_hail_driver.v1.RideHailDriver.CreateVehicleResponse;
 import ai.rideos.api.ride_hail_driver.v1.RideHailDriver.GetVehicleStateResponse;
@@ -47,7 +52,9 @@ import io.grpc.stub.StreamObserver;
 import io.grpc.testing.GrpcCleanupRule;
 import io.reactivex.Single;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import org.junit.Before;
 import org.junit.Rule;
@@ -67,6 +74,8 @@ public class DefaultDriverVehicleInteractorTest {
     );
     private DefaultDriverVehicleInteractor interactorUnderTest;
     private PolylineEncoder polylineEncoder;
+    private ManagedChannel channel;
+    private User user;
 
     @Before
     public void setUp() throws IOException {
@@ -77,10 +86,10 @@ public class DefaultDriverVehicleInteractorTest {
             .forName(serverName).directExecutor().addService(mockBase).build().start());
 
         // Create a client channel and register for automatic graceful shutdown.
-        final ManagedChannel channel = grpcCleanup.register(
+        channel = grpcCleanup.register(
             InProcessChannelBuilder.forName(serverName).directExecutor().build());
 
-        final User user = Mockito.mock(User.class);
+        user = Mockito.mock(User.class);
         Mockito.when(user.fetchUserToken()).thenReturn(Single.just(API_TOKEN));
         polylineEncoder = Mockito.mock(PolylineEncoder.class);
 
@@ -143,6 +152,38 @@ public class DefaultDriverVehicleInteractorTest {
             .assertError(Exception.class);
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testFinishStepsCompletesEveryStepInOrder() {
+        final List<String> completedStepIds = new ArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            final CompleteStepRequest request = (CompleteStepRequest) invocation.getArguments()[0];
+            final StreamObserver<CompleteStepResponse> observer =
+                (StreamObserver<CompleteStepResponse>) invocation.getArguments()[1];
+            completedStepIds.add(request.getStepId());
+            observer.onNext(CompleteStepResponse.getDefaultInstance());
+            observer.onCompleted();
+            return null;
+        }).when(mockBase).completeStep(Mockito.any(), Mockito.any());
+
+        final List<String> stepIds = Arrays.asList("step-1", "step-2", "step-3");
+        interactorUnderTest.finishSteps(VEHICLE_ID, "trip-1", stepIds).test()
+            .assertComplete();
+        assertEquals(stepIds, completedStepIds);
+    }
+
+    @Test
+    public void testFinishStepsStopsAtFirstFailure() {
+        final List<String> receivedStepIds = mockCompleteStepFailingFor("step-2");
+
+        interactorUnderTest.finishSteps(VEHICLE_ID, "trip-1", Arrays.asList("step-1", "step-2", "step-3")).test()
+            .assertError(e -> e instanceof StepCompletionException
+                && ((StepCompletionException) e).getCompletedStepIds().equals(Collections.singletonList("step-1"))
+                && ((StepCompletionException) e).getUnfinishedStepIds().equals(Arrays.asList("step-2", "step-3"))
+            );
+        assertEquals(Arrays.asList("step-1", "step-2"), receivedStepIds);
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void testCanCreateVehicleFromRegistration() {
@@ -181,11 +222,11 @@ public class DefaultDriverVehicleInteractorTest {
     @Test
     public void testCanUpdateVehicleRouteFromListOfLegs() {
         final List<LatLng> route0 = Arrays.asList(new LatLng(0, 0), new LatLng(1, 1));
-        Mockito.when(polylineEncoder.encodePolyline(route0)).thenReturn("route0");
+        Mockito.when(polylineEncoder.encode(PackedPath.fromLatLngs(route0))).thenReturn("route0");
         final List<LatLng> route1 = Arrays.asList(new LatLng(1, 1), new LatLng(2, 2));
-        Mockito.when(polylineEncoder.encodePolyline(route1)).thenReturn("route1");
+        Mockito.when(polylineEncoder.encode(PackedPath.fromLatLngs(route1))).thenReturn("route1");
         final List<LatLng> route2 = Arrays.asList(new LatLng(2, 2), new LatLng(3, 3));
-        Mockito.when(polylineEncoder.encodePolyline(route2)).thenReturn("route2");
+        Mockito.when(polylineEncoder.encode(PackedPath.fromLatLngs(route2))).thenReturn("route2");
 
         final List<VehicleDisplayRouteLeg> legsToSync = Arrays.asList(
             new VehicleDisplayRouteLeg(null, Pair.create("trip-0", "step-0"), new RouteInfoModel(route0, 6000, 100)),
@@ -201,7 +242,7 @@ public class DefaultDriverVehicleInteractorTest {
             )
         );
 
-        Mockito.when(polylineEncoder.encodePolyline(route0)).thenReturn("route0");
+        Mockito.when(polylineEncoder.encode(PackedPath.fromLatLngs(route0))).thenReturn("route0");
 
         final UpdateVehicleStateRequest expectedRequest = UpdateVehicleStateRequest.newBuilder()
             .setId(VEHICLE_ID)
@@ -266,4 +307,24 @@ public class DefaultDriverVehicleInteractorTest {
             return null;
         }).when(mockBase).getVehicleState(Mockito.any(), Mockito.any());
     }
+
+    // Records the ID of every step the server receives, and fails the given step
+    @SuppressWarnings("unchecked")
+    private List<String> mockCompleteStepFailingFor(final String failingStepId) {
+        final List<String> receivedStepIds = new ArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            final CompleteStepRequest request = (CompleteStepRequest) invocation.getArguments()[0];
+            final StreamObserver<CompleteStepResponse> observer =
+                (StreamObserver<CompleteStepResponse>) invocation.getArguments()[1];
+            receivedStepIds.add(request.getStepId());
+            if (request.getStepId().equals(failingStepId)) {
+                observer.onError(new StatusRuntimeException(Status.FAILED_PRECONDITION));
+            } else {
+                observer.onNext(CompleteStepResponse.getDefaultInstance());
+                observer.onCompleted();
+            }
+            return null;
+        }).when(mockBase).completeStep(Mockito.any(), Mockito.any());
+        return receivedStepIds;
+    }
 }
@@ -0,0 +1,155 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.interactors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import ai.rideos.android.common.reactive.SchedulerProviders.TrampolineSchedulerProvider;
+import ai.rideos.android.interactors.outbox.MutationOutbox;
+import ai.rideos.android.interactors.outbox.OutboxEntry.Type;
+import ai.rideos.android.interactors.outbox.OutboxLog;
+import ai.rideos.api.ride_hail_driver.v1.RideHailDriver.CompleteStepRequest;
+import io.grpc.Status;
+import io.reactivex.Completable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+public class OutboxDriverVehicleInteractorTest {
+    private static final String VEHICLE_ID = "vehicle-1";
+    private static final String TRIP_ID = "trip-1";
+    private static final List<String> STEP_IDS = Arrays.asList("step-1", "step-2", "step-3");
+    private static final String VEHICLE_STATE_UPDATE = "vehicle-state";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private DefaultDriverVehicleInteractor vehicleInteractor;
+    private File logFile;
+    private MutationOutbox outbox;
+    private OutboxDriverVehicleInteractor interactorUnderTest;
+    private List<String> replayedMutations;
+    private boolean isOnline;
+
+    // Records replayed step completions by step ID, and every other mutation as VEHICLE_STATE_UPDATE
+    private final MutationOutbox.Sender sender = entry -> Completable.defer(() -> {
+        if (!isOnline) {
+            return Completable.error(Status.UNAVAILABLE.asRuntimeException());
+        }
+        replayedMutations.add(
+            entry.getType() == Type.COMPLETE_STEP
+                ? CompleteStepRequest.parseFrom(entry.getPayload()).getStepId()
+                : VEHICLE_STATE_UPDATE
+        );
+        return Completable.complete();
+    });
+
+    @Before
+    public void setUp() {
+        vehicleInteractor = Mockito.mock(DefaultDriverVehicleInteractor.class);
+        logFile = new File(temporaryFolder.getRoot(), "outbox.log");
+        replayedMutations = new ArrayList<>();
+        isOnline = false;
+        outbox = createOutbox();
+        interactorUnderTest = new OutboxDriverVehicleInteractor(vehicleInteractor, outbox);
+    }
+
+    @Test
+    public void testOnlyUnfinishedStepsAreQueuedAfterTransientFailure() {
+        mockFinishStepsFailingAt(1, Status.UNAVAILABLE);
+
+        interactorUnderTest.finishSteps(VEHICLE_ID, TRIP_ID, STEP_IDS).test()
+            .assertComplete();
+
+        assertEquals(Arrays.asList("step-2", "step-3"), replayWhenOnline());
+    }
+
+    @Test
+    public void testPermanentFailureIsReturnedAndNothingIsQueued() {
+        mockFinishStepsFailingAt(1, Status.FAILED_PRECONDITION);
+
+        interactorUnderTest.finishSteps(VEHICLE_ID, TRIP_ID, STEP_IDS).test()
+            .assertError(StepCompletionException.class);
+
+        assertTrue(outbox.isEmpty());
+    }
+
+    @Test
+    public void testAllStepsAreQueuedWhenNoStepWasSent() {
+        Mockito.when(vehicleInteractor.finishSteps(VEHICLE_ID, TRIP_ID, STEP_IDS))
+            .thenReturn(Completable.error(Status.UNAVAILABLE.asRuntimeException()));
+
+        interactorUnderTest.finishSteps(VEHICLE_ID, TRIP_ID, STEP_IDS).test()
+            .assertComplete();
+
+        assertEquals(STEP_IDS, replayWhenOnline());
+    }
+
+    @Test
+    public void testStepsAreQueuedBehindPendingMutations() {
+        Mockito.when(vehicleInteractor.markVehicleReady(VEHICLE_ID))
+            .thenReturn(Completable.error(Status.UNAVAILABLE.asRuntimeException()));
+        interactorUnderTest.markVehicleReady(VEHICLE_ID).test().assertComplete();
+
+        interactorUnderTest.finishSteps(VEHICLE_ID, TRIP_ID, STEP_IDS).test()
+            .assertComplete();
+
+        Mockito.verify(vehicleInteractor, Mockito.never()).finishSteps(Mockito.any(), Mockito.any(), Mockito.any());
+        final List<String> expectedMutations = new ArrayList<>();
+        expectedMutations.add(VEHICLE_STATE_UPDATE);
+        expectedMutations.addAll(STEP_IDS);
+        assertEquals(expectedMutations, replayWhenOnline());
+    }
+
+    @Test
+    public void testStepsAreQueuedBehindMutationsFromPreviousRun() {
+        Mockito.when(vehicleInteractor.markVehicleReady(VEHICLE_ID))
+            .thenReturn(Completable.error(Status.UNAVAILABLE.asRuntimeException()));
+        interactorUnderTest.markVehicleReady(VEHICLE_ID).test().assertComplete();
+
+        outbox = createOutbox();
+        interactorUnderTest = new OutboxDriverVehicleInteractor(vehicleInteractor, outbox);
+        interactorUnderTest.finishSteps(VEHICLE_ID, TRIP_ID, STEP_IDS).test()
+            .assertComplete();
+
+        Mockito.verify(vehicleInteractor, Mockito.never()).finishSteps(Mockito.any(), Mockito.any(), Mockito.any());
+        assertEquals(4, outbox.getStats().getPendingCount());
+    }
+
+    private MutationOutbox createOutbox() {
+        return new MutationOutbox(new OutboxLog(logFile), sender, new TrampolineSchedulerProvider());
+    }
+
+    private void mockFinishStepsFailingAt(final int failedStepIndex, final Status status) {
+        Mockito.when(vehicleInteractor.finishSteps(VEHICLE_ID, TRIP_ID, STEP_IDS))
+            .thenReturn(Completable.error(
+                new StepCompletionException(STEP_IDS, failedStepIndex, status.asRuntimeException())
+            ));
+    }
+
+    private List<String> replayWhenOnline() {
+        isOnline = true;
+        outbox.flush().test().assertComplete();
+        return replayedMutations;
+    }
+}
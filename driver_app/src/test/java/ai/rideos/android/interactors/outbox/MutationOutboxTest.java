@@ -0,0 +1,175 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.interactors.outbox;
+
+import static org.junit.Assert.assertEquals;
+
+import ai.rideos.android.common.reactive.SchedulerProviders.TestSchedulerProvider;
+import ai.rideos.android.common.reactive.SchedulerProviders.TrampolineSchedulerProvider;
+import ai.rideos.android.interactors.outbox.OutboxEntry.Type;
+import io.grpc.Status;
+import io.reactivex.Completable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MutationOutboxTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File logFile;
+    private List<Byte> sentPayloads;
+    private boolean isOnline;
+
+    private final MutationOutbox.Sender sender = entry -> Completable.defer(() -> {
+        if (!isOnline) {
+            return Completable.error(Status.UNAVAILABLE.asRuntimeException());
+        }
+        if (entry.getPayload()[0] < 0) {
+            return Completable.error(Status.INVALID_ARGUMENT.asRuntimeException());
+        }
+        sentPayloads.add(entry.getPayload()[0]);
+        return Completable.complete();
+    });
+
+    @Before
+    public void setUp() {
+        logFile = new File(temporaryFolder.getRoot(), "outbox.log");
+        sentPayloads = new ArrayList<>();
+        isOnline = false;
+    }
+
+    @Test
+    public void testEntriesWithSameCollapseKeyAreCollapsed() {
+        final MutationOutbox outbox = createOutbox();
+        enqueue(outbox, "location/v", 1);
+        enqueue(outbox, null, 2);
+        enqueue(outbox, "location/v", 3);
+        enqueue(outbox, null, 4);
+
+        assertEquals(Arrays.asList((byte) 2, (byte) 3, (byte) 4), getPendingPayloads(outbox));
+        assertEquals(1, outbox.getStats().getCollapsedCount());
+    }
+
+    @Test
+    public void testFlushReplaysEntriesInOrder() {
+        final MutationOutbox outbox = createOutbox();
+        enqueue(outbox, null, 1);
+        enqueue(outbox, "route/v", 2);
+        enqueue(outbox, null, 3);
+
+        isOnline = true;
+        outbox.flush().test().assertComplete();
+
+        assertEquals(Arrays.asList((byte) 1, (byte) 2, (byte) 3), sentPayloads);
+        assertEquals(true, outbox.isEmpty());
+        assertEquals(3, outbox.getStats().getDeliveredCount());
+    }
+
+    @Test
+    public void testFlushStopsOnTransientFailureAndKeepsEntries() {
+        final MutationOutbox outbox = createOutbox();
+        enqueue(outbox, null, 1);
+        enqueue(outbox, null, 2);
+
+        outbox.flush().test().assertComplete();
+
+        assertEquals(0, sentPayloads.size());
+        assertEquals(Arrays.asList((byte) 1, (byte) 2), getPendingPayloads(outbox));
+    }
+
+    @Test
+    public void testPermanentFailuresAreDropped() {
+        final MutationOutbox outbox = createOutbox();
+        enqueue(outbox, null, 1);
+        enqueue(outbox, null, -1);
+        enqueue(outbox, null, 2);
+
+        isOnline = true;
+        outbox.flush().test().assertComplete();
+
+        assertEquals(Arrays.asList((byte) 1, (byte) 2), sentPayloads);
+        assertEquals(1, outbox.getStats().getDroppedCount());
+    }
+
+    @Test
+    public void testPendingEntriesSurviveRestart() {
+        final MutationOutbox outbox = createOutbox();
+        enqueue(outbox, null, 1);
+        enqueue(outbox, null, 2);
+
+        final MutationOutbox restartedOutbox = createOutbox();
+        restartedOutbox.load().test().assertComplete();
+        assertEquals(Arrays.asList((byte) 1, (byte) 2), getPendingPayloads(restartedOutbox));
+
+        // Sequence numbers continue after the restored entries
+        enqueue(restartedOutbox, null, 3);
+        final List<OutboxEntry> pendingEntries = restartedOutbox.getPendingEntries();
+        assertEquals(true, pendingEntries.get(2).getSequence() > pendingEntries.get(1).getSequence());
+    }
+
+    @Test
+    public void testPendingEntriesAreReadOnTheIoScheduler() {
+        enqueue(createOutbox(), null, 1);
+        final TestScheduler ioScheduler = new TestScheduler();
+
+        final MutationOutbox restartedOutbox = new MutationOutbox(
+            new OutboxLog(logFile),
+            sender,
+            new TestSchedulerProvider(ioScheduler)
+        );
+        final TestObserver<Void> loadObserver = restartedOutbox.load().test();
+        assertEquals(0, getPendingPayloads(restartedOutbox).size());
+
+        ioScheduler.triggerActions();
+        loadObserver.assertComplete();
+        assertEquals(Collections.singletonList((byte) 1), getPendingPayloads(restartedOutbox));
+    }
+
+    @Test
+    public void testEnqueueWaitsForPendingEntriesFromTheLog() {
+        final MutationOutbox outbox = createOutbox();
+        enqueue(outbox, "location/v", 1);
+
+        final MutationOutbox restartedOutbox = createOutbox();
+        enqueue(restartedOutbox, "location/v", 2);
+
+        assertEquals(Collections.singletonList((byte) 2), getPendingPayloads(restartedOutbox));
+    }
+
+    private MutationOutbox createOutbox() {
+        return new MutationOutbox(new OutboxLog(logFile), sender, new TrampolineSchedulerProvider());
+    }
+
+    private static void enqueue(final MutationOutbox outbox, final String collapseKey, final int payload) {
+        outbox.enqueue(Type.COMPLETE_STEP, collapseKey, new byte[]{(byte) payload}).test().assertComplete();
+    }
+
+    private static List<Byte> getPendingPayloads(final MutationOutbox outbox) {
+        return outbox.getPendingEntries().stream()
+            .map(entry -> entry.getPayload()[0])
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright 2018-2019 rideOS, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ai.rideos.android.interactors.outbox;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import ai.rideos.android.interactors.outbox.OutboxEntry.Type;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class OutboxLogTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File logFile;
+
+    @Before
+    public void setUp() {
+        logFile = new File(temporaryFolder.getRoot(), "outbox.log");
+    }
+
+    @Test
+    public void testReadPendingEntriesSkipsAcknowledgedEntries() throws Exception {
+        final OutboxLog writer = new OutboxLog(logFile);
+        writer.append(new OutboxEntry(1, Type.UPDATE_VEHICLE_STATE, "location/v", new byte[]{1, 2}));
+        writer.append(new OutboxEntry(2, Type.COMPLETE_STEP, OutboxEntry.NO_COLLAPSE_KEY, new byte[]{3}));
+        writer.acknowledge(1);
+
+        final List<OutboxEntry> pendingEntries = new OutboxLog(logFile).readPendingEntries();
+        assertEquals(1, pendingEntries.size());
+        assertEquals(2, pendingEntries.get(0).getSequence());
+        assertEquals(Type.COMPLETE_STEP, pendingEntries.get(0).getType());
+        assertArrayEquals(new byte[]{3}, pendingEntries.get(0).getPayload());
+    }
+
+    @Test
+    public void testIncompleteRecordAtEndIsDiscarded() throws Exception {
+        final OutboxLog writer = new OutboxLog(logFile);
+        writer.append(new OutboxEntry(1, Type.COMPLETE_STEP, OutboxEntry.NO_COLLAPSE_KEY, new byte[]{1, 2, 3}));
+        final long lengthAfterFirstEntry = logFile.length();
+        writer.append(new OutboxEntry(2, Type.COMPLETE_STEP, OutboxEntry.NO_COLLAPSE_KEY, new byte[]{4, 5, 6}));
+        try (final RandomAccessFile file = new RandomAccessFile(logFile, "rw")) {
+            // Simulate the app dying in the middle of writing the second entry
+            file.setLength(logFile.length() - 2);
+        }
+
+        final OutboxLog reader = new OutboxLog(logFile);
+        final List<OutboxEntry> pendingEntries = reader.readPendingEntries();
+        assertEquals(1, pendingEntries.size());
+        assertEquals(1, pendingEntries.get(0).getSequence());
+        assertEquals(lengthAfterFirstEntry, logFile.length());
+
+        // New records are appended after the last complete one
+        reader.append(new OutboxEntry(3, Type.COMPLETE_STEP, OutboxEntry.NO_COLLAPSE_KEY, new byte[]{7}));
+        assertEquals(2, new OutboxLog(logFile).readPendingEntries().size());
+    }
+
+    @Test
+    public void testCompactKeepsOnlyPendingEntries() throws Exception {
+        final OutboxLog outboxLog = new OutboxLog(logFile);
+        final OutboxEntry first = new OutboxEntry(1, Type.COMPLETE_STEP, OutboxEntry.NO_COLLAPSE_KEY, new byte[]{1});
+        final OutboxEntry second = new OutboxEntry(2, Type.COMPLETE_STEP, OutboxEntry.NO_COLLAPSE_KEY, new byte[]{2});
+        outboxLog.append(first);
+        outboxLog.append(second);
+        outboxLog.acknowledge(1);
+        final long sizeBeforeCompaction = outboxLog.getSizeBytes();
+
+        outboxLog.compact(Arrays.asList(second));
+
+        assertEquals(true, outboxLog.getSizeBytes() < sizeBeforeCompaction);
+        final List<OutboxEntry> pendingEntries = new OutboxLog(logFile).readPendingEntries();
+        assertEquals(1, pendingEntries.size());
+        assertEquals(2, pendingEntries.get(0).getSequence());
+    }
+}
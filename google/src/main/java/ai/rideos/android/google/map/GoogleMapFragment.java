@@ -41,6 +41,7 @@ import com.google.android.gms.maps.model.BitmapDescriptor;
 import com.google.android.gms.maps.model.BitmapDescriptorFactory;
 import com.google.android.gms.maps.model.Dot;
 import com.google.android.gms.maps.model.Gap;
+import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.LatLngBounds;
 import com.google.android.gms.maps.model.MapStyleOptions;
 import com.google.android.gms.maps.model.Marker;
@@ -54,17 +55,18 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import ai.rideos.android.common.app.map.MapRelay;
 import ai.rideos.android.common.app.map.MapStateReceiver.MapCenterListener;
 import ai.rideos.android.common.app.map.MapViewModel;
+import ai.rideos.android.common.model.PackedPath;
 import ai.rideos.android.common.model.map.CameraUpdate;
 import ai.rideos.android.common.model.map.CenterPin;
 import ai.rideos.android.common.model.map.DrawableMarker;
 import ai.rideos.android.common.model.map.DrawableMarker.Anchor;
 import ai.rideos.android.common.model.map.DrawablePath;
 import ai.rideos.android.common.model.map.DrawablePath.Style;
+import ai.rideos.android.common.model.map.DrawablePathPyramid;
 import ai.rideos.android.common.model.map.MapSettings;
 import ai.rideos.android.common.utils.Locations;
 import ai.rideos.android.common.utils.SetOperations;
@@ -74,6 +76,7 @@ import ai.rideos.android.common.view.ViewMargins;
 import ai.rideos.android.google.R;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.CompositeDisposable;
+import timber.log.Timber;
 
 public class GoogleMapFragment extends Fragment implements OnMapReadyCallback {
     private static final int BOUNDS_PADDING = 90;
@@ -88,6 +91,10 @@ public class GoogleMapFragment extends Fragment implements OnMapReadyCallback {
     private ImageView centerPin;
     private final Map<String, Marker> currentMarkers = new HashMap<>();
     private List<Polyline> currentPaths = new ArrayList<>();
+    // The paths being drawn, and the level of detail each of them is drawn at
+    private List<DrawablePathPyramid> currentPathPyramids = new ArrayList<>();
+    private List<PackedPath> currentPathLevels = new ArrayList<>();
+    private MapCenterListener mapCenterListener = MapCenterListener.NOOP;
     private Context context;
 
     @Override
@@ -249,26 +256,64 @@ public class GoogleMapFragment extends Fragment implements OnMapReadyCallback {
         return BitmapDescriptorFactory.fromResource(drawableIcon);
     }
 
-    private void showPaths(final List<DrawablePath> paths) {
+    private void showPaths(final List<DrawablePathPyramid> pathPyramids) {
         for (final Polyline drawnPath : currentPaths) {
             drawnPath.remove();
         }
 
-        currentPaths = new ArrayList<>(paths.size());
+        final float zoom = googleMap.getCameraPosition().zoom;
+        currentPaths = new ArrayList<>(pathPyramids.size());
+        currentPathPyramids = pathPyramids;
+        currentPathLevels = new ArrayList<>(pathPyramids.size());
 
-        for (final DrawablePath newPath : paths) {
+        for (final DrawablePathPyramid pathPyramid : pathPyramids) {
+            final DrawablePath newPath = pathPyramid.getDrawablePath();
+            final PackedPath level = pathPyramid.getPathForZoom(zoom);
             final Polyline addedPath = googleMap.addPolyline(new PolylineOptions()
-                .addAll(
-                    newPath.getCoordinates().stream()
-                        .map(Locations::toGoogleLatLng)
-                        .collect(Collectors.toList())
-                )
+                .addAll(toGoogleLatLngs(level))
                 .width(newPath.getWidth())
                 .color(newPath.getColor())
                 .pattern(getPatternForStyle(newPath.getStyle()))
             );
             currentPaths.add(addedPath);
+            currentPathLevels.add(level);
         }
+        logPathVertexCounts(zoom);
+    }
+
+    // Swap each path to the level of detail of the new zoom, once the camera stops moving
+    private void updatePathLevels() {
+        final float zoom = googleMap.getCameraPosition().zoom;
+        boolean didChangeLevel = false;
+        for (int i = 0; i < currentPathPyramids.size(); i++) {
+            final PackedPath level = currentPathPyramids.get(i).getPathForZoom(zoom);
+            if (level != currentPathLevels.get(i)) {
+                currentPaths.get(i).setPoints(toGoogleLatLngs(level));
+                currentPathLevels.set(i, level);
+                didChangeLevel = true;
+            }
+        }
+        if (didChangeLevel) {
+            logPathVertexCounts(zoom);
+        }
+    }
+
+    // Logs are only printed in debug builds, where a logging tree is planted
+    private void logPathVertexCounts(final float zoom) {
+        int fullVertexCount = 0;
+        int drawnVertexCount = 0;
+        for (int i = 0; i < currentPathPyramids.size(); i++) {
+            fullVertexCount += currentPathPyramids.get(i).getDrawablePath().getPath().size();
+            drawnVertexCount += currentPathLevels.get(i).size();
+        }
+        Timber.d("Drawing %d of %d path vertices at zoom %.1f", drawnVertexCount, fullVertexCount, zoom);
+    }
+
+    // Read the packed coordinates directly rather than creating an intermediate LatLng per vertex
+    private static List<LatLng> toGoogleLatLngs(final PackedPath path) {
+        final List<LatLng> coordinates = new ArrayList<>(path.size());
+        path.forEach((latitude, longitude) -> coordinates.add(new LatLng(latitude, longitude)));
+        return coordinates;
     }
 
     private static List<PatternItem> getPatternForStyle(final Style style) {
@@ -281,9 +326,7 @@ public class GoogleMapFragment extends Fragment implements OnMapReadyCallback {
     }
 
     private void setMapCenterListener(final MapCenterListener listener) {
-        googleMap.setOnCameraIdleListener(() -> listener.mapCenterDidMove(
-            Locations.fromGoogleLatLng(googleMap.getCameraPosition().target)
-        ));
+        mapCenterListener = listener;
         googleMap.setOnCameraMoveStartedListener((reason) -> {
             listener.mapCenterStartedMoving();
             if (reason == OnCameraMoveStartedListener.REASON_GESTURE) {
@@ -292,6 +335,11 @@ public class GoogleMapFragment extends Fragment implements OnMapReadyCallback {
         });
     }
 
+    private void onCameraIdle() {
+        updatePathLevels();
+        mapCenterListener.mapCenterDidMove(Locations.fromGoogleLatLng(googleMap.getCameraPosition().target));
+    }
+
     private void setMapMargins(final ViewMargins mapMargins) {
         googleMap.setPadding(mapMargins.getLeft(), mapMargins.getTop(), mapMargins.getRight(), mapMargins.getBottom());
         setLayoutParamsForView(
@@ -352,6 +400,7 @@ public class GoogleMapFragment extends Fragment implements OnMapReadyCallback {
         uiSettings.setZoomControlsEnabled(false);
         // https://issuetracker.google.com/issues/35829548
         googleMap.setIndoorEnabled(false);
+        googleMap.setOnCameraIdleListener(this::onCameraIdle);
         subscribeToMapViewModel();
     }
 }
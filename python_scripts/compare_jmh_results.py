@@ -0,0 +1,100 @@
+# Copyright 2018-2019 rideOS, Inc.
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+#     http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+"""Compare two JMH JSON reports written by `./gradlew :benchmarks:jmh`.
+
+Usage:
+    python3 compare_jmh_results.py baseline.json results.json [--threshold 0.1]
+
+Only the Python standard library is needed. Benchmarks are matched by name and parameters. A benchmark regresses when
+it is slower than the baseline by more than the threshold, taking the error of both scores into account, and the
+script exits with status 1 if any benchmark regressed.
+"""
+
+import argparse
+import json
+import sys
+
+# Modes where a higher score is better; for the time modes a lower score is better
+HIGHER_IS_BETTER_MODES = {'thrpt'}
+
+
+def read_results(report_file):
+    """Return the primary metric of each benchmark in the report, keyed by benchmark name and parameters."""
+    with open(report_file) as report:
+        results = json.load(report)
+    metrics = {}
+    for result in results:
+        params = ','.join('%s=%s' % item for item in sorted(result.get('params', {}).items()))
+        key = '%s(%s)' % (result['benchmark'], params) if params else result['benchmark']
+        metrics[key] = (result['mode'], result['primaryMetric'])
+    return metrics
+
+
+def get_slowdown(mode, baseline, current):
+    """Return how much slower the current score is than the baseline, as a fraction of the baseline score."""
+    if mode in HIGHER_IS_BETTER_MODES:
+        return (baseline['score'] - current['score']) / current['score']
+    return (current['score'] - baseline['score']) / baseline['score']
+
+
+def is_regression(mode, baseline, current, threshold):
+    # Shift both scores towards each other by their errors, so noise alone does not count as a regression
+    baseline_error = baseline.get('scoreError') or 0
+    current_error = current.get('scoreError') or 0
+    if isinstance(baseline_error, str) or isinstance(current_error, str):
+        # JMH writes "NaN" when there were too few iterations to estimate the error
+        baseline_error = current_error = 0
+    if mode in HIGHER_IS_BETTER_MODES:
+        best_baseline = {'score': baseline['score'] - baseline_error}
+        best_current = {'score': current['score'] + current_error}
+    else:
+        best_baseline = {'score': baseline['score'] + baseline_error}
+        best_current = {'score': max(current['score'] - current_error, 0)}
+    return get_slowdown(mode, best_baseline, best_current) > threshold
+
+
+def main():
+    parser = argparse.ArgumentParser(description='Compare two JMH JSON reports.')
+    parser.add_argument('baseline_file', help='JMH report to compare against')
+    parser.add_argument('results_file', help='JMH report to check')
+    parser.add_argument('--threshold', type=float, default=0.1,
+                        help='Largest allowed slowdown, as a fraction of the baseline score')
+    args = parser.parse_args()
+
+    baseline = read_results(args.baseline_file)
+    results = read_results(args.results_file)
+    regressions = []
+    for key in sorted(results):
+        mode, current = results[key]
+        if key not in baseline:
+            print('%-80s %12.3f %s (new)' % (key, current['score'], current['scoreUnit']))
+            continue
+        _, previous = baseline[key]
+        slowdown = get_slowdown(mode, previous, current)
+        regressed = is_regression(mode, previous, current, args.threshold)
+        if regressed:
+            regressions.append(key)
+        print('%-80s %12.3f %s %+7.1f%%%s' % (
+            key, current['score'], current['scoreUnit'], slowdown * 100, ' REGRESSION' if regressed else ''))
+    for key in sorted(set(baseline) - set(results)):
+        print('%-80s (missing)' % key)
+
+    if regressions:
+        print('%d of %d benchmarks regressed by more than %d%%' % (
+            len(regressions), len(results), round(args.threshold * 100)), file=sys.stderr)
+        sys.exit(1)
+
+
+if __name__ == '__main__':
+    main()
@@ -0,0 +1,182 @@
+# Copyright 2018-2019 rideOS, Inc.
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+#     http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+"""Convert an OSM XML extract to the binary road graph read by RoadGraph.java.
+
+Usage:
+    python3 osm_to_road_graph.py extract.osm road_graph.bin
+
+Only the Python standard library is needed. Convert .osm.pbf extracts to XML first, for example with
+`osmium cat extract.osm.pbf -o extract.osm`.
+
+Every node of a drivable way becomes a graph node, and every pair of consecutive way nodes becomes one edge per
+allowed direction. Travel times come from the way's maxspeed tag, or otherwise from a default speed for its highway
+type. The layout of the output is documented in RoadGraph.java.
+"""
+
+import argparse
+import math
+import struct
+import sys
+import xml.etree.ElementTree as ElementTree
+
+MAGIC = 0x52474452
+VERSION = 1
+HEADER_FORMAT = '<iiiif12x'
+EARTH_RADIUS_METERS = 6371008.8
+
+# Default speeds in km/h for drivable highway types
+HIGHWAY_SPEEDS_KPH = {
+    'motorway': 100,
+    'motorway_link': 60,
+    'trunk': 80,
+    'trunk_link': 50,
+    'primary': 60,
+    'primary_link': 40,
+    'secondary': 50,
+    'secondary_link': 40,
+    'tertiary': 40,
+    'tertiary_link': 30,
+    'unclassified': 30,
+    'residential': 30,
+    'living_street': 10,
+    'service': 15,
+}
+ONEWAY_HIGHWAYS = {'motorway', 'motorway_link'}
+
+
+def parse_speed_kph(maxspeed, default_kph):
+    """Parse an OSM maxspeed value such as '50' or '30 mph', falling back to the default."""
+    if not maxspeed:
+        return default_kph
+    parts = maxspeed.split()
+    try:
+        value = float(parts[0])
+    except ValueError:
+        return default_kph
+    if len(parts) > 1 and parts[1] == 'mph':
+        value *= 1.609344
+    return value if value > 0 else default_kph
+
+
+def get_directions(tags, highway):
+    """Return whether the way can be driven forward and backward."""
+    oneway = tags.get('oneway')
+    if oneway in ('yes', 'true', '1'):
+        return True, False
+    if oneway == '-1':
+        return False, True
+    if oneway == 'no':
+        return True, True
+    if highway in ONEWAY_HIGHWAYS or tags.get('junction') == 'roundabout':
+        return True, False
+    return True, True
+
+
+def haversine_meters(lat1, lon1, lat2, lon2):
+    phi1 = math.radians(lat1)
+    phi2 = math.radians(lat2)
+    delta_phi = phi2 - phi1
+    delta_lambda = math.radians(lon2 - lon1)
+    a = math.sin(delta_phi / 2) ** 2 + math.cos(phi1) * math.cos(phi2) * math.sin(delta_lambda / 2) ** 2
+    return 2 * EARTH_RADIUS_METERS * math.asin(math.sqrt(a))
+
+
+def read_osm(osm_file):
+    """Return node coordinates by OSM id, and the drivable ways as (node ids, speed in m/s, forward, backward)."""
+    coordinates = {}
+    ways = []
+    for _, element in ElementTree.iterparse(osm_file, events=('end',)):
+        if element.tag == 'node':
+            coordinates[element.get('id')] = (float(element.get('lat')), float(element.get('lon')))
+        elif element.tag == 'way':
+            tags = {tag.get('k'): tag.get('v') for tag in element.findall('tag')}
+            highway = tags.get('highway')
+            if highway in HIGHWAY_SPEEDS_KPH:
+                node_ids = [nd.get('ref') for nd in element.findall('nd')]
+                speed_kph = parse_speed_kph(tags.get('maxspeed'), HIGHWAY_SPEEDS_KPH[highway])
+                forward, backward = get_directions(tags, highway)
+                ways.append((node_ids, speed_kph / 3.6, forward, backward))
+        if element.tag in ('node', 'way', 'relation'):
+            # Free parsed elements as we go, so large extracts fit in memory
+            element.clear()
+    return coordinates, ways
+
+
+def build_graph(coordinates, ways):
+    """Return node coordinates and edges (source, target, length, travel time), with nodes indexed from 0."""
+    node_indices = {}
+    node_coordinates = []
+    edges = []
+
+    def get_node_index(osm_id):
+        if osm_id not in node_indices:
+            node_indices[osm_id] = len(node_coordinates)
+            node_coordinates.append(coordinates[osm_id])
+        return node_indices[osm_id]
+
+    for node_ids, speed_mps, forward, backward in ways:
+        # Skip references to nodes outside the extract
+        node_ids = [osm_id for osm_id in node_ids if osm_id in coordinates]
+        for from_id, to_id in zip(node_ids, node_ids[1:]):
+            if from_id == to_id:
+                continue
+            source = get_node_index(from_id)
+            target = get_node_index(to_id)
+            length = haversine_meters(*node_coordinates[source], *node_coordinates[target])
+            seconds = length / speed_mps
+            if forward:
+                edges.append((source, target, length, seconds))
+            if backward:
+                edges.append((target, source, length, seconds))
+    edges.sort(key=lambda edge: edge[0])
+    return node_coordinates, edges
+
+
+def write_graph(output, node_coordinates, edges):
+    node_count = len(node_coordinates)
+    edge_count = len(edges)
+    # Round up slightly so float32 rounding never makes the maximum speed an underestimate
+    max_speed = max((edge[2] / edge[3] for edge in edges if edge[3] > 0), default=0) * (1 + 1e-6)
+
+    offsets = [0] * (node_count + 1)
+    for source, _, _, _ in edges:
+        offsets[source + 1] += 1
+    for i in range(node_count):
+        offsets[i + 1] += offsets[i]
+
+    output.write(struct.pack(HEADER_FORMAT, MAGIC, VERSION, node_count, edge_count, max_speed))
+    output.write(struct.pack('<%di' % node_count, *(round(lat * 1e7) for lat, _ in node_coordinates)))
+    output.write(struct.pack('<%di' % node_count, *(round(lon * 1e7) for _, lon in node_coordinates)))
+    output.write(struct.pack('<%di' % (node_count + 1), *offsets))
+    output.write(struct.pack('<%di' % edge_count, *(edge[1] for edge in edges)))
+    output.write(struct.pack('<%df' % edge_count, *(edge[2] for edge in edges)))
+    output.write(struct.pack('<%df' % edge_count, *(edge[3] for edge in edges)))
+
+
+def main():
+    parser = argparse.ArgumentParser(description='Convert an OSM XML extract to a binary road graph.')
+    parser.add_argument('osm_file', help='OSM XML extract to read')
+    parser.add_argument('output_file', help='Road graph file to write')
+    args = parser.parse_args()
+
+    coordinates, ways = read_osm(args.osm_file)
+    node_coordinates, edges = build_graph(coordinates, ways)
+    with open(args.output_file, 'wb') as output:
+        write_graph(output, node_coordinates, edges)
+    print('Wrote %d nodes and %d edges to %s' % (len(node_coordinates), len(edges), args.output_file),
+          file=sys.stderr)
+
+
+if __name__ == '__main__':
+    main()
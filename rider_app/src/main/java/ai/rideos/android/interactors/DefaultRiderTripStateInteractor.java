@@ -19,13 +19,14 @@ import ai.rideos.android.common.authentication.User;
 import ai.rideos.android.common.interactors.GrpcServerInteractor;
 import ai.rideos.android.common.model.LatLng;
 import ai.rideos.android.common.model.LocationAndHeading;
+import ai.rideos.android.common.model.PackedPath;
 import ai.rideos.android.common.model.RouteInfoModel;
 import ai.rideos.android.common.model.VehicleInfo;
 import ai.rideos.android.common.model.VehicleInfo.ContactInfo;
 import ai.rideos.android.common.reactive.SchedulerProvider;
 import ai.rideos.android.common.reactive.SchedulerProviders.DefaultSchedulerProvider;
 import ai.rideos.android.common.utils.Locations;
-import ai.rideos.android.common.utils.Polylines.GMSPolylineDecoder;
+import ai.rideos.android.common.utils.PolylineCodec;
 import ai.rideos.android.common.utils.Polylines.PolylineDecoder;
 import ai.rideos.android.model.TripStateModel;
 import ai.rideos.android.model.TripStateModel.CancellationReason;
@@ -68,39 +69,47 @@ public class DefaultRiderTripStateInteractor
 
     public DefaultRiderTripStateInteractor(final Supplier<ManagedChannel> channelSupplier,
                                            final User user) {
-        this(channelSupplier, user, new GMSPolylineDecoder(), new DefaultSchedulerProvider());
+        this(channelSupplier, user, new PolylineCodec(PolylineCodec.PRECISION_5), new DefaultSchedulerProvider());
     }
 
     public DefaultRiderTripStateInteractor(final Supplier<ManagedChannel> channelSupplier,
                                            final User user,
                                            final PolylineDecoder polylineDecoder,
                                            final SchedulerProvider schedulerProvider) {
-        super(RideHailRiderServiceGrpc::newFutureStub, channelSupplier, user, schedulerProvider);
+        // Trip state is polled with two concurrent RPCs, so don't hold an io thread for each while they are in flight
+        super(RideHailRiderServiceGrpc::newFutureStub, channelSupplier, user, schedulerProvider, ExecutionMode.ASYNC);
         this.polylineDecoder = polylineDecoder;
     }
 
     @Override
     public Single<TripStateModel> getTripState(final String tripId, final String fleetId) {
-        return fetchAuthorizedStub()
-            .flatMap(rideHailStub -> Single.zip(
-                Single.fromFuture(rideHailStub.getTripStateRC(
-                    GetTripStateRequestRC.newBuilder()
-                        .setId(tripId)
-                        .build()
-                )),
-                // TODO we can probably just call this once in whatever interactor requires the pickup/drop-off location
-                Single.fromFuture(rideHailStub.getTripDefinition(
-                    GetTripDefinitionRequest.newBuilder()
-                        .setId(tripId)
-                        .build()
-                ))
-                    .flatMap(response -> resolveStopsToPickupDropOff(response.getDefinition(), fleetId)),
-                (stateResponse, pickupAndDropOff) -> new CompleteTripInfo(
-                    stateResponse.getState(),
-                    pickupAndDropOff.first,
-                    pickupAndDropOff.second
-                )
-            ))
+        final GetTripStateRequestRC stateRequest = GetTripStateRequestRC.newBuilder()
+            .setId(tripId)
+            .build();
+        final GetTripDefinitionRequest definitionRequest = GetTripDefinitionRequest.newBuilder()
+            .setId(tripId)
+            .build();
+        return Single.zip(
+            fetchAuthorizedStubAndExecuteCoalesced(
+                RideHailRiderServiceGrpc.getGetTripStateRCMethod(),
+                stateRequest,
+                stub -> stub.getTripStateRC(stateRequest)
+            )
+                .firstOrError(),
+            // TODO we can probably just call this once in whatever interactor requires the pickup/drop-off location
+            fetchAuthorizedStubAndExecuteCoalesced(
+                RideHailRiderServiceGrpc.getGetTripDefinitionMethod(),
+                definitionRequest,
+                stub -> stub.getTripDefinition(definitionRequest)
+            )
+                .firstOrError()
+                .flatMap(response -> resolveStopsToPickupDropOff(response.getDefinition(), fleetId)),
+            (stateResponse, pickupAndDropOff) -> new CompleteTripInfo(
+                stateResponse.getState(),
+                pickupAndDropOff.first,
+                pickupAndDropOff.second
+            )
+        )
             .map(tripInfo -> {
                 final TripState tripState = tripInfo.tripState;
                 final LatLng pickup = tripInfo.pickup;
@@ -205,10 +214,12 @@ public class DefaultRiderTripStateInteractor
             .collect(Collectors.toList());
 
         return new RouteInfoModel(
-            legs.stream()
-                .map(leg -> polylineDecoder.decode(leg.getPolyline()))
-                .flatMap(List::stream)
-                .collect(Collectors.toList()),
+            // Joining the legs only copies references to each leg's coordinates
+            PackedPath.concat(
+                legs.stream()
+                    .map(leg -> polylineDecoder.decode(leg.getPolyline()))
+                    .collect(Collectors.toList())
+            ),
             legs.stream()
                 .map(leg -> leg.getTravelTimeInSeconds() * 1000)
                 .mapToLong(Double::longValue)
@@ -314,12 +325,15 @@ public class DefaultRiderTripStateInteractor
         if (stop.getTypeCase() == TypeCase.POSITION) {
             return Single.just(Locations.fromRideOsPosition(stop.getPosition()));
         }
-        return fetchAuthorizedStubAndExecute(stub -> stub.findPredefinedStop(
-            FindPredefinedStopRequest.newBuilder()
-                .setFleetId(fleetId)
-                .setSearchParameters(StopSearchParameters.newBuilder().setStopId(stop.getPredefinedStopId()))
-                .build()
-        ))
+        final FindPredefinedStopRequest request = FindPredefinedStopRequest.newBuilder()
+            .setFleetId(fleetId)
+            .setSearchParameters(StopSearchParameters.newBuilder().setStopId(stop.getPredefinedStopId()))
+            .build();
+        return fetchAuthorizedStubAndExecuteCoalesced(
+            RideHailRiderServiceGrpc.getFindPredefinedStopMethod(),
+            request,
+            stub -> stub.findPredefinedStop(request)
+        )
             .firstOrError()
             .map(stopResponse -> Locations.fromRideOsPosition(stopResponse.getPredefinedStop(0).getPosition()));
     }
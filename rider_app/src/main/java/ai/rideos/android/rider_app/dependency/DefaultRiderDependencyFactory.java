@@ -24,8 +24,17 @@ import ai.rideos.android.common.app.menu_navigator.account_settings.AccountSetti
 import ai.rideos.android.common.app.menu_navigator.account_settings.UserProfileInteractor;
 import ai.rideos.android.common.authentication.User;
 import ai.rideos.android.common.grpc.ChannelProvider;
+import ai.rideos.android.common.interactors.CachingEtaInteractor;
+import ai.rideos.android.common.interactors.CachingRouteInteractor;
+import ai.rideos.android.common.interactors.EtaInteractor;
+import ai.rideos.android.common.interactors.RacingRouteInteractor;
 import ai.rideos.android.common.interactors.RideOsRouteInteractor;
+import ai.rideos.android.common.interactors.RouteCache;
+import ai.rideos.android.common.interactors.RouteEtaInteractor;
 import ai.rideos.android.common.interactors.RouteInteractor;
+import ai.rideos.android.common.interactors.RouteProviderStats;
+import ai.rideos.android.common.interactors.StraightLineEtaInteractor;
+import ai.rideos.android.common.interactors.mapbox.MapboxRouteInteractor;
 import ai.rideos.android.common.model.MenuOption;
 import ai.rideos.android.common.user_storage.SharedPreferencesUserStorageReader;
 import ai.rideos.android.common.user_storage.SharedPreferencesUserStorageWriter;
@@ -45,9 +54,17 @@ import ai.rideos.android.interactors.UserStorageHistoricalSearchInteractor;
 import ai.rideos.android.rider_app.MainFragment;
 import ai.rideos.android.rider_app.R;
 import ai.rideos.android.rider_app.developer_settings.RiderDeveloperOptionsFragment;
+import ai.rideos.android.settings.RiderMetadataKeys;
 import android.content.Context;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class DefaultRiderDependencyFactory extends DefaultCommonDependencyFactory implements RiderDependencyFactory {
+    // Shared by every route interactor, so that all screens benefit from each other's routes
+    private static final RouteCache ROUTE_CACHE = new RouteCache();
+    // Shared by every racing route interactor, so that provider rankings carry over between screens
+    private static final RouteProviderStats ROUTE_PROVIDER_STATS = new RouteProviderStats();
+
     @Override
     public AvailableVehicleInteractor getAvailableVehicleInteractor(final Context context) {
         return new DefaultAvailableVehicleInteractor(ChannelProvider.getChannelSupplierForContext(context), User.get(context));
@@ -63,6 +80,15 @@ public class DefaultRiderDependencyFactory extends DefaultCommonDependencyFactor
         return new DefaultPreviewVehicleInteractor(ChannelProvider.getChannelSupplierForContext(context), User.get(context));
     }
 
+    @Override
+    public EtaInteractor getEtaInteractor(final Context context) {
+        // ETAs always come from the rideOS path service, which accepts routes with many waypoints
+        return new CachingEtaInteractor(new RouteEtaInteractor(
+            new RideOsRouteInteractor(ChannelProvider.getChannelSupplierForContext(context), User.get(context)),
+            new StraightLineEtaInteractor()
+        ));
+    }
+
     @Override
     public StopInteractor getStopInteractor(final Context context) {
         return new DefaultStopInteractor(ChannelProvider.getChannelSupplierForContext(context), User.get(context));
@@ -125,6 +151,24 @@ public class DefaultRiderDependencyFactory extends DefaultCommonDependencyFactor
 
     @Override
     public RouteInteractor getRouteInteractor(final Context context) {
-        return new RideOsRouteInteractor(ChannelProvider.getChannelSupplierForContext(context), User.get(context));
+        final RouteInteractor rideOsRouteInteractor = new RideOsRouteInteractor(
+            ChannelProvider.getChannelSupplierForContext(context),
+            User.get(context)
+        );
+        final boolean shouldRaceRouteProviders = new MetadataReader(context)
+            .getBooleanMetadata(RiderMetadataKeys.RACE_ROUTE_PROVIDERS_KEY)
+            .getOrDefault(false);
+        if (!shouldRaceRouteProviders) {
+            return withOfflineRouteFallback(context, new CachingRouteInteractor(rideOsRouteInteractor, ROUTE_CACHE));
+        }
+        final Map<String, RouteInteractor> routeProviders = new LinkedHashMap<>();
+        routeProviders.put("rideos", rideOsRouteInteractor);
+        routeProviders.put("mapbox", new MapboxRouteInteractor(context));
+        final RouteInteractor racingRouteInteractor = new RacingRouteInteractor(
+            routeProviders,
+            ROUTE_PROVIDER_STATS,
+            RacingRouteInteractor.Settings.defaults()
+        );
+        return withOfflineRouteFallback(context, new CachingRouteInteractor(racingRouteInteractor, ROUTE_CACHE));
     }
 }
@@ -17,6 +17,7 @@ package ai.rideos.android.rider_app.dependency;
 
 import ai.rideos.android.common.app.dependency.CommonDependencyFactory;
 import ai.rideos.android.common.app.menu_navigator.MenuOptionFragmentRegistry;
+import ai.rideos.android.common.interactors.EtaInteractor;
 import ai.rideos.android.interactors.AvailableVehicleInteractor;
 import ai.rideos.android.interactors.HistoricalSearchInteractor;
 import ai.rideos.android.interactors.PreviewVehicleInteractor;
@@ -32,6 +33,8 @@ public interface RiderDependencyFactory extends CommonDependencyFactory {
 
     PreviewVehicleInteractor getPreviewVehicleInteractor(final Context context);
 
+    EtaInteractor getEtaInteractor(final Context context);
+
     StopInteractor getStopInteractor(final Context context);
 
     HistoricalSearchInteractor getHistoricalSearchInteractor(final Context context);
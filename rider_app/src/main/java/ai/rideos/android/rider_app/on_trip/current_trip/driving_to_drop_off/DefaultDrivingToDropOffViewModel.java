@@ -15,6 +15,9 @@
  */
 package ai.rideos.android.rider_app.on_trip.current_trip.driving_to_drop_off;
 
+import ai.rideos.android.common.location.RouteProgressTracker;
+import ai.rideos.android.common.location.RouteProgressTracker.RouteProgress;
+import ai.rideos.android.common.model.RouteInfoModel;
 import ai.rideos.android.common.model.map.CameraUpdate;
 import ai.rideos.android.common.model.map.CenterPin;
 import ai.rideos.android.common.model.map.DrawableMarker;
@@ -36,9 +39,11 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 public class DefaultDrivingToDropOffViewModel implements DrivingToDropOffViewModel {
     private final BehaviorSubject<TripStateModel> passengerStateSubject = BehaviorSubject.create();
+    private final RouteProgressTracker progressTracker = new RouteProgressTracker();
     private final ResourceProvider resourceProvider;
     private final DateFormat preferredDateFormat;
     private final SchedulerProvider schedulerProvider;
@@ -65,7 +70,11 @@ public class DefaultDrivingToDropOffViewModel implements DrivingToDropOffViewMod
     public Observable<String> getRouteDetailText() {
         return passengerStateSubject.observeOn(schedulerProvider.computation())
             .filter(state -> state.getVehicleRouteInfo().isPresent())
-            .map(passengerState -> getEtaText(passengerState.getVehicleRouteInfo().get().getTravelTimeMillis()));
+            .map(passengerState -> getEtaText(
+                getVehicleProgress(passengerState)
+                    .map(RouteProgress::getRemainingTimeMillis)
+                    .orElse(passengerState.getVehicleRouteInfo().get().getTravelTimeMillis())
+            ));
     }
 
     @Override
@@ -79,7 +88,7 @@ public class DefaultDrivingToDropOffViewModel implements DrivingToDropOffViewMod
             .filter(state -> state.getVehicleRouteInfo().isPresent())
             .map(passengerState -> CameraUpdate.fitToBounds(
                 Paths.getBoundsForPath(
-                    passengerState.getVehicleRouteInfo().get().getRoute(),
+                    passengerState.getVehicleRouteInfo().get().getPath(),
                     passengerState.getPassengerDropOffLocation()
                 )
             ));
@@ -112,11 +121,24 @@ public class DefaultDrivingToDropOffViewModel implements DrivingToDropOffViewMod
         return passengerStateSubject.observeOn(schedulerProvider.computation())
             .filter(state -> state.getVehicleRouteInfo().isPresent())
             .map(passengerState -> Collections.singletonList(DrawablePaths.getActivePath(
-                passengerState.getVehicleRouteInfo().get().getRoute(),
+                getVehicleProgress(passengerState)
+                    .map(RouteProgress::getRemainingPath)
+                    .orElse(passengerState.getVehicleRouteInfo().get().getPath()),
                 resourceProvider
             )));
     }
 
+    /**
+     * The vehicle's progress along its route, or empty if its position is unknown or it is off the route. The route
+     * is only updated when the vehicle's plan is uploaded again, so this keeps the ETA and path current in between.
+     */
+    private Optional<RouteProgress> getVehicleProgress(final TripStateModel passengerState) {
+        final RouteInfoModel route = passengerState.getVehicleRouteInfo().get();
+        return passengerState.getVehiclePosition()
+            .map(position -> progressTracker.update(route, position.getLatLng()))
+            .filter(progress -> !progress.isOffRoute());
+    }
+
     private String getEtaText(final long vehicleTravelTimeMillis) {
         final Calendar calendar = Calendar.getInstance();
         calendar.add(Calendar.MILLISECOND, (int) vehicleTravelTimeMillis);
@@ -15,7 +15,10 @@
  */
 package ai.rideos.android.rider_app.on_trip.current_trip.driving_to_pickup;
 
+import ai.rideos.android.common.location.RouteProgressTracker;
+import ai.rideos.android.common.location.RouteProgressTracker.RouteProgress;
 import ai.rideos.android.common.model.LatLng;
+import ai.rideos.android.common.model.RouteInfoModel;
 import ai.rideos.android.common.model.map.CameraUpdate;
 import ai.rideos.android.common.model.map.CenterPin;
 import ai.rideos.android.common.model.map.DrawableMarker;
@@ -40,6 +43,7 @@ import java.util.concurrent.TimeUnit;
 
 public class DefaultDrivingToPickupViewModel implements DrivingToPickupViewModel {
     private final BehaviorSubject<TripStateModel> passengerStateSubject = BehaviorSubject.create();
+    private final RouteProgressTracker progressTracker = new RouteProgressTracker();
     private final ResourceProvider resourceProvider;
     private final SchedulerProvider schedulerProvider;
 
@@ -66,7 +70,9 @@ public class DefaultDrivingToPickupViewModel implements DrivingToPickupViewModel
 
                 final Optional<String> queuingText = getQueuingText(passengerState.getWaypoints());
                 final String travelTimeText = getTravelTimeText(
-                    passengerState.getVehicleRouteInfo().get().getTravelTimeMillis()
+                    getVehicleProgress(passengerState)
+                        .map(RouteProgress::getRemainingTimeMillis)
+                        .orElse(passengerState.getVehicleRouteInfo().get().getTravelTimeMillis())
                 );
                 if (queuingText.isPresent()) {
                     return resourceProvider.getString(
@@ -91,7 +97,7 @@ public class DefaultDrivingToPickupViewModel implements DrivingToPickupViewModel
             .filter(state -> state.getVehicleRouteInfo().isPresent())
             .map(passengerState -> CameraUpdate.fitToBounds(
                 Paths.getBoundsForPath(
-                    passengerState.getVehicleRouteInfo().get().getRoute(),
+                    passengerState.getVehicleRouteInfo().get().getPath(),
                     passengerState.getPassengerPickupLocation()
                 )
             ));
@@ -123,11 +129,24 @@ public class DefaultDrivingToPickupViewModel implements DrivingToPickupViewModel
         return passengerStateSubject.observeOn(schedulerProvider.computation())
             .filter(state -> state.getVehicleRouteInfo().isPresent())
             .map(passengerState -> Collections.singletonList(DrawablePaths.getActivePath(
-                passengerState.getVehicleRouteInfo().get().getRoute(),
+                getVehicleProgress(passengerState)
+                    .map(RouteProgress::getRemainingPath)
+                    .orElse(passengerState.getVehicleRouteInfo().get().getPath()),
                 resourceProvider
             )));
     }
 
+    /**
+     * The vehicle's progress along its route, or empty if its position is unknown or it is off the route. The route
+     * is only updated when the vehicle's plan is uploaded again, so this keeps the ETA and path current in between.
+     */
+    private Optional<RouteProgress> getVehicleProgress(final TripStateModel passengerState) {
+        final RouteInfoModel route = passengerState.getVehicleRouteInfo().get();
+        return passengerState.getVehiclePosition()
+            .map(position -> progressTracker.update(route, position.getLatLng()))
+            .filter(progress -> !progress.isOffRoute());
+    }
+
     private String getTravelTimeText(final long vehicleTravelTimeMillis) {
         final int minutes = (int) TimeUnit.MILLISECONDS.toMinutes(vehicleTravelTimeMillis);
         if (minutes == 0) {
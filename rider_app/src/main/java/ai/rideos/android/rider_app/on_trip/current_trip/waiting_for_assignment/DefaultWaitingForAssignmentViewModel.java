@@ -84,7 +84,7 @@ public class DefaultWaitingForAssignmentViewModel implements WaitingForAssignmen
     @Override
     public Observable<CameraUpdate> getCameraUpdates() {
         return routeInfoSubject.observeOn(schedulerProvider.computation())
-            .map(routeInfo -> CameraUpdate.fitToBounds(Paths.getBoundsForPath(routeInfo.getRoute())))
+            .map(routeInfo -> CameraUpdate.fitToBounds(Paths.getBoundsForPath(routeInfo.getPath())))
             .toObservable();
     }
 
@@ -99,7 +99,7 @@ public class DefaultWaitingForAssignmentViewModel implements WaitingForAssignmen
     public Observable<List<DrawablePath>> getPaths() {
         return routeInfoSubject.observeOn(schedulerProvider.computation())
             .map(routeInfo -> Collections.singletonList(DrawablePaths.getInactivePath(
-                routeInfo.getRoute(),
+                routeInfo.getPath(),
                 resourceProvider
             )))
             .toObservable();
@@ -188,7 +188,7 @@ public class DefaultConfirmTripViewModel implements ConfirmTripViewModel {
             .map(routeResponse -> {
                 final PickupDropOff pudo = pickupDropOffSubject.getValue();
                 final LatLngBounds bounds = Paths.getBoundsForPath(
-                    routeResponse.get().getRoute(),
+                    routeResponse.get().getPath(),
                     pudo.pickup,
                     pudo.dropOff
                 );
@@ -210,7 +210,7 @@ public class DefaultConfirmTripViewModel implements ConfirmTripViewModel {
             .observeOn(schedulerProvider.computation())
             .filter(Result::isSuccess)
             .map(routeResponse -> Collections.singletonList(DrawablePaths.getInactivePath(
-                routeResponse.get().getRoute(),
+                routeResponse.get().getPath(),
                 resourceProvider
             )));
     }
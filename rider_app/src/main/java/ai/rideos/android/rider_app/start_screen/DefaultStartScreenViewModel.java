@@ -16,6 +16,9 @@
 package ai.rideos.android.rider_app.start_screen;
 
 import ai.rideos.android.common.device.DeviceLocator;
+import ai.rideos.android.common.interactors.EtaInteractor;
+import ai.rideos.android.common.location.DistanceCalculator;
+import ai.rideos.android.common.location.HaversineDistanceCalculator;
 import ai.rideos.android.common.model.FleetInfo;
 import ai.rideos.android.common.model.LatLng;
 import ai.rideos.android.common.model.LocationAndHeading;
@@ -35,8 +38,11 @@ import androidx.core.util.Pair;
 import io.reactivex.Observable;
 import io.reactivex.subjects.BehaviorSubject;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import timber.log.Timber;
@@ -44,42 +50,56 @@ import timber.log.Timber;
 public class DefaultStartScreenViewModel implements StartScreenViewModel {
     private static final float ZOOM_LEVEL = 15;
     private static final int POLLING_INTERVAL_MILLI = 5000;
+    // Only the vehicles closest in a straight line are estimated, since one of them is almost always nearest by road
+    private static final int MAX_VEHICLES_TO_ESTIMATE = 5;
 
     private final BehaviorSubject<LatLng> currentMapCenterSubject = BehaviorSubject.create();
     private final Observable<LatLng> currentLocation;
     private final PreviewVehicleInteractor vehicleInteractor;
+    private final EtaInteractor etaInteractor;
     private final Observable<FleetInfo> observableFleet;
     private final SchedulerProvider schedulerProvider;
     private final StartScreenListener listener;
     private final int pollingIntervalMilli;
+    private final DistanceCalculator distanceCalculator;
+    private final Observable<List<VehiclePosition>> vehiclePositions;
 
     public DefaultStartScreenViewModel(final StartScreenListener listener,
                                        final DeviceLocator deviceLocation,
                                        final PreviewVehicleInteractor vehicleInteractor,
+                                       final EtaInteractor etaInteractor,
                                        final Observable<FleetInfo> observableFleet) {
         this(
             listener,
             deviceLocation,
             vehicleInteractor,
+            etaInteractor,
             observableFleet,
             new DefaultSchedulerProvider(),
-            POLLING_INTERVAL_MILLI
+            POLLING_INTERVAL_MILLI,
+            new HaversineDistanceCalculator()
         );
     }
 
     public DefaultStartScreenViewModel(final StartScreenListener listener,
                                        final DeviceLocator deviceLocation,
                                        final PreviewVehicleInteractor vehicleInteractor,
+                                       final EtaInteractor etaInteractor,
                                        final Observable<FleetInfo> observableFleet,
                                        final SchedulerProvider schedulerProvider,
-                                       final int pollingIntervalMilli) {
+                                       final int pollingIntervalMilli,
+                                       final DistanceCalculator distanceCalculator) {
         this.listener = listener;
         this.vehicleInteractor = vehicleInteractor;
+        this.etaInteractor = etaInteractor;
         this.observableFleet = observableFleet;
         this.schedulerProvider = schedulerProvider;
         this.pollingIntervalMilli = pollingIntervalMilli;
+        this.distanceCalculator = distanceCalculator;
         this.currentLocation = deviceLocation.observeCurrentLocation(pollingIntervalMilli)
             .map(LocationAndHeading::getLatLng);
+        // Markers and travel times share one poll of the nearby vehicles
+        this.vehiclePositions = observeVehiclePositions().replay(1).refCount();
     }
 
     @Override
@@ -113,7 +133,32 @@ public class DefaultStartScreenViewModel implements StartScreenViewModel {
 
     @Override
     public Observable<Map<String, DrawableMarker>> getMarkers() {
-        final Observable<List<VehiclePosition>> periodicVehicleObservable = Observable.combineLatest(
+        return vehiclePositions
+            .map(DefaultStartScreenViewModel::getMarkersFromVehiclePositions);
+    }
+
+    @Override
+    public Observable<Optional<Long>> getNearestVehicleTravelTimeMillis() {
+        // Only estimate when vehicles are polled, not every time the rider's location updates
+        return vehiclePositions.withLatestFrom(currentLocation, Pair::create)
+            .observeOn(schedulerProvider.computation())
+            .switchMap(vehiclesAndPickup -> {
+                final Map<String, LatLng> nearestVehicles = getNearestVehicles(
+                    vehiclesAndPickup.first,
+                    vehiclesAndPickup.second
+                );
+                if (nearestVehicles.isEmpty()) {
+                    return Observable.just(Optional.<Long>empty());
+                }
+                return etaInteractor.getTravelTimesMillis(nearestVehicles, vehiclesAndPickup.second)
+                    .map(travelTimes -> travelTimes.values().stream().min(Long::compare))
+                    .doOnError(e -> Timber.e(e, "Error estimating vehicle travel times for start screen"))
+                    .onErrorReturnItem(Optional.empty());
+            });
+    }
+
+    private Observable<List<VehiclePosition>> observeVehiclePositions() {
+        return Observable.combineLatest(
             Observable.interval(0, pollingIntervalMilli, TimeUnit.MILLISECONDS, schedulerProvider.io())
                 .timeInterval(),
             currentMapCenterSubject,
@@ -130,9 +175,20 @@ public class DefaultStartScreenViewModel implements StartScreenViewModel {
             )
             .filter(Result::isSuccess)
             .map(Result::get);
+    }
 
-        return periodicVehicleObservable
-            .map(DefaultStartScreenViewModel::getMarkersFromVehiclePositions);
+    private Map<String, LatLng> getNearestVehicles(final List<VehiclePosition> vehicles, final LatLng pickup) {
+        return vehicles.stream()
+            .sorted(Comparator.comparingDouble(
+                vehiclePosition -> distanceCalculator.getDistanceInMeters(vehiclePosition.getPosition(), pickup)
+            ))
+            .limit(MAX_VEHICLES_TO_ESTIMATE)
+            .collect(Collectors.toMap(
+                VehiclePosition::getVehicleId,
+                VehiclePosition::getPosition,
+                (first, second) -> first,
+                LinkedHashMap::new
+            ));
     }
 
     private static Map<String, DrawableMarker> getMarkersFromVehiclePositions(
@@ -158,5 +214,6 @@ public class DefaultStartScreenViewModel implements StartScreenViewModel {
     @Override
     public void destroy() {
         this.vehicleInteractor.shutDown();
+        this.etaInteractor.shutDown();
     }
 }
@@ -34,8 +34,12 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageButton;
+import android.widget.TextView;
 import androidx.annotation.NonNull;
+import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.CompositeDisposable;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 public class StartScreenFragment extends FragmentViewController<EmptyArg, StartScreenListener> {
     private CompositeDisposable compositeDisposable;
@@ -53,6 +57,7 @@ public class StartScreenFragment extends FragmentViewController<EmptyArg, StartS
             getListener(),
             new FusedLocationDeviceLocator(getContext()),
             RiderDependencyRegistry.riderDependencyFactory().getPreviewVehicleInteractor(getContext()),
+            RiderDependencyRegistry.riderDependencyFactory().getEtaInteractor(getContext()),
             ResolvedFleet.get().observeFleetInfo()
         );
     }
@@ -89,10 +94,27 @@ public class StartScreenFragment extends FragmentViewController<EmptyArg, StartS
         final View enterDestinationCard = getView().findViewById(R.id.enter_destination_card);
         enterDestinationCard.setOnClickListener(click -> viewModel.startDestinationSearch());
 
+        final TextView nearestVehicleTimeText = getView().findViewById(R.id.nearest_vehicle_time_text);
+
         compositeDisposable = new CompositeDisposable();
-        compositeDisposable.add(
-            MapRelay.get().connectToProvider(viewModel, viewModel::setCurrentMapCenter)
+        compositeDisposable.addAll(
+            MapRelay.get().connectToProvider(viewModel, viewModel::setCurrentMapCenter),
+            viewModel.getNearestVehicleTravelTimeMillis().observeOn(AndroidSchedulers.mainThread())
+                .subscribe(travelTime -> showNearestVehicleTravelTime(nearestVehicleTimeText, travelTime))
+        );
+    }
+
+    private void showNearestVehicleTravelTime(final TextView textView, final Optional<Long> travelTimeMillis) {
+        if (!travelTimeMillis.isPresent()) {
+            textView.setVisibility(View.GONE);
+            return;
+        }
+        final int minutes = (int) TimeUnit.MILLISECONDS.toMinutes(travelTimeMillis.get());
+        textView.setText(minutes == 0
+            ? getString(R.string.start_screen_nearest_vehicle_arriving_text)
+            : getString(R.string.start_screen_nearest_vehicle_time_text, minutes)
         );
+        textView.setVisibility(View.VISIBLE);
     }
 
     @Override
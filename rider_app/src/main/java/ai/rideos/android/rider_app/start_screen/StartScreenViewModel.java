@@ -18,10 +18,18 @@ package ai.rideos.android.rider_app.start_screen;
 import ai.rideos.android.common.model.LatLng;
 import ai.rideos.android.common.viewmodel.ViewModel;
 import ai.rideos.android.common.viewmodel.map.MapStateProvider;
+import io.reactivex.Observable;
+import java.util.Optional;
 
 public interface StartScreenViewModel extends MapStateProvider, ViewModel {
 
     void setCurrentMapCenter(final LatLng center);
 
     void startDestinationSearch();
+
+    /**
+     * Observe how long the nearest vehicle would take to reach the rider's current location, or empty if there are no
+     * vehicles nearby.
+     */
+    Observable<Optional<Long>> getNearestVehicleTravelTimeMillis();
 }
@@ -18,4 +18,5 @@ package ai.rideos.android.settings;
 public class RiderMetadataKeys {
     public static final String DISABLE_SEAT_SELECTION_KEY = "rideos_disable_seat_selection";
     public static final String ENABLE_FIXED_LOCATIONS_METADATA_KEY = "rideos_fixed_locations";
+    public static final String RACE_ROUTE_PROVIDERS_KEY = "rideos_race_route_providers";
 }
@@ -18,6 +18,7 @@ package ai.rideos.android.interactors;
 import ai.rideos.android.common.authentication.User;
 import ai.rideos.android.common.model.LatLng;
 import ai.rideos.android.common.model.LocationAndHeading;
+import ai.rideos.android.common.model.PackedPath;
 import ai.rideos.android.common.model.RouteInfoModel;
 import ai.rideos.android.common.reactive.SchedulerProviders.TrampolineSchedulerProvider;
 import ai.rideos.android.common.utils.Locations;
@@ -121,9 +122,9 @@ public class DefaultRiderTripStateInteractorTest {
 
         final PolylineDecoder polylineDecoder = Mockito.mock(PolylineDecoder.class);
         Mockito.when(polylineDecoder.decode(ROUTE_TO_PICKUP.getPolyline()))
-            .thenReturn(Collections.singletonList(ORIGIN));
+            .thenReturn(PackedPath.fromLatLngs(Collections.singletonList(ORIGIN)));
         Mockito.when(polylineDecoder.decode(ROUTE_TO_DROP_OFF.getPolyline()))
-            .thenReturn(Collections.singletonList(DESTINATION));
+            .thenReturn(PackedPath.fromLatLngs(Collections.singletonList(DESTINATION)));
 
         interactorUnderTest = new DefaultRiderTripStateInteractor(
             () -> channel,
@@ -16,6 +16,7 @@
 package ai.rideos.android.rider_app.start_screen;
 
 import ai.rideos.android.common.device.DeviceLocator;
+import ai.rideos.android.common.interactors.EtaInteractor;
 import ai.rideos.android.common.model.FleetInfo;
 import ai.rideos.android.common.model.LatLng;
 import ai.rideos.android.common.model.LocationAndHeading;
@@ -39,6 +40,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
@@ -58,19 +60,27 @@ public class DefaultStartScreenViewModelTest {
     private static final String FLEET_ID = "fleet-1";
     private static final int POLLING_INTERVAL_MILLI = 100;
     private static final int RETRY_COUNT = 1;
+    private static final long VEHICLE_TRAVEL_TIME_MILLIS = 120000;
 
     private PreviewVehicleInteractor mockVehicleInteractor;
+    private EtaInteractor mockEtaInteractor;
     private StartScreenListener listener;
 
     @Before
     public void setUp() {
         mockVehicleInteractor = Mockito.mock(PreviewVehicleInteractor.class);
+        mockEtaInteractor = Mockito.mock(EtaInteractor.class);
         listener = Mockito.mock(StartScreenListener.class);
 
         Mockito.when(mockVehicleInteractor.getVehiclesInVicinity(CURRENT_LOCATION.getLatLng(), FLEET_ID))
             .thenReturn(Observable.just(Collections.singletonList(
                 new VehiclePosition(VEHICLE_ID, VEHICLE_LOCATION.getLatLng(), VEHICLE_LOCATION.getHeading())
             )));
+        Mockito.when(mockEtaInteractor.getTravelTimesMillis(
+            Collections.singletonMap(VEHICLE_ID, VEHICLE_LOCATION.getLatLng()),
+            CURRENT_LOCATION.getLatLng()
+        ))
+            .thenReturn(Observable.just(Collections.singletonMap(VEHICLE_ID, VEHICLE_TRAVEL_TIME_MILLIS)));
     }
 
     @Test
@@ -152,6 +162,43 @@ public class DefaultStartScreenViewModelTest {
         markerObserver.assertValueCount(1);
     }
 
+    @Test
+    public void testGetNearestVehicleTravelTimeEstimatesNearbyVehicles() {
+        final TestScheduler testScheduler = new TestScheduler();
+        final DefaultStartScreenViewModel viewModelUnderTest = createViewModelForScheduler(
+            new SchedulerProviders.TestSchedulerProvider(testScheduler)
+        );
+
+        final TestObserver<Optional<Long>> travelTimeObserver =
+            viewModelUnderTest.getNearestVehicleTravelTimeMillis().test();
+
+        viewModelUnderTest.setCurrentMapCenter(CURRENT_LOCATION.getLatLng());
+        testScheduler.advanceTimeBy(0, TimeUnit.MILLISECONDS); // wait for initial delay of 0
+
+        travelTimeObserver.assertValueCount(1)
+            .assertValueAt(0, Optional.of(VEHICLE_TRAVEL_TIME_MILLIS));
+    }
+
+    @Test
+    public void testGetNearestVehicleTravelTimeIsEmptyWithoutVehicles() {
+        final TestScheduler testScheduler = new TestScheduler();
+        final DefaultStartScreenViewModel viewModelUnderTest = createViewModelForScheduler(
+            new SchedulerProviders.TestSchedulerProvider(testScheduler)
+        );
+        Mockito.when(mockVehicleInteractor.getVehiclesInVicinity(CURRENT_LOCATION.getLatLng(), FLEET_ID))
+            .thenReturn(Observable.just(Collections.emptyList()));
+
+        final TestObserver<Optional<Long>> travelTimeObserver =
+            viewModelUnderTest.getNearestVehicleTravelTimeMillis().test();
+
+        viewModelUnderTest.setCurrentMapCenter(CURRENT_LOCATION.getLatLng());
+        testScheduler.advanceTimeBy(0, TimeUnit.MILLISECONDS); // wait for initial delay of 0
+
+        travelTimeObserver.assertValueCount(1)
+            .assertValueAt(0, Optional.empty());
+        Mockito.verifyZeroInteractions(mockEtaInteractor);
+    }
+
     @Test
     public void testSearchDestinationClickedStartsPreTripFlow() {
         final DefaultStartScreenViewModel viewModelUnderTest = createViewModelForScheduler(
@@ -169,9 +216,11 @@ public class DefaultStartScreenViewModelTest {
             listener,
             deviceLocation,
             mockVehicleInteractor,
+            mockEtaInteractor,
             Observable.just(new FleetInfo(FLEET_ID)),
             schedulerProvider,
-            POLLING_INTERVAL_MILLI
+            POLLING_INTERVAL_MILLI,
+            (origin, destination) -> 0
         );
     }
 